@@ -1,8 +1,246 @@
 package com.study;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
-import javax.sql.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Entry point to the relational database: a small JDBC connection pool.
+ * Connections are opened lazily up to a fixed pool size and handed out as {@link PooledConnection}s,
+ * which keep their prepared statements cached for the lifetime of the physical connection.
+ * */
+public class FirstDB implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Maximum number of prepared statements cached per connection.
+     * */
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int poolSize;
+
+    private final BlockingQueue<PooledConnection> idle;
+
+    private final AtomicInteger opened = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    public FirstDB(String url, String user, String password) {
+        this(url, user, password, DEFAULT_POOL_SIZE);
+    }
+
+    public FirstDB(String url, String user, String password, int poolSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.poolSize = poolSize;
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * Takes a connection from the pool, opening a new one while the pool is not full.
+     * Closing the returned connection gives it back to the pool.
+     * @return a connection in auto-commit mode.
+     * @throws SQLException if no connection could be opened or none became free in time.
+     * */
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        PooledConnection connection = idle.poll();
+        if (connection == null) {
+            connection = open();
+        }
+        if (connection == null) {
+            try {
+                connection = idle.poll(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            }
+            if (connection == null) {
+                throw new SQLException("No connection available after " + BORROW_TIMEOUT_SECONDS + "s");
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Runs an SQL script from the classpath, statement by statement.
+     * @param resource | The classpath location of the script.
+     * @throws SQLException if a statement fails or the script cannot be read.
+     * */
+    public void runScript(String resource) throws SQLException {
+        String script;
+        try (InputStream in = FirstDB.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new SQLException("Script not found: " + resource);
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Cannot read script " + resource, e);
+        }
+        try (PooledConnection connection = borrow();
+             Statement statement = connection.unwrap().createStatement()) {
+            for (String sql : script.split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+        LOGGER.debug("Executed script {}", resource);
+    }
+
+    /**
+     * Closes all idle connections. Connections still borrowed are closed when they are given back.
+     * */
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.closePhysical();
+        }
+        LOGGER.debug("Closed connection pool {}", url);
+    }
+
+    private PooledConnection open() throws SQLException {
+        int count;
+        do {
+            count = opened.get();
+            if (count >= poolSize) {
+                return null;
+            }
+        } while (!opened.compareAndSet(count, count + 1));
+        try {
+            LOGGER.debug("Opening connection {} of {} to {}", count + 1, poolSize, url);
+            return new PooledConnection(DriverManager.getConnection(url, user, password));
+        } catch (SQLException e) {
+            opened.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void giveBack(PooledConnection connection) {
+        if (closed || !idle.offer(connection)) {
+            connection.closePhysical();
+        }
+    }
+
+    /**
+     * A connection borrowed from {@link FirstDB}.
+     * Prepared statements created through {@link #prepare(String)} are cached and reused,
+     * so callers must not close them.
+     * */
+    public final class PooledConnection implements AutoCloseable {
+
+        private final Connection connection;
+
+        private final Map<String, PreparedStatement> statements =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                        if (size() > STATEMENT_CACHE_SIZE) {
+                            closeQuietly(eldest.getValue());
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Returns a cached prepared statement for the SQL, preparing it on first use.
+         * @param sql | The SQL of the statement.
+         * @return a statement with cleared parameters and batch.
+         * @throws SQLException if the statement cannot be prepared.
+         * */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            return prepare(sql, Statement.NO_GENERATED_KEYS);
+        }
+
+        /**
+         * Returns a cached prepared statement that reports generated keys.
+         * @param sql | The SQL of the statement.
+         * @return a statement with cleared parameters and batch.
+         * @throws SQLException if the statement cannot be prepared.
+         * */
+        public PreparedStatement prepareReturningKeys(String sql) throws SQLException {
+            return prepare(sql, Statement.RETURN_GENERATED_KEYS);
+        }
+
+        private PreparedStatement prepare(String sql, int generatedKeys) throws SQLException {
+            String key = generatedKeys + sql;
+            PreparedStatement statement = statements.get(key);
+            if (statement == null || statement.isClosed()) {
+                statement = connection.prepareStatement(sql, generatedKeys);
+                statements.put(key, statement);
+            } else {
+                statement.clearParameters();
+                statement.clearBatch();
+            }
+            return statement;
+        }
+
+        /**
+         * Gives access to the physical connection, e.g. for transaction control.
+         * @return the underlying JDBC connection.
+         * */
+        public Connection unwrap() {
+            return connection;
+        }
 
+        /**
+         * Returns the connection to the pool. An unfinished transaction is rolled back.
+         * */
+        @Override
+        public void close() {
+            try {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                giveBack(this);
+            } catch (SQLException e) {
+                LOGGER.warn("Discarding broken connection to {}", url, e);
+                closePhysical();
+            }
+        }
 
-public class FirstDB {
+        private void closePhysical() {
+            statements.values().forEach(FirstDB::closeQuietly);
+            statements.clear();
+            closeQuietly(connection);
+            opened.decrementAndGet();
+        }
+    }
 
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            LOGGER.debug("Failed to close {}", closeable, e);
+        }
+    }
 }
@@ -1,5 +1,4 @@
 package com.study.domain;
-import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
@@ -9,8 +8,9 @@ import java.util.Set;
  * */
 public class AgeGroup {
     private int id;
+    private long version; //incremented by every conditional update
     private String type;
-    private Set<Ticket> tickets = new HashSet<>();
+    private Set<Ticket> tickets = new TicketSet();
 
     public AgeGroup() { }
 
@@ -45,6 +45,19 @@ public class AgeGroup {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public AgeGroup version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Set<Ticket> getTickets() {
         return tickets;
     }
@@ -53,6 +66,7 @@ public class AgeGroup {
     /**
      * Sets the set of tickets associated with the age group.
      * If the age group already has tickets, it disassociates them before setting the new tickets.
+     * The given tickets are copied into a {@link TicketSet}.
      *
      * @param tickets the set of tickets to associate with the age group
      * */
@@ -67,7 +81,7 @@ public class AgeGroup {
                 ticket.setAgeGroup(this);
             }
         }
-        this.tickets = tickets;
+        this.tickets = tickets != null ? new TicketSet(tickets) : null;
     }
 
 
@@ -1,7 +1,6 @@
 package com.study.domain;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
@@ -14,12 +13,13 @@ import java.util.Set;
 
 public class Discount {
     private int id;
+    private long version; //incremented by every conditional update
     private String type;
     private Double percent;
     private LocalDate startAt; //optional
     private LocalDate endAt; //optional
 
-    private Set<Ticket> tickets = new HashSet<>();
+    private Set<Ticket> tickets = new TicketSet();
 
     public Discount(){ }
 
@@ -42,6 +42,19 @@ public class Discount {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Discount version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getType() {
         return type;
     }
@@ -101,6 +114,7 @@ public class Discount {
     /**
      * Sets the set of tickets associated with the discount.
      * If the discount already has tickets, it disassociates them before setting the new tickets.
+     * The given tickets are copied into a {@link TicketSet}.
      *
      * @param tickets the set of tickets to associate with the discount
      * */
@@ -115,7 +129,7 @@ public class Discount {
                 ticket.addDiscount(this);
             }
         }
-        this.tickets = tickets;
+        this.tickets = tickets != null ? new TicketSet(tickets) : null;
     }
 
     public void addTicket(Ticket ticket){
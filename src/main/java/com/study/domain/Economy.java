@@ -1,6 +1,5 @@
 package com.study.domain;
 
-import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
@@ -9,8 +8,9 @@ import java.util.Set;
  * */
 public class Economy {
     private int id;
+    private long version; //incremented by every conditional update
     private String type;
-    private Set<Ticket> tickets = new HashSet<>();
+    private Set<Ticket> tickets = new TicketSet();
 
     public Economy() { }
 
@@ -32,6 +32,19 @@ public class Economy {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Economy version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getType() {
         return type;
     }
@@ -52,6 +65,7 @@ public class Economy {
     /**
      * Sets the set of tickets associated with the economy class.
      * If the economy class already has tickets, it disassociates them before setting the new tickets.
+     * The given tickets are copied into a {@link TicketSet}.
      *
      * @param tickets the set of tickets to associate with the economy class
      * */
@@ -66,7 +80,7 @@ public class Economy {
                 ticket.setEconomy(this);
             }
         }
-        this.tickets = tickets;
+        this.tickets = tickets != null ? new TicketSet(tickets) : null;
     }
 
     public void addTicket(Ticket ticket){
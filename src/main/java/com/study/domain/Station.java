@@ -1,6 +1,5 @@
 package com.study.domain;
 
-import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
@@ -10,10 +9,11 @@ import java.util.Set;
  * */
 public class Station {
     private int id;
+    private long version; //incremented by every conditional update
     private String nameOfStation;
     private String addressLocation;
     private String stationPhone; //optional
-    private Set<Ticket> tickets = new HashSet<>();
+    private Set<Ticket> tickets = new TicketSet();
 
     public Station() { }
 
@@ -45,6 +45,19 @@ public class Station {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Station version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getNameOfStation() {
         return nameOfStation;
     }
@@ -82,6 +95,7 @@ public class Station {
     /**
      * Sets the set of tickets associated with the station.
      * If the station already has tickets, it disassociates them before setting the new tickets.
+     * The given tickets are copied into a {@link TicketSet}.
      *
      * @param tickets the set of tickets to associate with the station
      * */
@@ -98,7 +112,7 @@ public class Station {
                 ticket.setEndStation(this);
             }
         }
-        this.tickets = tickets;
+        this.tickets = tickets != null ? new TicketSet(tickets) : null;
     }
 
     public void addTicket(Ticket ticket){
@@ -13,11 +13,13 @@ import java.util.Set;
 
 public class Ticket {
     private int id;
+    private long version; //incremented by every conditional update
     private LocalDate departDateBooking;
     private LocalDate returnDateBooking; //optional
     private LocalDate registrationDateTicket;
     private LocalDate returnDateTicket; //optional
     private double price;
+    private int seatNumber; //optional
     private User user;
     private Station startStation;
     private Station endStation;
@@ -183,12 +185,76 @@ public class Ticket {
     }
 
     public Ticket id(int id){
-        this.id = id;
+        setId(id);
         return this;
     }
 
+    /**
+     * Sets the identifier of the ticket.
+     * The ticket sets of the train, stations, economy class, age group and discounts are keyed
+     * by ticket ID, so the ticket is removed from them under its old ID and added back under the new one.
+     *
+     * @param id the identifier to set
+     */
     public void setId(int id) {
+        if (this.id == id) {
+            return;
+        }
+        detachFromReferences();
         this.id = id;
+        attachToReferences();
+    }
+
+    /**
+     * Sets the identifier of a ticket that is stored outside the heap, e.g. as an off-heap record.
+     * Unlike {@link #setId(int)} the ticket is not added back to the ticket sets of its train, stations,
+     * economy class, age group and discounts under the new ID, and is removed from them under its old one,
+     * so those entities do not keep every stored ticket reachable on the heap.
+     *
+     * @param id the identifier to set
+     */
+    public void setDetachedId(int id) {
+        detachFromReferences();
+        this.id = id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Ticket version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    private void detachFromReferences() {
+        if (train != null) train.removeTicket(this);
+        if (startStation != null) startStation.removeTicket(this);
+        if (endStation != null) endStation.removeTicket(this);
+        if (economy != null) economy.removeTicket(this);
+        if (ageGroup != null) ageGroup.removeTicket(this);
+        if (discounts != null) {
+            for (Discount discount : discounts) {
+                discount.removeTicket(this);
+            }
+        }
+    }
+
+    private void attachToReferences() {
+        if (train != null) train.addTicket(this);
+        if (startStation != null) startStation.addTicket(this);
+        if (endStation != null) endStation.addTicket(this);
+        if (economy != null) economy.addTicket(this);
+        if (ageGroup != null) ageGroup.addTicket(this);
+        if (discounts != null) {
+            for (Discount discount : discounts) {
+                discount.addTicket(this);
+            }
+        }
     }
 
     public LocalDate getDepartDateBooking() {
@@ -225,6 +291,19 @@ public class Ticket {
         return returnDateTicket;
     }
 
+    public int getSeatNumber() {
+        return seatNumber;
+    }
+
+    public Ticket seatNumber(int seatNumber) {
+        this.seatNumber = seatNumber;
+        return this;
+    }
+
+    public void setSeatNumber(int seatNumber) {
+        this.seatNumber = seatNumber;
+    }
+
     public double getPrice() {
         return price;
     }
@@ -250,6 +329,7 @@ public class Ticket {
                 ", registrationDateTicket=" + registrationDateTicket +
                 ", returnDateTicket=" + returnDateTicket +
                 ", price=" + price +
+                ", seatNumber=" + seatNumber +
                 ", user=" + user +
                 ", startStation=" + startStation +
                 ", endStation=" + endStation +
@@ -273,6 +353,6 @@ public class Ticket {
 
     @Override
     public int hashCode() {
-        return getClass().hashCode();
+        return Integer.hashCode(id);
     }
 }
\ No newline at end of file
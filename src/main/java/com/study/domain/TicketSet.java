@@ -0,0 +1,229 @@
+package com.study.domain;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of tickets keyed by the primitive ticket ID.
+ * Used for the ticket back-references of {@link Train}, {@link Station}, {@link Economy},
+ * {@link AgeGroup} and {@link Discount}, so adding, removing or finding a ticket costs
+ * the same no matter how many tickets are already attached.
+ *
+ * Tickets are stored in an open-addressing table with linear probing over an {@code int[]}
+ * of IDs; removed slots are marked as deleted and reclaimed on the next rehash.
+ * Like {@link Ticket#equals(Object)}, two tickets with the same ID are the same element.
+ *
+ * The set is thread-safe: repositories re-key a ticket in the sets of its references when they
+ * assign its ID, so concurrent saves of tickets on the same train or station update one set at once.
+ * Every operation holds the monitor of the set; iterators walk a copy of the tickets taken when they
+ * are created, so they never throw {@link java.util.ConcurrentModificationException} and do not block writers.
+ * */
+public class TicketSet extends AbstractSet<Ticket> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * Marker for a slot whose ticket was removed.
+     * */
+    private static final Object DELETED = new Object();
+
+    private int[] ids;
+
+    /**
+     * Slot contents: null when free, {@link #DELETED} when removed, otherwise a {@link Ticket}.
+     * */
+    private Object[] tickets;
+
+    private int size;
+
+    private int deleted;
+
+    public TicketSet() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    public TicketSet(Collection<? extends Ticket> tickets) {
+        allocate(tableSizeFor(Math.max(DEFAULT_CAPACITY, tickets.size() * 2)));
+        addAll(tickets);
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Ticket ticket && containsId(ticket.getId());
+    }
+
+    /**
+     * Checks if a ticket with the given ID belongs to this set.
+     * @param id | The ticket ID to look for.
+     * @return true if the set holds a ticket with this ID, otherwise false.
+     * */
+    public synchronized boolean containsId(int id) {
+        return indexOf(id) >= 0;
+    }
+
+    @Override
+    public synchronized boolean add(Ticket ticket) {
+        int id = ticket.getId();
+        int mask = ids.length - 1;
+        int firstDeleted = -1;
+        for (int i = mix(id) & mask; ; i = (i + 1) & mask) {
+            Object slot = tickets[i];
+            if (slot == null) {
+                if (firstDeleted >= 0) {
+                    i = firstDeleted;
+                    deleted--;
+                }
+                ids[i] = id;
+                tickets[i] = ticket;
+                size++;
+                if ((size + deleted) * 4 >= ids.length * 3) {
+                    rehash(size * 4 >= ids.length * 2 ? ids.length * 2 : ids.length);
+                }
+                return true;
+            }
+            if (slot == DELETED) {
+                if (firstDeleted < 0) {
+                    firstDeleted = i;
+                }
+            } else if (ids[i] == id) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Ticket ticket && removeId(ticket.getId());
+    }
+
+    /**
+     * Removes the ticket with the given ID.
+     * @param id | The ID of the ticket to remove.
+     * @return true if a ticket was removed, otherwise false.
+     * */
+    public synchronized boolean removeId(int id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        if (size > 0 || deleted > 0) {
+            allocate(DEFAULT_CAPACITY);
+        }
+    }
+
+    @Override
+    public Iterator<Ticket> iterator() {
+        Ticket[] snapshot = toTicketArray();
+        return new Iterator<>() {
+            private int next;
+            private Ticket last;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.length;
+            }
+
+            @Override
+            public Ticket next() {
+                if (next >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                last = snapshot[next++];
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                removeId(last.getId());
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * Copies the tickets of the set, in table order.
+     * */
+    private synchronized Ticket[] toTicketArray() {
+        Ticket[] result = new Ticket[size];
+        int count = 0;
+        for (Object slot : tickets) {
+            if (slot != null && slot != DELETED) {
+                result[count++] = (Ticket) slot;
+            }
+        }
+        return result;
+    }
+
+    private int indexOf(int id) {
+        int mask = ids.length - 1;
+        for (int i = mix(id) & mask; ; i = (i + 1) & mask) {
+            Object slot = tickets[i];
+            if (slot == null) {
+                return -1;
+            }
+            if (slot != DELETED && ids[i] == id) {
+                return i;
+            }
+        }
+    }
+
+    private void removeAt(int index) {
+        tickets[index] = DELETED;
+        size--;
+        deleted++;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldIds = ids;
+        Object[] oldTickets = tickets;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldTickets.length; j++) {
+            Object slot = oldTickets[j];
+            if (slot != null && slot != DELETED) {
+                int i = mix(oldIds[j]) & mask;
+                while (tickets[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                ids[i] = oldIds[j];
+                tickets[i] = slot;
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        tickets = new Object[capacity];
+        size = 0;
+        deleted = 0;
+    }
+
+    /**
+     * Spreads sequential IDs over the table (Fibonacci hashing).
+     * */
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+}
@@ -1,6 +1,5 @@
 package com.study.domain;
 
-import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
@@ -10,9 +9,10 @@ import java.util.Set;
  * */
 public class Train {
     private int id;
+    private long version; //incremented by every conditional update
     private int amountOfSeats;
     private String trainModel; //optional
-    private Set<Ticket> tickets = new HashSet<>();
+    private Set<Ticket> tickets = new TicketSet();
     public Train(){ }
 
     public Train(int id, int amountOfSeats) {
@@ -33,6 +33,19 @@ public class Train {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Train version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getTrainModel() {
         return trainModel;
     }
@@ -66,6 +79,7 @@ public class Train {
     /**
      * Sets the set of tickets associated with the train.
      * If the train already has tickets, it disassociates them before setting the new tickets.
+     * The given tickets are copied into a {@link TicketSet}.
      *
      * @param tickets the set of tickets to associate with the train
      * */
@@ -80,7 +94,7 @@ public class Train {
                 ticket.setTrain(this);
             }
         }
-        this.tickets = tickets;
+        this.tickets = tickets != null ? new TicketSet(tickets) : null;
     }
 
     public void addTicket(Ticket ticket){
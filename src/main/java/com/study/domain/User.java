@@ -14,6 +14,7 @@ import java.util.Objects;
 
 public class User {
     private int id;
+    private long version; //incremented by every conditional update
     private String firstName;
     private String middleName; //optional
     private String lastName;
@@ -75,6 +76,19 @@ public class User {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public User version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -1,9 +1,11 @@
 package com.study.repository;
 
 import com.study.domain.AgeGroup;
+import com.study.repository.storage.EntityStore;
 
 import java.text.Collator;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -13,20 +15,39 @@ import org.apache.logging.log4j.LogManager;
 
 /**
  * Repository implementation for managing AgeGroup entities.
+ * Deleting an age group applies the {@link ReferencePolicy} of the repository to the tickets referencing it.
  * */
 public class AgeGroupRepository implements CrudRepository<AgeGroup> {
 
-    private static Logger LOGGER = LogManager.getLogger();
+    private static final Logger LOGGER = LogManager.getLogger();
 
     /**
-     * Counter to generate unique IDs for AgeGroup entities.
+     * Concurrent storage for AgeGroup entities, keyed by ID and generating unique IDs on save.
      * */
-    private static Integer id = 0;
+    private static final EntityStore<AgeGroup> groups = new EntityStore<>(AgeGroup::getId, AgeGroup::setId,
+            AgeGroup::getVersion, AgeGroup::setVersion);
+
+    private final TicketRepository ticketRepository = new TicketRepository();
+
+    /**
+     * What deleting a AgeGroup does to the tickets referencing it.
+     * */
+    private final ReferencePolicy onDelete;
+
+    /**
+     * Creates a repository refusing to delete age groups still referenced by tickets.
+     * */
+    public AgeGroupRepository() {
+        this(ReferencePolicy.RESTRICT);
+    }
 
     /**
-     * Storage for AgeGroup entities, using a HashMap with IDs as keys.
+     * Creates a repository applying a policy to the tickets referencing the age group entities it deletes.
+     * @param onDelete | What deleting a age group does to the tickets referencing it.
      * */
-    private static final Map<Integer, AgeGroup> groups = new HashMap<>();
+    public AgeGroupRepository(ReferencePolicy onDelete) {
+        this.onDelete = onDelete;
+    }
 
     /**
      * Saves a single AgeGroup entity.
@@ -36,21 +57,27 @@ public class AgeGroupRepository implements CrudRepository<AgeGroup> {
     @Override
     public AgeGroup save(AgeGroup ageGroup) {
         if (ageGroup != null) {
-            ageGroup.setId(++id);
-            groups.put(id, ageGroup);
-            LOGGER.debug("Saved AgeGroup with id {}", id);
+            groups.insert(ageGroup);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Saved AgeGroup with id {}", ageGroup.getId());
+            }
         }
         return ageGroup;
     }
 
     /**
      * Saves a list of AgeGroup entities.
+     * IDs for the whole list are reserved at once and one log line is written for the whole list.
      * @param ageGroups | The list of AgeGroup entities to be saved.
      * @return The list of saved AgeGroup entities.
      * */
     @Override
     public List<AgeGroup> saveAll(List<AgeGroup> ageGroups) {
-        return ageGroups.stream().map(this::save).toList();
+        int saved = groups.insertAll(ageGroups);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Saved {} AgeGroups", saved);
+        }
+        return ageGroups;
     }
 
 
@@ -61,7 +88,19 @@ public class AgeGroupRepository implements CrudRepository<AgeGroup> {
      * */
     @Override
     public Optional<AgeGroup> findById(Integer id){
-        LOGGER.debug("Finding AgeGroup with id {}", id);
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Retrieves a AgeGroup entity by its identifier, without boxing it.
+     * @param id The identifier of the AgeGroup entity to be retrieved.
+     * @return An optional containing the retrieved AgeGroup entity, or empty if not found.
+     * */
+    @Override
+    public Optional<AgeGroup> findById(int id){
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Finding AgeGroup with id {}", id);
+        }
         return Optional.ofNullable(groups.get(id));
     }
 
@@ -73,7 +112,47 @@ public class AgeGroupRepository implements CrudRepository<AgeGroup> {
      */
     @Override
     public List<AgeGroup> findAll(){
-        return groups.values().stream().toList();
+        return groups.values();
+    }
+
+    /**
+     * Retrieves one page of AgeGroup entities, ordered by ID.
+     * @param offset | The number of AgeGroup entities to skip.
+     * @param limit | The maximum number of AgeGroup entities in the page.
+     * @return a list with the AgeGroup entities of the page.
+     * */
+    @Override
+    public List<AgeGroup> findPage(int offset, int limit) {
+        return groups.page(offset, limit);
+    }
+
+    /**
+     * Retrieves the page of AgeGroup entities following the one with ID {@code afterId}, ordered by ID.
+     * @param afterId | The ID of the last AgeGroup of the previous page, or 0 for the first page.
+     * @param limit | The maximum number of AgeGroup entities in the page.
+     * @return a list with the AgeGroup entities of the page.
+     * */
+    @Override
+    public List<AgeGroup> findPageAfter(int afterId, int limit) {
+        return groups.pageAfter(afterId, limit);
+    }
+
+    /**
+     * Streams all AgeGroup entities lazily, ordered by ID.
+     * @return a stream of all AgeGroup entities.
+     * */
+    @Override
+    public Stream<AgeGroup> streamAll() {
+        return groups.stream();
+    }
+
+    /**
+     * Opens a snapshot of the AgeGroup entities as they are now; writes made meanwhile are not seen through it.
+     * @return an open snapshot of the AgeGroup entities, to be closed once read.
+     * */
+    @Override
+    public RepositorySnapshot<AgeGroup> snapshot() {
+        return RepositorySnapshot.of(groups.snapshot());
     }
 
     /**
@@ -83,8 +162,20 @@ public class AgeGroupRepository implements CrudRepository<AgeGroup> {
      * */
     @Override
     public boolean existById(Integer id){
-        boolean exist = id != null && groups.containsKey(id);
-        LOGGER.debug("Existence check for AgeGroup with id {}: {}", id, exist);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a AgeGroup entity with the given identifier exists, without boxing it.
+     * @param id The identifier of the AgeGroup entity to check.
+     * @return true if the AgeGroup entity exists, otherwise false.
+     * */
+    @Override
+    public boolean existById(int id){
+        boolean exist = groups.contains(id);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Existence check for AgeGroup with id {}: {}", id, exist);
+        }
         return exist;
     }
 
@@ -97,8 +188,7 @@ public class AgeGroupRepository implements CrudRepository<AgeGroup> {
     @Override
     public boolean updateId(Integer id, AgeGroup nwAgeGroup){
         if (nwAgeGroup != null && id != null){
-            groups.remove(id);
-            groups.put(nwAgeGroup.getId(), nwAgeGroup);
+            groups.replace(id, nwAgeGroup);
             LOGGER.debug("Updated AgeGroup with id {}", id);
             return true;
         }
@@ -106,14 +196,38 @@ public class AgeGroupRepository implements CrudRepository<AgeGroup> {
         return false;
     }
 
+    /**
+     * Updates a AgeGroup entity if it has not been changed since it was read.
+     * @param ageGroup The AgeGroup entity with the new values.
+     * @param expectedVersion The version of the AgeGroup entity when it was read.
+     * @return the outcome of the update; on success the version of ageGroup is incremented.
+     * */
+    @Override
+    public UpdateResult update(AgeGroup ageGroup, long expectedVersion) {
+        if (ageGroup == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        UpdateResult result = groups.update(ageGroup, expectedVersion);
+        if (result == UpdateResult.UPDATED) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Updated AgeGroup with id {} to version {}", ageGroup.getId(), ageGroup.getVersion());
+            }
+        } else {
+            LOGGER.warn("Failed to update AgeGroup with id {} from version {}: {}", ageGroup.getId(), expectedVersion, result);
+        }
+        return result;
+    }
+
     /**
      * Deletes an AgeGroup entity by its identifier.
+     * The tickets referencing it are first deleted, changed or checked according to the {@link ReferencePolicy} of this repository.
      * @param id The identifier of the AgeGroup entity to be deleted.
+     * @throws ReferentialIntegrityException if the policy is RESTRICT and tickets reference the AgeGroup.
      * */
     @Override
     public void deleteById(Integer id){
         if (id != null){
-            groups.remove(id);
+            resolveReferences(List.of(id), () -> groups.remove(id));
             LOGGER.debug("Deleted AgeGroup with id {}", id);
         }
     }
@@ -135,24 +249,41 @@ public class AgeGroupRepository implements CrudRepository<AgeGroup> {
      * */
     @Override
     public void deleteAll(){
-        groups.clear();
+        resolveReferences(groups.stream().map(AgeGroup::getId).toList(), () -> {
+            groups.clear();
+            return null;
+        });
         LOGGER.debug("Deleted all AgeGroups");
     }
 
     /**
      * Deletes a list of AgeGroup entities.
+     * Logs one line for the whole list instead of one per entity.
      * @param ageGroups The list of AgeGroup entities to be deleted.
      * */
     @Override
     public void deleteAll(List<AgeGroup> ageGroups) {
         if (ageGroups != null) {
-            for (AgeGroup ageGroup : ageGroups) {
-                if (ageGroup != null) {
-                    deleteById(ageGroup.getId());
-                    LOGGER.debug("Deleted ageGroup with id {}", ageGroup.getId());
-                }
+            int deleted = resolveReferences(ageGroups.stream().filter(Objects::nonNull).map(AgeGroup::getId).toList(),
+                    () -> groups.removeAll(ageGroups));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Deleted {} AgeGroups", deleted);
             }
         }
     }
 
+    /**
+     * Deletes AgeGroup entities after applying the delete policy of this repository to the tickets referencing them.
+     * */
+    private <T> T resolveReferences(List<Integer> ids, Supplier<T> delete) {
+        return ticketRepository.resolveReferences(onDelete, ids, delete, TicketRepository.Reference.AGE_GROUP);
+    }
+
+    /**
+     * Returns the store shared by all instances, for {@link RepositoryPersistence}.
+     * @return the AgeGroup store.
+     * */
+    static EntityStore<AgeGroup> store() {
+        return groups;
+    }
 }
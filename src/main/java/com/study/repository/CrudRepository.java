@@ -2,6 +2,7 @@ package com.study.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * An interface for CRUD (Create, Read, Update, Delete) operations on entities.
@@ -30,12 +31,54 @@ public interface CrudRepository<E> {
       * */
      Optional<E> findById(Integer id);
 
+     /**
+      * Retrieves an entity by its primitive identifier, without boxing it.
+      * Repositories keyed by {@code int} override this; by default the identifier is boxed.
+      * @param id | The identifier of the entity to be retrieved.
+      * @return An optional containing the retrieved entity, or empty if not found.
+      * */
+     default Optional<E> findById(int id) {
+          return findById(Integer.valueOf(id));
+     }
+
      /**
       * Retrieves all entities.
       * @return A list containing all entities.
       */
      List<E> findAll();
 
+     /**
+      * Retrieves one page of entities, ordered by ID.
+      * @param offset | The number of entities to skip.
+      * @param limit | The maximum number of entities in the page.
+      * @return A list with the entities of the page.
+      * */
+     List<E> findPage(int offset, int limit);
+
+     /**
+      * Retrieves the page of entities following the entity with ID {@code afterId}, ordered by ID.
+      * Unlike {@link #findPage(int, int)} the cost does not grow with the position of the page.
+      * @param afterId | The ID of the last entity of the previous page, or 0 for the first page.
+      * @param limit | The maximum number of entities in the page.
+      * @return A list with the entities of the page.
+      * */
+     List<E> findPageAfter(int afterId, int limit);
+
+     /**
+      * Streams all entities, ordered by ID. Entities are produced lazily,
+      * so the whole repository is never held in memory at once.
+      * @return A stream of all entities.
+      * */
+     Stream<E> streamAll();
+
+     /**
+      * Opens a consistent point-in-time view of the repository, for reads that must not mix entities
+      * from before and after concurrent writes, such as reports and exports.
+      * Writers are not held up while the snapshot is read. The snapshot must be closed once read.
+      * @return An open snapshot of the repository.
+      * */
+     RepositorySnapshot<E> snapshot();
+
      /**
       * Checks if an entity with the given identifier exists.
       * @param id | The identifier of the entity to check.
@@ -44,13 +87,36 @@ public interface CrudRepository<E> {
      boolean existById(Integer id);
 
      /**
-      * Updates the identifier of an entity.
+      * Checks if an entity with the given primitive identifier exists, without boxing it.
+      * Repositories keyed by {@code int} override this; by default the identifier is boxed.
+      * @param id | The identifier of the entity to check.
+      * @return true if the entity exists, otherwise false.
+      * */
+     default boolean existById(int id) {
+          return existById(Integer.valueOf(id));
+     }
+
+     /**
+      * Updates the identifier of an entity. The update is unconditional: the stored entity gets
+      * the version of the one it replaces plus one, whatever version {@code entity} carried.
       * @param id | The current identifier of the entity.
       * @param entity | The entity with the updated identifier.
       * @return true if the update was successful, otherwise false.
       * */
      boolean updateId(Integer id, E entity);
 
+     /**
+      * Stores an entity in place of the stored one with the same identifier, provided the stored one
+      * still has the version the caller read. The check and the write are atomic, so of two concurrent
+      * updates from the same version one succeeds and the other gets {@link UpdateResult#CONFLICT}
+      * instead of silently overwriting it; a conflicting update returns at once rather than waiting.
+      * On success the version of the entity is set to {@code expectedVersion + 1}.
+      * @param entity | The entity with the new values and the identifier of the entity to update.
+      * @param expectedVersion | The version of the entity when it was read.
+      * @return the outcome of the update.
+      * */
+     UpdateResult update(E entity, long expectedVersion);
+
      /**
       * Deletes an entity by its identifier.
       * @param id The identifier of the entity to be deleted.
@@ -1,29 +1,62 @@
 package com.study.repository;
 
 import com.study.domain.Discount;
+import com.study.repository.storage.EntityStore;
+import com.study.repository.storage.IntervalIndex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.HashMap;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Repository implementation for managing Discount entities.
+ * Deleting a discount applies the {@link ReferencePolicy} of the repository to the tickets referencing it.
+ * Discounts are indexed by validity period, so {@link #findActiveOn(LocalDate)} takes time
+ * logarithmic in the number of discounts plus the number of active ones.
  * */
 public class DiscountRepository implements CrudRepository<Discount>{
 
-    private static Logger LOGGER = LogManager.getLogger();
+    private static final Logger LOGGER = LogManager.getLogger();
 
     /**
-     * Counter to generate unique IDs for Discount entities.
+     * Concurrent storage for Discount entities, keyed by ID and generating unique IDs on save.
      * */
-    private static Integer id = 0;
+    private static final EntityStore<Discount> discounts = new EntityStore<>(Discount::getId, Discount::setId,
+            Discount::getVersion, Discount::setVersion);
 
     /**
-     * Storage for Discount entities, using a HashMap with IDs as keys.
+     * Index by validity period in epoch days; a discount without a start or end date is open on that side.
      * */
-    private static final HashMap<Integer, Discount> discounts = new HashMap<>();
+    private static final IntervalIndex<Discount> byValidity = discounts.addIntervalIndex(new IntervalIndex<>(
+            discount -> discount.getStartAt() == null ? Long.MIN_VALUE : discount.getStartAt().toEpochDay(),
+            discount -> discount.getEndAt() == null ? Long.MAX_VALUE : discount.getEndAt().toEpochDay()));
+
+    private final TicketRepository ticketRepository = new TicketRepository();
+
+    /**
+     * What deleting a Discount does to the tickets referencing it.
+     * */
+    private final ReferencePolicy onDelete;
+
+    /**
+     * Creates a repository removing deleted discounts from the tickets that have them.
+     * */
+    public DiscountRepository() {
+        this(ReferencePolicy.NULLIFY);
+    }
+
+    /**
+     * Creates a repository applying a policy to the tickets referencing the discount entities it deletes.
+     * @param onDelete | What deleting a discount does to the tickets referencing it.
+     * */
+    public DiscountRepository(ReferencePolicy onDelete) {
+        this.onDelete = onDelete;
+    }
 
     /**
      * Saves a single Discount entity.
@@ -33,26 +66,25 @@ public class DiscountRepository implements CrudRepository<Discount>{
     @Override
     public Discount save(Discount discount) {
        if (discount != null){
-           discount.setId(++id);
-           discounts.put(id, discount);
-           LOGGER.debug("Saved Discount with id {}", id);
+           discounts.insert(discount);
+           if (LOGGER.isDebugEnabled()) {
+               LOGGER.debug("Saved Discount with id {}", discount.getId());
+           }
        }
        return discount;
     }
 
     /**
      * Saves a list of Discount entities.
+     * IDs for the whole list are reserved at once and one log line is written for the whole list.
      * @param discounts The list of Discount entities to be saved.
      * @return The list of saved Discount entities.
      * */
     @Override
     public List<Discount> saveAll(List<Discount> discounts) {
-        for (Discount discount : discounts){
-            if (discount != null) {
-                discount.setId(++id);
-                this.discounts.put(id, discount);
-                LOGGER.debug("Saved Discount with id {}", id);
-            }
+        int saved = DiscountRepository.discounts.insertAll(discounts);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Saved {} Discounts", saved);
         }
         return discounts;
     }
@@ -64,8 +96,20 @@ public class DiscountRepository implements CrudRepository<Discount>{
      * */
     @Override
     public Optional<Discount> findById(Integer id) {
-        LOGGER.debug("Finding Discount with id {}", id);
-        return Optional.of(discounts.get(id));
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Retrieves a Discount entity by its identifier, without boxing it.
+     * @param id The identifier of the Discount entity to be retrieved.
+     * @return An optional containing the retrieved Discount entity, or empty if not found.
+     * */
+    @Override
+    public Optional<Discount> findById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Finding Discount with id {}", id);
+        }
+        return Optional.ofNullable(discounts.get(id));
     }
 
     /**
@@ -76,7 +120,57 @@ public class DiscountRepository implements CrudRepository<Discount>{
      * */
     @Override
     public List<Discount> findAll() {
-        return discounts.values().stream().toList();
+        return discounts.values();
+    }
+
+    /**
+     * Retrieves one page of Discount entities, ordered by ID.
+     * @param offset | The number of Discount entities to skip.
+     * @param limit | The maximum number of Discount entities in the page.
+     * @return a list with the Discount entities of the page.
+     * */
+    @Override
+    public List<Discount> findPage(int offset, int limit) {
+        return discounts.page(offset, limit);
+    }
+
+    /**
+     * Retrieves the page of Discount entities following the one with ID {@code afterId}, ordered by ID.
+     * @param afterId | The ID of the last Discount of the previous page, or 0 for the first page.
+     * @param limit | The maximum number of Discount entities in the page.
+     * @return a list with the Discount entities of the page.
+     * */
+    @Override
+    public List<Discount> findPageAfter(int afterId, int limit) {
+        return discounts.pageAfter(afterId, limit);
+    }
+
+    /**
+     * Streams all Discount entities lazily, ordered by ID.
+     * @return a stream of all Discount entities.
+     * */
+    @Override
+    public Stream<Discount> streamAll() {
+        return discounts.stream();
+    }
+
+    /**
+     * Opens a snapshot of the Discount entities as they are now; writes made meanwhile are not seen through it.
+     * @return an open snapshot of the Discount entities, to be closed once read.
+     * */
+    @Override
+    public RepositorySnapshot<Discount> snapshot() {
+        return RepositorySnapshot.of(discounts.snapshot());
+    }
+
+    /**
+     * Retrieves the Discount entities valid on a date, ordered by ID.
+     * A discount is valid from its start date to its end date, both included.
+     * @param date The date to check.
+     * @return a list of the Discount entities valid on the date.
+     * */
+    public List<Discount> findActiveOn(LocalDate date) {
+        return date == null ? List.of() : discounts.findContaining(byValidity, date.toEpochDay());
     }
 
     /**
@@ -86,8 +180,20 @@ public class DiscountRepository implements CrudRepository<Discount>{
      * */
     @Override
     public boolean existById(Integer id) {
-        boolean exist = id != null && discounts.containsKey(id);
-        LOGGER.debug("Existence check for Discount with id {}: {}", id, exist);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a Discount entity with the given identifier exists, without boxing it.
+     * @param id The identifier of the Discount entity to check.
+     * @return true if the Discount entity exists, otherwise false.
+     * */
+    @Override
+    public boolean existById(int id) {
+        boolean exist = discounts.contains(id);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Existence check for Discount with id {}: {}", id, exist);
+        }
         return exist;
     }
 
@@ -100,8 +206,7 @@ public class DiscountRepository implements CrudRepository<Discount>{
     @Override
     public boolean updateId(Integer id, Discount nwDiscount) {
         if (nwDiscount != null && id != null){
-            discounts.remove(id);
-            discounts.put(nwDiscount.getId(), nwDiscount);
+            discounts.replace(id, nwDiscount);
             LOGGER.debug("Updated Discount with id {}", id);
             return true;
         }
@@ -109,14 +214,38 @@ public class DiscountRepository implements CrudRepository<Discount>{
         return false;
     }
 
+    /**
+     * Updates a Discount entity if it has not been changed since it was read.
+     * @param discount The Discount entity with the new values.
+     * @param expectedVersion The version of the Discount entity when it was read.
+     * @return the outcome of the update; on success the version of discount is incremented.
+     * */
+    @Override
+    public UpdateResult update(Discount discount, long expectedVersion) {
+        if (discount == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        UpdateResult result = discounts.update(discount, expectedVersion);
+        if (result == UpdateResult.UPDATED) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Updated Discount with id {} to version {}", discount.getId(), discount.getVersion());
+            }
+        } else {
+            LOGGER.warn("Failed to update Discount with id {} from version {}: {}", discount.getId(), expectedVersion, result);
+        }
+        return result;
+    }
+
     /**
      * Deletes a Discount entity by its identifier.
+     * The tickets referencing it are first deleted, changed or checked according to the {@link ReferencePolicy} of this repository.
      * @param id The identifier of the Discount entity to be deleted.
+     * @throws ReferentialIntegrityException if the policy is RESTRICT and tickets reference the Discount.
      * */
     @Override
     public void deleteById(Integer id) {
         if (id != null){
-            discounts.remove(id);
+            resolveReferences(List.of(id), () -> discounts.remove(id));
             LOGGER.debug("Deleted Discount with id {}", id);
         }
     }
@@ -139,24 +268,41 @@ public class DiscountRepository implements CrudRepository<Discount>{
      * */
     @Override
     public void deleteAll() {
-        discounts.clear();
+        resolveReferences(discounts.stream().map(Discount::getId).toList(), () -> {
+            discounts.clear();
+            return null;
+        });
         LOGGER.debug("Deleted all Discounts");
     }
 
     /**
      * Deletes a list of Discount entities.
+     * Logs one line for the whole list instead of one per entity.
      * @param discounts The list of Discount entities to be deleted.
      * */
     @Override
     public void deleteAll(List<Discount> discounts) {
         if (discounts != null) {
-            for (Discount discount : discounts) {
-                if (discount != null) {
-                    deleteById(discount.getId());
-                    LOGGER.debug("Deleted discount with id {}", discount.getId());
-                }
+            int deleted = resolveReferences(discounts.stream().filter(Objects::nonNull).map(Discount::getId).toList(),
+                    () -> DiscountRepository.discounts.removeAll(discounts));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Deleted {} Discounts", deleted);
             }
         }
     }
 
+    /**
+     * Deletes Discount entities after applying the delete policy of this repository to the tickets referencing them.
+     * */
+    private <T> T resolveReferences(List<Integer> ids, Supplier<T> delete) {
+        return ticketRepository.resolveReferences(onDelete, ids, delete, TicketRepository.Reference.DISCOUNT);
+    }
+
+    /**
+     * Returns the store shared by all instances, for {@link RepositoryPersistence}.
+     * @return the Discount store.
+     * */
+    static EntityStore<Discount> store() {
+        return discounts;
+    }
 }
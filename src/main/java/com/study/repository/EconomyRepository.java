@@ -1,29 +1,51 @@
 package com.study.repository;
 
 import com.study.domain.Economy;
+import com.study.repository.storage.EntityStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Repository implementation for managing Economy entities.
+ * Deleting an economy class applies the {@link ReferencePolicy} of the repository to the tickets referencing it.
  * */
 public class EconomyRepository implements CrudRepository<Economy>{
 
-    private static Logger LOGGER = LogManager.getLogger();
+    private static final Logger LOGGER = LogManager.getLogger();
 
     /**
-     * Counter to generate unique IDs for Economy entities.
+     * Concurrent storage for Economy entities, keyed by ID and generating unique IDs on save.
      * */
-    private static Integer id = 0;
+    private static final EntityStore<Economy> classEconomies = new EntityStore<>(Economy::getId, Economy::setId,
+            Economy::getVersion, Economy::setVersion);
+
+    private final TicketRepository ticketRepository = new TicketRepository();
+
+    /**
+     * What deleting a Economy does to the tickets referencing it.
+     * */
+    private final ReferencePolicy onDelete;
+
+    /**
+     * Creates a repository refusing to delete economy classes still referenced by tickets.
+     * */
+    public EconomyRepository() {
+        this(ReferencePolicy.RESTRICT);
+    }
 
     /**
-     * Storage for Economy entities, using a HashMap with IDs as keys.
+     * Creates a repository applying a policy to the tickets referencing the economy class entities it deletes.
+     * @param onDelete | What deleting a economy class does to the tickets referencing it.
      * */
-    private static final HashMap<Integer, Economy> classEconomies = new HashMap<>();
+    public EconomyRepository(ReferencePolicy onDelete) {
+        this.onDelete = onDelete;
+    }
 
     /**
      * Saves a single Economy entity.
@@ -33,26 +55,25 @@ public class EconomyRepository implements CrudRepository<Economy>{
     @Override
     public Economy save(Economy economy) {
         if (economy != null) {
-            economy.setId(++id);
-            classEconomies.put(id, economy);
-            LOGGER.debug("Saved Economy with id {}", id);
+            classEconomies.insert(economy);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Saved Economy with id {}", economy.getId());
+            }
         }
         return economy;
     }
 
     /**
      * Saves a list of Economy entities.
+     * IDs for the whole list are reserved at once and one log line is written for the whole list.
      * @param economies The list of Economy entities to be saved.
      * @return The list of saved Economy entities.
      * */
     @Override
     public List<Economy> saveAll(List<Economy> economies) {
-        for (Economy economy : economies){
-            if (economy != null) {
-                economy.setId(++id);
-                classEconomies.put(id, economy);
-                LOGGER.debug("Saved Economy with id {}", id);
-            }
+        int saved = classEconomies.insertAll(economies);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Saved {} Economies", saved);
         }
         return economies;
     }
@@ -64,8 +85,20 @@ public class EconomyRepository implements CrudRepository<Economy>{
      * */
     @Override
     public Optional<Economy> findById(Integer id){
-        LOGGER.debug("Finding Economy with id {}", id);
-        return Optional.of(classEconomies.get(id));
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Retrieves a Economy entity by its identifier, without boxing it.
+     * @param id The identifier of the Economy entity to be retrieved.
+     * @return An optional containing the retrieved Economy entity, or empty if not found.
+     * */
+    @Override
+    public Optional<Economy> findById(int id){
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Finding Economy with id {}", id);
+        }
+        return Optional.ofNullable(classEconomies.get(id));
     }
 
     /**
@@ -76,7 +109,47 @@ public class EconomyRepository implements CrudRepository<Economy>{
      * */
     @Override
     public List<Economy> findAll() {
-        return classEconomies.values().stream().toList();
+        return classEconomies.values();
+    }
+
+    /**
+     * Retrieves one page of Economy entities, ordered by ID.
+     * @param offset | The number of Economy entities to skip.
+     * @param limit | The maximum number of Economy entities in the page.
+     * @return a list with the Economy entities of the page.
+     * */
+    @Override
+    public List<Economy> findPage(int offset, int limit) {
+        return classEconomies.page(offset, limit);
+    }
+
+    /**
+     * Retrieves the page of Economy entities following the one with ID {@code afterId}, ordered by ID.
+     * @param afterId | The ID of the last Economy of the previous page, or 0 for the first page.
+     * @param limit | The maximum number of Economy entities in the page.
+     * @return a list with the Economy entities of the page.
+     * */
+    @Override
+    public List<Economy> findPageAfter(int afterId, int limit) {
+        return classEconomies.pageAfter(afterId, limit);
+    }
+
+    /**
+     * Streams all Economy entities lazily, ordered by ID.
+     * @return a stream of all Economy entities.
+     * */
+    @Override
+    public Stream<Economy> streamAll() {
+        return classEconomies.stream();
+    }
+
+    /**
+     * Opens a snapshot of the Economy entities as they are now; writes made meanwhile are not seen through it.
+     * @return an open snapshot of the Economy entities, to be closed once read.
+     * */
+    @Override
+    public RepositorySnapshot<Economy> snapshot() {
+        return RepositorySnapshot.of(classEconomies.snapshot());
     }
 
     /**
@@ -86,8 +159,20 @@ public class EconomyRepository implements CrudRepository<Economy>{
      * */
     @Override
     public boolean existById(Integer id){
-        boolean exist = id != null && classEconomies.containsKey(id);
-        LOGGER.debug("Existence check for Economy with id {}: {}", id, exist);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a Economy entity with the given identifier exists, without boxing it.
+     * @param id The identifier of the Economy entity to check.
+     * @return true if the Economy entity exists, otherwise false.
+     * */
+    @Override
+    public boolean existById(int id){
+        boolean exist = classEconomies.contains(id);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Existence check for Economy with id {}: {}", id, exist);
+        }
         return exist;
     }
 
@@ -100,8 +185,7 @@ public class EconomyRepository implements CrudRepository<Economy>{
     @Override
     public boolean updateId(Integer id, Economy nwEconomy){
         if (nwEconomy != null && id != null){
-            classEconomies.remove(id);
-            classEconomies.put(nwEconomy.getId(), nwEconomy);
+            classEconomies.replace(id, nwEconomy);
             LOGGER.debug("Updated Economy with id {}", id);
             return true;
         }
@@ -109,14 +193,38 @@ public class EconomyRepository implements CrudRepository<Economy>{
         return false;
     }
 
+    /**
+     * Updates a Economy entity if it has not been changed since it was read.
+     * @param economy The Economy entity with the new values.
+     * @param expectedVersion The version of the Economy entity when it was read.
+     * @return the outcome of the update; on success the version of economy is incremented.
+     * */
+    @Override
+    public UpdateResult update(Economy economy, long expectedVersion) {
+        if (economy == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        UpdateResult result = classEconomies.update(economy, expectedVersion);
+        if (result == UpdateResult.UPDATED) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Updated Economy with id {} to version {}", economy.getId(), economy.getVersion());
+            }
+        } else {
+            LOGGER.warn("Failed to update Economy with id {} from version {}: {}", economy.getId(), expectedVersion, result);
+        }
+        return result;
+    }
+
     /**
      * Deletes an Economy entity by its identifier.
+     * The tickets referencing it are first deleted, changed or checked according to the {@link ReferencePolicy} of this repository.
      * @param id The identifier of the Economy entity to be deleted.
+     * @throws ReferentialIntegrityException if the policy is RESTRICT and tickets reference the Economy.
      * */
     @Override
     public void deleteById(Integer id){
         if (id != null){
-            classEconomies.remove(id);
+            resolveReferences(List.of(id), () -> classEconomies.remove(id));
             LOGGER.debug("Deleted Economy with id {}", id);
         }
     }
@@ -138,24 +246,41 @@ public class EconomyRepository implements CrudRepository<Economy>{
      * */
     @Override
     public void deleteAll(){
-        classEconomies.clear();
+        resolveReferences(classEconomies.stream().map(Economy::getId).toList(), () -> {
+            classEconomies.clear();
+            return null;
+        });
         LOGGER.debug("Deleted all Economies");
     }
 
     /**
      * Deletes a list of Economy entities.
+     * Logs one line for the whole list instead of one per entity.
      * @param economies The list of Economy entities to be deleted.
      * */
     @Override
     public void deleteAll(List<Economy> economies) {
         if (economies != null) {
-            for (Economy economy : economies) {
-                if (economy != null) {
-                    deleteById(economy.getId());
-                    LOGGER.debug("Deleted Economy with id {}", economy.getId());
-                }
+            int deleted = resolveReferences(economies.stream().filter(Objects::nonNull).map(Economy::getId).toList(),
+                    () -> classEconomies.removeAll(economies));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Deleted {} Economies", deleted);
             }
         }
     }
 
+    /**
+     * Deletes Economy entities after applying the delete policy of this repository to the tickets referencing them.
+     * */
+    private <T> T resolveReferences(List<Integer> ids, Supplier<T> delete) {
+        return ticketRepository.resolveReferences(onDelete, ids, delete, TicketRepository.Reference.ECONOMY);
+    }
+
+    /**
+     * Returns the store shared by all instances, for {@link RepositoryPersistence}.
+     * @return the Economy store.
+     * */
+    static EntityStore<Economy> store() {
+        return classEconomies;
+    }
 }
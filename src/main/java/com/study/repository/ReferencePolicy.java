@@ -0,0 +1,23 @@
+package com.study.repository;
+
+/**
+ * What deleting an entity does to the tickets referencing it, configured per repository
+ * of referenced entities, e.g. with {@link StationRepository#StationRepository(ReferencePolicy)}.
+ * */
+public enum ReferencePolicy {
+
+    /**
+     * The delete is refused with a {@link ReferentialIntegrityException} while tickets reference the entity.
+     * */
+    RESTRICT,
+
+    /**
+     * The tickets referencing the entity are deleted with it.
+     * */
+    CASCADE,
+
+    /**
+     * The tickets referencing the entity are kept, without the reference.
+     * */
+    NULLIFY
+}
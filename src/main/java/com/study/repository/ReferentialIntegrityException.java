@@ -0,0 +1,14 @@
+package com.study.repository;
+
+/**
+ * Thrown when an entity cannot be deleted because tickets still reference it
+ * and its repository uses {@link ReferencePolicy#RESTRICT}. Nothing is deleted in that case.
+ * */
+public class ReferentialIntegrityException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ReferentialIntegrityException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,173 @@
+package com.study.repository;
+
+import com.study.repository.persistence.EntityCodec;
+import com.study.repository.persistence.EntityCodecs;
+import com.study.repository.persistence.WriteAheadLog;
+import com.study.repository.storage.EntityStore;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Makes the in-memory repositories durable with a {@link WriteAheadLog} per repository.
+ * {@link #open(Path, Duration, Duration)} recovers the repositories from a directory and logs every
+ * later change there; logs are synced to disk every sync interval and compacted into snapshots every
+ * checkpoint interval. Changes are durable once synced, so a crash loses at most one sync interval.
+ * Entities are logged when they are saved, updated or deleted through a repository:
+ * an entity changed in place after saving must be saved again to be persisted.
+ * Seat inventories are not persisted: they count the recovered tickets of a train run when they first sell it.
+ * Repositories are shared by all instances, so only one persistence can be open at a time.
+ * */
+public class RepositoryPersistence implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final AtomicBoolean opened = new AtomicBoolean();
+
+    private final List<Durable<?>> stores = new ArrayList<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "repository-persistence");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private RepositoryPersistence() {
+    }
+
+    /**
+     * Recovers all repositories from a directory and starts logging their changes to it.
+     * Should be called at startup, before the repositories are used.
+     * @param directory | The directory of the logs and snapshots, created if missing.
+     * @param syncInterval | The time between two syncs of the logs to disk.
+     * @param checkpointInterval | The time between two snapshots of the repositories.
+     * @return the open persistence, to be closed on shutdown.
+     * @throws IllegalStateException if a persistence is already open.
+     * */
+    public static RepositoryPersistence open(Path directory, Duration syncInterval, Duration checkpointInterval)
+            throws IOException {
+        if (!opened.compareAndSet(false, true)) {
+            throw new IllegalStateException("Repository persistence is already open");
+        }
+        RepositoryPersistence persistence = new RepositoryPersistence();
+        try {
+            // referenced entities are recovered before the tickets that resolve them
+            persistence.recover(directory, "age-groups", AgeGroupRepository.store(), EntityCodecs.AGE_GROUP);
+            persistence.recover(directory, "economies", EconomyRepository.store(), EntityCodecs.ECONOMY);
+            persistence.recover(directory, "stations", StationRepository.store(), EntityCodecs.STATION);
+            persistence.recover(directory, "trains", TrainRepository.store(), EntityCodecs.TRAIN);
+            persistence.recover(directory, "discounts", DiscountRepository.store(), EntityCodecs.DISCOUNT);
+            persistence.recover(directory, "users", UserRepository.store(), EntityCodecs.USER);
+            persistence.recover(directory, "tickets", TicketRepository.store(), EntityCodecs.ticket(
+                    new UserRepository(), new StationRepository(), new TrainRepository(),
+                    new EconomyRepository(), new AgeGroupRepository(), new DiscountRepository()));
+        } catch (IOException | RuntimeException e) {
+            persistence.detach();
+            opened.set(false);
+            throw e;
+        }
+        persistence.schedule(syncInterval, persistence::sync);
+        persistence.schedule(checkpointInterval, persistence::checkpoint);
+        LOGGER.info("Opened repository persistence in {}", directory);
+        return persistence;
+    }
+
+    /**
+     * Writes the pending changes of all repositories to disk.
+     * */
+    public void sync() throws IOException {
+        for (Durable<?> store : stores) {
+            store.log.sync();
+        }
+    }
+
+    /**
+     * Writes a snapshot of every repository and discards the logs it covers.
+     * */
+    public void checkpoint() throws IOException {
+        for (Durable<?> store : stores) {
+            store.checkpoint();
+        }
+        LOGGER.debug("Checkpointed repositories");
+    }
+
+    /**
+     * Stops logging, syncs and closes the logs. Changes made afterwards are kept in memory only.
+     * */
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        detach();
+        opened.set(false);
+        LOGGER.info("Closed repository persistence");
+    }
+
+    private <E> void recover(Path directory, String name, EntityStore<E> store, EntityCodec<E> codec)
+            throws IOException {
+        WriteAheadLog<E> log = new WriteAheadLog<>(directory, name, codec);
+        log.recover(store);
+        store.attachLog(log);
+        stores.add(new Durable<>(store, log));
+    }
+
+    private void detach() throws IOException {
+        IOException failure = null;
+        for (Durable<?> store : stores) {
+            store.store.attachLog(null);
+            try {
+                store.log.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        stores.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void schedule(Duration interval, Task task) {
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Repository persistence task failed", e);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private static final class Durable<E> {
+        private final EntityStore<E> store;
+        private final WriteAheadLog<E> log;
+
+        private Durable(EntityStore<E> store, WriteAheadLog<E> log) {
+            this.store = store;
+            this.log = log;
+        }
+
+        private void checkpoint() throws IOException {
+            log.checkpoint(store);
+        }
+    }
+}
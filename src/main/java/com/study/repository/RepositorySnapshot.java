@@ -0,0 +1,147 @@
+package com.study.repository;
+
+import com.study.repository.storage.EntityStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * A consistent point-in-time view of a repository, opened by {@link CrudRepository#snapshot()}.
+ * Every read through the snapshot sees the entities as they were when it was opened, however long
+ * the reader takes, so reports and exports never mix entities from before and after a write,
+ * while writers carry on without waiting for them. A snapshot must be closed once read.
+ * @param <E> The type of entity in the repository.
+ * */
+public interface RepositorySnapshot<E> extends AutoCloseable {
+
+     /**
+      * Retrieves an entity by its identifier.
+      * @param id | The identifier of the entity to be retrieved.
+      * @return An optional containing the entity, or empty if there was none when the snapshot was opened.
+      * */
+     Optional<E> findById(int id);
+
+     /**
+      * Retrieves all entities of the snapshot, ordered by ID.
+      * @return A list containing all entities of the snapshot.
+      * */
+     List<E> findAll();
+
+     /**
+      * Retrieves the page of entities of the snapshot following the entity with ID {@code afterId}, ordered by ID.
+      * @param afterId | The ID of the last entity of the previous page, or 0 for the first page.
+      * @param limit | The maximum number of entities in the page.
+      * @return A list with the entities of the page.
+      * */
+     List<E> findPageAfter(int afterId, int limit);
+
+     /**
+      * Streams all entities of the snapshot, ordered by ID. The stream must be consumed before the snapshot is closed.
+      * @return A stream of all entities of the snapshot.
+      * */
+     Stream<E> streamAll();
+
+     /**
+      * Returns the number of entities of the snapshot.
+      * @return The number of entities.
+      * */
+     int count();
+
+     /**
+      * Closes the snapshot and releases what it holds.
+      * */
+     @Override
+     void close();
+
+     /**
+      * Returns a snapshot reading through a snapshot of an in-memory store.
+      * @param snapshot | The open snapshot of the store, closed with the returned snapshot.
+      * @return The repository snapshot.
+      * */
+     static <E> RepositorySnapshot<E> of(EntityStore.Snapshot<E> snapshot) {
+          return new RepositorySnapshot<>() {
+               @Override
+               public Optional<E> findById(int id) {
+                    return Optional.ofNullable(snapshot.get(id));
+               }
+
+               @Override
+               public List<E> findAll() {
+                    return snapshot.values();
+               }
+
+               @Override
+               public List<E> findPageAfter(int afterId, int limit) {
+                    return snapshot.pageAfter(afterId, limit);
+               }
+
+               @Override
+               public Stream<E> streamAll() {
+                    return snapshot.stream();
+               }
+
+               @Override
+               public int count() {
+                    return snapshot.size();
+               }
+
+               @Override
+               public void close() {
+                    snapshot.close();
+               }
+          };
+     }
+
+     /**
+      * Returns a snapshot over a copy of the entities, for repositories that can read all of them consistently at once.
+      * @param entities | The entities read at one point in time.
+      * @param idOf | Reads the identifier of an entity.
+      * @return The repository snapshot.
+      * */
+     static <E> RepositorySnapshot<E> copyOf(List<E> entities, ToIntFunction<E> idOf) {
+          List<E> sorted = new ArrayList<>(entities);
+          sorted.sort(Comparator.comparingInt(idOf));
+          int[] ids = sorted.stream().mapToInt(idOf).toArray();
+          return new RepositorySnapshot<>() {
+               @Override
+               public Optional<E> findById(int id) {
+                    int index = Arrays.binarySearch(ids, id);
+                    return index < 0 ? Optional.empty() : Optional.of(sorted.get(index));
+               }
+
+               @Override
+               public List<E> findAll() {
+                    return List.copyOf(sorted);
+               }
+
+               @Override
+               public List<E> findPageAfter(int afterId, int limit) {
+                    if (limit <= 0) {
+                         throw new IllegalArgumentException("Limit must be positive: " + limit);
+                    }
+                    int index = Arrays.binarySearch(ids, afterId);
+                    int from = index < 0 ? -index - 1 : index + 1;
+                    return List.copyOf(sorted.subList(from, Math.min(sorted.size(), from + limit)));
+               }
+
+               @Override
+               public Stream<E> streamAll() {
+                    return sorted.stream();
+               }
+
+               @Override
+               public int count() {
+                    return sorted.size();
+               }
+
+               @Override
+               public void close() {
+               }
+          };
+     }
+}
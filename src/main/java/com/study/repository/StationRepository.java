@@ -2,29 +2,51 @@ package com.study.repository;
 
 import com.study.domain.Economy;
 import com.study.domain.Station;
+import com.study.repository.storage.EntityStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Repository implementation for managing Station entities.
+ * Deleting a station applies the {@link ReferencePolicy} of the repository to the tickets referencing it.
  * */
 public class StationRepository implements CrudRepository<Station>{
 
-    private static Logger LOGGER = LogManager.getLogger();
+    private static final Logger LOGGER = LogManager.getLogger();
 
     /**
-     * Counter to generate unique IDs for Station entities.
+     * Concurrent storage for Station entities, keyed by ID and generating unique IDs on save.
      * */
-    private static Integer id = 0;
+    private static final EntityStore<Station> stations = new EntityStore<>(Station::getId, Station::setId,
+            Station::getVersion, Station::setVersion);
+
+    private final TicketRepository ticketRepository = new TicketRepository();
+
+    /**
+     * What deleting a Station does to the tickets referencing it.
+     * */
+    private final ReferencePolicy onDelete;
+
+    /**
+     * Creates a repository refusing to delete stations still referenced by tickets.
+     * */
+    public StationRepository() {
+        this(ReferencePolicy.RESTRICT);
+    }
 
     /**
-     * Storage for Station entities, using a HashMap with IDs as keys.
+     * Creates a repository applying a policy to the tickets referencing the station entities it deletes.
+     * @param onDelete | What deleting a station does to the tickets referencing it.
      * */
-    private static final HashMap<Integer, Station> stations = new HashMap<>();
+    public StationRepository(ReferencePolicy onDelete) {
+        this.onDelete = onDelete;
+    }
 
     /**
      * Saves a single Station entity.
@@ -34,26 +56,25 @@ public class StationRepository implements CrudRepository<Station>{
     @Override
     public Station save(Station station) {
         if (station != null) {
-            station.setId(++id);
-            stations.put(id, station);
-            LOGGER.debug("Saved Station with id {}", id);
+            stations.insert(station);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Saved Station with id {}", station.getId());
+            }
         }
         return station;
     }
 
     /**
      * Saves a list of Station entities.
+     * IDs for the whole list are reserved at once and one log line is written for the whole list.
      * @param stations The list of Station entities to be saved.
      * @return The list of saved Station entities.
      * */
     @Override
     public List<Station> saveAll(List<Station> stations) {
-        for (Station station : stations){
-            if (station != null) {
-                station.setId(++id);
-                this.stations.put(id, station);
-                LOGGER.debug("Saved Station with id {}", id);
-            }
+        int saved = StationRepository.stations.insertAll(stations);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Saved {} Stations", saved);
         }
         return stations;
     }
@@ -65,8 +86,20 @@ public class StationRepository implements CrudRepository<Station>{
      * */
     @Override
     public Optional<Station> findById(Integer id){
-        LOGGER.debug("Finding Station with id {}", id);
-        return Optional.of(stations.get(id));
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Retrieves a Station entity by its identifier, without boxing it.
+     * @param id The identifier of the Station entity to be retrieved.
+     * @return An optional containing the retrieved Station entity, or empty if not found.
+     * */
+    @Override
+    public Optional<Station> findById(int id){
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Finding Station with id {}", id);
+        }
+        return Optional.ofNullable(stations.get(id));
     }
 
     /**
@@ -77,7 +110,47 @@ public class StationRepository implements CrudRepository<Station>{
      * */
     @Override
     public List<Station> findAll() {
-        return stations.values().stream().toList();
+        return stations.values();
+    }
+
+    /**
+     * Retrieves one page of Station entities, ordered by ID.
+     * @param offset | The number of Station entities to skip.
+     * @param limit | The maximum number of Station entities in the page.
+     * @return a list with the Station entities of the page.
+     * */
+    @Override
+    public List<Station> findPage(int offset, int limit) {
+        return stations.page(offset, limit);
+    }
+
+    /**
+     * Retrieves the page of Station entities following the one with ID {@code afterId}, ordered by ID.
+     * @param afterId | The ID of the last Station of the previous page, or 0 for the first page.
+     * @param limit | The maximum number of Station entities in the page.
+     * @return a list with the Station entities of the page.
+     * */
+    @Override
+    public List<Station> findPageAfter(int afterId, int limit) {
+        return stations.pageAfter(afterId, limit);
+    }
+
+    /**
+     * Streams all Station entities lazily, ordered by ID.
+     * @return a stream of all Station entities.
+     * */
+    @Override
+    public Stream<Station> streamAll() {
+        return stations.stream();
+    }
+
+    /**
+     * Opens a snapshot of the Station entities as they are now; writes made meanwhile are not seen through it.
+     * @return an open snapshot of the Station entities, to be closed once read.
+     * */
+    @Override
+    public RepositorySnapshot<Station> snapshot() {
+        return RepositorySnapshot.of(stations.snapshot());
     }
 
     /**
@@ -87,8 +160,20 @@ public class StationRepository implements CrudRepository<Station>{
      * */
     @Override
     public boolean existById(Integer id){
-        boolean exist = id != null && stations.containsKey(id);
-        LOGGER.debug("Existence check for Station with id {}: {}", id, exist);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a Station entity with the given identifier exists, without boxing it.
+     * @param id The identifier of the Station entity to check.
+     * @return true if the Station entity exists, otherwise false.
+     * */
+    @Override
+    public boolean existById(int id){
+        boolean exist = stations.contains(id);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Existence check for Station with id {}: {}", id, exist);
+        }
         return exist;
     }
 
@@ -102,8 +187,7 @@ public class StationRepository implements CrudRepository<Station>{
     @Override
     public boolean updateId(Integer id, Station nwStation){
         if (nwStation != null && id != null){
-            stations.remove(id);
-            stations.put(nwStation.getId(), nwStation);
+            stations.replace(id, nwStation);
             LOGGER.debug("Updated Station with id {}", id);
             return true;
         }
@@ -111,14 +195,38 @@ public class StationRepository implements CrudRepository<Station>{
         return false;
     }
 
+    /**
+     * Updates a Station entity if it has not been changed since it was read.
+     * @param station The Station entity with the new values.
+     * @param expectedVersion The version of the Station entity when it was read.
+     * @return the outcome of the update; on success the version of station is incremented.
+     * */
+    @Override
+    public UpdateResult update(Station station, long expectedVersion) {
+        if (station == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        UpdateResult result = stations.update(station, expectedVersion);
+        if (result == UpdateResult.UPDATED) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Updated Station with id {} to version {}", station.getId(), station.getVersion());
+            }
+        } else {
+            LOGGER.warn("Failed to update Station with id {} from version {}: {}", station.getId(), expectedVersion, result);
+        }
+        return result;
+    }
+
     /**
      * Deletes a Station entity by its identifier.
+     * The tickets referencing it are first deleted, changed or checked according to the {@link ReferencePolicy} of this repository.
      * @param id The identifier of the Station entity to be deleted.
+     * @throws ReferentialIntegrityException if the policy is RESTRICT and tickets reference the Station.
      * */
     @Override
     public void deleteById(Integer id){
         if (id != null){
-            stations.remove(id);
+            resolveReferences(List.of(id), () -> stations.remove(id));
             LOGGER.debug("Deleted Station with id {}", id);
         }
     }
@@ -140,24 +248,41 @@ public class StationRepository implements CrudRepository<Station>{
      * */
     @Override
     public void deleteAll(){
-        stations.clear();
+        resolveReferences(stations.stream().map(Station::getId).toList(), () -> {
+            stations.clear();
+            return null;
+        });
         LOGGER.debug("Deleted all Stations");
     }
 
     /**
      * Deletes a list of Station entities.
+     * Logs one line for the whole list instead of one per entity.
      * @param stations The list of Station entities to be deleted.
      * */
     @Override
     public void deleteAll(List<Station> stations) {
         if (stations != null) {
-            for (Station station : stations) {
-                if (station != null) {
-                    deleteById(station.getId());
-                    LOGGER.debug("Deleted Station with id {}", station.getId());
-                }
+            int deleted = resolveReferences(stations.stream().filter(Objects::nonNull).map(Station::getId).toList(),
+                    () -> StationRepository.stations.removeAll(stations));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Deleted {} Stations", deleted);
             }
         }
     }
 
+    /**
+     * Deletes Station entities after applying the delete policy of this repository to the tickets referencing them.
+     * */
+    private <T> T resolveReferences(List<Integer> ids, Supplier<T> delete) {
+        return ticketRepository.resolveReferences(onDelete, ids, delete, TicketRepository.Reference.START_STATION, TicketRepository.Reference.END_STATION);
+    }
+
+    /**
+     * Returns the store shared by all instances, for {@link RepositoryPersistence}.
+     * @return the Station store.
+     * */
+    static EntityStore<Station> store() {
+        return stations;
+    }
 }
@@ -1,30 +1,104 @@
 package com.study.repository;
 
-import com.study.domain.Station;
+import com.study.domain.Discount;
 import com.study.domain.Ticket;
+import com.study.repository.storage.EntityStore;
+import com.study.repository.storage.SecondaryIndex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.HashMap;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Repository implementation for managing Ticket entities.
+ * Besides the ID, tickets are indexed by user, train, start and end station, departure date
+ * and train run (train and departure date), so the {@code findBy...} queries take time
+ * proportional to the number of tickets found instead of scanning all tickets.
+ * The indexes of the references to stations, trains, economy classes, age groups and discounts
+ * also let the repositories of those entities find the tickets depending on an entity they delete
+ * and apply their {@link ReferencePolicy} to them. Writes of tickets and deletes of referenced entities
+ * both hold the {@link TransactionManager} locks of the referenced entities, before and after the write,
+ * so a ticket is never stored between the check of a delete and the delete itself, nor moved away
+ * from an entity while the tickets of the entity are deleted.
+ * The indexes follow tickets stored through this repository; a ticket changed in place
+ * must be stored again with {@link #updateId(Integer, Ticket)} to be found under its new values.
  * */
 public class TicketRepository implements CrudRepository<Ticket>{
 
-    private static Logger LOGGER = LogManager.getLogger();
+    private static final Logger LOGGER = LogManager.getLogger();
 
     /**
-     * Counter to generate unique IDs for Ticket entities.
+     * Concurrent storage for Ticket entities, keyed by ID and generating unique IDs on save.
      * */
-    private static Integer id = 0;
+    private static final EntityStore<Ticket> tickets = new EntityStore<>(Ticket::getId, Ticket::setId,
+            Ticket::getVersion, Ticket::setVersion);
+
+    private static final SecondaryIndex<Ticket, Integer> byUser = tickets.addIndex(new SecondaryIndex<>(
+            ticket -> ticket.getUser() == null ? null : ticket.getUser().getId()));
+
+    private static final SecondaryIndex<Ticket, Integer> byTrain = tickets.addIndex(new SecondaryIndex<>(
+            ticket -> ticket.getTrain() == null ? null : ticket.getTrain().getId()));
+
+    private static final SecondaryIndex<Ticket, Integer> byStartStation = tickets.addIndex(new SecondaryIndex<>(
+            ticket -> ticket.getStartStation() == null ? null : ticket.getStartStation().getId()));
+
+    private static final SecondaryIndex<Ticket, Integer> byEndStation = tickets.addIndex(new SecondaryIndex<>(
+            ticket -> ticket.getEndStation() == null ? null : ticket.getEndStation().getId()));
+
+    private static final SecondaryIndex<Ticket, LocalDate> byDepartDate = tickets.addIndex(new SecondaryIndex<>(
+            Ticket::getDepartDateBooking));
+
+    private static final SecondaryIndex<Ticket, Integer> byEconomy = tickets.addIndex(new SecondaryIndex<>(
+            ticket -> ticket.getEconomy() == null ? null : ticket.getEconomy().getId()));
+
+    private static final SecondaryIndex<Ticket, Integer> byAgeGroup = tickets.addIndex(new SecondaryIndex<>(
+            ticket -> ticket.getAgeGroup() == null ? null : ticket.getAgeGroup().getId()));
+
+    private static final SecondaryIndex<Ticket, Integer> byDiscount = tickets.addIndex(SecondaryIndex.multiValued(
+            ticket -> ticket.getDiscounts() == null ? null : ticket.getDiscounts().stream()
+                    .map(Discount::getId).collect(Collectors.toSet())));
+
+    /**
+     * Index by train and departure date, combined into one key by {@link #runKey(int, LocalDate)}.
+     * */
+    private static final SecondaryIndex<Ticket, Long> byTrainRun = tickets.addIndex(new SecondaryIndex<>(
+            ticket -> ticket.getTrain() == null || ticket.getDepartDateBooking() == null ? null
+                    : runKey(ticket.getTrain().getId(), ticket.getDepartDateBooking())));
+
+    /**
+     * Listeners told about tickets deleted because an entity they reference was deleted with
+     * {@link ReferencePolicy#CASCADE}. Held weakly, so a listener is dropped with its owner.
+     * */
+    private static final Set<Consumer<Ticket>> cascadeListeners =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
 
     /**
-     * Storage for Ticket entities, using a HashMap with IDs as keys.
+     * Registers a listener told about every ticket deleted because an entity it references was deleted with
+     * {@link ReferencePolicy#CASCADE}, e.g. to release its seat. The listener is called once per ticket,
+     * after the delete, by the thread deleting the entity. Listeners are shared by all instances and held weakly:
+     * the caller must keep a reference to the listener for as long as it wants to be told.
+     * @param listener The listener.
      * */
-    private static final HashMap<Integer, Ticket> tickets = new HashMap<>();
+    public void onCascadeDelete(Consumer<Ticket> listener) {
+        cascadeListeners.add(listener);
+    }
 
     /**
      * Saves a single Ticket entity.
@@ -34,26 +108,25 @@ public class TicketRepository implements CrudRepository<Ticket>{
     @Override
     public Ticket save(Ticket ticket) {
         if (ticket != null) {
-            ticket.setId(++id);
-            tickets.put(id, ticket);
-            LOGGER.debug("Saved Ticket with id {}", id);
+            withReferencesLocked(List.of(ticket), () -> tickets.insert(ticket));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Saved Ticket with id {}", ticket.getId());
+            }
         }
         return ticket;
     }
 
     /**
      * Saves a list of Ticket entities.
+     * IDs for the whole list are reserved at once and one log line is written for the whole list.
      * @param tickets The list of Ticket entities to be saved.
      * @return The list of saved Ticket entities.
      * */
     @Override
     public List<Ticket> saveAll(List<Ticket> tickets) {
-        for (Ticket ticket : tickets){
-            if (ticket != null) {
-                ticket.setId(++id);
-                this.tickets.put(id, ticket);
-                LOGGER.debug("Saved Ticket with id {}", id);
-            }
+        int saved = withReferencesLocked(tickets, () -> TicketRepository.tickets.insertAll(tickets));
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Saved {} Tickets", saved);
         }
         return tickets;
     }
@@ -65,8 +138,20 @@ public class TicketRepository implements CrudRepository<Ticket>{
      * */
     @Override
     public Optional<Ticket> findById(Integer id){
-        LOGGER.debug("Finding Ticket with id {}", id);
-        return Optional.of(tickets.get(id));
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Retrieves a Ticket entity by its identifier, without boxing it.
+     * @param id The identifier of the Ticket entity to be retrieved.
+     * @return An optional containing the retrieved Ticket entity, or empty if not found.
+     * */
+    @Override
+    public Optional<Ticket> findById(int id){
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Finding Ticket with id {}", id);
+        }
+        return Optional.ofNullable(tickets.get(id));
     }
 
     /**
@@ -77,7 +162,102 @@ public class TicketRepository implements CrudRepository<Ticket>{
      * */
     @Override
     public List<Ticket> findAll() {
-        return tickets.values().stream().toList();
+        return tickets.values();
+    }
+
+    /**
+     * Retrieves one page of Ticket entities, ordered by ID.
+     * @param offset | The number of Ticket entities to skip.
+     * @param limit | The maximum number of Ticket entities in the page.
+     * @return a list with the Ticket entities of the page.
+     * */
+    @Override
+    public List<Ticket> findPage(int offset, int limit) {
+        return tickets.page(offset, limit);
+    }
+
+    /**
+     * Retrieves the page of Ticket entities following the one with ID {@code afterId}, ordered by ID.
+     * @param afterId | The ID of the last Ticket of the previous page, or 0 for the first page.
+     * @param limit | The maximum number of Ticket entities in the page.
+     * @return a list with the Ticket entities of the page.
+     * */
+    @Override
+    public List<Ticket> findPageAfter(int afterId, int limit) {
+        return tickets.pageAfter(afterId, limit);
+    }
+
+    /**
+     * Streams all Ticket entities lazily, ordered by ID.
+     * @return a stream of all Ticket entities.
+     * */
+    @Override
+    public Stream<Ticket> streamAll() {
+        return tickets.stream();
+    }
+
+    /**
+     * Opens a snapshot of the Ticket entities as they are now; writes made meanwhile are not seen through it.
+     * @return an open snapshot of the Ticket entities, to be closed once read.
+     * */
+    @Override
+    public RepositorySnapshot<Ticket> snapshot() {
+        return RepositorySnapshot.of(tickets.snapshot());
+    }
+
+    /**
+     * Retrieves the tickets of a user, ordered by ID.
+     * @param userId The ID of the user.
+     * @return a list of the user's tickets.
+     * */
+    public List<Ticket> findByUserId(int userId) {
+        return tickets.findBy(byUser, userId);
+    }
+
+    /**
+     * Retrieves the tickets on a train, on any date, ordered by ID.
+     * @param trainId The ID of the train.
+     * @return a list of the train's tickets.
+     * */
+    public List<Ticket> findByTrainId(int trainId) {
+        return tickets.findBy(byTrain, trainId);
+    }
+
+    /**
+     * Retrieves the tickets from a station, ordered by ID.
+     * @param stationId The ID of the start station.
+     * @return a list of the tickets starting at the station.
+     * */
+    public List<Ticket> findByStartStationId(int stationId) {
+        return tickets.findBy(byStartStation, stationId);
+    }
+
+    /**
+     * Retrieves the tickets to a station, ordered by ID.
+     * @param stationId The ID of the end station.
+     * @return a list of the tickets ending at the station.
+     * */
+    public List<Ticket> findByEndStationId(int stationId) {
+        return tickets.findBy(byEndStation, stationId);
+    }
+
+    /**
+     * Retrieves the tickets departing on a date, ordered by ID.
+     * @param date The departure date.
+     * @return a list of the tickets departing on that date.
+     * */
+    public List<Ticket> findByDepartDate(LocalDate date) {
+        return tickets.findBy(byDepartDate, date);
+    }
+
+    /**
+     * Retrieves the tickets on a train departing on a date, ordered by ID.
+     * @param trainId The ID of the train.
+     * @param date The departure date.
+     * @return a list of the tickets of that train run.
+     * */
+    public List<Ticket> findByTrainIdAndDepartDate(int trainId, LocalDate date) {
+        return date == null ? List.of() : tickets.findBy(byTrainRun, runKey(trainId, date));
     }
 
     /**
@@ -87,8 +267,20 @@ public class TicketRepository implements CrudRepository<Ticket>{
      * */
     @Override
     public boolean existById(Integer id){
-        boolean exist = id != null && tickets.containsKey(id);
-        LOGGER.debug("Existence check for Ticket with id {}: {}", id, exist);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a Ticket entity with the given identifier exists, without boxing it.
+     * @param id The identifier of the Ticket entity to check.
+     * @return true if the Ticket entity exists, otherwise false.
+     * */
+    @Override
+    public boolean existById(int id){
+        boolean exist = tickets.contains(id);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Existence check for Ticket with id {}: {}", id, exist);
+        }
         return exist;
     }
 
@@ -101,8 +293,10 @@ public class TicketRepository implements CrudRepository<Ticket>{
     @Override
     public boolean updateId(Integer id, Ticket nwTicket){
         if (nwTicket != null && id != null){
-            tickets.remove(id);
-            tickets.put(nwTicket.getId(), nwTicket);
+            withReplacedReferencesLocked(nwTicket, () -> {
+                tickets.replace(id, nwTicket);
+                return null;
+            }, id, nwTicket.getId());
             LOGGER.debug("Updated Ticket with id {}", id);
             return true;
         }
@@ -110,6 +304,29 @@ public class TicketRepository implements CrudRepository<Ticket>{
         return false;
     }
 
+    /**
+     * Updates a Ticket entity if it has not been changed since it was read.
+     * @param ticket The Ticket entity with the new values.
+     * @param expectedVersion The version of the Ticket entity when it was read.
+     * @return the outcome of the update; on success the version of ticket is incremented.
+     * */
+    @Override
+    public UpdateResult update(Ticket ticket, long expectedVersion) {
+        if (ticket == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        UpdateResult result = withReplacedReferencesLocked(ticket, () -> tickets.update(ticket, expectedVersion),
+                ticket.getId());
+        if (result == UpdateResult.UPDATED) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Updated Ticket with id {} to version {}", ticket.getId(), ticket.getVersion());
+            }
+        } else {
+            LOGGER.warn("Failed to update Ticket with id {} from version {}: {}", ticket.getId(), expectedVersion, result);
+        }
+        return result;
+    }
+
     /**
      * Deletes a Ticket entity by its identifier.
      * @param id The identifier of the Ticket entity to be deleted.
@@ -122,6 +339,21 @@ public class TicketRepository implements CrudRepository<Ticket>{
         }
     }
 
+    /**
+     * Deletes a Ticket entity by its identifier and returns it.
+     * Of several concurrent calls with the same identifier only one receives the ticket.
+     * @param id The identifier of the Ticket entity to be deleted.
+     * @return An optional containing the deleted Ticket entity, or empty if not found.
+     * */
+    public Optional<Ticket> removeById(Integer id){
+        if (id == null){
+            return Optional.empty();
+        }
+        Optional<Ticket> removed = Optional.ofNullable(tickets.remove(id));
+        LOGGER.debug("Removed Ticket with id {}: {}", id, removed.isPresent());
+        return removed;
+    }
+
     /**
      * Deletes a single Ticket entity.
      * @param ticket The Ticket entity to be deleted.
@@ -146,18 +378,300 @@ public class TicketRepository implements CrudRepository<Ticket>{
 
     /**
      * Deletes a list of Ticket entities.
+     * Logs one line for the whole list instead of one per entity.
      * @param tickets The list of Ticket entities to be deleted.
      * */
     @Override
     public void deleteAll(List<Ticket> tickets) {
         if (tickets != null) {
-            for (Ticket ticket : tickets) {
-                if (ticket != null) {
-                    deleteById(ticket.getId());
-                    LOGGER.debug("Deleted Ticket with id {}", ticket.getId());
+            int deleted = TicketRepository.tickets.removeAll(tickets);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Deleted {} Tickets", deleted);
+            }
+        }
+    }
+
+    /**
+     * References from a ticket to the entities it depends on, each backed by an index.
+     * */
+    enum Reference {
+        START_STATION("Station"), END_STATION("Station"), TRAIN("Train"),
+        ECONOMY("Economy"), AGE_GROUP("AgeGroup"), DISCOUNT("Discount");
+
+        /**
+         * Name of the referenced entity, for messages.
+         * */
+        private final String entity;
+
+        Reference(String entity) {
+            this.entity = entity;
+        }
+
+        /**
+         * Returns the transaction table of the referenced entity, whose locks guard its deletion.
+         * */
+        private TransactionManager.Table<?> table() {
+            return switch (this) {
+                case START_STATION, END_STATION -> TransactionManager.STATIONS;
+                case TRAIN -> TransactionManager.TRAINS;
+                case ECONOMY -> TransactionManager.ECONOMIES;
+                case AGE_GROUP -> TransactionManager.AGE_GROUPS;
+                case DISCOUNT -> TransactionManager.DISCOUNTS;
+            };
+        }
+    }
+
+    /**
+     * Deletes entities referenced by tickets after applying the delete policy of their repository to the tickets.
+     * The tickets are found through the reference indexes, so the cost grows with their number, not with
+     * the number of all tickets. With {@link ReferencePolicy#RESTRICT} every entity is checked before anything
+     * is changed; a nullified ticket is stored again as a copy with a conditional update, retried on conflict;
+     * the listeners registered with {@link #onCascadeDelete(Consumer)} are told about cascaded tickets once the
+     * entities are deleted. The {@link TransactionManager} locks of the entities are held from the check
+     * to the delete, and ticket writes take them too, so no ticket referencing them is stored in between.
+     * @param policy | What to do with the referencing tickets.
+     * @param ids | The IDs of the entities to be deleted.
+     * @param delete | Deletes the entities, called once the tickets are resolved.
+     * @param references | The references of a ticket that may point to those entities.
+     * @return the result of {@code delete}.
+     * @throws ReferentialIntegrityException if the policy is RESTRICT and a ticket references one of the entities;
+     * nothing is deleted then.
+     * */
+    <T> T resolveReferences(ReferencePolicy policy, Collection<Integer> ids, Supplier<T> delete, Reference... references) {
+        SortedMap<Long, ReentrantLock> locks = new TreeMap<>();
+        for (Integer id : ids) {
+            if (id != null) {
+                for (Reference reference : references) {
+                    addLock(locks, reference.table(), id);
+                }
+            }
+        }
+        List<Ticket> cascaded = new ArrayList<>();
+        T result = TransactionManager.callLocked(locks, () -> {
+            if (policy == ReferencePolicy.RESTRICT) {
+                for (Integer id : ids) {
+                    SortedSet<Integer> dependents = dependentsOf(id, references);
+                    if (!dependents.isEmpty()) {
+                        throw new ReferentialIntegrityException(dependents.size() + " Tickets reference "
+                                + references[0].entity + " with id " + id + ", e.g. Ticket " + dependents.first());
+                    }
+                }
+                return delete.get();
+            }
+            int nullified = 0;
+            for (Integer id : ids) {
+                for (int ticketId : dependentsOf(id, references)) {
+                    if (policy == ReferencePolicy.CASCADE) {
+                        Ticket removed = tickets.remove(ticketId);
+                        if (removed != null) {
+                            cascaded.add(removed);
+                        }
+                    } else if (nullify(ticketId, id, references)) {
+                        nullified++;
+                    }
+                }
+            }
+            int resolved = cascaded.size() + nullified;
+            if (resolved > 0 && LOGGER.isDebugEnabled()) {
+                LOGGER.debug("{} {} Tickets referencing {} with ids {}", policy == ReferencePolicy.CASCADE
+                        ? "Deleted" : "Nullified", resolved, references[0].entity, ids);
+            }
+            return delete.get();
+        });
+        if (!cascaded.isEmpty()) {
+            notifyCascaded(cascaded);
+        }
+        return result;
+    }
+
+    private static void notifyCascaded(List<Ticket> cascaded) {
+        List<Consumer<Ticket>> listeners;
+        synchronized (cascadeListeners) {
+            listeners = new ArrayList<>(cascadeListeners);
+        }
+        for (Consumer<Ticket> listener : listeners) {
+            for (Ticket ticket : cascaded) {
+                try {
+                    listener.accept(ticket);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Cascade listener failed for Ticket with id {}", ticket.getId(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a write of tickets holding the {@link TransactionManager} locks of the entities they reference.
+     * */
+    private static <T> T withReferencesLocked(Collection<Ticket> written, Supplier<T> write) {
+        SortedMap<Long, ReentrantLock> locks = new TreeMap<>();
+        for (Ticket ticket : written) {
+            if (ticket != null) {
+                addReferenceLocks(ticket, locks);
+            }
+        }
+        return TransactionManager.callLocked(locks, write);
+    }
+
+    /**
+     * Runs a write replacing stored tickets holding the {@link TransactionManager} locks of the entities referenced
+     * by the new ticket and by the replaced ones, so a delete of an entity does not find a ticket through its
+     * indexes while the ticket is moved away from it. The write is retried if a replaced ticket changed
+     * before the locks were taken.
+     * */
+    private static <T> T withReplacedReferencesLocked(Ticket written, Supplier<T> write, int... replacedIds) {
+        while (true) {
+            Ticket[] replaced = new Ticket[replacedIds.length];
+            SortedMap<Long, ReentrantLock> locks = new TreeMap<>();
+            addReferenceLocks(written, locks);
+            for (int i = 0; i < replacedIds.length; i++) {
+                replaced[i] = tickets.get(replacedIds[i]);
+                if (replaced[i] != null) {
+                    addReferenceLocks(replaced[i], locks);
+                }
+            }
+            boolean[] unchanged = new boolean[1];
+            T result = TransactionManager.callLocked(locks, () -> {
+                for (int i = 0; i < replacedIds.length; i++) {
+                    if (tickets.get(replacedIds[i]) != replaced[i]) {
+                        return null;
+                    }
+                }
+                unchanged[0] = true;
+                return write.get();
+            });
+            if (unchanged[0]) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Adds the {@link TransactionManager} locks of the entities a ticket references, so a delete of one of them
+     * waits for the write of the ticket, and the write for the delete.
+     * @param ticket | The ticket being written.
+     * @param locks | The locks to take, by their position in the lock order.
+     * */
+    static void addReferenceLocks(Ticket ticket, SortedMap<Long, ReentrantLock> locks) {
+        if (ticket.getStartStation() != null) {
+            addLock(locks, TransactionManager.STATIONS, ticket.getStartStation().getId());
+        }
+        if (ticket.getEndStation() != null) {
+            addLock(locks, TransactionManager.STATIONS, ticket.getEndStation().getId());
+        }
+        if (ticket.getTrain() != null) {
+            addLock(locks, TransactionManager.TRAINS, ticket.getTrain().getId());
+        }
+        if (ticket.getEconomy() != null) {
+            addLock(locks, TransactionManager.ECONOMIES, ticket.getEconomy().getId());
+        }
+        if (ticket.getAgeGroup() != null) {
+            addLock(locks, TransactionManager.AGE_GROUPS, ticket.getAgeGroup().getId());
+        }
+        if (ticket.getDiscounts() != null) {
+            for (Discount discount : ticket.getDiscounts()) {
+                if (discount != null) {
+                    addLock(locks, TransactionManager.DISCOUNTS, discount.getId());
                 }
             }
         }
     }
 
+    private static void addLock(SortedMap<Long, ReentrantLock> locks, TransactionManager.Table<?> table, int id) {
+        locks.putIfAbsent(table.lockKey(id), table.lockOf(id));
+    }
+
+    /**
+     * Returns the IDs of the tickets currently referencing an entity, in ID order.
+     * */
+    private static SortedSet<Integer> dependentsOf(Integer id, Reference... references) {
+        SortedSet<Integer> dependents = new TreeSet<>();
+        if (id == null) {
+            return dependents;
+        }
+        for (Reference reference : references) {
+            for (int ticketId : indexOf(reference).get(id)) {
+                if (refersTo(tickets.get(ticketId), id, reference)) {
+                    dependents.add(ticketId);
+                }
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * Stores a copy of a ticket without its references to an entity.
+     * @return true if the ticket was changed, false if it no longer references the entity.
+     * */
+    private static boolean nullify(int ticketId, int id, Reference... references) {
+        while (true) {
+            Ticket current = tickets.get(ticketId);
+            if (current == null || !refersToAny(current, id, references)) {
+                return false;
+            }
+            Ticket copy = withoutReferences(current, id, Set.of(references));
+            if (tickets.update(copy, current.getVersion()) == UpdateResult.UPDATED) {
+                return true;
+            }
+        }
+    }
+
+    private static Ticket withoutReferences(Ticket ticket, int id, Set<Reference> references) {
+        Ticket copy = new Ticket(ticket.getId(), ticket.getDepartDateBooking(), ticket.getRegistrationDateTicket(),
+                ticket.getPrice(), ticket.getUser(),
+                keep(ticket, Reference.START_STATION, id, references) ? ticket.getStartStation() : null,
+                keep(ticket, Reference.END_STATION, id, references) ? ticket.getEndStation() : null,
+                keep(ticket, Reference.TRAIN, id, references) ? ticket.getTrain() : null,
+                keep(ticket, Reference.ECONOMY, id, references) ? ticket.getEconomy() : null,
+                keep(ticket, Reference.AGE_GROUP, id, references) ? ticket.getAgeGroup() : null);
+        copy.setReturnDateBooking(ticket.getReturnDateBooking());
+        copy.setReturnDateTicket(ticket.getReturnDateTicket());
+        copy.setSeatNumber(ticket.getSeatNumber());
+        if (ticket.getDiscounts() != null) {
+            copy.discount(ticket.getDiscounts().stream()
+                    .filter(discount -> !references.contains(Reference.DISCOUNT) || discount.getId() != id)
+                    .collect(Collectors.toCollection(HashSet::new)));
+        }
+        return copy;
+    }
+
+    private static boolean keep(Ticket ticket, Reference reference, int id, Set<Reference> references) {
+        return !references.contains(reference) || !refersTo(ticket, id, reference);
+    }
+
+    private static boolean refersToAny(Ticket ticket, int id, Reference... references) {
+        for (Reference reference : references) {
+            if (refersTo(ticket, id, reference)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean refersTo(Ticket ticket, int id, Reference reference) {
+        return ticket != null && indexOf(reference).matches(ticket, id);
+    }
+
+    private static SecondaryIndex<Ticket, Integer> indexOf(Reference reference) {
+        return switch (reference) {
+            case START_STATION -> byStartStation;
+            case END_STATION -> byEndStation;
+            case TRAIN -> byTrain;
+            case ECONOMY -> byEconomy;
+            case AGE_GROUP -> byAgeGroup;
+            case DISCOUNT -> byDiscount;
+        };
+    }
+
+    private static long runKey(int trainId, LocalDate date) {
+        return ((long) trainId << 32) | (date.toEpochDay() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the store shared by all instances, for {@link RepositoryPersistence}.
+     * @return the Ticket store.
+     * */
+    static EntityStore<Ticket> store() {
+        return tickets;
+    }
 }
@@ -1,30 +1,52 @@
 package com.study.repository;
 
 import com.study.domain.Train;
+import com.study.repository.storage.EntityStore;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.HashMap;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 
 /**
  * Repository implementation for managing Train entities.
+ * Deleting a train applies the {@link ReferencePolicy} of the repository to the tickets referencing it.
  */
 public class TrainRepository implements CrudRepository<Train> {
 
-    private static Logger LOGGER = LogManager.getLogger();
+    private static final Logger LOGGER = LogManager.getLogger();
 
     /**
-     * Counter to generate unique IDs for Train entities.
+     * Concurrent storage for Train entities, keyed by ID and generating unique IDs on save.
      */
-    private static Integer id = 0;
+    private static final EntityStore<Train> trains = new EntityStore<>(Train::getId, Train::setId,
+            Train::getVersion, Train::setVersion);
+
+    private final TicketRepository ticketRepository = new TicketRepository();
 
     /**
-     * Storage for Train entities, using a HashMap with IDs as keys.
-     */
-    private static final HashMap<Integer, Train> trains = new HashMap<>();
+     * What deleting a Train does to the tickets referencing it.
+     * */
+    private final ReferencePolicy onDelete;
+
+    /**
+     * Creates a repository refusing to delete trains still referenced by tickets.
+     * */
+    public TrainRepository() {
+        this(ReferencePolicy.RESTRICT);
+    }
+
+    /**
+     * Creates a repository applying a policy to the tickets referencing the train entities it deletes.
+     * @param onDelete | What deleting a train does to the tickets referencing it.
+     * */
+    public TrainRepository(ReferencePolicy onDelete) {
+        this.onDelete = onDelete;
+    }
 
     /**
      * Saves a single Train entity.
@@ -34,26 +56,25 @@ public class TrainRepository implements CrudRepository<Train> {
     @Override
     public Train save(Train train) {
         if (train != null) {
-            train.setId(++id);
-            trains.put(id, train);
-            LOGGER.debug("Saved Train with id {}", id);
+            trains.insert(train);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Saved Train with id {}", train.getId());
+            }
         }
         return train;
     }
 
     /**
      * Saves a list of Train entities.
+     * IDs for the whole list are reserved at once and one log line is written for the whole list.
      * @param trains The list of Train entities to be saved.
      * @return The list of saved Train entities.
      * */
     @Override
     public List<Train> saveAll(List<Train> trains) {
-        for (Train train : trains){
-            if (train != null) {
-                train.setId(++id);
-                this.trains.put(id, train);
-                LOGGER.debug("Saved Train with id {}", id);
-            }
+        int saved = TrainRepository.trains.insertAll(trains);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Saved {} Trains", saved);
         }
         return trains;
     }
@@ -65,8 +86,20 @@ public class TrainRepository implements CrudRepository<Train> {
      * */
     @Override
     public Optional<Train> findById(Integer id){
-        LOGGER.debug("Finding Train with id {}", id);
-        return Optional.of(trains.get(id));
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Retrieves a Train entity by its identifier, without boxing it.
+     * @param id The identifier of the Train entity to be retrieved.
+     * @return An optional containing the retrieved Train entity, or empty if not found.
+     * */
+    @Override
+    public Optional<Train> findById(int id){
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Finding Train with id {}", id);
+        }
+        return Optional.ofNullable(trains.get(id));
     }
 
     /**
@@ -77,7 +110,47 @@ public class TrainRepository implements CrudRepository<Train> {
      */
     @Override
     public List<Train> findAll() {
-        return trains.values().stream().toList();
+        return trains.values();
+    }
+
+    /**
+     * Retrieves one page of Train entities, ordered by ID.
+     * @param offset | The number of Train entities to skip.
+     * @param limit | The maximum number of Train entities in the page.
+     * @return a list with the Train entities of the page.
+     * */
+    @Override
+    public List<Train> findPage(int offset, int limit) {
+        return trains.page(offset, limit);
+    }
+
+    /**
+     * Retrieves the page of Train entities following the one with ID {@code afterId}, ordered by ID.
+     * @param afterId | The ID of the last Train of the previous page, or 0 for the first page.
+     * @param limit | The maximum number of Train entities in the page.
+     * @return a list with the Train entities of the page.
+     * */
+    @Override
+    public List<Train> findPageAfter(int afterId, int limit) {
+        return trains.pageAfter(afterId, limit);
+    }
+
+    /**
+     * Streams all Train entities lazily, ordered by ID.
+     * @return a stream of all Train entities.
+     * */
+    @Override
+    public Stream<Train> streamAll() {
+        return trains.stream();
+    }
+
+    /**
+     * Opens a snapshot of the Train entities as they are now; writes made meanwhile are not seen through it.
+     * @return an open snapshot of the Train entities, to be closed once read.
+     * */
+    @Override
+    public RepositorySnapshot<Train> snapshot() {
+        return RepositorySnapshot.of(trains.snapshot());
     }
 
     /**
@@ -87,8 +160,20 @@ public class TrainRepository implements CrudRepository<Train> {
      * */
     @Override
     public boolean existById(Integer id){
-        boolean exist = id != null && trains.containsKey(id);
-        LOGGER.debug("Existence check for Train with id {}: {}", id, exist);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a Train entity with the given identifier exists, without boxing it.
+     * @param id The identifier of the Train entity to check.
+     * @return true if the Train entity exists, otherwise false.
+     * */
+    @Override
+    public boolean existById(int id){
+        boolean exist = trains.contains(id);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Existence check for Train with id {}: {}", id, exist);
+        }
         return exist;
     }
 
@@ -101,8 +186,7 @@ public class TrainRepository implements CrudRepository<Train> {
     @Override
     public boolean updateId(Integer id, Train nwTrain){
         if (nwTrain != null && id != null){
-            trains.remove(id);
-            trains.put(nwTrain.getId(), nwTrain);
+            trains.replace(id, nwTrain);
             LOGGER.debug("Updated Train with id {}", id);
             return true;
         }
@@ -110,14 +194,38 @@ public class TrainRepository implements CrudRepository<Train> {
         return false;
     }
 
+    /**
+     * Updates a Train entity if it has not been changed since it was read.
+     * @param train The Train entity with the new values.
+     * @param expectedVersion The version of the Train entity when it was read.
+     * @return the outcome of the update; on success the version of train is incremented.
+     * */
+    @Override
+    public UpdateResult update(Train train, long expectedVersion) {
+        if (train == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        UpdateResult result = trains.update(train, expectedVersion);
+        if (result == UpdateResult.UPDATED) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Updated Train with id {} to version {}", train.getId(), train.getVersion());
+            }
+        } else {
+            LOGGER.warn("Failed to update Train with id {} from version {}: {}", train.getId(), expectedVersion, result);
+        }
+        return result;
+    }
+
     /**
      * Deletes a Train entity by its identifier.
+     * The tickets referencing it are first deleted, changed or checked according to the {@link ReferencePolicy} of this repository.
      * @param id The identifier of the Train entity to be deleted.
+     * @throws ReferentialIntegrityException if the policy is RESTRICT and tickets reference the Train.
      * */
     @Override
     public void deleteById(Integer id){
         if (id != null){
-            trains.remove(id);
+            resolveReferences(List.of(id), () -> trains.remove(id));
             LOGGER.debug("Deleted Train with id {}", id);
         }
     }
@@ -139,25 +247,42 @@ public class TrainRepository implements CrudRepository<Train> {
      */
     @Override
     public void deleteAll(){
-        trains.clear();
+        resolveReferences(trains.stream().map(Train::getId).toList(), () -> {
+            trains.clear();
+            return null;
+        });
         LOGGER.debug("Deleted all Trains");
     }
 
 
     /**
      * Deletes a list of Train entities.
+     * Logs one line for the whole list instead of one per entity.
      * @param trains The list of Train entities to be deleted.
      */
     @Override
     public void deleteAll(List<Train> trains) {
         if (trains != null) {
-            for (Train train : trains) {
-                if (train != null) {
-                    deleteById(train.getId());
-                    LOGGER.debug("Deleted Train with id {}", train.getId());
-                }
+            int deleted = resolveReferences(trains.stream().filter(Objects::nonNull).map(Train::getId).toList(),
+                    () -> TrainRepository.trains.removeAll(trains));
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Deleted {} Trains", deleted);
             }
         }
     }
 
+    /**
+     * Deletes Train entities after applying the delete policy of this repository to the tickets referencing them.
+     * */
+    private <T> T resolveReferences(List<Integer> ids, Supplier<T> delete) {
+        return ticketRepository.resolveReferences(onDelete, ids, delete, TicketRepository.Reference.TRAIN);
+    }
+
+    /**
+     * Returns the store shared by all instances, for {@link RepositoryPersistence}.
+     * @return the Train store.
+     * */
+    static EntityStore<Train> store() {
+        return trains;
+    }
 }
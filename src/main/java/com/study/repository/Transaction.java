@@ -0,0 +1,292 @@
+package com.study.repository;
+
+import com.study.repository.TransactionManager.Table;
+import com.study.repository.storage.EntityStore;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A set of reads and writes over the in-memory repositories, applied together by {@link #commit()}
+ * or not at all. Reads go straight to the repositories and remember the version they saw;
+ * writes are only collected until the commit, which locks the written entities, and those they reference,
+ * in the order of {@link TransactionManager}, checks that the entities read, updated or deleted still have the
+ * versions seen, and applies the writes. If a check fails, or a write fails, e.g. with a
+ * {@link com.study.repository.storage.DuplicateKeyException}, the writes already applied are undone
+ * and the actions registered with {@link #onRollback(Runnable)} are run.
+ * Entities written through a transaction must be new objects, not stored ones changed in place,
+ * since a change made in place cannot be undone. Readers outside transactions may see the writes of
+ * a commit in progress one entity at a time. A transaction is meant to be used by one thread.
+ * */
+public class Transaction {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private enum State { ACTIVE, COMMITTED, ROLLED_BACK }
+
+    private final TransactionManager manager;
+
+    private final List<Read<?>> reads = new ArrayList<>();
+
+    private final List<Write<?>> writes = new ArrayList<>();
+
+    private final List<Runnable> compensations = new ArrayList<>();
+
+    private State state = State.ACTIVE;
+
+    Transaction(TransactionManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Reads an entity and remembers its version, so the commit fails if it changes meanwhile.
+     * The returned entity is the stored one and must not be changed in place.
+     * @param table | The repository to read from.
+     * @param id | The identifier of the entity.
+     * @return the entity, or null if there is none; the commit then fails if one appears meanwhile.
+     * */
+    public <E> E read(Table<E> table, int id) {
+        checkActive();
+        E entity = table.store().get(id);
+        reads.add(new Read<>(table, id, entity == null ? -1 : table.store().versionOf(entity)));
+        return entity;
+    }
+
+    /**
+     * Inserts a new entity on commit. Its identifier is assigned by the commit.
+     * @param table | The repository to insert into.
+     * @param entity | The new entity.
+     * @return the entity.
+     * */
+    public <E> E insert(Table<E> table, E entity) {
+        checkActive();
+        writes.add(new Write<>(Operation.INSERT, table, 0, entity, 0));
+        return entity;
+    }
+
+    /**
+     * Replaces an entity on commit, provided it still has the expected version;
+     * on commit the version of the new entity becomes {@code expectedVersion + 1}.
+     * @param table | The repository to update.
+     * @param entity | The new entity, with the identifier of the entity to replace.
+     * @param expectedVersion | The version of the entity when it was read.
+     * */
+    public <E> void update(Table<E> table, E entity, long expectedVersion) {
+        checkActive();
+        writes.add(new Write<>(Operation.UPDATE, table, table.store().idOf(entity), entity, expectedVersion));
+    }
+
+    /**
+     * Deletes an entity on commit, provided it still has the expected version.
+     * @param table | The repository to delete from.
+     * @param id | The identifier of the entity.
+     * @param expectedVersion | The version of the entity when it was read.
+     * */
+    public <E> void delete(Table<E> table, int id, long expectedVersion) {
+        checkActive();
+        writes.add(new Write<>(Operation.DELETE, table, id, null, expectedVersion));
+    }
+
+    /**
+     * Registers an action undoing a change made outside the repositories, e.g. a seat reservation,
+     * run if the transaction is rolled back. Actions run in the reverse order of registration.
+     * @param compensation | The action.
+     * */
+    public void onRollback(Runnable compensation) {
+        checkActive();
+        compensations.add(compensation);
+    }
+
+    /**
+     * Applies the writes of the transaction if none of the entities it read or writes has changed since.
+     * @return true if the transaction was committed, false if it was rolled back because of a conflict.
+     * @throws RuntimeException thrown by a write, after the transaction has been rolled back.
+     * */
+    public boolean commit() {
+        checkActive();
+        TreeMap<Long, ReentrantLock> locks = new TreeMap<>();
+        for (Write<?> write : writes) {
+            if (write.operation != Operation.INSERT) {
+                locks.putIfAbsent(write.table.lockKey(write.id), write.table.lockOf(write.id));
+            }
+            write.addReferenceLocks(locks);
+        }
+        List<Write<?>> applied = new ArrayList<>();
+        boolean committed = false;
+        List<ReentrantLock> held = new ArrayList<>(locks.size());
+        try {
+            for (ReentrantLock lock : locks.values()) {
+                lock.lock();
+                held.add(lock);
+            }
+            if (validate()) {
+                for (Write<?> write : writes) {
+                    if (!write.apply()) {
+                        break;
+                    }
+                    applied.add(write);
+                }
+                committed = applied.size() == writes.size();
+            }
+        } catch (RuntimeException e) {
+            undo(applied);
+            held.forEach(ReentrantLock::unlock);
+            abort();
+            throw e;
+        }
+        if (!committed) {
+            undo(applied);
+        }
+        held.forEach(ReentrantLock::unlock);
+        if (!committed) {
+            abort();
+            return false;
+        }
+        state = State.COMMITTED;
+        manager.committed();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Committed a transaction of {} reads and {} writes", reads.size(), writes.size());
+        }
+        return true;
+    }
+
+    /**
+     * Discards the writes of the transaction and runs its rollback actions.
+     * Does nothing if the transaction is no longer active.
+     * */
+    public void rollback() {
+        if (state == State.ACTIVE) {
+            abort();
+        }
+    }
+
+    private boolean validate() {
+        for (Read<?> read : reads) {
+            if (!read.isCurrent()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void undo(List<Write<?>> applied) {
+        for (int i = applied.size() - 1; i >= 0; i--) {
+            applied.get(i).undo();
+        }
+    }
+
+    private void abort() {
+        state = State.ROLLED_BACK;
+        for (int i = compensations.size() - 1; i >= 0; i--) {
+            try {
+                compensations.get(i).run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Rollback action failed", e);
+            }
+        }
+        manager.rolledBack();
+    }
+
+    private void checkActive() {
+        if (state != State.ACTIVE) {
+            throw new IllegalStateException("Transaction is already " + state.name().toLowerCase().replace('_', ' '));
+        }
+    }
+
+    private enum Operation { INSERT, UPDATE, DELETE }
+
+    private static final class Read<E> {
+        private final Table<E> table;
+        private final int id;
+        private final long version;
+
+        private Read(Table<E> table, int id, long version) {
+            this.table = table;
+            this.id = id;
+            this.version = version;
+        }
+
+        private boolean isCurrent() {
+            E entity = table.store().get(id);
+            return version == (entity == null ? -1 : table.store().versionOf(entity));
+        }
+    }
+
+    private static final class Write<E> {
+        private final Operation operation;
+        private final Table<E> table;
+        private final int id;
+        private final E entity;
+        private final long expectedVersion;
+
+        /**
+         * Entity replaced or deleted by the write, restored if the write is undone.
+         * */
+        private E before;
+
+        private Write(Operation operation, Table<E> table, int id, E entity, long expectedVersion) {
+            this.operation = operation;
+            this.table = table;
+            this.id = id;
+            this.entity = entity;
+            this.expectedVersion = expectedVersion;
+        }
+
+        /**
+         * Adds the locks of the entities referenced by the written entity and, for an update or a delete, by the
+         * stored one; should the stored entity change before they are taken, its version check fails the commit.
+         * */
+        private void addReferenceLocks(TreeMap<Long, ReentrantLock> locks) {
+            if (entity != null) {
+                table.addReferenceLocks(entity, locks);
+            }
+            if (operation != Operation.INSERT) {
+                E stored = table.store().get(id);
+                if (stored != null) {
+                    table.addReferenceLocks(stored, locks);
+                }
+            }
+        }
+
+        /**
+         * Applies the write; the caller holds the lock of the entity.
+         * @return false if the entity has changed since it was read.
+         * */
+        private boolean apply() {
+            EntityStore<E> store = table.store();
+            switch (operation) {
+                case INSERT -> store.insert(entity);
+                case UPDATE -> {
+                    before = store.get(id);
+                    return store.update(entity, expectedVersion) == UpdateResult.UPDATED;
+                }
+                case DELETE -> {
+                    before = store.get(id);
+                    if (before == null || store.versionOf(before) != expectedVersion) {
+                        return false;
+                    }
+                    store.remove(id);
+                }
+            }
+            return true;
+        }
+
+        private void undo() {
+            EntityStore<E> store = table.store();
+            switch (operation) {
+                case INSERT -> store.remove(store.idOf(entity));
+                case UPDATE -> {
+                    // the restored entity gets a new version, so readers of the undone one see a change
+                    if (store.update(before, expectedVersion + 1) != UpdateResult.UPDATED) {
+                        LOGGER.error("Could not undo the update of entity {}: it was changed outside the transaction", id);
+                    }
+                }
+                case DELETE -> store.replace(id, before);
+            }
+        }
+    }
+}
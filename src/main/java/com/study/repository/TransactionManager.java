@@ -0,0 +1,176 @@
+package com.study.repository;
+
+import com.study.domain.*;
+import com.study.repository.storage.EntityStore;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs {@link Transaction}s over the in-memory repositories, so a change spanning several of them,
+ * such as a purchase, either happens completely or leaves no trace.
+ * A transaction collects its reads and writes without locking anything; on commit it locks the entities
+ * it writes, checks that nothing it read or writes has changed since, applies its writes and unlocks them.
+ * Entity locks are striped per repository and always taken in the same order, repository by repository
+ * and by identifier, so transactions never deadlock, and transactions writing different entities
+ * never wait for each other. Entities are only locked during the commit itself; a commit writing a ticket
+ * also locks the entities it references, as {@link TicketRepository} does when it writes tickets or
+ * deletes referenced entities, so a ticket cannot be stored while an entity it references is being deleted.
+ * The repositories are shared by all instances, and so are the locks;
+ * an instance only keeps the statistics of the transactions it started.
+ * */
+public class TransactionManager {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /**
+     * Number of locks per repository; entities whose identifiers share a stripe share a lock.
+     * */
+    private static final int LOCK_STRIPES = 256;
+
+    public static final Table<AgeGroup> AGE_GROUPS = new Table<>(0, AgeGroupRepository.store());
+    public static final Table<Economy> ECONOMIES = new Table<>(1, EconomyRepository.store());
+    public static final Table<Station> STATIONS = new Table<>(2, StationRepository.store());
+    public static final Table<Train> TRAINS = new Table<>(3, TrainRepository.store());
+    public static final Table<Discount> DISCOUNTS = new Table<>(4, DiscountRepository.store());
+    public static final Table<User> USERS = new Table<>(5, UserRepository.store());
+    public static final Table<Ticket> TICKETS = new Table<>(6, TicketRepository.store(), TicketRepository::addReferenceLocks);
+
+    private final LongAdder commits = new LongAdder();
+
+    private final LongAdder rollbacks = new LongAdder();
+
+    /**
+     * Starts a transaction.
+     * @return a new active transaction.
+     * */
+    public Transaction begin() {
+        return new Transaction(this);
+    }
+
+    /**
+     * Runs some work in a new transaction and commits it. The transaction is rolled back
+     * if the work throws or the commit finds a conflict.
+     * @param work | The work, reading and writing through the transaction it is given.
+     * @return the result of the work, or null if the transaction was rolled back because of a conflict.
+     * */
+    public <T> T execute(Function<Transaction, T> work) {
+        Transaction transaction = begin();
+        T result;
+        try {
+            result = work.apply(transaction);
+        } catch (RuntimeException e) {
+            transaction.rollback();
+            throw e;
+        }
+        return transaction.commit() ? result : null;
+    }
+
+    /**
+     * Returns the number of transactions of this manager committed so far.
+     * @return the number of commits.
+     * */
+    public long commitCount() {
+        return commits.sum();
+    }
+
+    /**
+     * Returns the number of transactions of this manager rolled back so far, on request or because of a conflict.
+     * @return the number of rollbacks.
+     * */
+    public long rollbackCount() {
+        return rollbacks.sum();
+    }
+
+    /**
+     * Runs an action holding locks of the repositories, taken in their order and released afterwards.
+     * @param locks | The locks, by their position in the lock order.
+     * @param action | The action.
+     * @return the result of the action.
+     * */
+    static <T> T callLocked(SortedMap<Long, ReentrantLock> locks, Supplier<T> action) {
+        List<ReentrantLock> held = new ArrayList<>(locks.size());
+        try {
+            for (ReentrantLock lock : locks.values()) {
+                lock.lock();
+                held.add(lock);
+            }
+            return action.get();
+        } finally {
+            held.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    void committed() {
+        commits.increment();
+    }
+
+    void rolledBack() {
+        rollbacks.increment();
+        LOGGER.debug("Rolled back a transaction");
+    }
+
+    /**
+     * A repository taking part in transactions: its store and the locks of its entities.
+     * @param <E> The type of entity in the repository.
+     * */
+    public static final class Table<E> {
+
+        /**
+         * Position of the repository in the lock order.
+         * */
+        private final int order;
+
+        private final EntityStore<E> store;
+
+        private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+        /**
+         * Adds the locks of the entities an entity of this repository references, taken when it is written.
+         * */
+        private final BiConsumer<E, SortedMap<Long, ReentrantLock>> referenceLocks;
+
+        private Table(int order, EntityStore<E> store) {
+            this(order, store, (entity, locks) -> { });
+        }
+
+        private Table(int order, EntityStore<E> store, BiConsumer<E, SortedMap<Long, ReentrantLock>> referenceLocks) {
+            this.order = order;
+            this.store = store;
+            this.referenceLocks = referenceLocks;
+            for (int i = 0; i < LOCK_STRIPES; i++) {
+                locks[i] = new ReentrantLock();
+            }
+        }
+
+        EntityStore<E> store() {
+            return store;
+        }
+
+        /**
+         * Returns the position of the lock of an entity in the global lock order.
+         * */
+        long lockKey(int id) {
+            return (long) order * LOCK_STRIPES + (id & (LOCK_STRIPES - 1));
+        }
+
+        ReentrantLock lockOf(int id) {
+            return locks[id & (LOCK_STRIPES - 1)];
+        }
+
+        /**
+         * Adds the locks of the entities referenced by a written entity.
+         * */
+        void addReferenceLocks(E entity, SortedMap<Long, ReentrantLock> into) {
+            referenceLocks.accept(entity, into);
+        }
+    }
+}
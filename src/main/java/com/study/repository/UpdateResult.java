@@ -0,0 +1,23 @@
+package com.study.repository;
+
+/**
+ * Outcome of a conditional update with {@link CrudRepository#update(Object, long)}.
+ * */
+public enum UpdateResult {
+
+    /**
+     * The entity was stored and its version incremented.
+     * */
+    UPDATED,
+
+    /**
+     * The stored entity has another version than expected: it was changed since it was read,
+     * so nothing was stored and the caller should read it again and redo its change.
+     * */
+    CONFLICT,
+
+    /**
+     * No entity is stored under the identifier, e.g. it was deleted since it was read.
+     * */
+    NOT_FOUND
+}
@@ -1,58 +1,66 @@
 package com.study.repository;
 
 import com.study.domain.User;
+import com.study.repository.storage.DuplicateKeyException;
+import com.study.repository.storage.EntityStore;
+import com.study.repository.storage.UniqueIndex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository implementation for managing User entities.
+ * Emails are unique: users are indexed by their normalized email (trimmed, lower case),
+ * a user whose email is already taken is rejected when saved, and {@link #findByEmail(String)}
+ * finds a user in constant time. Users without an email are not indexed.
  * */
 public class UserRepository implements CrudRepository<User>{
 
-    private static Logger LOGGER = LogManager.getLogger();
+    private static final Logger LOGGER = LogManager.getLogger();
 
     /**
-     * Counter to generate unique IDs for User entities.
+     * Concurrent storage for User entities, keyed by ID and generating unique IDs on save.
      * */
-    private static Integer id = 0;
+    private static final EntityStore<User> users = new EntityStore<>(User::getId, User::setId,
+            User::getVersion, User::setVersion);
 
-    /**
-     * Storage for User entities, using a HashMap with IDs as keys.
-     * */
-    private static final HashMap<Integer, User> users = new HashMap<>();
+    private static final UniqueIndex<User, String> byEmail = users.addUniqueIndex(new UniqueIndex<>(
+            user -> normalizeEmail(user.getEmail())));
 
     /**
      * Saves a single User entity.
      * @param user The User entity to be saved.
      * @return The saved User entity.
+     * @throws DuplicateKeyException if another user has the same email.
      * */
     @Override
     public User save(User user) {
         if (user != null) {
-            user.setId(++id);
-            users.put(id, user);
-            LOGGER.debug("Saved User with id {}", id);
+            users.insert(user);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Saved User with id {}", user.getId());
+            }
         }
         return user;
     }
 
     /**
      * Saves a list of User entities.
+     * IDs for the whole list are reserved at once and one log line is written for the whole list.
+     * Either all users of the list are saved or, if an email is taken or repeated, none.
      * @param users The list of User entities to be saved.
      * @return The list of saved User entities.
+     * @throws DuplicateKeyException if an email is taken by another user or repeated in the list.
      * */
     @Override
     public List<User> saveAll(List<User> users) {
-        for (User user : users){
-            if (user != null) {
-                user.setId(++id);
-                this.users.put(id,user);
-                LOGGER.debug("Saved User with id {}", id);
-            }
+        int saved = UserRepository.users.insertAll(users);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Saved {} Users", saved);
         }
         return users;
     }
@@ -64,8 +72,20 @@ public class UserRepository implements CrudRepository<User>{
      * */
     @Override
     public Optional<User> findById(Integer id){
-        LOGGER.debug("Finding User with id {}", id);
-        return Optional.of(users.get(id));
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Retrieves a User entity by its identifier, without boxing it.
+     * @param id The identifier of the User entity to be retrieved.
+     * @return An optional containing the retrieved User entity, or empty if not found.
+     * */
+    @Override
+    public Optional<User> findById(int id){
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Finding User with id {}", id);
+        }
+        return Optional.ofNullable(users.get(id));
     }
 
 
@@ -77,7 +97,57 @@ public class UserRepository implements CrudRepository<User>{
      */
     @Override
     public List<User> findAll() {
-        return users.values().stream().toList();
+        return users.values();
+    }
+
+    /**
+     * Retrieves one page of User entities, ordered by ID.
+     * @param offset | The number of User entities to skip.
+     * @param limit | The maximum number of User entities in the page.
+     * @return a list with the User entities of the page.
+     * */
+    @Override
+    public List<User> findPage(int offset, int limit) {
+        return users.page(offset, limit);
+    }
+
+    /**
+     * Retrieves the page of User entities following the one with ID {@code afterId}, ordered by ID.
+     * @param afterId | The ID of the last User of the previous page, or 0 for the first page.
+     * @param limit | The maximum number of User entities in the page.
+     * @return a list with the User entities of the page.
+     * */
+    @Override
+    public List<User> findPageAfter(int afterId, int limit) {
+        return users.pageAfter(afterId, limit);
+    }
+
+    /**
+     * Streams all User entities lazily, ordered by ID.
+     * @return a stream of all User entities.
+     * */
+    @Override
+    public Stream<User> streamAll() {
+        return users.stream();
+    }
+
+    /**
+     * Opens a snapshot of the User entities as they are now; writes made meanwhile are not seen through it.
+     * @return an open snapshot of the User entities, to be closed once read.
+     * */
+    @Override
+    public RepositorySnapshot<User> snapshot() {
+        return RepositorySnapshot.of(users.snapshot());
+    }
+
+    /**
+     * Retrieves a User entity by its email, ignoring case and surrounding whitespace.
+     * @param email | The email of the User entity to be retrieved.
+     * @return An optional containing the User entity, or empty if no user has this email.
+     * */
+    public Optional<User> findByEmail(String email) {
+        LOGGER.debug("Finding User by email");
+        return Optional.ofNullable(users.findUnique(byEmail, normalizeEmail(email)));
     }
 
     /**
@@ -87,8 +157,20 @@ public class UserRepository implements CrudRepository<User>{
      * */
     @Override
     public boolean existById(Integer id){
-        boolean exist = id != null && users.containsKey(id);
-        LOGGER.debug("Existence check for User with id {}: {}", id, exist);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a User entity with the given identifier exists, without boxing it.
+     * @param id The identifier of the User entity to check.
+     * @return true if the User entity exists, otherwise false.
+     * */
+    @Override
+    public boolean existById(int id){
+        boolean exist = users.contains(id);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Existence check for User with id {}: {}", id, exist);
+        }
         return exist;
     }
 
@@ -97,12 +179,12 @@ public class UserRepository implements CrudRepository<User>{
      * @param id The current identifier of the User entity.
      * @param nwUser The User entity with the updated identifier.
      * @return true if the update was successful, otherwise false.
+     * @throws DuplicateKeyException if another user has the email of {@code nwUser}.
      * */
     @Override
     public boolean updateId(Integer id, User nwUser){
         if (nwUser != null && id != null){
-            users.remove(id);
-            users.put(nwUser.getId(), nwUser);
+            users.replace(id, nwUser);
             LOGGER.debug("Updated User with id {}", id);
             return true;
         }
@@ -110,6 +192,28 @@ public class UserRepository implements CrudRepository<User>{
         return false;
     }
 
+    /**
+     * Updates a User entity if it has not been changed since it was read.
+     * @param user The User entity with the new values.
+     * @param expectedVersion The version of the User entity when it was read.
+     * @return the outcome of the update; on success the version of user is incremented.
+     * */
+    @Override
+    public UpdateResult update(User user, long expectedVersion) {
+        if (user == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        UpdateResult result = users.update(user, expectedVersion);
+        if (result == UpdateResult.UPDATED) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Updated User with id {} to version {}", user.getId(), user.getVersion());
+            }
+        } else {
+            LOGGER.warn("Failed to update User with id {} from version {}: {}", user.getId(), expectedVersion, result);
+        }
+        return result;
+    }
+
     /**
      * Deletes a User entity by its identifier.
      * @param id The identifier of the User entity to be deleted.
@@ -146,18 +250,36 @@ public class UserRepository implements CrudRepository<User>{
 
     /**
      * Deletes a list of User entities.
+     * Logs one line for the whole list instead of one per entity.
      * @param users The list of User entities to be deleted.
      * */
     @Override
     public void deleteAll(List<User> users) {
         if (users != null) {
-            for (User user : users) {
-                if (user != null) {
-                    deleteById(user.getId());
-                    LOGGER.debug("Deleted User with id {}", user.getId());
-                }
+            int deleted = UserRepository.users.removeAll(users);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Deleted {} Users", deleted);
             }
         }
     }
 
+    /**
+     * Normalizes an email for the unique index.
+     * @param email | The email as entered.
+     * @return the trimmed, lower-case email, or null if it is null or blank.
+     * */
+    static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the store shared by all instances, for {@link RepositoryPersistence}.
+     * @return the User store.
+     * */
+    static EntityStore<User> store() {
+        return users;
+    }
 }
@@ -0,0 +1,14 @@
+package com.study.repository.jdbc;
+
+/**
+ * Unchecked wrapper for {@link java.sql.SQLException}s raised by the JDBC repositories,
+ * which implement {@link com.study.repository.CrudRepository} and cannot throw checked exceptions.
+ * */
+public class DataAccessException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
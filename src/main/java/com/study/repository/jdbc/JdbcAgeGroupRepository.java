@@ -0,0 +1,46 @@
+package com.study.repository.jdbc;
+
+import com.study.FirstDB;
+import com.study.domain.AgeGroup;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * JDBC repository for AgeGroup entities, stored in the {@code age_group} table.
+ * */
+public class JdbcAgeGroupRepository extends JdbcRepository<AgeGroup> {
+
+    public JdbcAgeGroupRepository(FirstDB db) {
+        super(db, "age_group", "type");
+    }
+
+    @Override
+    protected int idOf(AgeGroup ageGroup) {
+        return ageGroup.getId();
+    }
+
+    @Override
+    protected void assignId(AgeGroup ageGroup, int id) {
+        ageGroup.setId(id);
+    }
+
+    @Override
+    protected void assignVersion(AgeGroup ageGroup, long version) {
+        ageGroup.setVersion(version);
+    }
+
+    @Override
+    protected int bind(PreparedStatement statement, AgeGroup ageGroup) throws SQLException {
+        statement.setString(1, ageGroup.getType());
+        return 1;
+    }
+
+    @Override
+    protected AgeGroup map(ResultSet resultSet) throws SQLException {
+        return new AgeGroup()
+                .id(resultSet.getInt("id"))
+                .type(resultSet.getString("type"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.study.repository.jdbc;
+
+import com.study.FirstDB;
+import com.study.domain.Discount;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * JDBC repository for Discount entities, stored in the {@code discount} table.
+ * */
+public class JdbcDiscountRepository extends JdbcRepository<Discount> {
+
+    public JdbcDiscountRepository(FirstDB db) {
+        super(db, "discount", "type", "percent", "start_at", "end_at");
+    }
+
+    @Override
+    protected int idOf(Discount discount) {
+        return discount.getId();
+    }
+
+    @Override
+    protected void assignId(Discount discount, int id) {
+        discount.setId(id);
+    }
+
+    @Override
+    protected void assignVersion(Discount discount, long version) {
+        discount.setVersion(version);
+    }
+
+    @Override
+    protected int bind(PreparedStatement statement, Discount discount) throws SQLException {
+        statement.setString(1, discount.getType());
+        statement.setObject(2, discount.getPercent());
+        setDate(statement, 3, discount.getStartAt());
+        setDate(statement, 4, discount.getEndAt());
+        return 4;
+    }
+
+    @Override
+    protected Discount map(ResultSet resultSet) throws SQLException {
+        return new Discount()
+                .id(resultSet.getInt("id"))
+                .type(resultSet.getString("type"))
+                .percent(resultSet.getObject("percent", Double.class))
+                .startAt(getDate(resultSet, "start_at"))
+                .endAt(getDate(resultSet, "end_at"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.study.repository.jdbc;
+
+import com.study.FirstDB;
+import com.study.domain.Economy;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * JDBC repository for Economy entities, stored in the {@code economy} table.
+ * */
+public class JdbcEconomyRepository extends JdbcRepository<Economy> {
+
+    public JdbcEconomyRepository(FirstDB db) {
+        super(db, "economy", "type");
+    }
+
+    @Override
+    protected int idOf(Economy economy) {
+        return economy.getId();
+    }
+
+    @Override
+    protected void assignId(Economy economy, int id) {
+        economy.setId(id);
+    }
+
+    @Override
+    protected void assignVersion(Economy economy, long version) {
+        economy.setVersion(version);
+    }
+
+    @Override
+    protected int bind(PreparedStatement statement, Economy economy) throws SQLException {
+        statement.setString(1, economy.getType());
+        return 1;
+    }
+
+    @Override
+    protected Economy map(ResultSet resultSet) throws SQLException {
+        return new Economy()
+                .id(resultSet.getInt("id"))
+                .type(resultSet.getString("type"));
+    }
+}
@@ -0,0 +1,700 @@
+package com.study.repository.jdbc;
+
+import com.study.FirstDB;
+import com.study.FirstDB.PooledConnection;
+import com.study.repository.CrudRepository;
+import com.study.repository.RepositorySnapshot;
+import com.study.repository.UpdateResult;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Base class of the JDBC implementations of {@link CrudRepository}.
+ * Subclasses describe their table, columns and row mapping; this class provides the SQL,
+ * runs it on pooled connections with cached prepared statements and sends
+ * {@link #saveAll(List)} and {@link #deleteAll(List)} to the database in batches.
+ * The identifier column {@code id} is generated by the database. The {@code version} column is
+ * incremented by every update; {@link #update(Object, long)} only updates a row still having the expected
+ * version, checked by the database in the same statement, so no row lock is held between the read and the write.
+ * {@link #snapshot()} reads through one read-only {@code REPEATABLE READ} transaction, kept open until the snapshot is closed.
+ * @param <E> The type of entity managed by this repository.
+ * */
+public abstract class JdbcRepository<E> implements CrudRepository<E> {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /**
+     * Maximum number of rows sent to the database in one JDBC batch.
+     * */
+    protected static final int BATCH_SIZE = 500;
+
+    /**
+     * Lookups by several IDs use {@code IN} lists padded to a power of two up to this size,
+     * so only a handful of distinct statements end up in the statement cache.
+     * */
+    protected static final int MAX_IN_LIST = 256;
+
+    protected final FirstDB db;
+
+    protected final String table;
+
+    private final String insertSql;
+    private final String insertWithIdSql;
+    private final String updateSql;
+    private final String versionedUpdateSql;
+    private final String selectSql;
+    private final String pageSql;
+    private final String pageAfterSql;
+    private final String existsSql;
+    private final String countSql;
+    private final String deleteByIdSql;
+    private final String deleteAllSql;
+
+    /**
+     * @param db | The connection pool to use.
+     * @param table | The table name.
+     * @param columns | The columns besides {@code id}, in the order used by {@link #bind(PreparedStatement, Object)}.
+     * */
+    protected JdbcRepository(FirstDB db, String table, String... columns) {
+        this.db = db;
+        this.table = table;
+        String columnList = String.join(", ", columns);
+        String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+        this.insertSql = "INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ")";
+        this.insertWithIdSql = "INSERT INTO " + table + " (" + columnList + ", id) VALUES (" + placeholders + ", ?)";
+        String assignments = Arrays.stream(columns).map(column -> column + " = ?").collect(Collectors.joining(", "));
+        this.updateSql = "UPDATE " + table + " SET " + assignments + ", version = version + 1, id = ? WHERE id = ?";
+        this.versionedUpdateSql = "UPDATE " + table + " SET " + assignments + ", version = ? WHERE id = ? AND version = ?";
+        this.selectSql = "SELECT id, version, " + columnList + " FROM " + table;
+        this.pageSql = selectSql + " ORDER BY id LIMIT ? OFFSET ?";
+        this.pageAfterSql = selectSql + " WHERE id > ? ORDER BY id LIMIT ?";
+        this.existsSql = "SELECT 1 FROM " + table + " WHERE id = ?";
+        this.countSql = "SELECT COUNT(*) FROM " + table;
+        this.deleteByIdSql = "DELETE FROM " + table + " WHERE id = ?";
+        this.deleteAllSql = "DELETE FROM " + table;
+    }
+
+    /**
+     * Reads the identifier of an entity.
+     * */
+    protected abstract int idOf(E entity);
+
+    /**
+     * Writes the identifier generated by the database into an entity.
+     * */
+    protected abstract void assignId(E entity, int id);
+
+    /**
+     * Writes the version read from the database or set by an update into an entity.
+     * */
+    protected abstract void assignVersion(E entity, long version);
+
+    /**
+     * Binds the column values of an entity to parameters 1..n of an insert or update statement.
+     * @return the index of the last bound parameter.
+     * */
+    protected abstract int bind(PreparedStatement statement, E entity) throws SQLException;
+
+    /**
+     * Creates an entity from the current row of a result set.
+     * */
+    protected abstract E map(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Called with freshly read entities, e.g. to resolve references. Does nothing by default.
+     * */
+    protected void afterRead(PooledConnection connection, List<E> entities) throws SQLException { }
+
+    /**
+     * Called in the same transaction after entities were inserted or updated,
+     * e.g. to write join tables. Does nothing by default.
+     * @param inserted | true if the entities are new rows, so there is nothing of theirs to replace.
+     * */
+    protected void afterWrite(PooledConnection connection, List<E> entities, boolean inserted) throws SQLException { }
+
+    /**
+     * Saves a single entity; its ID is generated by the database.
+     * @param entity | The entity to be saved.
+     * @return The saved entity.
+     * */
+    @Override
+    public E save(E entity) {
+        if (entity != null) {
+            saveAll(List.of(entity));
+        }
+        return entity;
+    }
+
+    /**
+     * Saves a list of entities in one transaction, {@link #BATCH_SIZE} rows per JDBC batch.
+     * @param entities | The list of entities to be saved.
+     * @return The list of saved entities.
+     * */
+    @Override
+    public List<E> saveAll(List<E> entities) {
+        List<E> toSave = entities.stream().filter(Objects::nonNull).toList();
+        if (toSave.isEmpty()) {
+            return entities;
+        }
+        try (PooledConnection connection = db.borrow()) {
+            connection.unwrap().setAutoCommit(false);
+            PreparedStatement statement = connection.prepareReturningKeys(insertSql);
+            for (int from = 0; from < toSave.size(); from += BATCH_SIZE) {
+                List<E> chunk = toSave.subList(from, Math.min(from + BATCH_SIZE, toSave.size()));
+                for (E entity : chunk) {
+                    bind(statement, entity);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (E entity : chunk) {
+                        if (!keys.next()) {
+                            throw new SQLException("Missing generated key for " + table);
+                        }
+                        assignId(entity, keys.getInt(1));
+                    }
+                }
+            }
+            afterWrite(connection, toSave, true);
+            connection.unwrap().commit();
+            LOGGER.debug("Saved {} rows into {}", toSave.size(), table);
+            return entities;
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to save into " + table, e);
+        }
+    }
+
+    /**
+     * Retrieves an entity by its identifier.
+     * @param id | The identifier of the entity to be retrieved.
+     * @return An optional containing the retrieved entity, or empty if not found.
+     * */
+    @Override
+    public Optional<E> findById(Integer id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(findAllById(List.of(id)).get(id));
+    }
+
+    /**
+     * Retrieves several entities by their identifiers.
+     * @param ids | The identifiers of the entities.
+     * @return The found entities by identifier; unknown identifiers are left out.
+     * */
+    public Map<Integer, E> findAllById(Collection<Integer> ids) {
+        try (PooledConnection connection = db.borrow()) {
+            return findAllById(connection, ids);
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to read from " + table, e);
+        }
+    }
+
+    /**
+     * Retrieves several entities by their identifiers on a connection that is already borrowed,
+     * so repositories resolving references do not need a second connection.
+     * */
+    Map<Integer, E> findAllById(PooledConnection connection, Collection<Integer> ids) throws SQLException {
+        List<Integer> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Integer, E> found = new HashMap<>();
+        if (distinct.isEmpty()) {
+            return found;
+        }
+        List<E> entities = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MAX_IN_LIST) {
+            List<Integer> chunk = distinct.subList(from, Math.min(from + MAX_IN_LIST, distinct.size()));
+            PreparedStatement statement = connection.prepare(selectSql + " WHERE id IN ("
+                    + inListPlaceholders(chunk.size()) + ")");
+            bindInList(statement, chunk);
+            entities.addAll(query(statement));
+        }
+        afterRead(connection, entities);
+        for (E entity : entities) {
+            found.put(idOf(entity), entity);
+        }
+        return found;
+    }
+
+    /**
+     * Retrieves all entities, ordered by ID.
+     * @return A list containing all entities.
+     * */
+    @Override
+    public List<E> findAll() {
+        try (PooledConnection connection = db.borrow()) {
+            List<E> entities = query(connection.prepare(selectSql + " ORDER BY id"));
+            afterRead(connection, entities);
+            return entities;
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to read from " + table, e);
+        }
+    }
+
+    /**
+     * Retrieves one page of entities with {@code LIMIT}/{@code OFFSET}, ordered by ID.
+     * @param offset | The number of entities to skip.
+     * @param limit | The maximum number of entities in the page.
+     * @return A list with the entities of the page.
+     * */
+    @Override
+    public List<E> findPage(int offset, int limit) {
+        checkPage(offset, limit);
+        try (PooledConnection connection = db.borrow()) {
+            PreparedStatement statement = connection.prepare(pageSql);
+            statement.setInt(1, limit);
+            statement.setInt(2, offset);
+            List<E> entities = query(statement);
+            afterRead(connection, entities);
+            return entities;
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to read from " + table, e);
+        }
+    }
+
+    /**
+     * Retrieves the page of entities with IDs greater than {@code afterId}, ordered by ID.
+     * The page is found through the primary key index, whatever its position.
+     * @param afterId | The ID of the last entity of the previous page, or 0 for the first page.
+     * @param limit | The maximum number of entities in the page.
+     * @return A list with the entities of the page.
+     * */
+    @Override
+    public List<E> findPageAfter(int afterId, int limit) {
+        checkPage(0, limit);
+        try (PooledConnection connection = db.borrow()) {
+            return findPageAfter(connection, afterId, limit);
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to read from " + table, e);
+        }
+    }
+
+    private List<E> findPageAfter(PooledConnection connection, int afterId, int limit) throws SQLException {
+        PreparedStatement statement = connection.prepare(pageAfterSql);
+        statement.setInt(1, afterId);
+        statement.setInt(2, limit);
+        List<E> entities = query(statement);
+        afterRead(connection, entities);
+        return entities;
+    }
+
+    /**
+     * Opens a snapshot of all entities on a connection of its own, in a read-only {@code REPEATABLE READ}
+     * transaction: the database answers every read of the transaction from the point in time of its first one,
+     * taken when the snapshot is opened. Entities are read only when asked for, in pages of {@link #BATCH_SIZE}
+     * when streamed, so the table is never copied to the heap at once. The connection is held until the
+     * snapshot is closed.
+     * @return An open snapshot of all entities.
+     * */
+    @Override
+    public RepositorySnapshot<E> snapshot() {
+        PooledConnection connection;
+        try {
+            connection = db.borrow();
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to open a snapshot of " + table, e);
+        }
+        try {
+            return new JdbcSnapshot(connection);
+        } catch (SQLException e) {
+            connection.close();
+            throw new DataAccessException("Failed to open a snapshot of " + table, e);
+        }
+    }
+
+    /**
+     * Streams all entities, ordered by ID. Rows are read in pages of {@link #BATCH_SIZE}
+     * with {@link #findPageAfter(int, int)} as the stream is consumed, so no connection
+     * is held between pages and an abandoned stream leaks nothing.
+     * @return A stream of all entities.
+     * */
+    @Override
+    public Stream<E> streamAll() {
+        return streamPages(this::findPageAfter);
+    }
+
+    /**
+     * Streams entities, ordered by ID, reading them in pages of {@link #BATCH_SIZE} as the stream is consumed.
+     * @param pageAfter | Reads the page of entities following an ID, up to a number of entities.
+     * */
+    private Stream<E> streamPages(PageReader<E> pageAfter) {
+        Iterator<E> pages = new Iterator<>() {
+            private Iterator<E> page = Collections.emptyIterator();
+            private int lastId;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (!page.hasNext() && !exhausted) {
+                    List<E> next = pageAfter.read(lastId, BATCH_SIZE);
+                    exhausted = next.size() < BATCH_SIZE;
+                    if (!next.isEmpty()) {
+                        lastId = idOf(next.getLast());
+                    }
+                    page = next.iterator();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Checks if an entity with the given identifier exists.
+     * @param id | The identifier of the entity to check.
+     * @return true if the entity exists, otherwise false.
+     * */
+    @Override
+    public boolean existById(Integer id) {
+        if (id == null) {
+            return false;
+        }
+        try (PooledConnection connection = db.borrow()) {
+            return existById(connection, id);
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to read from " + table, e);
+        }
+    }
+
+    private boolean existById(PooledConnection connection, int id) throws SQLException {
+        PreparedStatement statement = connection.prepare(existsSql);
+        statement.setInt(1, id);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next();
+        }
+    }
+
+    /**
+     * Replaces the row with identifier {@code id} by the entity, stored under its own identifier.
+     * @param id | The current identifier of the row.
+     * @param entity | The entity with the new values and identifier.
+     * @return true if the update was successful, otherwise false.
+     * */
+    @Override
+    public boolean updateId(Integer id, E entity) {
+        if (id == null || entity == null) {
+            LOGGER.warn("Failed to update {} with id {}", table, id);
+            return false;
+        }
+        int newId = idOf(entity);
+        try (PooledConnection connection = db.borrow()) {
+            connection.unwrap().setAutoCommit(false);
+            if (newId != id) {
+                PreparedStatement delete = connection.prepare(deleteByIdSql);
+                delete.setInt(1, newId);
+                delete.executeUpdate();
+            }
+            PreparedStatement update = connection.prepare(updateSql);
+            int index = bind(update, entity);
+            update.setInt(index + 1, newId);
+            update.setInt(index + 2, id);
+            if (update.executeUpdate() == 0) {
+                PreparedStatement insert = connection.prepare(insertWithIdSql);
+                insert.setInt(bind(insert, entity) + 1, newId);
+                insert.executeUpdate();
+            }
+            afterWrite(connection, List.of(entity), false);
+            connection.unwrap().commit();
+            LOGGER.debug("Updated {} with id {}", table, id);
+            return true;
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to update " + table + " with id " + id, e);
+        }
+    }
+
+    /**
+     * Updates the row of the entity in one statement that also checks and increments its version.
+     * @param entity | The entity with the new values and the identifier of the row.
+     * @param expectedVersion | The version of the row when the entity was read.
+     * @return the outcome of the update; on success the version of the entity is incremented.
+     * */
+    @Override
+    public UpdateResult update(E entity, long expectedVersion) {
+        if (entity == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        int id = idOf(entity);
+        try (PooledConnection connection = db.borrow()) {
+            connection.unwrap().setAutoCommit(false);
+            PreparedStatement update = connection.prepare(versionedUpdateSql);
+            int index = bind(update, entity);
+            update.setLong(index + 1, expectedVersion + 1);
+            update.setInt(index + 2, id);
+            update.setLong(index + 3, expectedVersion);
+            if (update.executeUpdate() == 0) {
+                connection.unwrap().rollback();
+                UpdateResult result = existById(connection, id) ? UpdateResult.CONFLICT : UpdateResult.NOT_FOUND;
+                LOGGER.warn("Failed to update {} with id {} from version {}: {}", table, id, expectedVersion, result);
+                return result;
+            }
+            afterWrite(connection, List.of(entity), false);
+            connection.unwrap().commit();
+            assignVersion(entity, expectedVersion + 1);
+            LOGGER.debug("Updated {} with id {} to version {}", table, id, expectedVersion + 1);
+            return UpdateResult.UPDATED;
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to update " + table + " with id " + id, e);
+        }
+    }
+
+    /**
+     * Deletes an entity by its identifier.
+     * @param id The identifier of the entity to be deleted.
+     * */
+    @Override
+    public void deleteById(Integer id) {
+        if (id != null) {
+            deleteIds(List.of(id));
+        }
+    }
+
+    /**
+     * Deletes a single entity.
+     * @param entity The entity to be deleted.
+     * */
+    @Override
+    public void delete(E entity) {
+        if (entity != null) {
+            deleteById(idOf(entity));
+        }
+    }
+
+    /**
+     * Deletes all entities.
+     * */
+    @Override
+    public void deleteAll() {
+        try (PooledConnection connection = db.borrow()) {
+            int deleted = connection.prepare(deleteAllSql).executeUpdate();
+            LOGGER.debug("Deleted all {} rows from {}", deleted, table);
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to delete from " + table, e);
+        }
+    }
+
+    /**
+     * Deletes a list of entities in one transaction, {@link #BATCH_SIZE} rows per JDBC batch.
+     * @param entities The list of entities to be deleted.
+     * */
+    @Override
+    public void deleteAll(List<E> entities) {
+        if (entities != null) {
+            deleteIds(entities.stream().filter(Objects::nonNull).map(this::idOf).toList());
+        }
+    }
+
+    private void deleteIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (PooledConnection connection = db.borrow()) {
+            connection.unwrap().setAutoCommit(false);
+            PreparedStatement statement = connection.prepare(deleteByIdSql);
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                for (int id : ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()))) {
+                    statement.setInt(1, id);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            connection.unwrap().commit();
+            LOGGER.debug("Deleted {} rows from {}", ids.size(), table);
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to delete from " + table, e);
+        }
+    }
+
+    /**
+     * Returns the placeholders of an {@code IN} list for the given number of IDs,
+     * rounded up to a power of two.
+     * */
+    protected static String inListPlaceholders(int ids) {
+        return String.join(", ", Collections.nCopies(inListSize(ids), "?"));
+    }
+
+    /**
+     * Binds IDs to the placeholders of {@link #inListPlaceholders(int)}, repeating the last ID in the padding.
+     * */
+    protected static void bindInList(PreparedStatement statement, List<Integer> ids) throws SQLException {
+        int slots = inListSize(ids.size());
+        for (int i = 0; i < slots; i++) {
+            statement.setInt(i + 1, ids.get(Math.min(i, ids.size() - 1)));
+        }
+    }
+
+    private static int inListSize(int ids) {
+        return ids == 1 ? 1 : Integer.highestOneBit(ids - 1) << 1;
+    }
+
+    private static void checkPage(int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative: " + offset);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+    }
+
+    private List<E> query(PreparedStatement statement) throws SQLException {
+        List<E> entities = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                E entity = map(resultSet);
+                assignVersion(entity, resultSet.getLong("version"));
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    protected static void setDate(PreparedStatement statement, int index, LocalDate date) throws SQLException {
+        statement.setObject(index, date, Types.DATE);
+    }
+
+    protected static LocalDate getDate(ResultSet resultSet, String column) throws SQLException {
+        return resultSet.getObject(column, LocalDate.class);
+    }
+
+    /**
+     * Binds a reference to another entity; a missing entity or an unsaved one (ID 0) is stored as NULL.
+     * */
+    protected static void setReference(PreparedStatement statement, int index, Integer id) throws SQLException {
+        if (id == null || id == 0) {
+            statement.setNull(index, Types.INTEGER);
+        } else {
+            statement.setInt(index, id);
+        }
+    }
+
+    /**
+     * Reads a nullable reference column.
+     * @return the referenced ID, or null if the column is NULL.
+     * */
+    protected static Integer getReference(ResultSet resultSet, String column) throws SQLException {
+        int id = resultSet.getInt(column);
+        return resultSet.wasNull() ? null : id;
+    }
+
+    /**
+     * Reads the page of entities following the entity with ID {@code afterId}.
+     * */
+    @FunctionalInterface
+    private interface PageReader<T> {
+        List<T> read(int afterId, int limit);
+    }
+
+    /**
+     * Snapshot reading through an open read-only transaction; its reads are serialized on the one connection.
+     * */
+    private final class JdbcSnapshot implements RepositorySnapshot<E> {
+
+        private final PooledConnection connection;
+
+        private final int isolation;
+
+        private final int count;
+
+        private boolean closed;
+
+        private JdbcSnapshot(PooledConnection connection) throws SQLException {
+            this.connection = connection;
+            Connection physical = connection.unwrap();
+            isolation = physical.getTransactionIsolation();
+            physical.setReadOnly(true);
+            physical.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            physical.setAutoCommit(false);
+            // the first read of the transaction fixes the point in time seen by all the others
+            try (ResultSet resultSet = connection.prepare(countSql).executeQuery()) {
+                resultSet.next();
+                count = resultSet.getInt(1);
+            } catch (SQLException e) {
+                restore();
+                throw e;
+            }
+        }
+
+        @Override
+        public synchronized Optional<E> findById(int id) {
+            checkOpen();
+            try {
+                return Optional.ofNullable(findAllById(connection, List.of(id)).get(id));
+            } catch (SQLException e) {
+                throw new DataAccessException("Failed to read a snapshot of " + table, e);
+            }
+        }
+
+        @Override
+        public List<E> findAll() {
+            return streamAll().toList();
+        }
+
+        @Override
+        public synchronized List<E> findPageAfter(int afterId, int limit) {
+            checkOpen();
+            checkPage(0, limit);
+            try {
+                return JdbcRepository.this.findPageAfter(connection, afterId, limit);
+            } catch (SQLException e) {
+                throw new DataAccessException("Failed to read a snapshot of " + table, e);
+            }
+        }
+
+        @Override
+        public Stream<E> streamAll() {
+            checkOpen();
+            return streamPages(this::findPageAfter);
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+
+        /**
+         * Ends the transaction and gives the connection back to the pool with its former settings.
+         * Closing twice does nothing.
+         * */
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                try {
+                    restore();
+                } catch (SQLException e) {
+                    throw new DataAccessException("Failed to close a snapshot of " + table, e);
+                } finally {
+                    connection.close();
+                }
+            }
+        }
+
+        private void restore() throws SQLException {
+            Connection physical = connection.unwrap();
+            physical.rollback();
+            physical.setAutoCommit(true);
+            physical.setTransactionIsolation(isolation);
+            physical.setReadOnly(false);
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("Snapshot is closed");
+            }
+        }
+    }
+}
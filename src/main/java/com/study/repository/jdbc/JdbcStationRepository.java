@@ -0,0 +1,50 @@
+package com.study.repository.jdbc;
+
+import com.study.FirstDB;
+import com.study.domain.Station;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * JDBC repository for Station entities, stored in the {@code station} table.
+ * */
+public class JdbcStationRepository extends JdbcRepository<Station> {
+
+    public JdbcStationRepository(FirstDB db) {
+        super(db, "station", "name_of_station", "address_location", "station_phone");
+    }
+
+    @Override
+    protected int idOf(Station station) {
+        return station.getId();
+    }
+
+    @Override
+    protected void assignId(Station station, int id) {
+        station.setId(id);
+    }
+
+    @Override
+    protected void assignVersion(Station station, long version) {
+        station.setVersion(version);
+    }
+
+    @Override
+    protected int bind(PreparedStatement statement, Station station) throws SQLException {
+        statement.setString(1, station.getNameOfStation());
+        statement.setString(2, station.getAddressLocation());
+        statement.setString(3, station.getStationPhone());
+        return 3;
+    }
+
+    @Override
+    protected Station map(ResultSet resultSet) throws SQLException {
+        return new Station()
+                .id(resultSet.getInt("id"))
+                .nameOfStation(resultSet.getString("name_of_station"))
+                .addressLocation(resultSet.getString("address_location"))
+                .stationPhone(resultSet.getString("station_phone"));
+    }
+}
@@ -0,0 +1,231 @@
+package com.study.repository.jdbc;
+
+import com.study.FirstDB;
+import com.study.FirstDB.PooledConnection;
+import com.study.domain.*;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * JDBC repository for Ticket entities, stored in the {@code ticket} table with their discounts
+ * in the {@code ticket_discount} join table.
+ * References are stored as foreign keys and resolved when tickets are read, with one lookup
+ * per referenced table for all tickets of a query instead of one per ticket.
+ * */
+public class JdbcTicketRepository extends JdbcRepository<Ticket> {
+
+    private static final String SELECT_DISCOUNTS_SQL = "SELECT ticket_id, discount_id FROM ticket_discount";
+
+    private static final String DELETE_DISCOUNTS_SQL = "DELETE FROM ticket_discount WHERE ticket_id = ?";
+
+    private static final String INSERT_DISCOUNT_SQL = "INSERT INTO ticket_discount (ticket_id, discount_id) VALUES (?, ?)";
+
+    private final JdbcUserRepository userRepository;
+    private final JdbcStationRepository stationRepository;
+    private final JdbcTrainRepository trainRepository;
+    private final JdbcEconomyRepository economyRepository;
+    private final JdbcAgeGroupRepository ageGroupRepository;
+    private final JdbcDiscountRepository discountRepository;
+
+    public JdbcTicketRepository(FirstDB db) {
+        super(db, "ticket", "depart_date_booking", "return_date_booking", "registration_date_ticket",
+                "return_date_ticket", "price", "seat_number", "user_id", "start_station_id", "end_station_id",
+                "train_id", "economy_id", "age_group_id");
+        this.userRepository = new JdbcUserRepository(db);
+        this.stationRepository = new JdbcStationRepository(db);
+        this.trainRepository = new JdbcTrainRepository(db);
+        this.economyRepository = new JdbcEconomyRepository(db);
+        this.ageGroupRepository = new JdbcAgeGroupRepository(db);
+        this.discountRepository = new JdbcDiscountRepository(db);
+    }
+
+    @Override
+    protected int idOf(Ticket ticket) {
+        return ticket.getId();
+    }
+
+    @Override
+    protected void assignId(Ticket ticket, int id) {
+        ticket.setId(id);
+    }
+
+    @Override
+    protected void assignVersion(Ticket ticket, long version) {
+        ticket.setVersion(version);
+    }
+
+    @Override
+    protected int bind(PreparedStatement statement, Ticket ticket) throws SQLException {
+        setDate(statement, 1, ticket.getDepartDateBooking());
+        setDate(statement, 2, ticket.getReturnDateBooking());
+        setDate(statement, 3, ticket.getRegistrationDateTicket());
+        setDate(statement, 4, ticket.getReturnDateTicket());
+        statement.setDouble(5, ticket.getPrice());
+        statement.setInt(6, ticket.getSeatNumber());
+        setReference(statement, 7, ticket.getUser() == null ? null : ticket.getUser().getId());
+        setReference(statement, 8, ticket.getStartStation() == null ? null : ticket.getStartStation().getId());
+        setReference(statement, 9, ticket.getEndStation() == null ? null : ticket.getEndStation().getId());
+        setReference(statement, 10, ticket.getTrain() == null ? null : ticket.getTrain().getId());
+        setReference(statement, 11, ticket.getEconomy() == null ? null : ticket.getEconomy().getId());
+        setReference(statement, 12, ticket.getAgeGroup() == null ? null : ticket.getAgeGroup().getId());
+        return 12;
+    }
+
+    /**
+     * Reads a ticket row. References are set to placeholders holding only the referenced ID,
+     * which {@link #afterRead(PooledConnection, List)} replaces by the stored entities.
+     * */
+    @Override
+    protected Ticket map(ResultSet resultSet) throws SQLException {
+        Integer userId = getReference(resultSet, "user_id");
+        Integer startStationId = getReference(resultSet, "start_station_id");
+        Integer endStationId = getReference(resultSet, "end_station_id");
+        Integer trainId = getReference(resultSet, "train_id");
+        Integer economyId = getReference(resultSet, "economy_id");
+        Integer ageGroupId = getReference(resultSet, "age_group_id");
+        Ticket ticket = new Ticket(resultSet.getInt("id"),
+                getDate(resultSet, "depart_date_booking"),
+                getDate(resultSet, "registration_date_ticket"),
+                resultSet.getDouble("price"),
+                userId == null ? null : new User().id(userId),
+                startStationId == null ? null : new Station().id(startStationId),
+                endStationId == null ? null : new Station().id(endStationId),
+                trainId == null ? null : new Train().id(trainId),
+                economyId == null ? null : new Economy().id(economyId),
+                ageGroupId == null ? null : new AgeGroup().id(ageGroupId));
+        ticket.setReturnDateBooking(getDate(resultSet, "return_date_booking"));
+        ticket.setReturnDateTicket(getDate(resultSet, "return_date_ticket"));
+        ticket.setSeatNumber(resultSet.getInt("seat_number"));
+        return ticket;
+    }
+
+    @Override
+    protected void afterRead(PooledConnection connection, List<Ticket> tickets) throws SQLException {
+        if (tickets.isEmpty()) {
+            return;
+        }
+        Map<Integer, User> users = userRepository.findAllById(connection,
+                referencedIds(tickets, User::getId, Ticket::getUser));
+        Map<Integer, Station> stations = stationRepository.findAllById(connection,
+                referencedIds(tickets, Station::getId, Ticket::getStartStation, Ticket::getEndStation));
+        Map<Integer, Train> trains = trainRepository.findAllById(connection,
+                referencedIds(tickets, Train::getId, Ticket::getTrain));
+        Map<Integer, Economy> economies = economyRepository.findAllById(connection,
+                referencedIds(tickets, Economy::getId, Ticket::getEconomy));
+        Map<Integer, AgeGroup> ageGroups = ageGroupRepository.findAllById(connection,
+                referencedIds(tickets, AgeGroup::getId, Ticket::getAgeGroup));
+        for (Ticket ticket : tickets) {
+            resolve(ticket.getUser(), User::getId, users, ticket::setUser);
+            resolve(ticket.getStartStation(), Station::getId, stations, ticket::setStartStation);
+            resolve(ticket.getEndStation(), Station::getId, stations, ticket::setEndStation);
+            resolve(ticket.getTrain(), Train::getId, trains, ticket::setTrain);
+            resolve(ticket.getEconomy(), Economy::getId, economies, ticket::setEconomy);
+            resolve(ticket.getAgeGroup(), AgeGroup::getId, ageGroups, ticket::setAgeGroup);
+        }
+        readDiscounts(connection, tickets);
+    }
+
+    /**
+     * Rewrites the discounts of the tickets in the join table. Unsaved discounts (ID 0) are skipped.
+     * */
+    @Override
+    protected void afterWrite(PooledConnection connection, List<Ticket> tickets, boolean inserted) throws SQLException {
+        PreparedStatement delete = connection.prepare(DELETE_DISCOUNTS_SQL);
+        PreparedStatement insert = connection.prepare(INSERT_DISCOUNT_SQL);
+        int pending = 0;
+        for (Ticket ticket : tickets) {
+            if (!inserted) {
+                delete.setInt(1, ticket.getId());
+                delete.addBatch();
+            }
+            if (ticket.getDiscounts() == null) {
+                continue;
+            }
+            for (Discount discount : ticket.getDiscounts()) {
+                if (discount != null && discount.getId() != 0) {
+                    insert.setInt(1, ticket.getId());
+                    insert.setInt(2, discount.getId());
+                    insert.addBatch();
+                    pending++;
+                }
+            }
+        }
+        if (!inserted) {
+            delete.executeBatch();
+        }
+        if (pending > 0) {
+            insert.executeBatch();
+        }
+    }
+
+    private void readDiscounts(PooledConnection connection, List<Ticket> tickets) throws SQLException {
+        Map<Integer, Ticket> byId = new HashMap<>();
+        for (Ticket ticket : tickets) {
+            byId.put(ticket.getId(), ticket);
+        }
+        List<Integer> ticketIds = new ArrayList<>(byId.keySet());
+        Map<Integer, List<Integer>> discountIds = new HashMap<>();
+        for (int from = 0; from < ticketIds.size(); from += MAX_IN_LIST) {
+            List<Integer> chunk = ticketIds.subList(from, Math.min(from + MAX_IN_LIST, ticketIds.size()));
+            PreparedStatement statement = connection.prepare(SELECT_DISCOUNTS_SQL + " WHERE ticket_id IN ("
+                    + inListPlaceholders(chunk.size()) + ")");
+            bindInList(statement, chunk);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    discountIds.computeIfAbsent(resultSet.getInt("ticket_id"), id -> new ArrayList<>())
+                            .add(resultSet.getInt("discount_id"));
+                }
+            }
+        }
+        if (discountIds.isEmpty()) {
+            return;
+        }
+        Map<Integer, Discount> discounts = discountRepository.findAllById(connection,
+                discountIds.values().stream().flatMap(List::stream).toList());
+        discountIds.forEach((ticketId, ids) -> {
+            Set<Discount> ticketDiscounts = new HashSet<>();
+            for (int id : ids) {
+                Discount discount = discounts.get(id);
+                if (discount != null) {
+                    ticketDiscounts.add(discount);
+                }
+            }
+            byId.get(ticketId).setDiscounts(ticketDiscounts);
+        });
+    }
+
+    /**
+     * Collects the IDs of the entities referenced by the tickets.
+     * */
+    @SafeVarargs
+    private static <R> List<Integer> referencedIds(List<Ticket> tickets, Function<R, Integer> idOf,
+                                                   Function<Ticket, R>... references) {
+        List<Integer> ids = new ArrayList<>();
+        for (Ticket ticket : tickets) {
+            for (Function<Ticket, R> reference : references) {
+                R referenced = reference.apply(ticket);
+                if (referenced != null) {
+                    ids.add(idOf.apply(referenced));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Replaces an ID placeholder by the stored entity, if it was found.
+     * */
+    private static <R> void resolve(R placeholder, Function<R, Integer> idOf, Map<Integer, R> found, Consumer<R> setter) {
+        if (placeholder != null) {
+            R entity = found.get(idOf.apply(placeholder));
+            if (entity != null) {
+                setter.accept(entity);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.study.repository.jdbc;
+
+import com.study.FirstDB;
+import com.study.domain.Train;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * JDBC repository for Train entities, stored in the {@code train} table.
+ * */
+public class JdbcTrainRepository extends JdbcRepository<Train> {
+
+    public JdbcTrainRepository(FirstDB db) {
+        super(db, "train", "amount_of_seats", "train_model");
+    }
+
+    @Override
+    protected int idOf(Train train) {
+        return train.getId();
+    }
+
+    @Override
+    protected void assignId(Train train, int id) {
+        train.setId(id);
+    }
+
+    @Override
+    protected void assignVersion(Train train, long version) {
+        train.setVersion(version);
+    }
+
+    @Override
+    protected int bind(PreparedStatement statement, Train train) throws SQLException {
+        statement.setInt(1, train.getAmountOfSeats());
+        statement.setString(2, train.getTrainModel());
+        return 2;
+    }
+
+    @Override
+    protected Train map(ResultSet resultSet) throws SQLException {
+        return new Train()
+                .id(resultSet.getInt("id"))
+                .amountOfSeats(resultSet.getInt("amount_of_seats"))
+                .trainModel(resultSet.getString("train_model"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.study.repository.jdbc;
+
+import com.study.FirstDB;
+import com.study.domain.User;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * JDBC repository for User entities, stored in the {@code users} table.
+ * */
+public class JdbcUserRepository extends JdbcRepository<User> {
+
+    public JdbcUserRepository(FirstDB db) {
+        super(db, "users", "first_name", "middle_name", "last_name", "date_of_birth", "gender", "email", "phone_number", "password");
+    }
+
+    @Override
+    protected int idOf(User user) {
+        return user.getId();
+    }
+
+    @Override
+    protected void assignId(User user, int id) {
+        user.setId(id);
+    }
+
+    @Override
+    protected void assignVersion(User user, long version) {
+        user.setVersion(version);
+    }
+
+    @Override
+    protected int bind(PreparedStatement statement, User user) throws SQLException {
+        statement.setString(1, user.getFirstName());
+        statement.setString(2, user.getMiddleName());
+        statement.setString(3, user.getLastName());
+        setDate(statement, 4, user.getDateOfBirth());
+        statement.setString(5, user.getGender());
+        statement.setString(6, user.getEmail());
+        statement.setString(7, user.getPhoneNumber());
+        statement.setString(8, user.getPassword());
+        return 8;
+    }
+
+    @Override
+    protected User map(ResultSet resultSet) throws SQLException {
+        return new User()
+                .id(resultSet.getInt("id"))
+                .firstName(resultSet.getString("first_name"))
+                .middleName(resultSet.getString("middle_name"))
+                .lastName(resultSet.getString("last_name"))
+                .dateOfBirth(getDate(resultSet, "date_of_birth"))
+                .gender(resultSet.getString("gender"))
+                .email(resultSet.getString("email"))
+                .phoneNumber(resultSet.getString("phone_number"))
+                .password(resultSet.getString("password"));
+    }
+}
@@ -0,0 +1,332 @@
+package com.study.repository.offheap;
+
+import com.study.domain.*;
+import com.study.repository.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Repository for very large ticket inventories, keeping tickets in an {@link OffHeapTicketStore}
+ * instead of on the heap. It can be used wherever a {@link CrudRepository} of tickets is expected.
+ * Tickets are stored by value: references are kept by ID and, on read, resolved from the in-memory
+ * repositories of users, stations, trains, economy classes, age groups and discounts.
+ * A reference that cannot be resolved is returned as an object holding only its ID.
+ * Prices are stored in whole cents. Every read returns a new copy of the ticket,
+ * so a ticket changed after saving must be stored again with {@link #updateId(Integer, Ticket)}.
+ * Unlike {@link TicketRepository}, each instance has its own store.
+ * */
+public class OffHeapTicketRepository implements CrudRepository<Ticket> {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final OffHeapTicketStore tickets;
+
+    public OffHeapTicketRepository() {
+        this(new UserRepository(), new StationRepository(), new TrainRepository(),
+                new EconomyRepository(), new AgeGroupRepository(), new DiscountRepository());
+    }
+
+    public OffHeapTicketRepository(UserRepository users, StationRepository stations, TrainRepository trains,
+                                   EconomyRepository economies, AgeGroupRepository ageGroups,
+                                   DiscountRepository discounts) {
+        this.tickets = new OffHeapTicketStore(new OffHeapTicketStore.References() {
+            @Override
+            public User user(int id) {
+                return users.findById(id).orElseGet(() -> new User().id(id));
+            }
+
+            @Override
+            public Station station(int id) {
+                return stations.findById(id).orElseGet(() -> new Station().id(id));
+            }
+
+            @Override
+            public Train train(int id) {
+                return trains.findById(id).orElseGet(() -> new Train().id(id));
+            }
+
+            @Override
+            public Economy economy(int id) {
+                return economies.findById(id).orElseGet(() -> new Economy().id(id));
+            }
+
+            @Override
+            public AgeGroup ageGroup(int id) {
+                return ageGroups.findById(id).orElseGet(() -> new AgeGroup().id(id));
+            }
+
+            @Override
+            public Discount discount(int id) {
+                return discounts.findById(id).orElseGet(() -> new Discount().id(id));
+            }
+        });
+    }
+
+    /**
+     * Saves a single Ticket entity.
+     * @param ticket The Ticket entity to be saved.
+     * @return The saved Ticket entity.
+     * */
+    @Override
+    public Ticket save(Ticket ticket) {
+        if (ticket != null) {
+            tickets.insert(ticket);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Saved Ticket off-heap with id {}", ticket.getId());
+            }
+        }
+        return ticket;
+    }
+
+    /**
+     * Saves a list of Ticket entities.
+     * IDs for the whole list are reserved at once and one log line is written for the whole list.
+     * @param tickets The list of Ticket entities to be saved.
+     * @return The list of saved Ticket entities.
+     * */
+    @Override
+    public List<Ticket> saveAll(List<Ticket> tickets) {
+        int saved = this.tickets.insertAll(tickets);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Saved {} Tickets off-heap", saved);
+        }
+        return tickets;
+    }
+
+    /**
+     * Retrieves a Ticket entity by its identifier.
+     * @param id The identifier of the Ticket entity to be retrieved.
+     * @return An optional containing a copy of the Ticket entity, or empty if not found.
+     * */
+    @Override
+    public Optional<Ticket> findById(Integer id) {
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Retrieves a Ticket entity by its identifier, without boxing it.
+     * @param id The identifier of the Ticket entity to be retrieved.
+     * @return An optional containing a copy of the Ticket entity, or empty if not found.
+     * */
+    @Override
+    public Optional<Ticket> findById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Finding off-heap Ticket with id {}", id);
+        }
+        return Optional.ofNullable(tickets.get(id));
+    }
+
+    /**
+     * Retrieves all Ticket objects from the repository, ordered by ID, as they were at one point in time.
+     * Every ticket is materialized on the heap, so prefer {@link #streamAll()} or pages for large stores.
+     * @return a list of all Ticket objects in the repository.
+     * */
+    @Override
+    public List<Ticket> findAll() {
+        return tickets.values();
+    }
+
+    /**
+     * Retrieves one page of Ticket entities, ordered by ID.
+     * @param offset | The number of Ticket entities to skip.
+     * @param limit | The maximum number of Ticket entities in the page.
+     * @return a list with the Ticket entities of the page.
+     * */
+    @Override
+    public List<Ticket> findPage(int offset, int limit) {
+        return tickets.page(offset, limit);
+    }
+
+    /**
+     * Retrieves the page of Ticket entities following the one with ID {@code afterId}, ordered by ID.
+     * @param afterId | The ID of the last Ticket of the previous page, or 0 for the first page.
+     * @param limit | The maximum number of Ticket entities in the page.
+     * @return a list with the Ticket entities of the page.
+     * */
+    @Override
+    public List<Ticket> findPageAfter(int afterId, int limit) {
+        return tickets.pageAfter(afterId, limit);
+    }
+
+    /**
+     * Streams all Ticket entities lazily, ordered by ID, materializing each one as it is consumed.
+     * @return a stream of all Ticket entities.
+     * */
+    @Override
+    public Stream<Ticket> streamAll() {
+        return tickets.stream();
+    }
+
+    /**
+     * Opens a snapshot of the Ticket entities as they are now. It reads through a snapshot of the off-heap store,
+     * to which writes preserve the records they overwrite while it is open, so the tickets are read and
+     * materialized lazily, as they are consumed.
+     * @return an open snapshot of the Ticket entities.
+     * */
+    @Override
+    public RepositorySnapshot<Ticket> snapshot() {
+        OffHeapTicketStore.Snapshot snapshot = tickets.snapshot();
+        return new RepositorySnapshot<>() {
+            @Override
+            public Optional<Ticket> findById(int id) {
+                return Optional.ofNullable(snapshot.get(id));
+            }
+
+            @Override
+            public List<Ticket> findAll() {
+                return snapshot.values();
+            }
+
+            @Override
+            public List<Ticket> findPageAfter(int afterId, int limit) {
+                return snapshot.pageAfter(afterId, limit);
+            }
+
+            @Override
+            public Stream<Ticket> streamAll() {
+                return snapshot.stream();
+            }
+
+            @Override
+            public int count() {
+                return snapshot.size();
+            }
+
+            @Override
+            public void close() {
+                snapshot.close();
+            }
+        };
+    }
+
+    /**
+     * Checks if a Ticket entity with the given identifier exists.
+     * @param id The identifier of the Ticket entity to check.
+     * @return true if the Ticket entity exists, otherwise false.
+     * */
+    @Override
+    public boolean existById(Integer id) {
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a Ticket entity with the given identifier exists, without boxing it.
+     * @param id The identifier of the Ticket entity to check.
+     * @return true if the Ticket entity exists, otherwise false.
+     * */
+    @Override
+    public boolean existById(int id) {
+        boolean exist = tickets.contains(id);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Existence check for off-heap Ticket with id {}: {}", id, exist);
+        }
+        return exist;
+    }
+
+    /**
+     * Updates the identifier of a Ticket entity.
+     * @param id The current identifier of the Ticket entity.
+     * @param nwTicket The Ticket entity with the updated identifier, which must be positive.
+     * @return true if the update was successful, otherwise false.
+     * */
+    @Override
+    public boolean updateId(Integer id, Ticket nwTicket) {
+        if (nwTicket != null && id != null && nwTicket.getId() > 0) {
+            tickets.replace(id, nwTicket);
+            LOGGER.debug("Updated off-heap Ticket with id {}", id);
+            return true;
+        }
+        LOGGER.warn("Failed to update off-heap Ticket with id {}", id);
+        return false;
+    }
+
+    /**
+     * Updates a Ticket entity if it has not been changed since it was read.
+     * @param ticket The Ticket entity with the new values.
+     * @param expectedVersion The version of the Ticket entity when it was read.
+     * @return the outcome of the update; on success the version of ticket is incremented.
+     * */
+    @Override
+    public UpdateResult update(Ticket ticket, long expectedVersion) {
+        if (ticket == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        UpdateResult result = tickets.update(ticket, expectedVersion);
+        if (result == UpdateResult.UPDATED) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Updated off-heap Ticket with id {} to version {}", ticket.getId(), ticket.getVersion());
+            }
+        } else {
+            LOGGER.warn("Failed to update off-heap Ticket with id {} from version {}: {}", ticket.getId(),
+                    expectedVersion, result);
+        }
+        return result;
+    }
+
+    /**
+     * Deletes a Ticket entity by its identifier.
+     * @param id The identifier of the Ticket entity to be deleted.
+     * */
+    @Override
+    public void deleteById(Integer id) {
+        if (id != null) {
+            tickets.remove(id);
+            LOGGER.debug("Deleted off-heap Ticket with id {}", id);
+        }
+    }
+
+    /**
+     * Deletes a single Ticket entity.
+     * @param ticket The Ticket entity to be deleted.
+     * */
+    @Override
+    public void delete(Ticket ticket) {
+        if (ticket != null) {
+            deleteById(ticket.getId());
+        }
+    }
+
+    /**
+     * Deletes all Ticket entities and releases their off-heap memory.
+     * */
+    @Override
+    public void deleteAll() {
+        tickets.clear();
+        LOGGER.debug("Deleted all off-heap Tickets");
+    }
+
+    /**
+     * Deletes a list of Ticket entities.
+     * Logs one line for the whole list instead of one per entity.
+     * @param tickets The list of Ticket entities to be deleted.
+     * */
+    @Override
+    public void deleteAll(List<Ticket> tickets) {
+        if (tickets != null) {
+            int deleted = this.tickets.removeAll(tickets);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Deleted {} off-heap Tickets", deleted);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of stored tickets.
+     * @return the number of stored tickets.
+     * */
+    public int count() {
+        return tickets.size();
+    }
+
+    /**
+     * Returns the amount of memory allocated outside the heap for the stored tickets.
+     * @return the number of bytes allocated.
+     * */
+    public long offHeapBytes() {
+        return tickets.offHeapBytes();
+    }
+}
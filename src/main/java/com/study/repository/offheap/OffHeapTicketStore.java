@@ -0,0 +1,846 @@
+package com.study.repository.offheap;
+
+import com.study.domain.*;
+import com.study.repository.UpdateResult;
+import com.study.repository.storage.IdGenerator;
+import com.study.repository.storage.IntHashMap;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Compact storage of tickets outside the Java heap.
+ * Every ticket is kept as a fixed-size record of {@value #RECORD_SIZE} bytes in direct
+ * {@link ByteBuffer} chunks of {@value #CHUNK_RECORDS} records, at the position given by its ID:
+ * dates as epoch days, references and discounts as IDs and the price as a number of cents.
+ * The garbage collector sees one buffer per chunk instead of a graph of objects per ticket,
+ * so tens of millions of tickets take little heap and do not lengthen GC pauses.
+ * {@link Ticket} objects are materialized only when read, with their references looked up
+ * through {@link References}; they are copies, so changing one does not change the store.
+ * Records are guarded by striped {@link StampedLock}s: reads are optimistic and only retry
+ * under a read lock if a write to the same stripe happened meanwhile. Each record keeps the version
+ * of its ticket, checked and incremented by {@link #update(Ticket, long)}.
+ * A {@link Snapshot} reads the records as they were at one point in time without holding up writers:
+ * while it is open, every write first copies the record it overwrites for it, as the snapshots
+ * of {@link com.study.repository.storage.ConcurrentIntMap} do. {@link #values()} reads through one.
+ * */
+public class OffHeapTicketStore {
+
+    /**
+     * Looks up the entities referenced by a ticket from their IDs.
+     * */
+    public interface References {
+        User user(int id);
+        Station station(int id);
+        Train train(int id);
+        Economy economy(int id);
+        AgeGroup ageGroup(int id);
+        Discount discount(int id);
+    }
+
+    static final int RECORD_SIZE = 80;
+
+    static final int CHUNK_RECORDS = 1 << 16;
+
+    private static final int CHUNK_SHIFT = 16;
+
+    private static final int MAX_CHUNKS = 1 << 15;
+
+    private static final int STRIPES = 64;
+
+    /**
+     * Number of consecutive identifiers a snapshot copies per stripe lock round.
+     * */
+    private static final int SNAPSHOT_WINDOW = STRIPES * 64;
+
+    /**
+     * Number of discount IDs kept in the record; tickets with more discounts keep them in {@link #extraDiscounts}.
+     * */
+    private static final int INLINE_DISCOUNTS = 3;
+
+    /**
+     * Epoch day standing for a null date.
+     * */
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final int ID = 0;
+    private static final int DEPART_DATE = 4;
+    private static final int RETURN_DATE_BOOKING = 8;
+    private static final int REGISTRATION_DATE = 12;
+    private static final int RETURN_DATE_TICKET = 16;
+    private static final int PRICE_CENTS = 20;
+    private static final int SEAT_NUMBER = 28;
+    private static final int USER = 32;
+    private static final int START_STATION = 36;
+    private static final int END_STATION = 40;
+    private static final int TRAIN = 44;
+    private static final int ECONOMY = 48;
+    private static final int AGE_GROUP = 52;
+    private static final int DISCOUNT_COUNT = 56;
+    private static final int DISCOUNTS = 60;
+    private static final int VERSION = 72;
+
+    private final AtomicReferenceArray<ByteBuffer> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+
+    private final StampedLock[] locks = new StampedLock[STRIPES];
+
+    /**
+     * Discount IDs of tickets with more than {@value #INLINE_DISCOUNTS} discounts, by ticket ID.
+     * */
+    private final Map<Integer, int[]> extraDiscounts = new ConcurrentHashMap<>();
+
+    private final IdGenerator idGenerator = new IdGenerator();
+
+    /**
+     * Highest ID ever stored, so scans know where to stop.
+     * */
+    private final AtomicInteger maxId = new AtomicInteger();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Open snapshots, to which writes preserve the records they overwrite.
+     * */
+    private final List<Snapshot> snapshots = new CopyOnWriteArrayList<>();
+
+    private final References references;
+
+    public OffHeapTicketStore(References references) {
+        this.references = references;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new StampedLock();
+        }
+    }
+
+    /**
+     * Assigns a new identifier to the ticket and stores a copy of it.
+     * The identifier is set with {@link Ticket#setDetachedId(int)}, so the referenced entities do not
+     * keep the ticket on the heap.
+     * @param ticket | The ticket to be stored, must not be null.
+     * @return The ticket, with its new ID.
+     * */
+    public Ticket insert(Ticket ticket) {
+        int id = idGenerator.next();
+        ticket.setDetachedId(id);
+        write(id, ticket);
+        return ticket;
+    }
+
+    /**
+     * Stores a batch of tickets, reserving one block of identifiers for the whole batch.
+     * Null elements are skipped.
+     * @param batch | The tickets to be stored.
+     * @return the number of stored tickets.
+     * */
+    public int insertAll(List<Ticket> batch) {
+        int count = (int) batch.stream().filter(Objects::nonNull).count();
+        if (count == 0) {
+            return 0;
+        }
+        int id = idGenerator.reserve(count);
+        for (Ticket ticket : batch) {
+            if (ticket != null) {
+                ticket.setDetachedId(id);
+                write(id++, ticket);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Materializes a stored ticket.
+     * @param id | The identifier of the ticket.
+     * @return a new Ticket object, or null if there is no ticket with this identifier.
+     * */
+    public Ticket get(int id) {
+        ByteBuffer chunk = chunkOf(id);
+        if (chunk == null) {
+            return null;
+        }
+        int offset = offsetOf(id);
+        StampedLock lock = lockOf(id);
+        long stamp = lock.tryOptimisticRead();
+        Row row = Row.read(chunk, offset);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                row = Row.read(chunk, offset);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return row.id == id ? materialize(row) : null;
+    }
+
+    /**
+     * Checks if a ticket with the given identifier is stored.
+     * @param id | The identifier to check.
+     * @return true if the ticket exists, otherwise false.
+     * */
+    public boolean contains(int id) {
+        ByteBuffer chunk = chunkOf(id);
+        if (chunk == null) {
+            return false;
+        }
+        StampedLock lock = lockOf(id);
+        long stamp = lock.tryOptimisticRead();
+        boolean stored = chunk.getInt(offsetOf(id) + ID) == id;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                stored = chunk.getInt(offsetOf(id) + ID) == id;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Replaces the ticket stored under {@code id} with a copy of {@code ticket},
+     * which is stored under its own identifier. The version of {@code ticket} is set to the version
+     * of the replaced ticket plus one; with nothing to replace, {@code ticket} keeps its own version.
+     * @param id | The identifier of the ticket being replaced.
+     * @param ticket | The new ticket, with a positive ID.
+     * */
+    public void replace(int id, Ticket ticket) {
+        int newId = ticket.getId();
+        checkId(newId);
+        if (newId != id) {
+            long removedVersion = removeRecord(id);
+            if (removedVersion >= 0) {
+                ticket.setVersion(removedVersion + 1);
+            }
+            write(newId, ticket, false);
+        } else {
+            write(newId, ticket, true);
+        }
+    }
+
+    /**
+     * Replaces the stored ticket with the identifier of {@code ticket} by a copy of it if the stored one
+     * still has the expected version, and sets the version of {@code ticket} to {@code expectedVersion + 1}.
+     * A stale version is detected with an optimistic read; otherwise the check and the write are done
+     * under the write lock of the record's stripe.
+     * @param ticket | The new ticket.
+     * @param expectedVersion | The version the stored ticket must have.
+     * @return the outcome of the update.
+     * */
+    public UpdateResult update(Ticket ticket, long expectedVersion) {
+        int id = ticket.getId();
+        ByteBuffer chunk = chunkOf(id);
+        if (chunk == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        int offset = offsetOf(id);
+        StampedLock lock = lockOf(id);
+        long stamp = lock.tryOptimisticRead();
+        boolean stale = chunk.getInt(offset + ID) == id && chunk.getLong(offset + VERSION) != expectedVersion;
+        if (stale && lock.validate(stamp)) {
+            return UpdateResult.CONFLICT;
+        }
+        int[] discountIds = discountIds(ticket);
+        stamp = lock.writeLock();
+        try {
+            if (chunk.getInt(offset + ID) != id) {
+                return UpdateResult.NOT_FOUND;
+            }
+            if (chunk.getLong(offset + VERSION) != expectedVersion) {
+                return UpdateResult.CONFLICT;
+            }
+            ticket.setVersion(expectedVersion + 1);
+            put(chunk, offset, id, ticket, discountIds);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return UpdateResult.UPDATED;
+    }
+
+    /**
+     * Removes a ticket by its identifier. Its record is cleared; the space is not reused.
+     * @param id | The identifier of the ticket to be removed.
+     * @return true if the ticket was stored and has been removed.
+     * */
+    public boolean remove(int id) {
+        return removeRecord(id) >= 0;
+    }
+
+    /**
+     * Clears the record of a ticket.
+     * @return the version of the removed ticket, or -1 if it was not stored.
+     * */
+    private long removeRecord(int id) {
+        ByteBuffer chunk = chunkOf(id);
+        if (chunk == null) {
+            return -1;
+        }
+        long version;
+        StampedLock lock = lockOf(id);
+        long stamp = lock.writeLock();
+        try {
+            int offset = offsetOf(id);
+            if (chunk.getInt(offset + ID) != id) {
+                return -1;
+            }
+            version = chunk.getLong(offset + VERSION);
+            if (!snapshots.isEmpty()) {
+                preserve(chunk, offset, id);
+            }
+            chunk.putInt(offset + ID, 0);
+            if (chunk.getInt(offset + DISCOUNT_COUNT) > INLINE_DISCOUNTS) {
+                extraDiscounts.remove(id);
+            }
+            size.decrementAndGet();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return version;
+    }
+
+    /**
+     * Removes a batch of tickets by their identifiers. Null elements are skipped.
+     * @param batch | The tickets to be removed.
+     * @return the number of tickets that were stored and have been removed.
+     * */
+    public int removeAll(List<Ticket> batch) {
+        int count = 0;
+        for (Ticket ticket : batch) {
+            if (ticket != null && remove(ticket.getId())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes all tickets and releases their chunks. Identifiers already handed out are not reused.
+     * */
+    public void clear() {
+        long[] stamps = new long[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stamps[i] = locks[i].writeLock();
+        }
+        try {
+            if (!snapshots.isEmpty()) {
+                int highest = maxId.get();
+                for (int id = 1; id <= highest; id++) {
+                    ByteBuffer chunk = chunkOf(id);
+                    if (chunk != null) {
+                        preserve(chunk, offsetOf(id), id);
+                    }
+                }
+            }
+            for (int i = 0; i < MAX_CHUNKS; i++) {
+                chunks.set(i, null);
+            }
+            extraDiscounts.clear();
+            maxId.set(0);
+            size.set(0);
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                locks[i].unlockWrite(stamps[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns a page of tickets in ID order, skipping the first {@code offset} tickets.
+     * @param offset | The number of tickets to skip, not negative.
+     * @param limit | The maximum number of tickets to return, positive.
+     * @return the tickets of the page.
+     * */
+    public List<Ticket> page(int offset, int limit) {
+        checkPage(offset, limit);
+        return stream().skip(offset).limit(limit).toList();
+    }
+
+    /**
+     * Returns a page of tickets with identifiers greater than {@code afterId}, in ID order.
+     * @param afterId | The identifier of the last ticket of the previous page, or 0 for the first page.
+     * @param limit | The maximum number of tickets to return, positive.
+     * @return the tickets of the page.
+     * */
+    public List<Ticket> pageAfter(int afterId, int limit) {
+        checkPage(0, limit);
+        return streamFrom(Math.max(afterId, 0) + 1).limit(limit).toList();
+    }
+
+    /**
+     * Returns all stored tickets in ID order, as they were at one point in time, read through a {@link Snapshot}.
+     * The tickets are materialized after the snapshot is closed.
+     * @return a list of all stored tickets.
+     * */
+    public List<Ticket> values() {
+        List<Row> rows;
+        try (Snapshot snapshot = snapshot()) {
+            rows = snapshot.rowsFrom(1).toList();
+        }
+        return rows.stream().map(this::materialize).toList();
+    }
+
+    /**
+     * Returns a lazy stream materializing the stored tickets in ID order.
+     * @return a stream of all stored tickets.
+     * */
+    public Stream<Ticket> stream() {
+        return streamFrom(1);
+    }
+
+    /**
+     * Returns the number of stored tickets.
+     * @return the number of stored tickets.
+     * */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns the amount of memory allocated outside the heap for the records.
+     * @return the number of bytes of all allocated chunks.
+     * */
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (int i = 0; i < MAX_CHUNKS; i++) {
+            if (chunks.get(i) != null) {
+                bytes += (long) CHUNK_RECORDS * RECORD_SIZE;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Opens a snapshot of the records as they are now. It is registered under the write locks of all stripes,
+     * which hold up writers only while it is registered, so every write is either seen by the snapshot
+     * or preserves the record it overwrites for it. The snapshot must be closed once read.
+     * @return the open snapshot.
+     * */
+    public Snapshot snapshot() {
+        long[] stamps = new long[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stamps[i] = locks[i].writeLock();
+        }
+        try {
+            Snapshot snapshot = new Snapshot(maxId.get(), size.get());
+            snapshots.add(snapshot);
+            return snapshot;
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                locks[i].unlockWrite(stamps[i]);
+            }
+        }
+    }
+
+    /**
+     * Copies the records of one stripe with identifiers from {@code first} to {@code last}, as they were when
+     * the snapshot was opened, into {@code window}, under the read lock of the stripe.
+     * */
+    private void readStripe(Snapshot snapshot, int stripe, int first, int last, Row[] window) {
+        IntHashMap<Row> preserved = snapshot.preserved[stripe];
+        int id = first + Math.floorMod(stripe - first, STRIPES);
+        long stamp = locks[stripe].readLock();
+        try {
+            for (; id <= last; id += STRIPES) {
+                Row row = preserved.get(id);
+                if (row == null) {
+                    ByteBuffer chunk = chunkOf(id);
+                    row = chunk == null ? null : readRow(chunk, offsetOf(id));
+                }
+                window[id - first] = row;
+            }
+        } finally {
+            locks[stripe].unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Copies the record a ticket had before a write for every open snapshot that has not copied it yet.
+     * The caller holds the write lock of the record's stripe.
+     * */
+    private void preserve(ByteBuffer chunk, int offset, int id) {
+        for (Snapshot snapshot : snapshots) {
+            IntHashMap<Row> preserved = snapshot.preserved[id & (STRIPES - 1)];
+            if (id <= snapshot.highest && !preserved.containsKey(id)) {
+                preserved.put(id, readRow(chunk, offset));
+            }
+        }
+    }
+
+    /**
+     * Copies a record together with the discount IDs kept outside it; the caller holds a lock of its stripe.
+     * */
+    private Row readRow(ByteBuffer chunk, int offset) {
+        Row row = Row.read(chunk, offset);
+        if (row.discountCount > INLINE_DISCOUNTS) {
+            row.extraDiscounts = extraDiscounts.get(row.id);
+        }
+        return row;
+    }
+
+    private Stream<Ticket> streamFrom(int firstId) {
+        return IntStream.rangeClosed(firstId, maxId.get())
+                .filter(id -> chunkOf(id) != null)
+                .mapToObj(this::get)
+                .filter(Objects::nonNull);
+    }
+
+    private void write(int id, Ticket ticket) {
+        write(id, ticket, false);
+    }
+
+    /**
+     * Writes a ticket into its record.
+     * @param nextVersion | Whether the ticket gets the version of the ticket it overwrites plus one, if any.
+     * */
+    private void write(int id, Ticket ticket, boolean nextVersion) {
+        ByteBuffer chunk = chunkFor(id);
+        int offset = offsetOf(id);
+        int[] discountIds = discountIds(ticket);
+        boolean added;
+        StampedLock lock = lockOf(id);
+        long stamp = lock.writeLock();
+        try {
+            added = chunk.getInt(offset + ID) != id;
+            if (nextVersion && !added) {
+                ticket.setVersion(chunk.getLong(offset + VERSION) + 1);
+            }
+            put(chunk, offset, id, ticket, discountIds);
+            // under the lock, so a snapshot opened under all locks knows every record already written
+            maxId.accumulateAndGet(id, Math::max);
+            if (added) {
+                size.incrementAndGet();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Writes the fields of a ticket into its record; the caller holds the write lock of the record's stripe.
+     * */
+    private void put(ByteBuffer chunk, int offset, int id, Ticket ticket, int[] discountIds) {
+        if (!snapshots.isEmpty()) {
+            preserve(chunk, offset, id);
+        }
+        chunk.putInt(offset + DEPART_DATE, epochDay(ticket.getDepartDateBooking()));
+        chunk.putInt(offset + RETURN_DATE_BOOKING, epochDay(ticket.getReturnDateBooking()));
+        chunk.putInt(offset + REGISTRATION_DATE, epochDay(ticket.getRegistrationDateTicket()));
+        chunk.putInt(offset + RETURN_DATE_TICKET, epochDay(ticket.getReturnDateTicket()));
+        chunk.putLong(offset + PRICE_CENTS, Math.round(ticket.getPrice() * 100));
+        chunk.putInt(offset + SEAT_NUMBER, ticket.getSeatNumber());
+        chunk.putInt(offset + USER, ticket.getUser() == null ? 0 : ticket.getUser().getId());
+        chunk.putInt(offset + START_STATION, ticket.getStartStation() == null ? 0 : ticket.getStartStation().getId());
+        chunk.putInt(offset + END_STATION, ticket.getEndStation() == null ? 0 : ticket.getEndStation().getId());
+        chunk.putInt(offset + TRAIN, ticket.getTrain() == null ? 0 : ticket.getTrain().getId());
+        chunk.putInt(offset + ECONOMY, ticket.getEconomy() == null ? 0 : ticket.getEconomy().getId());
+        chunk.putInt(offset + AGE_GROUP, ticket.getAgeGroup() == null ? 0 : ticket.getAgeGroup().getId());
+        chunk.putInt(offset + DISCOUNT_COUNT, discountIds.length);
+        for (int i = 0; i < INLINE_DISCOUNTS; i++) {
+            chunk.putInt(offset + DISCOUNTS + i * Integer.BYTES, i < discountIds.length ? discountIds[i] : 0);
+        }
+        if (discountIds.length > INLINE_DISCOUNTS) {
+            extraDiscounts.put(id, Arrays.copyOfRange(discountIds, INLINE_DISCOUNTS, discountIds.length));
+        } else {
+            extraDiscounts.remove(id);
+        }
+        chunk.putLong(offset + VERSION, ticket.getVersion());
+        chunk.putInt(offset + ID, id);
+    }
+
+    private static int[] discountIds(Ticket ticket) {
+        Set<Discount> discounts = ticket.getDiscounts();
+        return discounts == null ? new int[0] : discounts.stream()
+                .filter(Objects::nonNull).mapToInt(Discount::getId).toArray();
+    }
+
+    private Ticket materialize(Row row) {
+        Ticket ticket = new Ticket(row.id, date(row.departDate), date(row.registrationDate), row.priceCents / 100.0,
+                row.user == 0 ? null : references.user(row.user),
+                row.startStation == 0 ? null : references.station(row.startStation),
+                row.endStation == 0 ? null : references.station(row.endStation),
+                row.train == 0 ? null : references.train(row.train),
+                row.economy == 0 ? null : references.economy(row.economy),
+                row.ageGroup == 0 ? null : references.ageGroup(row.ageGroup));
+        ticket.setReturnDateBooking(date(row.returnDateBooking));
+        ticket.setReturnDateTicket(date(row.returnDateTicket));
+        ticket.setSeatNumber(row.seatNumber);
+        ticket.setVersion(row.version);
+        Set<Discount> discounts = new HashSet<>();
+        for (int i = 0; i < Math.min(row.discountCount, INLINE_DISCOUNTS); i++) {
+            addDiscount(discounts, row.discounts[i]);
+        }
+        if (row.discountCount > INLINE_DISCOUNTS) {
+            int[] extra = row.extraDiscounts != null ? row.extraDiscounts : extraDiscounts.get(row.id);
+            for (int discountId : extra == null ? new int[0] : extra) {
+                addDiscount(discounts, discountId);
+            }
+        }
+        return ticket.discount(discounts);
+    }
+
+    private void addDiscount(Set<Discount> discounts, int id) {
+        Discount discount = references.discount(id);
+        if (discount != null) {
+            discounts.add(discount);
+        }
+    }
+
+    private ByteBuffer chunkOf(int id) {
+        return id <= 0 ? null : chunks.get(id >>> CHUNK_SHIFT);
+    }
+
+    private ByteBuffer chunkFor(int id) {
+        int index = id >>> CHUNK_SHIFT;
+        ByteBuffer chunk = chunks.get(index);
+        if (chunk == null) {
+            chunks.compareAndSet(index, null, ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_SIZE));
+            chunk = chunks.get(index);
+        }
+        return chunk;
+    }
+
+    private static int offsetOf(int id) {
+        return (id & (CHUNK_RECORDS - 1)) * RECORD_SIZE;
+    }
+
+    private StampedLock lockOf(int id) {
+        return locks[id & (STRIPES - 1)];
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    private static LocalDate date(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static void checkId(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Ticket ID must be positive: " + id);
+        }
+    }
+
+    private static void checkPage(int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative: " + offset);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+    }
+
+    /**
+     * The tickets as they were when the snapshot was opened by {@link #snapshot()}. Records overwritten since
+     * are preserved by stripe, guarded by the stripe locks; a preserved record with another ID stands for a ticket
+     * that was not stored. The records are read a window of {@value #SNAPSHOT_WINDOW} identifiers at a time,
+     * taking the read lock of each stripe once per window, and materialized as they are read.
+     * */
+    public final class Snapshot implements AutoCloseable {
+
+        private final int highest;
+
+        private final int size;
+
+        private final IntHashMap<Row>[] preserved;
+
+        private volatile boolean closed;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Snapshot(int highest, int size) {
+            this.highest = highest;
+            this.size = size;
+            preserved = new IntHashMap[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                preserved[i] = new IntHashMap<>();
+            }
+        }
+
+        /**
+         * Materializes a ticket as it was when the snapshot was opened.
+         * @param id | The identifier of the ticket.
+         * @return a new Ticket object, or null if there was no ticket with this identifier.
+         * @throws IllegalStateException if the snapshot is closed.
+         * */
+        public Ticket get(int id) {
+            checkOpen();
+            if (id <= 0 || id > highest) {
+                return null;
+            }
+            Row[] window = new Row[1];
+            readStripe(this, id & (STRIPES - 1), id, id, window);
+            Row row = window[0];
+            return row != null && row.id == id ? materialize(row) : null;
+        }
+
+        /**
+         * Returns a list with all tickets of the snapshot, ordered by ID.
+         * @return a list of all tickets of the snapshot.
+         * @throws IllegalStateException if the snapshot is closed.
+         * */
+        public List<Ticket> values() {
+            return stream().toList();
+        }
+
+        /**
+         * Returns a page of tickets of the snapshot with identifiers greater than {@code afterId}, in ID order.
+         * @param afterId | The identifier of the last ticket of the previous page, or 0 for the first page.
+         * @param limit | The maximum number of tickets to return, positive.
+         * @return the tickets of the page.
+         * @throws IllegalStateException if the snapshot is closed.
+         * */
+        public List<Ticket> pageAfter(int afterId, int limit) {
+            checkPage(0, limit);
+            checkOpen();
+            if (afterId >= highest) {
+                return List.of();
+            }
+            return rowsFrom(Math.max(afterId, 0) + 1).limit(limit).map(OffHeapTicketStore.this::materialize).toList();
+        }
+
+        /**
+         * Returns a lazy stream materializing the tickets of the snapshot in ID order.
+         * The stream must be consumed before the snapshot is closed.
+         * @return a stream of all tickets of the snapshot.
+         * @throws IllegalStateException if the snapshot is closed.
+         * */
+        public Stream<Ticket> stream() {
+            return rowsFrom(1).map(OffHeapTicketStore.this::materialize);
+        }
+
+        /**
+         * Returns the number of tickets stored when the snapshot was opened.
+         * @return the number of tickets of the snapshot.
+         * */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Closes the snapshot; writes stop preserving records for it. Closing twice does nothing.
+         * */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                snapshots.remove(this);
+            }
+        }
+
+        /**
+         * Returns a lazy stream of the records of the snapshot from identifier {@code firstId} on, in ID order,
+         * copying the next window of records whenever the previous one has been consumed.
+         * */
+        private Stream<Row> rowsFrom(int firstId) {
+            checkOpen();
+            Iterator<Row> rows = new Iterator<>() {
+                private final Row[] window = new Row[SNAPSHOT_WINDOW];
+                private int base = firstId;
+                private int last = firstId - 1;
+                private int index;
+                private Row next;
+
+                @Override
+                public boolean hasNext() {
+                    while (next == null) {
+                        if (base + index > last) {
+                            if (last >= highest) {
+                                return false;
+                            }
+                            checkOpen();
+                            base = last + 1;
+                            last = (int) Math.min((long) base + SNAPSHOT_WINDOW - 1, highest);
+                            index = 0;
+                            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                                readStripe(Snapshot.this, stripe, base, last, window);
+                            }
+                        }
+                        Row row = window[index];
+                        window[index] = null;
+                        if (row != null && row.id == base + index) {
+                            next = row;
+                        }
+                        index++;
+                    }
+                    return true;
+                }
+
+                @Override
+                public Row next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Row row = next;
+                    next = null;
+                    return row;
+                }
+            };
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows,
+                    Spliterator.ORDERED | Spliterator.NONNULL), false);
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("Snapshot is closed");
+            }
+        }
+    }
+
+    /**
+     * Fields of one record, copied out of the chunk so a torn optimistic read can simply be discarded.
+     * */
+    private static final class Row {
+        private int id;
+        private int departDate;
+        private int returnDateBooking;
+        private int registrationDate;
+        private int returnDateTicket;
+        private long priceCents;
+        private int seatNumber;
+        private int user;
+        private int startStation;
+        private int endStation;
+        private int train;
+        private int economy;
+        private int ageGroup;
+        private int discountCount;
+        private final int[] discounts = new int[INLINE_DISCOUNTS];
+        private long version;
+
+        /**
+         * Discount IDs kept outside the record, copied with it for a snapshot, or null to look them up.
+         * */
+        private int[] extraDiscounts;
+
+        private static Row read(ByteBuffer chunk, int offset) {
+            Row row = new Row();
+            row.id = chunk.getInt(offset + ID);
+            row.departDate = chunk.getInt(offset + DEPART_DATE);
+            row.returnDateBooking = chunk.getInt(offset + RETURN_DATE_BOOKING);
+            row.registrationDate = chunk.getInt(offset + REGISTRATION_DATE);
+            row.returnDateTicket = chunk.getInt(offset + RETURN_DATE_TICKET);
+            row.priceCents = chunk.getLong(offset + PRICE_CENTS);
+            row.seatNumber = chunk.getInt(offset + SEAT_NUMBER);
+            row.user = chunk.getInt(offset + USER);
+            row.startStation = chunk.getInt(offset + START_STATION);
+            row.endStation = chunk.getInt(offset + END_STATION);
+            row.train = chunk.getInt(offset + TRAIN);
+            row.economy = chunk.getInt(offset + ECONOMY);
+            row.ageGroup = chunk.getInt(offset + AGE_GROUP);
+            row.discountCount = chunk.getInt(offset + DISCOUNT_COUNT);
+            for (int i = 0; i < INLINE_DISCOUNTS; i++) {
+                row.discounts[i] = chunk.getInt(offset + DISCOUNTS + i * Integer.BYTES);
+            }
+            row.version = chunk.getLong(offset + VERSION);
+            return row;
+        }
+    }
+}
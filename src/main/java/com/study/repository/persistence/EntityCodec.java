@@ -0,0 +1,27 @@
+package com.study.repository.persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary encoding of one type of entity, used by the {@link WriteAheadLog} and its snapshots.
+ * Encodings must read back exactly what they write; references to other entities are stored by ID.
+ * @param <E> The type of entity.
+ * */
+public interface EntityCodec<E> {
+
+    /**
+     * Writes an entity.
+     * @param entity | The entity to write.
+     * @param out | The output.
+     * */
+    void write(E entity, DataOutput out) throws IOException;
+
+    /**
+     * Reads an entity written by {@link #write(Object, DataOutput)}.
+     * @param in | The input.
+     * @return the entity read.
+     * */
+    E read(DataInput in) throws IOException;
+}
@@ -0,0 +1,230 @@
+package com.study.repository.persistence;
+
+import com.study.domain.*;
+import com.study.repository.CrudRepository;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * {@link EntityCodec}s of the domain entities.
+ * Optional values are preceded by a presence flag, dates are written as epoch days
+ * and the references of a ticket as IDs, resolved on read from the given repositories.
+ * Every entity ends with its version.
+ * */
+public final class EntityCodecs {
+
+    public static final EntityCodec<AgeGroup> AGE_GROUP = new EntityCodec<>() {
+        @Override
+        public void write(AgeGroup ageGroup, DataOutput out) throws IOException {
+            out.writeInt(ageGroup.getId());
+            writeString(out, ageGroup.getType());
+            out.writeLong(ageGroup.getVersion());
+        }
+
+        @Override
+        public AgeGroup read(DataInput in) throws IOException {
+            return new AgeGroup(in.readInt(), readString(in)).version(in.readLong());
+        }
+    };
+
+    public static final EntityCodec<Economy> ECONOMY = new EntityCodec<>() {
+        @Override
+        public void write(Economy economy, DataOutput out) throws IOException {
+            out.writeInt(economy.getId());
+            writeString(out, economy.getType());
+            out.writeLong(economy.getVersion());
+        }
+
+        @Override
+        public Economy read(DataInput in) throws IOException {
+            return new Economy(in.readInt(), readString(in)).version(in.readLong());
+        }
+    };
+
+    public static final EntityCodec<Station> STATION = new EntityCodec<>() {
+        @Override
+        public void write(Station station, DataOutput out) throws IOException {
+            out.writeInt(station.getId());
+            writeString(out, station.getNameOfStation());
+            writeString(out, station.getAddressLocation());
+            writeString(out, station.getStationPhone());
+            out.writeLong(station.getVersion());
+        }
+
+        @Override
+        public Station read(DataInput in) throws IOException {
+            int id = in.readInt();
+            String name = readString(in);
+            String address = readString(in);
+            return new Station(id, name, address, null).stationPhone(readString(in)).version(in.readLong());
+        }
+    };
+
+    public static final EntityCodec<Train> TRAIN = new EntityCodec<>() {
+        @Override
+        public void write(Train train, DataOutput out) throws IOException {
+            out.writeInt(train.getId());
+            out.writeInt(train.getAmountOfSeats());
+            writeString(out, train.getTrainModel());
+            out.writeLong(train.getVersion());
+        }
+
+        @Override
+        public Train read(DataInput in) throws IOException {
+            return new Train(in.readInt(), in.readInt()).trainModel(readString(in)).version(in.readLong());
+        }
+    };
+
+    public static final EntityCodec<Discount> DISCOUNT = new EntityCodec<>() {
+        @Override
+        public void write(Discount discount, DataOutput out) throws IOException {
+            out.writeInt(discount.getId());
+            writeString(out, discount.getType());
+            out.writeBoolean(discount.getPercent() != null);
+            if (discount.getPercent() != null) {
+                out.writeDouble(discount.getPercent());
+            }
+            writeDate(out, discount.getStartAt());
+            writeDate(out, discount.getEndAt());
+            out.writeLong(discount.getVersion());
+        }
+
+        @Override
+        public Discount read(DataInput in) throws IOException {
+            int id = in.readInt();
+            String type = readString(in);
+            Double percent = in.readBoolean() ? in.readDouble() : null;
+            return new Discount(id, type, percent).startAt(readDate(in)).endAt(readDate(in)).version(in.readLong());
+        }
+    };
+
+    public static final EntityCodec<User> USER = new EntityCodec<>() {
+        @Override
+        public void write(User user, DataOutput out) throws IOException {
+            out.writeInt(user.getId());
+            writeString(out, user.getFirstName());
+            writeString(out, user.getMiddleName());
+            writeString(out, user.getLastName());
+            writeDate(out, user.getDateOfBirth());
+            writeString(out, user.getGender());
+            writeString(out, user.getEmail());
+            writeString(out, user.getPhoneNumber());
+            writeString(out, user.getPassword());
+            out.writeLong(user.getVersion());
+        }
+
+        @Override
+        public User read(DataInput in) throws IOException {
+            int id = in.readInt();
+            String firstName = readString(in);
+            String middleName = readString(in);
+            String lastName = readString(in);
+            LocalDate dateOfBirth = readDate(in);
+            String gender = readString(in);
+            String email = readString(in);
+            String phoneNumber = readString(in);
+            String password = readString(in);
+            return new User(id, firstName, lastName, dateOfBirth, email, password)
+                    .middleName(middleName).gender(gender).phoneNumber(phoneNumber).version(in.readLong());
+        }
+    };
+
+    private EntityCodecs() {
+    }
+
+    /**
+     * Returns the codec of tickets, resolving their references from the given repositories.
+     * A reference that cannot be resolved is read as an object holding only its ID.
+     * @return the ticket codec.
+     * */
+    public static EntityCodec<Ticket> ticket(CrudRepository<User> users, CrudRepository<Station> stations,
+                                             CrudRepository<Train> trains, CrudRepository<Economy> economies,
+                                             CrudRepository<AgeGroup> ageGroups, CrudRepository<Discount> discounts) {
+        return new EntityCodec<>() {
+            @Override
+            public void write(Ticket ticket, DataOutput out) throws IOException {
+                out.writeInt(ticket.getId());
+                writeDate(out, ticket.getDepartDateBooking());
+                writeDate(out, ticket.getReturnDateBooking());
+                writeDate(out, ticket.getRegistrationDateTicket());
+                writeDate(out, ticket.getReturnDateTicket());
+                out.writeDouble(ticket.getPrice());
+                out.writeInt(ticket.getSeatNumber());
+                out.writeInt(ticket.getUser() == null ? 0 : ticket.getUser().getId());
+                out.writeInt(ticket.getStartStation() == null ? 0 : ticket.getStartStation().getId());
+                out.writeInt(ticket.getEndStation() == null ? 0 : ticket.getEndStation().getId());
+                out.writeInt(ticket.getTrain() == null ? 0 : ticket.getTrain().getId());
+                out.writeInt(ticket.getEconomy() == null ? 0 : ticket.getEconomy().getId());
+                out.writeInt(ticket.getAgeGroup() == null ? 0 : ticket.getAgeGroup().getId());
+                Set<Discount> ticketDiscounts = ticket.getDiscounts() == null ? Set.of() : ticket.getDiscounts();
+                out.writeInt(ticketDiscounts.size());
+                for (Discount discount : ticketDiscounts) {
+                    out.writeInt(discount.getId());
+                }
+                out.writeLong(ticket.getVersion());
+            }
+
+            @Override
+            public Ticket read(DataInput in) throws IOException {
+                Ticket ticket = new Ticket().id(in.readInt()).departDateBooking(readDate(in));
+                ticket.setReturnDateBooking(readDate(in));
+                ticket.setRegistrationDateTicket(readDate(in));
+                ticket.setReturnDateTicket(readDate(in));
+                ticket.setPrice(in.readDouble());
+                ticket.setSeatNumber(in.readInt());
+                User user = resolve(in.readInt(), users, id -> new User().id(id));
+                Station startStation = resolve(in.readInt(), stations, id -> new Station().id(id));
+                Station endStation = resolve(in.readInt(), stations, id -> new Station().id(id));
+                Train train = resolve(in.readInt(), trains, id -> new Train().id(id));
+                Economy economy = resolve(in.readInt(), economies, id -> new Economy().id(id));
+                AgeGroup ageGroup = resolve(in.readInt(), ageGroups, id -> new AgeGroup().id(id));
+                if (user != null) ticket.setUser(user);
+                if (startStation != null) ticket.setStartStation(startStation);
+                if (endStation != null) ticket.setEndStation(endStation);
+                if (train != null) ticket.setTrain(train);
+                if (economy != null) ticket.setEconomy(economy);
+                if (ageGroup != null) ticket.setAgeGroup(ageGroup);
+                int discountCount = in.readInt();
+                Set<Discount> ticketDiscounts = new HashSet<>();
+                for (int i = 0; i < discountCount; i++) {
+                    ticketDiscounts.add(resolve(in.readInt(), discounts, id -> new Discount().id(id)));
+                }
+                ticket.setDiscounts(ticketDiscounts);
+                ticket.setVersion(in.readLong());
+                return ticket;
+            }
+        };
+    }
+
+    private static <T> T resolve(int id, CrudRepository<T> repository, IntFunction<T> placeholder) {
+        return id == 0 ? null : repository.findById(id).orElseGet(() -> placeholder.apply(id));
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeBoolean(date != null);
+        if (date != null) {
+            out.writeLong(date.toEpochDay());
+        }
+    }
+
+    private static LocalDate readDate(DataInput in) throws IOException {
+        return in.readBoolean() ? LocalDate.ofEpochDay(in.readLong()) : null;
+    }
+}
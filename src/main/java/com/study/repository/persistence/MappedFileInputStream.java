@@ -0,0 +1,66 @@
+package com.study.repository.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input stream reading a file through memory-mapped windows mapped one after the other,
+ * so a file of any length is read without mapping it at once. The channel is not closed.
+ * */
+class MappedFileInputStream extends InputStream {
+
+    private static final int WINDOW = 8 * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private MappedByteBuffer window;
+
+    /**
+     * Position in the file of the next window.
+     * */
+    private long nextStart;
+
+    MappedFileInputStream(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    @Override
+    public int read() throws IOException {
+        return nextWindowIfDone() ? window.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextWindowIfDone()) {
+            return -1;
+        }
+        int count = Math.min(length, window.remaining());
+        window.get(bytes, offset, count);
+        return count;
+    }
+
+    /**
+     * Maps the next window once the current one is read.
+     * @return false at the end of the file.
+     * */
+    private boolean nextWindowIfDone() throws IOException {
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        if (nextStart >= size) {
+            return false;
+        }
+        long length = Math.min(WINDOW, size - nextStart);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, nextStart, length);
+        nextStart += length;
+        return true;
+    }
+}
@@ -0,0 +1,69 @@
+package com.study.repository.persistence;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Output stream writing to a file through memory-mapped windows mapped one after the other,
+ * so a file of any length is written without holding it in memory or mapping it at once.
+ * Each window is forced to disk once it is full; closing forces the last one and cuts the file
+ * to the bytes written. The channel must be open for reading and writing, and is not closed.
+ * */
+class MappedFileOutputStream extends OutputStream {
+
+    private static final int WINDOW = 8 * 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private MappedByteBuffer window;
+
+    /**
+     * Position in the file of the current window.
+     * */
+    private long windowStart;
+
+    MappedFileOutputStream(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        nextWindowIfFull();
+        window.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            nextWindowIfFull();
+            int count = Math.min(length, window.remaining());
+            window.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        long length = windowStart;
+        if (window != null) {
+            length += window.position();
+            window.force();
+            window = null;
+        }
+        channel.truncate(length);
+    }
+
+    private void nextWindowIfFull() throws IOException {
+        if (window != null && window.hasRemaining()) {
+            return;
+        }
+        if (window != null) {
+            window.force();
+            windowStart += window.capacity();
+        }
+        window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, WINDOW);
+    }
+}
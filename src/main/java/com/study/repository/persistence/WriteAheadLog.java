@@ -0,0 +1,299 @@
+package com.study.repository.persistence;
+
+import com.study.repository.storage.ChangeLog;
+import com.study.repository.storage.EntityStore;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Durable {@link ChangeLog} of one {@link EntityStore}: an append-only log file of puts and removals,
+ * compacted from time to time into a snapshot of the whole store.
+ * Records are collected in memory and written to the file in batches; {@link #sync()}, usually called
+ * periodically by {@link com.study.repository.RepositoryPersistence}, writes them and forces them to disk,
+ * so one fsync covers all changes since the previous one. Changes made since the last sync are lost on a crash.
+ * A record holds its length, the operation, the entity ID, the encoded entity and a CRC32 checksum,
+ * so a record torn by a crash is recognised and ignored on recovery.
+ * Snapshots are written to a temporary file through memory-mapped windows and renamed into place,
+ * and both snapshots and logs are read back through memory-mapped buffers.
+ * @param <E> The type of entity in the store.
+ * */
+public class WriteAheadLog<E> implements ChangeLog<E>, Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAR = 3;
+
+    private static final int SNAPSHOT_MAGIC = 0x54534E50;
+
+    /**
+     * Size of the pending records above which they are written to the file without waiting for a sync.
+     * */
+    private static final int WRITE_THRESHOLD = 64 * 1024;
+
+    private final Path logFile;
+
+    /**
+     * Log replaced by a newer one during a checkpoint, kept until the snapshot covering it is written.
+     * */
+    private final Path oldLogFile;
+
+    private final Path snapshotFile;
+
+    private final EntityCodec<E> codec;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Object checkpointMonitor = new Object();
+
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+
+    /**
+     * @param directory | The directory of the log and snapshot files.
+     * @param name | The name of the store, used as the file name prefix.
+     * @param codec | The encoding of the entities.
+     * */
+    public WriteAheadLog(Path directory, String name, EntityCodec<E> codec) {
+        this.logFile = directory.resolve(name + ".log");
+        this.oldLogFile = directory.resolve(name + ".log.old");
+        this.snapshotFile = directory.resolve(name + ".snapshot");
+        this.codec = codec;
+    }
+
+    /**
+     * Rebuilds a store from the last snapshot and the logs written after it, then writes a new snapshot
+     * and starts an empty log. Must be called once, before the log is attached to the store.
+     * @param store | The store to fill, attached to no log.
+     * @return the number of log records replayed.
+     * */
+    public int recover(EntityStore<E> store) throws IOException {
+        Files.createDirectories(logFile.getParent());
+        int restored = readSnapshot(store);
+        int replayed = replay(oldLogFile, store) + replay(logFile, store);
+        writeSnapshot(store);
+        Files.deleteIfExists(oldLogFile);
+        channel = FileChannel.open(logFile, CREATE, WRITE, TRUNCATE_EXISTING);
+        LOGGER.info("Recovered {} from {} snapshot entities and {} log records", snapshotFile.getFileName(),
+                restored, replayed);
+        return replayed;
+    }
+
+    @Override
+    public void put(int id, E entity) {
+        append(PUT, id, entity);
+    }
+
+    @Override
+    public void remove(int id) {
+        append(REMOVE, id, null);
+    }
+
+    @Override
+    public void clear() {
+        append(CLEAR, 0, null);
+    }
+
+    @Override
+    public ReadWriteLock lock() {
+        return lock;
+    }
+
+    /**
+     * Writes the pending records to the log file and forces them to disk.
+     * */
+    public void sync() throws IOException {
+        FileChannel target;
+        synchronized (this) {
+            writePending();
+            target = channel;
+        }
+        try {
+            target.force(false);
+        } catch (ClosedChannelException e) {
+            // the log has been rotated or closed, which forced it
+        }
+    }
+
+    /**
+     * Compacts the log: starts a new log file, writes a snapshot of the store and deletes the old log.
+     * Changes are held back only while the log file is switched, not while the snapshot is written;
+     * changes made meanwhile end up in the new log and are replayed over the snapshot on recovery.
+     * @param store | The store this log is attached to.
+     * */
+    public void checkpoint(EntityStore<E> store) throws IOException {
+        synchronized (checkpointMonitor) {
+            lock.writeLock().lock();
+            try {
+                synchronized (this) {
+                    writePending();
+                    channel.force(false);
+                    channel.close();
+                    Files.move(logFile, oldLogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    channel = FileChannel.open(logFile, CREATE, WRITE, TRUNCATE_EXISTING);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            writeSnapshot(store);
+            Files.deleteIfExists(oldLogFile);
+        }
+    }
+
+    /**
+     * Syncs and closes the log file.
+     * */
+    @Override
+    public void close() throws IOException {
+        sync();
+        synchronized (this) {
+            channel.close();
+        }
+    }
+
+    private synchronized void append(byte operation, int id, E entity) {
+        try {
+            record.reset();
+            recordOut.writeByte(operation);
+            recordOut.writeInt(id);
+            if (entity != null) {
+                codec.write(entity, recordOut);
+            }
+            crc.reset();
+            crc.update(record.toByteArray());
+            DataOutputStream out = new DataOutputStream(pending);
+            out.writeInt(record.size());
+            record.writeTo(out);
+            out.writeInt((int) crc.getValue());
+            if (pending.size() >= WRITE_THRESHOLD) {
+                writePending();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to " + logFile, e);
+        }
+    }
+
+    private void writePending() throws IOException {
+        if (pending.size() > 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            pending.reset();
+        }
+    }
+
+    /**
+     * Applies the valid records of a log file to the store, stopping at the first torn or corrupt record.
+     * */
+    private int replay(Path file, EntityStore<E> store) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        int count = 0;
+        try (FileChannel input = FileChannel.open(file, READ)) {
+            MappedByteBuffer buffer = input.map(FileChannel.MapMode.READ_ONLY, 0, input.size());
+            while (buffer.remaining() >= Integer.BYTES) {
+                int length = buffer.getInt();
+                if (length < 5 || length > buffer.remaining() - Integer.BYTES) {
+                    LOGGER.warn("Ignoring torn record at the end of {}", file.getFileName());
+                    break;
+                }
+                ByteBuffer body = buffer.slice(buffer.position(), length);
+                buffer.position(buffer.position() + length);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != buffer.getInt()) {
+                    LOGGER.warn("Ignoring corrupt record at the end of {}", file.getFileName());
+                    break;
+                }
+                apply(body, store);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void apply(ByteBuffer body, EntityStore<E> store) throws IOException {
+        byte operation = body.get();
+        int id = body.getInt();
+        switch (operation) {
+            case PUT -> {
+                E entity = codec.read(new DataInputStream(new ByteBufferInputStream(body)));
+                store.restore(entity);
+                store.idGenerator().advanceTo(id);
+            }
+            case REMOVE -> store.remove(id);
+            case CLEAR -> store.clear();
+            default -> throw new IOException("Unknown log operation " + operation);
+        }
+    }
+
+    private int readSnapshot(EntityStore<E> store) throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return 0;
+        }
+        try (FileChannel input = FileChannel.open(snapshotFile, READ)) {
+            DataInputStream in = new DataInputStream(new MappedFileInputStream(input));
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a snapshot: " + snapshotFile);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                E entity = codec.read(in);
+                int id = store.idOf(entity);
+                store.restore(entity);
+                store.idGenerator().advanceTo(id);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the store to a temporary file and renames it into place. The entities are
+     * encoded straight into the mapped file, window by window, so no copy of the encoding is held in memory.
+     * */
+    private void writeSnapshot(EntityStore<E> store) throws IOException {
+        Path temporary = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        int count;
+        try (EntityStore.Snapshot<E> snapshot = store.snapshot();
+             FileChannel output = FileChannel.open(temporary, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+            count = snapshot.size();
+            try (DataOutputStream out = new DataOutputStream(new MappedFileOutputStream(output))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(count);
+                Iterator<E> entities = snapshot.stream().iterator();
+                while (entities.hasNext()) {
+                    codec.write(entities.next(), out);
+                }
+            }
+        }
+        Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Wrote snapshot {} of {} entities", snapshotFile.getFileName(), count);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.study.repository.storage;
+
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Receives the changes of an {@link EntityStore} before they are applied, e.g. to make them durable.
+ * Attached with {@link EntityStore#attachLog(ChangeLog)}.
+ * For every change the store holds the read lock of {@link #lock()} from logging the change
+ * until it has been applied, and changes of the same identifier are logged in the order they are applied.
+ * Holding the write lock therefore waits for the changes in progress and keeps new ones out.
+ * @param <E> The type of entity in the store.
+ * */
+public interface ChangeLog<E> {
+
+    /**
+     * Logs that an entity is about to be stored under an identifier.
+     * @param id | The identifier.
+     * @param entity | The entity.
+     * */
+    void put(int id, E entity);
+
+    /**
+     * Logs that the entity with an identifier is about to be removed.
+     * @param id | The identifier.
+     * */
+    void remove(int id);
+
+    /**
+     * Logs that all entities are about to be removed.
+     * */
+    void clear();
+
+    /**
+     * Returns the lock coordinating changes of the store with the log.
+     * @return the lock.
+     * */
+    ReadWriteLock lock();
+}
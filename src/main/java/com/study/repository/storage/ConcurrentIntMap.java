@@ -0,0 +1,587 @@
+package com.study.repository.storage;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe map from primitive {@code int} keys to objects, made of {@value #SEGMENTS}
+ * {@link IntHashMap} segments, each guarded by its own {@link StampedLock}.
+ * Lookups are optimistic: they read the segment without locking and only retry under
+ * a read lock if a write to the same segment happened meanwhile. Writes lock one segment,
+ * so writers of keys in different segments do not wait for each other.
+ * Keys are never boxed.
+ * {@link #snapshot()} opens a point-in-time view of the map: while it is open, every write
+ * preserves the value it overwrites for the snapshot, under the lock of its segment, so the snapshot
+ * keeps seeing the values of the moment it was opened while writers carry on.
+ * Without open snapshots, a write only checks that there are none.
+ * Each segment also keeps its keys in a sorted array, so {@link #orderedKeys(long)} lists the keys
+ * in order by merging the segments, without copying or sorting all keys. Keys are mostly added
+ * in increasing order and then only appended; removed keys stay in the array until enough of them
+ * pile up, and are dropped only while no snapshot is open.
+ * @param <V> The type of values.
+ * */
+public class ConcurrentIntMap<V> {
+
+    private static final int SEGMENT_BITS = 4;
+
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private final Segment<V>[] segments;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Open snapshots, to which writes preserve the values they overwrite.
+     * */
+    private final List<Snapshot<V>> snapshots = new CopyOnWriteArrayList<>();
+
+    public ConcurrentIntMap() {
+        segments = newArray(Segment.class, SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(i);
+        }
+    }
+
+    /**
+     * Retrieves the value of a key.
+     * @param key | The key.
+     * @return the value, or null if the key is not in the map.
+     * */
+    public V get(int key) {
+        Segment<V> segment = segmentOf(key);
+        long stamp = segment.lock.tryOptimisticRead();
+        V value = segment.map.get(key);
+        if (!segment.lock.validate(stamp)) {
+            stamp = segment.lock.readLock();
+            try {
+                value = segment.map.get(key);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Checks if a key is in the map.
+     * @param key | The key.
+     * @return true if the map has a value for the key.
+     * */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Associates a value with a key.
+     * @param key | The key.
+     * @param value | The value, must not be null.
+     * @return the previous value of the key, or null if there was none.
+     * */
+    public V put(int key, V value) {
+        Segment<V> segment = segmentOf(key);
+        V previous;
+        long stamp = segment.lock.writeLock();
+        try {
+            previous = segment.map.put(key, value);
+            preserve(segment, key, previous);
+            if (previous == null) {
+                segment.addOrdered(key);
+            }
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        return previous;
+    }
+
+    /**
+     * Associates a value with a key only if the key still maps to an expected value.
+     * @param key | The key.
+     * @param expected | The value the key must map to, compared by identity.
+     * @param value | The new value, must not be null.
+     * @return true if the value was replaced, false if the key maps to another value or to none.
+     * */
+    public boolean replace(int key, V expected, V value) {
+        Segment<V> segment = segmentOf(key);
+        long stamp = segment.lock.writeLock();
+        try {
+            if (expected == null || segment.map.get(key) != expected) {
+                return false;
+            }
+            segment.map.put(key, value);
+            preserve(segment, key, expected);
+            return true;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a key.
+     * @param key | The key.
+     * @return the removed value, or null if the key was not in the map.
+     * */
+    public V remove(int key) {
+        Segment<V> segment = segmentOf(key);
+        V removed;
+        long stamp = segment.lock.writeLock();
+        try {
+            removed = segment.map.remove(key);
+            if (removed != null) {
+                preserve(segment, key, removed);
+                segment.removeOrdered(snapshots.isEmpty());
+            }
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+        if (removed != null) {
+            size.decrementAndGet();
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the number of entries.
+     * */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Removes all entries, one segment at a time.
+     * */
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                size.addAndGet(-segment.map.size());
+                if (!snapshots.isEmpty()) {
+                    segment.map.forEach((key, value) -> preserve(segment, key, value));
+                }
+                segment.map.clear();
+                segment.clearOrdered(snapshots.isEmpty());
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys of the map, in no particular order. Each segment is copied
+     * under its read lock, so the result is weakly consistent across segments.
+     * @return a new array with all keys.
+     * */
+    public int[] keys() {
+        int[][] parts = new int[SEGMENTS][];
+        int total = 0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            long stamp = segments[i].lock.readLock();
+            try {
+                parts[i] = segments[i].map.keys();
+            } finally {
+                segments[i].lock.unlockRead(stamp);
+            }
+            total += parts[i].length;
+        }
+        int[] result = new int[total];
+        int offset = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+
+    /**
+     * Returns an iterator over the keys of the map in increasing order, starting at {@code fromKey}.
+     * The segments are read a few keys at a time under their read locks, so the iteration is weakly consistent:
+     * it never fails on concurrent writes, but may miss keys added meanwhile, and may return keys removed
+     * meanwhile or recently; callers look the keys up and skip those without a value.
+     * @param fromKey | The lowest key to return.
+     * @return an iterator over the keys from {@code fromKey} on, in increasing order.
+     * */
+    public PrimitiveIterator.OfInt orderedKeys(long fromKey) {
+        return new OrderedKeys<>(segments, fromKey);
+    }
+
+    /**
+     * Passes every entry to a consumer, in no particular order. The consumer is called
+     * without holding any lock and may modify the map; entries changed meanwhile may be missed.
+     * @param consumer | The consumer of the entries.
+     * */
+    public void forEach(IntHashMap.EntryConsumer<? super V> consumer) {
+        for (int key : keys()) {
+            V value = get(key);
+            if (value != null) {
+                consumer.accept(key, value);
+            }
+        }
+    }
+
+    /**
+     * Opens a view of the map as it is now. All segments are locked while the snapshot is registered,
+     * so every write is either seen by the snapshot or preserved for it, and writers are held up
+     * only for that moment. The snapshot must be closed, since every write made while it is open
+     * keeps the overwritten value alive until then.
+     * @return the open snapshot.
+     * */
+    public Snapshot<V> snapshot() {
+        long[] stamps = new long[SEGMENTS];
+        int count = 0;
+        for (int i = 0; i < SEGMENTS; i++) {
+            stamps[i] = segments[i].lock.writeLock();
+        }
+        try {
+            for (Segment<V> segment : segments) {
+                count += segment.map.size();
+            }
+            Snapshot<V> snapshot = new Snapshot<>(this, count);
+            snapshots.add(snapshot);
+            return snapshot;
+        } finally {
+            for (int i = SEGMENTS - 1; i >= 0; i--) {
+                segments[i].lock.unlockWrite(stamps[i]);
+            }
+        }
+    }
+
+    /**
+     * Keeps the value a key had before a write for every open snapshot that has not kept one yet.
+     * The caller holds the write lock of the segment.
+     * @param previous | The overwritten value, or null if the key had none.
+     * */
+    private void preserve(Segment<V> segment, int key, V previous) {
+        for (Snapshot<V> snapshot : snapshots) {
+            IntHashMap<Object> preserved = snapshot.preserved[segment.index];
+            if (!preserved.containsKey(key)) {
+                preserved.put(key, previous == null ? Snapshot.ABSENT : previous);
+            }
+        }
+    }
+
+    /**
+     * Creates an array of a generic element type, which Java cannot create directly.
+     * @param type | The class of the elements, without type arguments.
+     * @param length | The length of the array.
+     * @return the new array.
+     * */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newArray(Class<?> type, int length) {
+        return (T[]) Array.newInstance(type, length);
+    }
+
+    private Segment<V> segmentOf(int key) {
+        return segments[IntHashMap.hash(key) >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+
+    private static final class Segment<V> {
+        private final int index;
+        private final StampedLock lock = new StampedLock();
+        private final IntHashMap<V> map = new IntHashMap<>();
+
+        /**
+         * Keys of the segment in increasing order, in the first {@link #ordered} slots, including
+         * {@link #stale} keys removed from the map since the array was last compacted; guarded by the lock.
+         * */
+        private int[] order = new int[16];
+        private int ordered;
+        private int stale;
+
+        private Segment(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Adds a key that was not in the map to the sorted keys, or revives it if it was removed but kept.
+         * */
+        private void addOrdered(int key) {
+            if (ordered == 0 || key > order[ordered - 1]) {
+                if (ordered == order.length) {
+                    order = Arrays.copyOf(order, ordered << 1);
+                }
+                order[ordered++] = key;
+                return;
+            }
+            int slot = Arrays.binarySearch(order, 0, ordered, key);
+            if (slot >= 0) {
+                stale--;
+                return;
+            }
+            slot = -slot - 1;
+            if (ordered == order.length) {
+                order = Arrays.copyOf(order, ordered << 1);
+            }
+            System.arraycopy(order, slot, order, slot + 1, ordered - slot);
+            order[slot] = key;
+            ordered++;
+        }
+
+        /**
+         * Counts a key removed from the map, and drops the removed keys once they are half of the sorted keys.
+         * @param compact | Whether removed keys may be dropped, i.e. no snapshot is open.
+         * */
+        private void removeOrdered(boolean compact) {
+            stale++;
+            if (compact && stale > (ordered >> 1) + 16) {
+                int count = 0;
+                for (int i = 0; i < ordered; i++) {
+                    if (map.containsKey(order[i])) {
+                        order[count++] = order[i];
+                    }
+                }
+                ordered = count;
+                stale = 0;
+            }
+        }
+
+        private void clearOrdered(boolean compact) {
+            if (compact) {
+                order = new int[16];
+                ordered = 0;
+                stale = 0;
+            } else {
+                stale = ordered;
+            }
+        }
+
+        /**
+         * Copies the sorted keys from {@code fromKey} on into a buffer; the caller holds the lock.
+         * @return the number of keys copied.
+         * */
+        private int copyOrdered(long fromKey, int[] into) {
+            if (fromKey > Integer.MAX_VALUE) {
+                return 0;
+            }
+            int slot = 0;
+            if (fromKey > Integer.MIN_VALUE) {
+                slot = Arrays.binarySearch(order, 0, ordered, (int) fromKey);
+                if (slot < 0) {
+                    slot = -slot - 1;
+                }
+            }
+            int count = Math.min(into.length, ordered - slot);
+            System.arraycopy(order, slot, into, 0, count);
+            return count;
+        }
+    }
+
+    /**
+     * Merges the sorted keys of all segments, reading each segment a batch of keys at a time.
+     * */
+    private static final class OrderedKeys<V> implements PrimitiveIterator.OfInt {
+
+        private static final int BATCH = 64;
+
+        private final Segment<V>[] segments;
+
+        /**
+         * Keys read from each segment, the position of the next one and the number read.
+         * */
+        private final int[][] batches;
+        private final int[] positions;
+        private final int[] counts;
+
+        /**
+         * Key to read each segment from, beyond the last batch; past {@link Integer#MAX_VALUE} once it is exhausted.
+         * */
+        private final long[] resumeFrom;
+
+        private OrderedKeys(Segment<V>[] segments, long fromKey) {
+            this.segments = segments;
+            batches = new int[segments.length][BATCH];
+            positions = new int[segments.length];
+            counts = new int[segments.length];
+            resumeFrom = new long[segments.length];
+            Arrays.fill(resumeFrom, fromKey);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return lowestSegment() >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            int segment = lowestSegment();
+            if (segment < 0) {
+                throw new NoSuchElementException();
+            }
+            return batches[segment][positions[segment]++];
+        }
+
+        /**
+         * Returns the segment holding the lowest unread key, or -1 if all are exhausted.
+         * */
+        private int lowestSegment() {
+            int lowest = -1;
+            for (int i = 0; i < segments.length; i++) {
+                if (positions[i] == counts[i] && !refill(i)) {
+                    continue;
+                }
+                if (lowest < 0 || batches[i][positions[i]] < batches[lowest][positions[lowest]]) {
+                    lowest = i;
+                }
+            }
+            return lowest;
+        }
+
+        private boolean refill(int i) {
+            if (resumeFrom[i] > Integer.MAX_VALUE) {
+                return false;
+            }
+            Segment<V> segment = segments[i];
+            long stamp = segment.lock.readLock();
+            try {
+                counts[i] = segment.copyOrdered(resumeFrom[i], batches[i]);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+            positions[i] = 0;
+            resumeFrom[i] = counts[i] < BATCH ? Integer.MAX_VALUE + 1L : batches[i][counts[i] - 1] + 1L;
+            return counts[i] > 0;
+        }
+    }
+
+    /**
+     * View of a {@link ConcurrentIntMap} as it was when the snapshot was opened.
+     * A key changed since is read from the value preserved for the snapshot, any other key from the map,
+     * both under the lock of the key's segment, so reads are as cheap as those of the map itself.
+     * @param <V> The type of values.
+     * */
+    public static final class Snapshot<V> implements AutoCloseable {
+
+        /**
+         * Preserved in place of a key that had no value when the snapshot was opened.
+         * */
+        private static final Object ABSENT = new Object();
+
+        private final ConcurrentIntMap<V> map;
+
+        /**
+         * Values overwritten since the snapshot was opened, by segment; guarded by the segment locks.
+         * */
+        private final IntHashMap<Object>[] preserved;
+
+        private final int size;
+
+        private volatile boolean closed;
+
+        private Snapshot(ConcurrentIntMap<V> map, int size) {
+            this.map = map;
+            this.size = size;
+            preserved = newArray(IntHashMap.class, SEGMENTS);
+            for (int i = 0; i < SEGMENTS; i++) {
+                preserved[i] = new IntHashMap<>();
+            }
+        }
+
+        /**
+         * Retrieves the value a key had when the snapshot was opened.
+         * @param key | The key.
+         * @return the value, or null if the key was not in the map.
+         * @throws IllegalStateException if the snapshot is closed.
+         * */
+        public V get(int key) {
+            checkOpen();
+            Segment<V> segment = map.segmentOf(key);
+            long stamp = segment.lock.tryOptimisticRead();
+            Object value = read(segment, key);
+            if (!segment.lock.validate(stamp)) {
+                stamp = segment.lock.readLock();
+                try {
+                    value = read(segment, key);
+                } finally {
+                    segment.lock.unlockRead(stamp);
+                }
+            }
+            return cast(value);
+        }
+
+        /**
+         * Returns the keys the map had when the snapshot was opened, in no particular order.
+         * @return a new array with the keys.
+         * @throws IllegalStateException if the snapshot is closed.
+         * */
+        public int[] keys() {
+            checkOpen();
+            int[] result = new int[size];
+            int count = 0;
+            for (Segment<V> segment : map.segments) {
+                IntHashMap<Object> kept = preserved[segment.index];
+                long stamp = segment.lock.readLock();
+                try {
+                    for (int key : segment.map.keys()) {
+                        if (!kept.containsKey(key)) {
+                            result[count++] = key;
+                        }
+                    }
+                    for (int key : kept.keys()) {
+                        if (kept.get(key) != ABSENT) {
+                            result[count++] = key;
+                        }
+                    }
+                } finally {
+                    segment.lock.unlockRead(stamp);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns an iterator over the keys the map had when the snapshot was opened, in increasing order,
+         * starting at {@code fromKey}. Removed keys are kept in the sorted keys of the map while a snapshot is open,
+         * so the keys of the snapshot are among those returned; callers look the keys up and skip those without a value.
+         * @param fromKey | The lowest key to return.
+         * @return an iterator over the keys from {@code fromKey} on, in increasing order.
+         * @throws IllegalStateException if the snapshot is closed.
+         * */
+        public PrimitiveIterator.OfInt orderedKeys(long fromKey) {
+            checkOpen();
+            return map.orderedKeys(fromKey);
+        }
+
+        /**
+         * Returns the number of entries the map had when the snapshot was opened.
+         * @return the number of entries.
+         * */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Closes the snapshot; writes stop preserving values for it. Closing twice does nothing.
+         * */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                map.snapshots.remove(this);
+            }
+        }
+
+        private Object read(Segment<V> segment, int key) {
+            Object value = preserved[segment.index].get(key);
+            return value != null ? value : segment.map.get(key);
+        }
+
+        @SuppressWarnings("unchecked")
+        private V cast(Object value) {
+            return value == ABSENT ? null : (V) value;
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("Snapshot is closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.study.repository.storage;
+
+/**
+ * Thrown by an {@link EntityStore} when an entity would take a key of a {@link UniqueIndex}
+ * that is already held by another stored entity. Nothing is stored in that case.
+ * */
+public class DuplicateKeyException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DuplicateKeyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,905 @@
+package com.study.repository.storage;
+
+import com.study.repository.UpdateResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Concurrent in-memory storage engine shared by all repositories.
+ * Entities are kept in a {@link ConcurrentIntMap} keyed by their primitive identifier, and new
+ * identifiers are handed out by an {@link IdGenerator}, so concurrent saves neither lose
+ * writes nor produce duplicate IDs and no global lock is needed above this layer.
+ * Identifiers are generated in sequence, so entities are listed page by page or streamed
+ * in ID order by walking the range of identifiers, without copying or sorting the whole store;
+ * a store whose identifiers have become sparse walks the keys the {@link ConcurrentIntMap} keeps sorted instead.
+ * A {@link ChangeLog} attached with {@link #attachLog(ChangeLog)} receives every change before it is applied.
+ * {@link SecondaryIndex}es registered with {@link #addIndex(SecondaryIndex)} are updated
+ * after every change of the map, from the entity then stored, under the monitor of the identifier's stripe. Keys of {@link UniqueIndex}es registered with
+ * {@link #addUniqueIndex(UniqueIndex)} are claimed before an entity is published,
+ * and an entity whose key is taken is rejected with a {@link DuplicateKeyException}.
+ * A store created with version accessors also supports conditional updates with {@link #update(Object, long)}.
+ * {@link #snapshot()} opens a consistent point-in-time view of the entities, which writers do not wait for;
+ * {@link #values()} reads through one, so it never returns a mix of entities from before and after a write.
+ * @param <E> The type of entity kept in this store.
+ * */
+public class EntityStore<E> {
+
+    /**
+     * Ordered scans walk the identifier range if it is at most this many times the number of entities.
+     * */
+    private static final int DENSE_SPAN_FACTOR = 4;
+
+    private static final int LOG_STRIPES = 64;
+
+    private final ConcurrentIntMap<E> entities = new ConcurrentIntMap<>();
+
+    private final IdGenerator idGenerator = new IdGenerator();
+
+    /**
+     * Lowest and highest identifiers stored by {@link #replace(int, Object)}, which may lie
+     * outside the range of generated identifiers.
+     * */
+    private final AtomicInteger lowestReplacedId = new AtomicInteger(1);
+    private final AtomicInteger highestReplacedId = new AtomicInteger();
+
+    private final List<SecondaryIndex<E, ?>> indexes = new CopyOnWriteArrayList<>();
+
+    private final List<UniqueIndex<E, ?>> uniqueIndexes = new CopyOnWriteArrayList<>();
+
+    private final List<IntervalIndex<E>> intervalIndexes = new CopyOnWriteArrayList<>();
+
+    /**
+     * Log receiving every change before it is applied, or null.
+     * */
+    private volatile ChangeLog<E> log;
+
+    /**
+     * Monitors ordering the logged changes, the conditional updates and the index updates of identifiers
+     * sharing a stripe.
+     * */
+    private final Object[] stripes = new Object[LOG_STRIPES];
+
+    /**
+     * Reads the identifier of an entity.
+     * */
+    private final ToIntFunction<E> idOf;
+
+    /**
+     * Writes a freshly generated identifier into an entity.
+     * */
+    private final ObjIntConsumer<E> idAssigner;
+
+    /**
+     * Reads the version of an entity, or null if the store does not support conditional updates.
+     * */
+    private final ToLongFunction<E> versionOf;
+
+    /**
+     * Writes the new version into an entity stored by a conditional update.
+     * */
+    private final ObjLongConsumer<E> versionAssigner;
+
+    public EntityStore(ToIntFunction<E> idOf, ObjIntConsumer<E> idAssigner) {
+        this(idOf, idAssigner, null, null);
+    }
+
+    /**
+     * Creates a store supporting conditional updates with {@link #update(Object, long)}.
+     * @param idOf | Reads the identifier of an entity.
+     * @param idAssigner | Writes a freshly generated identifier into an entity.
+     * @param versionOf | Reads the version of an entity.
+     * @param versionAssigner | Writes the new version into an updated entity.
+     * */
+    public EntityStore(ToIntFunction<E> idOf, ObjIntConsumer<E> idAssigner,
+                       ToLongFunction<E> versionOf, ObjLongConsumer<E> versionAssigner) {
+        this.idOf = idOf;
+        this.idAssigner = idAssigner;
+        this.versionOf = versionOf;
+        this.versionAssigner = versionAssigner;
+        for (int i = 0; i < LOG_STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Attaches a log that receives every later change before it is applied.
+     * Without a log, changes cost no more than the map update itself.
+     * @param log | The log, or null to detach the current one.
+     * */
+    public void attachLog(ChangeLog<E> log) {
+        this.log = log;
+    }
+
+    /**
+     * Assigns a new identifier to the entity and stores it.
+     * The identifier is set before the entity is published, so readers never observe
+     * a stored entity without its final ID.
+     * @param entity | The entity to be stored, must not be null.
+     * @return The stored entity.
+     * @throws DuplicateKeyException if a unique key of the entity is held by another entity.
+     * */
+    public E insert(E entity) {
+        int id = idGenerator.next();
+        claim(id, 0, entity);
+        idAssigner.accept(entity, id);
+        try {
+            putEntity(id, entity);
+        } catch (RuntimeException e) {
+            // e.g. the change log failed to write: the entity is not stored, so its keys must not stay claimed
+            unclaim(id, 0, entity);
+            throw e;
+        }
+        reindex(id);
+        return entity;
+    }
+
+    /**
+     * Stores a batch of entities. One block of identifiers is reserved for the whole batch
+     * with a single atomic operation, instead of one per entity.
+     * Null elements are skipped. Unique keys of the whole batch are claimed before any entity is stored,
+     * so if one of them is taken, nothing of the batch is stored.
+     * @param batch | The entities to be stored.
+     * @return the number of stored entities.
+     * @throws DuplicateKeyException if a unique key of an entity is held by another entity or repeated in the batch.
+     * */
+    public int insertAll(List<E> batch) {
+        int count = 0;
+        for (E entity : batch) {
+            if (entity != null) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        int firstId = idGenerator.reserve(count);
+        if (!uniqueIndexes.isEmpty()) {
+            claimAll(batch, firstId);
+        }
+        int id = firstId;
+        try {
+            for (E entity : batch) {
+                if (entity != null) {
+                    idAssigner.accept(entity, id);
+                    putEntity(id, entity);
+                    reindex(id);
+                    id++;
+                }
+            }
+        } catch (RuntimeException e) {
+            // entities stored before the failure stay stored; the keys of the others are released
+            int claimedId = firstId;
+            for (E entity : batch) {
+                if (entity != null) {
+                    if (claimedId >= id) {
+                        unclaim(claimedId, 0, entity);
+                    }
+                    claimedId++;
+                }
+            }
+            throw e;
+        }
+        return count;
+    }
+
+    /**
+     * Retrieves an entity by its identifier.
+     * @param id | The identifier of the entity.
+     * @return the entity, or null if there is none with this identifier.
+     * */
+    public E get(int id) {
+        return entities.get(id);
+    }
+
+    /**
+     * Checks if an entity with the given identifier is stored.
+     * @param id | The identifier to check.
+     * @return true if the entity exists, otherwise false.
+     * */
+    public boolean contains(int id) {
+        return entities.containsKey(id);
+    }
+
+    /**
+     * Replaces the entity stored under {@code id} with {@code entity},
+     * which is stored under its own identifier. In a store with version accessors the version of {@code entity}
+     * is set to the version of the replaced entity plus one, as an unconditional update of a database row
+     * increments it; with nothing to replace, {@code entity} keeps its own version.
+     * @param id | The identifier of the entity being replaced.
+     * @param entity | The new entity.
+     * @throws DuplicateKeyException if a unique key of the new entity is held by another entity.
+     * */
+    public void replace(int id, E entity) {
+        replace(id, entity, versionAssigner != null);
+    }
+
+    /**
+     * Stores an entity under its own identifier as it is, keeping its version, in place of any entity stored there;
+     * used to rebuild a store, e.g. from a log.
+     * @param entity | The entity.
+     * @throws DuplicateKeyException if a unique key of the entity is held by another entity.
+     * */
+    public void restore(E entity) {
+        replace(idOf.applyAsInt(entity), entity, false);
+    }
+
+    private void replace(int id, E entity, boolean nextVersion) {
+        int newId = idOf.applyAsInt(entity);
+        claim(newId, id, entity);
+        lowestReplacedId.accumulateAndGet(newId, Math::min);
+        highestReplacedId.accumulateAndGet(newId, Math::max);
+        long version = nextVersion ? versionOf.applyAsLong(entity) : 0;
+        E old = null;
+        try {
+            if (newId != id) {
+                old = removeEntity(id);
+                if (nextVersion && old != null) {
+                    versionAssigner.accept(entity, versionOf.applyAsLong(old) + 1);
+                }
+                putEntity(newId, entity);
+            } else if (nextVersion) {
+                putNextVersion(id, entity);
+            } else {
+                putEntity(id, entity);
+            }
+        } catch (RuntimeException e) {
+            if (nextVersion) {
+                versionAssigner.accept(entity, version);
+            }
+            unclaim(newId, id, entity);
+            if (old != null) {
+                reindex(id);
+            }
+            throw e;
+        }
+        if (old != null) {
+            reindex(id);
+        }
+        reindex(newId);
+    }
+
+    /**
+     * Replaces the entity stored under the identifier of {@code entity} if the stored one still has
+     * the expected version, and sets the version of {@code entity} to {@code expectedVersion + 1}.
+     * A stale version is detected without locking; otherwise the version is checked again and the entity
+     * swapped in under the monitor of the identifier's stripe, held only for the check and the swap,
+     * so a concurrent update of the same entity gets {@link UpdateResult#CONFLICT} instead of waiting for it.
+     * @param entity | The new entity, stored under its own identifier.
+     * @param expectedVersion | The version the stored entity must have.
+     * @return the outcome of the update.
+     * @throws DuplicateKeyException if a unique key of the new entity is held by another entity.
+     * @throws UnsupportedOperationException if the store was created without version accessors.
+     * */
+    public UpdateResult update(E entity, long expectedVersion) {
+        if (versionOf == null) {
+            throw new UnsupportedOperationException("Store does not keep entity versions");
+        }
+        int id = idOf.applyAsInt(entity);
+        E current = entities.get(id);
+        if (current == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        if (versionOf.applyAsLong(current) != expectedVersion) {
+            return UpdateResult.CONFLICT;
+        }
+        claim(id, id, entity);
+        E replaced;
+        try {
+            replaced = swap(id, expectedVersion, entity);
+        } catch (RuntimeException e) {
+            unclaim(id, id, entity);
+            throw e;
+        }
+        if (replaced == null) {
+            unclaim(id, id, entity);
+            return entities.containsKey(id) ? UpdateResult.CONFLICT : UpdateResult.NOT_FOUND;
+        }
+        reindex(id);
+        return UpdateResult.UPDATED;
+    }
+
+    /**
+     * Removes an entity by its identifier.
+     * @param id | The identifier of the entity to be removed.
+     * @return the removed entity, or null if there was none.
+     * */
+    public E remove(int id) {
+        E removed = removeEntity(id);
+        if (removed != null) {
+            reindex(id);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes a batch of entities by their identifiers. Null elements are skipped.
+     * @param batch | The entities to be removed.
+     * @return the number of entities that were stored and have been removed.
+     * */
+    public int removeAll(List<E> batch) {
+        int count = 0;
+        for (E entity : batch) {
+            if (entity != null) {
+                int id = idOf.applyAsInt(entity);
+                E removed = removeEntity(id);
+                if (removed != null) {
+                    reindex(id);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes all entities. Identifiers already handed out are not reused.
+     * */
+    public void clear() {
+        ChangeLog<E> log = this.log;
+        if (log == null) {
+            clearEntities();
+            return;
+        }
+        Lock exclusive = log.lock().writeLock();
+        exclusive.lock();
+        try {
+            log.clear();
+            clearEntities();
+        } finally {
+            exclusive.unlock();
+        }
+    }
+
+    private void clearEntities() {
+        entities.clear();
+        indexes.forEach(SecondaryIndex::clear);
+        uniqueIndexes.forEach(UniqueIndex::clear);
+        intervalIndexes.forEach(IntervalIndex::clear);
+    }
+
+    /**
+     * Returns a list with all stored entities, ordered by ID, as they were at one point in time.
+     * The list is read from a snapshot, so writes made while it is built are not part of it.
+     * @return a list of all stored entities.
+     * */
+    public List<E> values() {
+        try (Snapshot<E> snapshot = snapshot()) {
+            return snapshot.values();
+        }
+    }
+
+    /**
+     * Returns a page of entities in ID order, skipping the first {@code offset} entities.
+     * Skipping walks over the preceding entities, so deep pages are cheaper with {@link #pageAfter(int, int)}.
+     * @param offset | The number of entities to skip, not negative.
+     * @param limit | The maximum number of entities to return, positive.
+     * @return the entities of the page.
+     * */
+    public List<E> page(int offset, int limit) {
+        checkPage(offset, limit);
+        return stream().skip(offset).limit(limit).toList();
+    }
+
+    /**
+     * Returns a page of entities with identifiers greater than {@code afterId}, in ID order.
+     * The page starts directly at {@code afterId}, whatever its position.
+     * @param afterId | The identifier of the last entity of the previous page, or 0 for the first page.
+     * @param limit | The maximum number of entities to return, positive.
+     * @return the entities of the page.
+     * */
+    public List<E> pageAfter(int afterId, int limit) {
+        checkPage(0, limit);
+        return streamFrom(afterId + 1L).limit(limit).toList();
+    }
+
+    /**
+     * Returns a lazy stream over the stored entities in ID order. Nothing is copied,
+     * and the stream is weakly consistent: it never throws on concurrent modification,
+     * but may see some writes made while it runs and not others; use {@link #snapshot()} for a consistent scan.
+     * @return a stream of all stored entities.
+     * */
+    public Stream<E> stream() {
+        return streamFrom(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Returns the number of stored entities.
+     * @return the number of stored entities.
+     * */
+    public int size() {
+        return entities.size();
+    }
+
+    /**
+     * Registers a secondary index, filling it with the entities already stored.
+     * @param index | The index to maintain from now on.
+     * @return the registered index.
+     * */
+    public <K> SecondaryIndex<E, K> addIndex(SecondaryIndex<E, K> index) {
+        indexes.add(index);
+        entities.forEach(index::add);
+        return index;
+    }
+
+    /**
+     * Retrieves the entities indexed under a key, ordered by ID.
+     * Takes time proportional to the number of matching entities.
+     * @param index | A secondary index registered with this store.
+     * @param key | The key to look up.
+     * @return a list of the stored entities with this key.
+     * */
+    public <K> List<E> findBy(SecondaryIndex<E, K> index, K key) {
+        List<E> found = new ArrayList<>();
+        for (int id : index.get(key)) {
+            E entity = entities.get(id);
+            if (index.matches(entity, key)) {
+                found.add(entity);
+            }
+        }
+        found.sort(Comparator.comparingInt(idOf));
+        return found;
+    }
+
+    /**
+     * Registers an interval index, filling it with the entities already stored.
+     * @param index | The index to maintain from now on.
+     * @return the registered index.
+     * */
+    public IntervalIndex<E> addIntervalIndex(IntervalIndex<E> index) {
+        intervalIndexes.add(index);
+        entities.forEach(index::add);
+        return index;
+    }
+
+    /**
+     * Retrieves the entities whose interval contains a point, ordered by ID.
+     * Takes time logarithmic in the number of indexed entities plus the number of matching ones.
+     * @param index | An interval index registered with this store.
+     * @param point | The point to look up.
+     * @return a list of the stored entities whose interval contains the point.
+     * */
+    public List<E> findContaining(IntervalIndex<E> index, long point) {
+        List<E> found = new ArrayList<>();
+        for (int id : index.containing(point)) {
+            E entity = entities.get(id);
+            if (index.matches(entity, point)) {
+                found.add(entity);
+            }
+        }
+        found.sort(Comparator.comparingInt(idOf));
+        return found;
+    }
+
+    /**
+     * Registers a unique index, filling it with the entities already stored.
+     * @param index | The index to maintain from now on.
+     * @return the registered index.
+     * @throws DuplicateKeyException if two stored entities have the same key.
+     * */
+    public <K> UniqueIndex<E, K> addUniqueIndex(UniqueIndex<E, K> index) {
+        entities.forEach((id, entity) -> {
+            if (!index.claim(id, 0, entity, entities::get)) {
+                throw new DuplicateKeyException("Duplicate unique key of entity " + id);
+            }
+            index.bind(id, entity);
+        });
+        uniqueIndexes.add(index);
+        return index;
+    }
+
+    /**
+     * Retrieves the entity holding a key of a unique index. Takes constant time.
+     * @param index | A unique index registered with this store.
+     * @param key | The key to look up.
+     * @return the stored entity with this key, or null if there is none.
+     * */
+    public <K> E findUnique(UniqueIndex<E, K> index, K key) {
+        Integer id = index.get(key);
+        E entity = id == null ? null : entities.get(id);
+        return index.matches(entity, key) ? entity : null;
+    }
+
+    /**
+     * Claims the unique keys of an entity about to be stored under {@code id}, replacing
+     * the entity stored under {@code previousId} (0 for none). Claims already made are undone on failure.
+     * */
+    private void claim(int id, int previousId, E entity) {
+        for (int i = 0; i < uniqueIndexes.size(); i++) {
+            if (!uniqueIndexes.get(i).claim(id, previousId, entity, entities::get)) {
+                for (int j = 0; j < i; j++) {
+                    uniqueIndexes.get(j).unclaim(id, previousId, entity);
+                }
+                throw new DuplicateKeyException("Duplicate unique key of entity " + id);
+            }
+        }
+    }
+
+    /**
+     * Undoes the claims of {@link #claim(int, int, Object)} for an entity that is not going to be stored.
+     * */
+    private void unclaim(int id, int previousId, E entity) {
+        for (UniqueIndex<E, ?> index : uniqueIndexes) {
+            index.unclaim(id, previousId, entity);
+        }
+    }
+
+    /**
+     * Claims the unique keys of a batch about to be stored from identifier {@code firstId} on.
+     * */
+    private void claimAll(List<E> batch, int firstId) {
+        int id = firstId;
+        try {
+            for (E entity : batch) {
+                if (entity != null) {
+                    claim(id, 0, entity);
+                    id++;
+                }
+            }
+        } catch (DuplicateKeyException e) {
+            int claimedId = firstId;
+            for (E entity : batch) {
+                if (entity != null && claimedId < id) {
+                    unclaim(claimedId++, 0, entity);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stores an entity in the map, logging the change first if a log is attached.
+     * */
+    private E putEntity(int id, E entity) {
+        ChangeLog<E> log = this.log;
+        if (log == null) {
+            return entities.put(id, entity);
+        }
+        Lock shared = log.lock().readLock();
+        shared.lock();
+        try {
+            synchronized (stripes[id & (LOG_STRIPES - 1)]) {
+                log.put(id, entity);
+                return entities.put(id, entity);
+            }
+        } finally {
+            shared.unlock();
+        }
+    }
+
+    /**
+     * Stores an entity with the version following that of the entity stored under {@code id}, if any,
+     * logging the change first if a log is attached. The version is read and the entity stored under the monitor
+     * of the identifier's stripe, so a concurrent update of the same entity cannot slip in between.
+     * @return the replaced entity, or null if there was none.
+     * */
+    private E putNextVersion(int id, E entity) {
+        ChangeLog<E> log = this.log;
+        Lock shared = log == null ? null : log.lock().readLock();
+        if (shared != null) {
+            shared.lock();
+        }
+        try {
+            synchronized (stripes[id & (LOG_STRIPES - 1)]) {
+                E current = entities.get(id);
+                if (current != null) {
+                    versionAssigner.accept(entity, versionOf.applyAsLong(current) + 1);
+                }
+                if (log != null) {
+                    log.put(id, entity);
+                }
+                return entities.put(id, entity);
+            }
+        } finally {
+            if (shared != null) {
+                shared.unlock();
+            }
+        }
+    }
+
+    /**
+     * Stores an entity in place of the one stored under {@code id} if that one has the expected version,
+     * logging the change first if a log is attached.
+     * @return the replaced entity, or null if nothing was stored.
+     * */
+    private E swap(int id, long expectedVersion, E entity) {
+        ChangeLog<E> log = this.log;
+        Lock shared = log == null ? null : log.lock().readLock();
+        if (shared != null) {
+            shared.lock();
+        }
+        try {
+            synchronized (stripes[id & (LOG_STRIPES - 1)]) {
+                E current = entities.get(id);
+                if (current == null || versionOf.applyAsLong(current) != expectedVersion) {
+                    return null;
+                }
+                versionAssigner.accept(entity, expectedVersion + 1);
+                if (log != null) {
+                    try {
+                        log.put(id, entity);
+                    } catch (RuntimeException e) {
+                        versionAssigner.accept(entity, expectedVersion);
+                        throw e;
+                    }
+                }
+                // a remove or a replace without versions does not take the stripe unless a log is attached
+                if (entities.replace(id, current, entity)) {
+                    return current;
+                }
+                versionAssigner.accept(entity, expectedVersion);
+                return null;
+            }
+        } finally {
+            if (shared != null) {
+                shared.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes an entity from the map, logging the change first if a log is attached and the entity exists.
+     * */
+    private E removeEntity(int id) {
+        ChangeLog<E> log = this.log;
+        if (log == null) {
+            return entities.remove(id);
+        }
+        Lock shared = log.lock().readLock();
+        shared.lock();
+        try {
+            synchronized (stripes[id & (LOG_STRIPES - 1)]) {
+                if (!entities.containsKey(id)) {
+                    return null;
+                }
+                log.remove(id);
+                return entities.remove(id);
+            }
+        } finally {
+            shared.unlock();
+        }
+    }
+
+    /**
+     * Brings the indexes of {@code id} up to date with the entity stored under it now, under the monitor of
+     * the identifier's stripe. Every write calls it after changing the map, so the indexes of an identifier
+     * are updated by one write at a time, and the last of concurrent writes leaves them describing the entity
+     * stored last, without stale keys of the others.
+     * */
+    private void reindex(int id) {
+        synchronized (stripes[id & (LOG_STRIPES - 1)]) {
+            E current = entities.get(id);
+            if (current != null) {
+                index(id, current);
+            } else {
+                unindex(id);
+            }
+        }
+    }
+
+    /**
+     * Indexes the entity stored under {@code id} in place of what was indexed under it before;
+     * the caller holds the monitor of the identifier's stripe.
+     * */
+    private void index(int id, E entity) {
+        for (SecondaryIndex<E, ?> index : indexes) {
+            index.add(id, entity);
+        }
+        for (UniqueIndex<E, ?> index : uniqueIndexes) {
+            index.bind(id, entity);
+        }
+        for (IntervalIndex<E> index : intervalIndexes) {
+            index.add(id, entity);
+        }
+    }
+
+    /**
+     * Removes what was indexed under an identifier no longer stored, releasing its unique keys;
+     * the caller holds the monitor of the identifier's stripe.
+     * */
+    private void unindex(int id) {
+        for (SecondaryIndex<E, ?> index : indexes) {
+            index.remove(id);
+        }
+        for (IntervalIndex<E> index : intervalIndexes) {
+            index.remove(id);
+        }
+        for (UniqueIndex<E, ?> index : uniqueIndexes) {
+            index.release(id);
+        }
+    }
+
+    /**
+     * Opens a view of the entities as they are now. Reads through the snapshot keep seeing those entities,
+     * at the cost of plain reads, while writes carry on and preserve for it the entities they replace or remove.
+     * Opening a snapshot holds up writers only for a moment. The snapshot covers the entities only:
+     * indexes always reflect the current state. Entities changed in place are seen changed by the snapshot too.
+     * The snapshot must be closed, as the entities preserved for it are kept until then.
+     * @return the open snapshot.
+     * */
+    public Snapshot<E> snapshot() {
+        ConcurrentIntMap.Snapshot<E> view = entities.snapshot();
+        // read after the map snapshot, so the range covers every entity it holds
+        int high = Math.max(idGenerator.current(), highestReplacedId.get());
+        return new Snapshot<>(view, lowestReplacedId.get(), high);
+    }
+
+    /**
+     * Streams the entities with identifiers from {@code fromId} on, in ID order.
+     * */
+    private Stream<E> streamFrom(long fromId) {
+        int high = Math.max(idGenerator.current(), highestReplacedId.get());
+        return scan(fromId, lowestReplacedId.get(), high, entities.size(), entities::orderedKeys, entities::get);
+    }
+
+    /**
+     * Streams the entities with identifiers from {@code fromId} on, in ID order, walking the range
+     * of identifiers if it is dense enough and the sorted identifiers otherwise.
+     * @param lowest | The lowest identifier an entity may have.
+     * @param highest | The highest identifier an entity may have.
+     * @param size | The number of entities.
+     * @param keys | Iterates over the identifiers from a given one on, in increasing order.
+     * @param lookup | Reads an entity, or null if there is none.
+     * */
+    private static <E> Stream<E> scan(long fromId, int lowest, int highest, int size,
+                                      LongFunction<PrimitiveIterator.OfInt> keys, IntFunction<E> lookup) {
+        if (fromId > highest) {
+            return Stream.empty();
+        }
+        int low = (int) Math.max(fromId, lowest);
+        IntStream ids;
+        if ((long) highest - low <= DENSE_SPAN_FACTOR * (size + 16L)) {
+            ids = IntStream.rangeClosed(low, highest);
+        } else {
+            ids = StreamSupport.intStream(Spliterators.spliteratorUnknownSize(keys.apply(low),
+                    Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL), false)
+                    .takeWhile(id -> id <= highest);
+        }
+        return ids.mapToObj(lookup).filter(Objects::nonNull);
+    }
+
+    private static void checkPage(int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative: " + offset);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+    }
+
+    /**
+     * Returns the identifier of an entity, as this store reads it.
+     * @param entity | The entity.
+     * @return the identifier of the entity.
+     * */
+    public int idOf(E entity) {
+        return idOf.applyAsInt(entity);
+    }
+
+    /**
+     * Returns the version of an entity, as this store reads it.
+     * @param entity | The entity.
+     * @return the version of the entity.
+     * @throws UnsupportedOperationException if the store was created without version accessors.
+     * */
+    public long versionOf(E entity) {
+        if (versionOf == null) {
+            throw new UnsupportedOperationException("Store does not keep entity versions");
+        }
+        return versionOf.applyAsLong(entity);
+    }
+
+    /**
+     * Returns the generator used to allocate identifiers in this store.
+     * @return the identifier generator.
+     * */
+    public IdGenerator idGenerator() {
+        return idGenerator;
+    }
+
+    /**
+     * Point-in-time view of an {@link EntityStore}, opened by {@link EntityStore#snapshot()}.
+     * Reads, pages and streams see the entities stored when the snapshot was opened, whatever is written since.
+     * A snapshot may be read by several threads; once closed it can no longer be read.
+     * @param <E> The type of entity.
+     * */
+    public static final class Snapshot<E> implements AutoCloseable {
+
+        private final ConcurrentIntMap.Snapshot<E> view;
+
+        /**
+         * Lowest and highest identifiers an entity of the snapshot may have.
+         * */
+        private final int lowestId;
+        private final int highestId;
+
+        private Snapshot(ConcurrentIntMap.Snapshot<E> view, int lowestId, int highestId) {
+            this.view = view;
+            this.lowestId = lowestId;
+            this.highestId = highestId;
+        }
+
+        /**
+         * Retrieves an entity by its identifier.
+         * @param id | The identifier of the entity.
+         * @return the entity, or null if there was none when the snapshot was opened.
+         * */
+        public E get(int id) {
+            return view.get(id);
+        }
+
+        /**
+         * Checks if an entity with the given identifier was stored when the snapshot was opened.
+         * @param id | The identifier to check.
+         * @return true if the entity exists in the snapshot, otherwise false.
+         * */
+        public boolean contains(int id) {
+            return view.get(id) != null;
+        }
+
+        /**
+         * Returns a list with all entities of the snapshot, ordered by ID.
+         * @return a list of all entities of the snapshot.
+         * */
+        public List<E> values() {
+            return stream().toList();
+        }
+
+        /**
+         * Returns a page of entities of the snapshot with identifiers greater than {@code afterId}, in ID order.
+         * @param afterId | The identifier of the last entity of the previous page, or 0 for the first page.
+         * @param limit | The maximum number of entities to return, positive.
+         * @return the entities of the page.
+         * */
+        public List<E> pageAfter(int afterId, int limit) {
+            checkPage(0, limit);
+            return streamFrom(afterId + 1L).limit(limit).toList();
+        }
+
+        /**
+         * Returns a lazy stream over the entities of the snapshot in ID order.
+         * The stream must be consumed before the snapshot is closed.
+         * @return a stream of all entities of the snapshot.
+         * */
+        public Stream<E> stream() {
+            return streamFrom(Integer.MIN_VALUE);
+        }
+
+        /**
+         * Returns the number of entities of the snapshot.
+         * @return the number of entities.
+         * */
+        public int size() {
+            return view.size();
+        }
+
+        /**
+         * Closes the snapshot and releases the entities preserved for it.
+         * */
+        @Override
+        public void close() {
+            view.close();
+        }
+
+        private Stream<E> streamFrom(long fromId) {
+            return scan(fromId, lowestId, highestId, view.size(), view::orderedKeys, view::get);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.study.repository.storage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe generator of unique entity identifiers.
+ * Identifiers start at 1 and are never reused, even after the owning store is cleared.
+ * */
+public class IdGenerator {
+
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    /**
+     * Allocates the next identifier.
+     * @return a new unique identifier.
+     * */
+    public int next() {
+        return lastId.incrementAndGet();
+    }
+
+    /**
+     * Allocates a contiguous block of identifiers with a single atomic operation.
+     * @param size | The number of identifiers to reserve.
+     * @return the first identifier of the reserved block.
+     * */
+    public int reserve(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + size);
+        }
+        return lastId.getAndAdd(size) + 1;
+    }
+
+    /**
+     * Makes sure identifiers handed out from now on are greater than {@code id},
+     * e.g. after entities with existing identifiers have been restored.
+     * @param id | An identifier already in use.
+     * */
+    public void advanceTo(int id) {
+        lastId.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Returns the last identifier handed out by this generator.
+     * @return the last allocated identifier, or 0 if none was allocated yet.
+     * */
+    public int current() {
+        return lastId.get();
+    }
+}
@@ -0,0 +1,232 @@
+package com.study.repository.storage;
+
+import java.util.Arrays;
+
+/**
+ * Map from primitive {@code int} keys to objects, with open addressing and linear probing.
+ * Keys are stored in an {@code int[]} next to an {@code Object[]} of values, so neither
+ * lookups nor insertions box the key or allocate an entry object, and an entry takes
+ * two array slots instead of a {@code HashMap.Node} and an {@code Integer}.
+ * Removed entries leave a marker that is dropped when the table is rebuilt.
+ * The map is not thread-safe; {@link ConcurrentIntMap} adds locking on top of it.
+ * {@link #get(int)} never fails or loops forever on a table modified concurrently,
+ * so it can be used for optimistic reads that are validated afterwards.
+ * @param <V> The type of values.
+ * */
+public class IntHashMap<V> {
+
+    /**
+     * Consumer of the entries of the map.
+     * */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+
+    private static final Object REMOVED = new Object();
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+
+    /**
+     * Values by slot: null for a free slot, {@link #REMOVED} for a slot of a removed entry.
+     * */
+    private Object[] values;
+
+    private int size;
+
+    /**
+     * Number of slots that are not free, i.e. entries and removal markers.
+     * */
+    private int used;
+
+    public IntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize | The number of entries the map should hold without growing.
+     * */
+    public IntHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Retrieves the value of a key.
+     * @param key | The key.
+     * @return the value, or null if the key is not in the map.
+     * */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int[] keys = this.keys;
+        Object[] values = this.values;
+        int mask = Math.min(keys.length, values.length) - 1;
+        int slot = hash(key) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            Object value = values[slot];
+            if (value == null) {
+                return null;
+            }
+            if (value != REMOVED && keys[slot] == key) {
+                return (V) value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a key is in the map.
+     * @param key | The key.
+     * @return true if the map has a value for the key.
+     * */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Associates a value with a key.
+     * @param key | The key.
+     * @param value | The value, must not be null.
+     * @return the previous value of the key, or null if there was none.
+     * */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        int firstRemoved = -1;
+        Object current;
+        while ((current = values[slot]) != null) {
+            if (current == REMOVED) {
+                if (firstRemoved < 0) {
+                    firstRemoved = slot;
+                }
+            } else if (keys[slot] == key) {
+                values[slot] = value;
+                return (V) current;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (firstRemoved >= 0) {
+            slot = firstRemoved;
+        } else {
+            used++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (used > keys.length * 3 / 4) {
+            rebuild(size * 2 > keys.length * 3 / 4 ? keys.length << 1 : keys.length);
+        }
+        return null;
+    }
+
+    /**
+     * Removes a key.
+     * @param key | The key.
+     * @return the removed value, or null if the key was not in the map.
+     * */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        Object current;
+        while ((current = values[slot]) != null) {
+            if (current != REMOVED && keys[slot] == key) {
+                values[slot] = REMOVED;
+                size--;
+                return (V) current;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the number of entries.
+     * */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all entries and shrinks the table to its minimum size.
+     * */
+    public void clear() {
+        keys = new int[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+        size = 0;
+        used = 0;
+    }
+
+    /**
+     * Returns the keys of the map, in no particular order.
+     * @return a new array with all keys.
+     * */
+    public int[] keys() {
+        int[] result = new int[size];
+        int count = 0;
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null && values[slot] != REMOVED) {
+                result[count++] = keys[slot];
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Passes every entry to a consumer, in no particular order.
+     * @param consumer | The consumer of the entries.
+     * */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (int slot = 0; slot < values.length; slot++) {
+            Object value = values[slot];
+            if (value != null && value != REMOVED) {
+                consumer.accept(keys[slot], (V) value);
+            }
+        }
+    }
+
+    /**
+     * Rehashes all entries into a new table, dropping removal markers.
+     * The new arrays are filled before they are published.
+     * */
+    private void rebuild(int capacity) {
+        int[] newKeys = new int[capacity];
+        Object[] newValues = new Object[capacity];
+        int mask = capacity - 1;
+        for (int slot = 0; slot < values.length; slot++) {
+            Object value = values[slot];
+            if (value != null && value != REMOVED) {
+                int target = hash(keys[slot]) & mask;
+                while (newValues[target] != null) {
+                    target = (target + 1) & mask;
+                }
+                newKeys[target] = keys[slot];
+                newValues[target] = value;
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+        used = size;
+    }
+
+    /**
+     * Spreads keys over the table; sequential IDs would otherwise fill long runs of adjacent slots.
+     * */
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
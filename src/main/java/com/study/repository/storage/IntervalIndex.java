@@ -0,0 +1,202 @@
+package com.study.repository.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Interval index of an {@link EntityStore}: finds the entities whose interval, e.g. the validity
+ * period of a discount, contains a point, in O(log n + k) for k matching entities.
+ * Intervals are closed, with {@code long} bounds such as epoch days; an open bound is
+ * {@link Long#MIN_VALUE} or {@link Long#MAX_VALUE}, and an entity whose interval ends before it starts
+ * is not indexed. The store keeps the intervals up to date on every insert, replace and remove;
+ * queries run on a centered interval tree built from them, rebuilt on the first query after a change,
+ * which suits data that is queried far more often than changed.
+ * Entities changed in place must be stored again for the index to follow; until then
+ * {@link #matches(Object, long)} filters them out of results.
+ * @param <E> The type of indexed entity.
+ * */
+public class IntervalIndex<E> {
+
+    private final ToLongFunction<E> startOf;
+
+    private final ToLongFunction<E> endOf;
+
+    /**
+     * Interval of each indexed entity as {start, end}, by ID; guarded by this index.
+     * */
+    private final IntHashMap<long[]> intervals = new IntHashMap<>();
+
+    /**
+     * Tree of the current intervals, or null if it must be rebuilt.
+     * */
+    private volatile Node tree;
+
+    /**
+     * @param startOf | Derives the first point of the interval of an entity.
+     * @param endOf | Derives the last point of the interval of an entity.
+     * */
+    public IntervalIndex(ToLongFunction<E> startOf, ToLongFunction<E> endOf) {
+        this.startOf = startOf;
+        this.endOf = endOf;
+    }
+
+    /**
+     * Returns the identifiers of the entities whose interval contains a point, in no particular order.
+     * @param point | The point, e.g. an epoch day.
+     * @return a new array with the identifiers.
+     * */
+    public int[] containing(long point) {
+        Node node = tree;
+        if (node == null) {
+            node = rebuild();
+        }
+        int[] found = new int[8];
+        int count = 0;
+        while (node != null) {
+            if (point < node.center) {
+                for (int i = 0; i < node.byStart.length && node.starts[i] <= point; i++) {
+                    found = append(found, count++, node.byStart[i]);
+                }
+                node = node.left;
+            } else if (point > node.center) {
+                for (int i = 0; i < node.byEnd.length && node.ends[i] >= point; i++) {
+                    found = append(found, count++, node.byEnd[i]);
+                }
+                node = node.right;
+            } else {
+                for (int id : node.byStart) {
+                    found = append(found, count++, id);
+                }
+                node = null;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Checks if the current interval of an entity contains a point.
+     * @param entity | The entity to check.
+     * @param point | The point.
+     * @return true if the interval of the entity contains {@code point}.
+     * */
+    public boolean matches(E entity, long point) {
+        return entity != null && startOf.applyAsLong(entity) <= point && point <= endOf.applyAsLong(entity);
+    }
+
+    synchronized void add(int id, E entity) {
+        long start = startOf.applyAsLong(entity);
+        long end = endOf.applyAsLong(entity);
+        if (start <= end) {
+            intervals.put(id, new long[]{start, end});
+            tree = null;
+        } else if (intervals.remove(id) != null) {
+            tree = null;
+        }
+    }
+
+    synchronized void remove(int id) {
+        if (intervals.remove(id) != null) {
+            tree = null;
+        }
+    }
+
+    synchronized void clear() {
+        intervals.clear();
+        tree = null;
+    }
+
+    private synchronized Node rebuild() {
+        if (tree == null) {
+            List<Interval> all = new ArrayList<>(intervals.size());
+            intervals.forEach((id, bounds) -> all.add(new Interval(id, bounds[0], bounds[1])));
+            tree = build(all);
+        }
+        return tree;
+    }
+
+    /**
+     * Builds a centered interval tree: the node keeps the intervals containing the median of all bounds,
+     * and the intervals entirely before or after it go to the left and right subtrees,
+     * so each subtree holds at most half of the intervals.
+     * */
+    private static Node build(List<Interval> intervals) {
+        if (intervals.isEmpty()) {
+            return null;
+        }
+        long[] bounds = new long[intervals.size() * 2];
+        for (int i = 0; i < intervals.size(); i++) {
+            bounds[2 * i] = intervals.get(i).start;
+            bounds[2 * i + 1] = intervals.get(i).end;
+        }
+        Arrays.sort(bounds);
+        long center = bounds[intervals.size()];
+        List<Interval> before = new ArrayList<>();
+        List<Interval> after = new ArrayList<>();
+        List<Interval> here = new ArrayList<>();
+        for (Interval interval : intervals) {
+            if (interval.end < center) {
+                before.add(interval);
+            } else if (interval.start > center) {
+                after.add(interval);
+            } else {
+                here.add(interval);
+            }
+        }
+        Node node = new Node(center, here);
+        node.left = build(before);
+        node.right = build(after);
+        return node;
+    }
+
+    private static int[] append(int[] array, int index, int value) {
+        int[] result = index < array.length ? array : Arrays.copyOf(array, array.length * 2);
+        result[index] = value;
+        return result;
+    }
+
+    private static final class Interval {
+        private final int id;
+        private final long start;
+        private final long end;
+
+        private Interval(int id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Node of the tree, with the intervals containing its center sorted by start and, separately, by end descending.
+     * */
+    private static final class Node {
+        private final long center;
+        private final int[] byStart;
+        private final long[] starts;
+        private final int[] byEnd;
+        private final long[] ends;
+        private Node left;
+        private Node right;
+
+        private Node(long center, List<Interval> intervals) {
+            this.center = center;
+            List<Interval> sorted = new ArrayList<>(intervals);
+            sorted.sort((a, b) -> Long.compare(a.start, b.start));
+            byStart = new int[sorted.size()];
+            starts = new long[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                byStart[i] = sorted.get(i).id;
+                starts[i] = sorted.get(i).start;
+            }
+            sorted.sort((a, b) -> Long.compare(b.end, a.end));
+            byEnd = new int[sorted.size()];
+            ends = new long[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                byEnd[i] = sorted.get(i).id;
+                ends[i] = sorted.get(i).end;
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.study.repository.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Concurrent secondary index of an {@link EntityStore}: maps a key derived from each entity
+ * (e.g. the train of a ticket) to the identifiers of the entities with that key.
+ * The index is maintained by the store on every insert, replace and remove, so lookups
+ * take time proportional to the number of matching entities instead of a full scan.
+ * Entities changed in place must be stored again (e.g. with {@link EntityStore#replace(int, Object)})
+ * for the index to follow; until then {@link #matches(Object, Object)} filters them out of results.
+ * The keys an entity was indexed under are recorded by identifier, so storing or removing an entity
+ * changed in place releases its old keys rather than those derived from its current state.
+ * An index created with {@link #multiValued(Function)} indexes an entity under several keys,
+ * e.g. a ticket under each of its discounts.
+ * @param <E> The type of indexed entity.
+ * @param <K> The type of key.
+ * */
+public class SecondaryIndex<E, K> {
+
+    private final ConcurrentHashMap<K, Set<Integer>> ids = new ConcurrentHashMap<>();
+
+    /**
+     * Keys each indexed entity was added under, by identifier.
+     * */
+    private final ConcurrentHashMap<Integer, List<K>> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Derives the key of an entity; null means the entity is not indexed.
+     * */
+    private final Function<E, K> keyOf;
+
+    /**
+     * Derives the keys of an entity, or null if the index has a single key per entity.
+     * */
+    private final Function<E, ? extends Collection<K>> keysOf;
+
+    public SecondaryIndex(Function<E, K> keyOf) {
+        this(keyOf, null);
+    }
+
+    private SecondaryIndex(Function<E, K> keyOf, Function<E, ? extends Collection<K>> keysOf) {
+        this.keyOf = keyOf;
+        this.keysOf = keysOf;
+    }
+
+    /**
+     * Creates an index of entities under several keys each.
+     * @param keysOf | Derives the keys of an entity; null or an empty collection means the entity is not indexed.
+     * @return the new index.
+     * */
+    public static <E, K> SecondaryIndex<E, K> multiValued(Function<E, ? extends Collection<K>> keysOf) {
+        return new SecondaryIndex<>(null, keysOf);
+    }
+
+    /**
+     * Returns the identifiers of the entities indexed under a key.
+     * The returned set is a live, weakly consistent view.
+     * @param key | The key to look up.
+     * @return the identifiers, or an empty set if there are none.
+     * */
+    public Set<Integer> get(K key) {
+        Set<Integer> found = key == null ? null : ids.get(key);
+        return found == null ? Set.of() : found;
+    }
+
+    /**
+     * Checks if an entity currently has the given key.
+     * @param entity | The entity to check.
+     * @param key | The key.
+     * @return true if the key of the entity equals {@code key}.
+     * */
+    public boolean matches(E entity, K key) {
+        if (entity == null) {
+            return false;
+        }
+        if (keysOf == null) {
+            return Objects.equals(keyOf.apply(entity), key);
+        }
+        Collection<K> keys = keysOf.apply(entity);
+        return keys != null && keys.contains(key);
+    }
+
+    /**
+     * Indexes an entity under its current keys, releasing the keys it was indexed under before.
+     * */
+    void add(int id, E entity) {
+        List<K> current = keysOf(entity);
+        List<K> previous = current.isEmpty() ? keys.remove(id) : keys.put(id, current);
+        if (previous != null) {
+            for (K key : previous) {
+                if (!current.contains(key)) {
+                    removeKey(id, key);
+                }
+            }
+        }
+        for (K key : current) {
+            addKey(id, key);
+        }
+    }
+
+    /**
+     * Releases the keys the entity stored under {@code id} was indexed under.
+     * */
+    void remove(int id) {
+        List<K> previous = keys.remove(id);
+        if (previous != null) {
+            for (K key : previous) {
+                removeKey(id, key);
+            }
+        }
+    }
+
+    private List<K> keysOf(E entity) {
+        if (keysOf == null) {
+            K key = keyOf.apply(entity);
+            return key == null ? List.of() : List.of(key);
+        }
+        Collection<K> derived = keysOf.apply(entity);
+        if (derived == null || derived.isEmpty()) {
+            return List.of();
+        }
+        List<K> result = new ArrayList<>(derived.size());
+        for (K key : derived) {
+            if (key != null && !result.contains(key)) {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+
+    private void addKey(int id, K key) {
+        if (key != null) {
+            ids.compute(key, (k, set) -> {
+                Set<Integer> result = set == null ? ConcurrentHashMap.newKeySet() : set;
+                result.add(id);
+                return result;
+            });
+        }
+    }
+
+    private void removeKey(int id, K key) {
+        if (key != null) {
+            ids.computeIfPresent(key, (k, set) -> {
+                set.remove(id);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    void clear() {
+        ids.clear();
+        keys.clear();
+    }
+}
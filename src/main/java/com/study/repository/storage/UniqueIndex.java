@@ -0,0 +1,123 @@
+package com.study.repository.storage;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Concurrent unique index of an {@link EntityStore}: maps a key derived from each entity
+ * (e.g. the email of a user) to the identifier of the one entity holding it.
+ * The store claims the key of an entity with an atomic {@code putIfAbsent} before publishing
+ * the entity, so two concurrent inserts of the same key never both succeed, without any lock
+ * shared by inserts of different keys. Lookups by key are O(1).
+ * Entities changed in place must be stored again (e.g. with {@link EntityStore#replace(int, Object)})
+ * for the index to follow; a key left behind by such a change is taken over by the next entity claiming it.
+ * @param <E> The type of indexed entity.
+ * @param <K> The type of key.
+ * */
+public class UniqueIndex<E, K> {
+
+    /**
+     * Identifier of the entity holding each key.
+     * */
+    private final ConcurrentHashMap<K, Integer> owners = new ConcurrentHashMap<>();
+
+    /**
+     * Key held by each indexed entity, so its claim is released even if the entity has changed in place.
+     * */
+    private final ConcurrentHashMap<Integer, K> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Derives the key of an entity; null means the entity is not indexed.
+     * */
+    private final Function<E, K> keyOf;
+
+    public UniqueIndex(Function<E, K> keyOf) {
+        this.keyOf = keyOf;
+    }
+
+    /**
+     * Returns the identifier of the entity holding a key.
+     * @param key | The key to look up.
+     * @return the identifier, or null if no entity holds the key.
+     * */
+    public Integer get(K key) {
+        return key == null ? null : owners.get(key);
+    }
+
+    /**
+     * Checks if an entity currently has the given key.
+     * @param entity | The entity to check.
+     * @param key | The key.
+     * @return true if the key of the entity equals {@code key}.
+     * */
+    public boolean matches(E entity, K key) {
+        return entity != null && Objects.equals(keyOf.apply(entity), key);
+    }
+
+    /**
+     * Claims the key of an entity for identifier {@code id}. The claim succeeds if the key is free,
+     * already held by {@code id} or {@code previousId}, or held by a stored entity whose key has since changed.
+     * A key held by an identifier that is not stored yet belongs to an insert in progress and is not taken over.
+     * @return false if the key is held by another entity.
+     * */
+    boolean claim(int id, int previousId, E entity, IntFunction<E> stored) {
+        K key = keyOf.apply(entity);
+        if (key == null) {
+            return true;
+        }
+        Integer owner;
+        while ((owner = owners.putIfAbsent(key, id)) != null) {
+            if (owner == id) {
+                return true;
+            }
+            E holder = stored.apply(owner);
+            boolean stale = owner == previousId || holder != null && !matches(holder, key);
+            if (!stale) {
+                return false;
+            }
+            if (owners.replace(key, owner, id)) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Undoes a successful {@link #claim} of an entity that is not going to be stored,
+     * handing the key back to {@code previousId} if that entity held it.
+     * */
+    void unclaim(int id, int previousId, E entity) {
+        K key = keyOf.apply(entity);
+        if (key != null && !key.equals(keys.get(id)) && owners.remove(key, id) && key.equals(keys.get(previousId))) {
+            owners.putIfAbsent(key, previousId);
+        }
+    }
+
+    /**
+     * Records the key of an entity just stored under {@code id}, releasing the key it held before, if different.
+     * */
+    void bind(int id, E entity) {
+        K key = keyOf.apply(entity);
+        K previous = key == null ? keys.remove(id) : keys.put(id, key);
+        if (previous != null && !previous.equals(key)) {
+            owners.remove(previous, id);
+        }
+    }
+
+    /**
+     * Releases the key held by an entity removed from the store.
+     * */
+    void release(int id) {
+        K key = keys.remove(id);
+        if (key != null) {
+            owners.remove(key, id);
+        }
+    }
+
+    void clear() {
+        owners.clear();
+        keys.clear();
+    }
+}
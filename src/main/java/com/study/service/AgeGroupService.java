@@ -1,18 +1,25 @@
 package com.study.service;
 
+import com.study.domain.AgeGroup;
 import com.study.repository.AgeGroupRepository;
+import com.study.repository.UpdateResult;
+import com.study.service.cache.ReferenceCache;
+import com.study.service.codec.AgeGroupCodec;
 import com.study.service.dto.AgeGroupDTO;
 import com.study.service.mapper.AgeGroupMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 /**
  * Service class responsible for managing {@link AgeGroupDTO} entities.
  * Implements {@link CrudService} to provide CRUD operations for AgeGroupDTO objects.
+ * Lookups by ID are read through a {@link ReferenceCache}, invalidated on update and delete.
  */
 public class AgeGroupService implements CrudService<AgeGroupDTO>{
 
@@ -26,6 +33,16 @@ public class AgeGroupService implements CrudService<AgeGroupDTO>{
      */
     private final AgeGroupMapper ageGroupMapper;
 
+    /**
+     * Read-through cache of AgeGroupDTOs by ID, serving the lookups of {@link #findById(int)}.
+     */
+    private final ReferenceCache<AgeGroupDTO> cache;
+
+    /**
+     * Cache of the services over the shared AgeGroup repository, shared by them so they invalidate each other's entries.
+     */
+    private static final ReferenceCache<AgeGroupDTO> SHARED_CACHE = new ReferenceCache<>(new AgeGroupCodec());
+
     private final static Logger LOGGER = LogManager.getLogger();
 
     public AgeGroupService(){
@@ -33,8 +50,14 @@ public class AgeGroupService implements CrudService<AgeGroupDTO>{
     }
 
     public AgeGroupService(AgeGroupRepository ageGroupRepository, AgeGroupMapper ageGroupMapper) {
+        this(ageGroupRepository, ageGroupMapper, SHARED_CACHE);
+    }
+
+    public AgeGroupService(AgeGroupRepository ageGroupRepository, AgeGroupMapper ageGroupMapper,
+                           ReferenceCache<AgeGroupDTO> cache) {
         this.ageGroupRepository = ageGroupRepository;
         this.ageGroupMapper = ageGroupMapper;
+        this.cache = cache;
     }
 
     /**
@@ -69,8 +92,21 @@ public class AgeGroupService implements CrudService<AgeGroupDTO>{
      */
     @Override
     public Optional<AgeGroupDTO> findById(Integer id){
-        LOGGER.debug("Find AgeGroupDTO by id {}", id);
-        return ageGroupMapper.toDTO(ageGroupRepository.findById(id));
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Finds a AgeGroupDTO entity by its ID, without boxing it.
+     *
+     * @param id The ID of the AgeGroupDTO entity to find.
+     * @return An Optional containing the found AgeGroupDTO object, or empty if not found.
+     */
+    @Override
+    public Optional<AgeGroupDTO> findById(int id){
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Find AgeGroupDTO by id {}", id);
+        }
+        return cache.get(id, key -> ageGroupMapper.toDTO(ageGroupRepository.findById(key)));
     }
 
     /**
@@ -84,6 +120,43 @@ public class AgeGroupService implements CrudService<AgeGroupDTO>{
         return ageGroupMapper.toDTO(ageGroupRepository.findAll());
     }
 
+    /**
+     * Finds one page of AgeGroupDTO entities, ordered by ID.
+     *
+     * @param offset the number of AgeGroupDTOs to skip
+     * @param limit the maximum number of AgeGroupDTOs in the page
+     * @return the list of AgeGroupDTOs in the page
+     */
+    @Override
+    public List<AgeGroupDTO> findPage(int offset, int limit) {
+        LOGGER.debug("Find page of AgeGroupsDTO at offset {}", offset);
+        return ageGroupMapper.toDTO(ageGroupRepository.findPage(offset, limit));
+    }
+
+    /**
+     * Finds the page of AgeGroupDTO entities following the one with ID {@code afterId}, ordered by ID.
+     *
+     * @param afterId the ID of the last AgeGroupDTO of the previous page, or 0 for the first page
+     * @param limit the maximum number of AgeGroupDTOs in the page
+     * @return the list of AgeGroupDTOs in the page
+     */
+    @Override
+    public List<AgeGroupDTO> findPageAfter(int afterId, int limit) {
+        LOGGER.debug("Find page of AgeGroupsDTO after id {}", afterId);
+        return ageGroupMapper.toDTO(ageGroupRepository.findPageAfter(afterId, limit));
+    }
+
+    /**
+     * Streams all AgeGroupDTO entities lazily, ordered by ID.
+     *
+     * @return a stream of all AgeGroupDTOs
+     */
+    @Override
+    public Stream<AgeGroupDTO> streamAll() {
+        LOGGER.debug("Stream All AgeGroupsDTO elements");
+        return ageGroupRepository.streamAll().map(ageGroupMapper::toDTO);
+    }
+
     /**
      * Checks if an AgeGroup exists by its ID.
      *
@@ -92,7 +165,20 @@ public class AgeGroupService implements CrudService<AgeGroupDTO>{
      */
     @Override
     public boolean existById(Integer id){
-        LOGGER.debug("Checking existence of AgeGroup by ID: {}", id);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a AgeGroupDTO entity exists by its ID, without boxing it.
+     *
+     * @param id The ID of the AgeGroupDTO entity to check.
+     * @return true if the AgeGroupDTO exists, false otherwise.
+     */
+    @Override
+    public boolean existById(int id){
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Checking existence of AgeGroup by ID: {}", id);
+        }
         return ageGroupRepository.existById(id);
     }
 
@@ -107,11 +193,35 @@ public class AgeGroupService implements CrudService<AgeGroupDTO>{
     public boolean updateId(Integer id, AgeGroupDTO nwAgeGroupDTO){
         LOGGER.debug("Updating AgeGroup with ID: {}", id);
         if (id != null && nwAgeGroupDTO != null){
-           return ageGroupRepository.updateId(id, ageGroupMapper.toEntity(nwAgeGroupDTO));
+            boolean updated = ageGroupRepository.updateId(id, ageGroupMapper.toEntity(nwAgeGroupDTO));
+            cache.invalidate(id);
+            cache.invalidate(nwAgeGroupDTO.getId());
+            return updated;
         }
         return false;
     }
 
+    /**
+     * Updates a AgeGroupDTO entity if it has not been changed since it was read.
+     *
+     * @param ageGroupDTO The AgeGroupDTO object with the new values and the version it was read with.
+     * @return the outcome of the update; on success the version of ageGroupDTO is incremented.
+     */
+    @Override
+    public UpdateResult update(AgeGroupDTO ageGroupDTO) {
+        LOGGER.debug("Updating AgeGroup: {}", ageGroupDTO);
+        if (ageGroupDTO == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        AgeGroup ageGroup = ageGroupMapper.toEntity(ageGroupDTO);
+        UpdateResult result = ageGroupRepository.update(ageGroup, ageGroupDTO.getVersion());
+        if (result == UpdateResult.UPDATED) {
+            ageGroupDTO.setVersion(ageGroup.getVersion());
+        }
+        cache.invalidate(ageGroupDTO.getId());
+        return result;
+    }
+
     /**
      * Deletes an AgeGroup by its ID.
      *
@@ -121,6 +231,9 @@ public class AgeGroupService implements CrudService<AgeGroupDTO>{
     public void deleteById(Integer id){
         LOGGER.debug("Deleting AgeGroup by ID: {}", id);
         ageGroupRepository.deleteById(id);
+        if (id != null) {
+            cache.invalidate(id);
+        }
     }
 
     /**
@@ -132,6 +245,9 @@ public class AgeGroupService implements CrudService<AgeGroupDTO>{
     public void delete(AgeGroupDTO ageGroupDTO){
         LOGGER.debug("Deleting AgeGroup: {}", ageGroupDTO);
         ageGroupRepository.delete(ageGroupMapper.toEntity(ageGroupDTO));
+        if (ageGroupDTO != null) {
+            cache.invalidate(ageGroupDTO.getId());
+        }
     }
 
     /**
@@ -141,6 +257,7 @@ public class AgeGroupService implements CrudService<AgeGroupDTO>{
     public void deleteAll(){
         LOGGER.debug("Deleting all AgeGroups");
         ageGroupRepository.deleteAll();
+        cache.invalidateAll();
     }
 
     /**
@@ -152,5 +269,19 @@ public class AgeGroupService implements CrudService<AgeGroupDTO>{
     public void deleteAll(List<AgeGroupDTO> ageGroupsDTO){
         LOGGER.debug("Deleting all AgeGroups list");
         ageGroupRepository.deleteAll(ageGroupMapper.toEntity(ageGroupsDTO));
+        if (ageGroupsDTO != null) {
+            ageGroupsDTO.stream()
+                    .filter(Objects::nonNull)
+                    .forEach(dto -> cache.invalidate(dto.getId()));
+        }
+    }
+
+    /**
+     * Returns the cache of AgeGroupDTOs by ID, e.g. to read its hit and miss counts.
+     *
+     * @return the cache of this service
+     */
+    public ReferenceCache<AgeGroupDTO> cache() {
+        return cache;
     }
-}
\ No newline at end of file
+}
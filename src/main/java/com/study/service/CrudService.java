@@ -1,9 +1,11 @@
 package com.study.service;
 
+import com.study.repository.UpdateResult;
 import com.study.service.dto.AgeGroupDTO;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * A generic interface for CRUD operations on entities of type {@link DTO}.
@@ -37,6 +39,17 @@ public interface CrudService<DTO> {
      */
     Optional<DTO> findById(Integer id);
 
+    /**
+     * Finds a DTO entity by its primitive ID, without boxing it.
+     * By default the ID is boxed; services over {@code int}-keyed repositories override this.
+     *
+     * @param id the ID of the DTO entity to find
+     * @return an {@link Optional} containing the found DTO entity, or empty if not found
+     */
+    default Optional<DTO> findById(int id) {
+        return findById(Integer.valueOf(id));
+    }
+
     /**
      * Finds all DTO entities.
      *
@@ -44,6 +57,33 @@ public interface CrudService<DTO> {
      */
     List<DTO> findAll();
 
+    /**
+     * Finds one page of DTO entities, ordered by ID.
+     *
+     * @param offset the number of DTO entities to skip
+     * @param limit the maximum number of DTO entities in the page
+     * @return the list of DTO entities in the page
+     */
+    List<DTO> findPage(int offset, int limit);
+
+    /**
+     * Finds the page of DTO entities following the one with ID {@code afterId}, ordered by ID.
+     * Pass the ID of the last DTO of a page to get the next one; the cost does not depend on the page position.
+     *
+     * @param afterId the ID of the last DTO entity of the previous page, or 0 for the first page
+     * @param limit the maximum number of DTO entities in the page
+     * @return the list of DTO entities in the page
+     */
+    List<DTO> findPageAfter(int afterId, int limit);
+
+    /**
+     * Streams all DTO entities, ordered by ID. Entities are read and converted lazily,
+     * so all DTO entities are never held in memory at once.
+     *
+     * @return a stream of all DTO entities
+     */
+    Stream<DTO> streamAll();
+
     /**
      * Checks if a DTO entity exists by its ID.
      *
@@ -52,6 +92,17 @@ public interface CrudService<DTO> {
      */
     boolean existById(Integer id);
 
+    /**
+     * Checks if a DTO entity exists by its primitive ID, without boxing it.
+     * By default the ID is boxed; services over {@code int}-keyed repositories override this.
+     *
+     * @param id the ID to check for existence
+     * @return true if the DTO entity exists, false otherwise
+     */
+    default boolean existById(int id) {
+        return existById(Integer.valueOf(id));
+    }
+
     /**
      * Updates the ID of a given DTO entity.
      *
@@ -61,6 +112,16 @@ public interface CrudService<DTO> {
      */
     boolean updateId(Integer id, DTO newDTO);
 
+    /**
+     * Updates a DTO entity if it has not been changed since the DTO was read, as told by its version.
+     * Of two concurrent edits made from the same version only one is stored; the other gets
+     * {@link UpdateResult#CONFLICT} at once and should be redone on a freshly read DTO.
+     *
+     * @param dto the DTO entity with the new values and the version it was read with
+     * @return the outcome of the update; on success the version of the DTO is incremented
+     */
+    UpdateResult update(DTO dto);
+
     /**
      * Deletes a DTO entity by its ID.
      *
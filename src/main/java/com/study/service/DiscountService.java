@@ -1,18 +1,25 @@
 package com.study.service;
 
+import com.study.domain.Discount;
 import com.study.repository.DiscountRepository;
+import com.study.repository.UpdateResult;
+import com.study.service.cache.ReferenceCache;
+import com.study.service.codec.DiscountCodec;
 import com.study.service.dto.DiscountDTO;
 import com.study.service.mapper.DiscountMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing {@link DiscountDTO} entities.
  * This class implements the {@link CrudService} interface to provide
  * CRUD operations for Discount entities.
+ * Lookups by ID are read through a {@link ReferenceCache}, invalidated on update and delete.
  */
 public class DiscountService implements CrudService<DiscountDTO>{
 
@@ -26,6 +33,16 @@ public class DiscountService implements CrudService<DiscountDTO>{
      */
     private final DiscountMapper discountMapper;
 
+    /**
+     * Read-through cache of DiscountDTOs by ID, serving the lookups of {@link #findById(int)}.
+     */
+    private final ReferenceCache<DiscountDTO> cache;
+
+    /**
+     * Cache of the services over the shared Discount repository, shared by them so they invalidate each other's entries.
+     */
+    private static final ReferenceCache<DiscountDTO> SHARED_CACHE = new ReferenceCache<>(new DiscountCodec());
+
     private final static Logger LOGGER = LogManager.getLogger();
 
     public DiscountService(){
@@ -33,8 +50,14 @@ public class DiscountService implements CrudService<DiscountDTO>{
     }
 
     public DiscountService(DiscountRepository discountRepository, DiscountMapper discountMapper) {
+        this(discountRepository, discountMapper, SHARED_CACHE);
+    }
+
+    public DiscountService(DiscountRepository discountRepository, DiscountMapper discountMapper,
+                           ReferenceCache<DiscountDTO> cache) {
         this.discountRepository = discountRepository;
         this.discountMapper = discountMapper;
+        this.cache = cache;
     }
 
     /**
@@ -69,8 +92,21 @@ public class DiscountService implements CrudService<DiscountDTO>{
      */
     @Override
     public Optional<DiscountDTO> findById(Integer id) {
-        LOGGER.debug("Find DiscountDTO by id {}", id);
-        return discountMapper.toDTO(discountRepository.findById(id));
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Finds a DiscountDTO entity by its ID, without boxing it.
+     *
+     * @param id The ID of the DiscountDTO entity to find.
+     * @return An Optional containing the found DiscountDTO object, or empty if not found.
+     */
+    @Override
+    public Optional<DiscountDTO> findById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Find DiscountDTO by id {}", id);
+        }
+        return cache.get(id, key -> discountMapper.toDTO(discountRepository.findById(key)));
     }
 
     /**
@@ -84,6 +120,43 @@ public class DiscountService implements CrudService<DiscountDTO>{
         return discountMapper.toDTO(discountRepository.findAll());
     }
 
+    /**
+     * Finds one page of DiscountDTO entities, ordered by ID.
+     *
+     * @param offset the number of DiscountDTOs to skip
+     * @param limit the maximum number of DiscountDTOs in the page
+     * @return the list of DiscountDTOs in the page
+     */
+    @Override
+    public List<DiscountDTO> findPage(int offset, int limit) {
+        LOGGER.debug("Find page of DiscountsDTO at offset {}", offset);
+        return discountMapper.toDTO(discountRepository.findPage(offset, limit));
+    }
+
+    /**
+     * Finds the page of DiscountDTO entities following the one with ID {@code afterId}, ordered by ID.
+     *
+     * @param afterId the ID of the last DiscountDTO of the previous page, or 0 for the first page
+     * @param limit the maximum number of DiscountDTOs in the page
+     * @return the list of DiscountDTOs in the page
+     */
+    @Override
+    public List<DiscountDTO> findPageAfter(int afterId, int limit) {
+        LOGGER.debug("Find page of DiscountsDTO after id {}", afterId);
+        return discountMapper.toDTO(discountRepository.findPageAfter(afterId, limit));
+    }
+
+    /**
+     * Streams all DiscountDTO entities lazily, ordered by ID.
+     *
+     * @return a stream of all DiscountDTOs
+     */
+    @Override
+    public Stream<DiscountDTO> streamAll() {
+        LOGGER.debug("Stream All DiscountsDTO elements");
+        return discountRepository.streamAll().map(discountMapper::toDTO);
+    }
+
     /**
      * Checks if a {@link DiscountDTO} exists by its ID.
      *
@@ -92,7 +165,20 @@ public class DiscountService implements CrudService<DiscountDTO>{
      */
     @Override
     public boolean existById(Integer id) {
-        LOGGER.debug("Checking existence of Discount by ID: {}", id);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a DiscountDTO entity exists by its ID, without boxing it.
+     *
+     * @param id The ID of the DiscountDTO entity to check.
+     * @return true if the DiscountDTO exists, false otherwise.
+     */
+    @Override
+    public boolean existById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Checking existence of Discount by ID: {}", id);
+        }
         return discountRepository.existById(id);
     }
 
@@ -107,11 +193,35 @@ public class DiscountService implements CrudService<DiscountDTO>{
     public boolean updateId(Integer id, DiscountDTO nwDiscountDTO) {
         LOGGER.debug("Updating Discount with ID: {}", id);
         if (id != null && nwDiscountDTO != null){
-            return discountRepository.updateId(id, discountMapper.toEntity(nwDiscountDTO));
+            boolean updated = discountRepository.updateId(id, discountMapper.toEntity(nwDiscountDTO));
+            cache.invalidate(id);
+            cache.invalidate(nwDiscountDTO.getId());
+            return updated;
         }
         return false;
     }
 
+    /**
+     * Updates a DiscountDTO entity if it has not been changed since it was read.
+     *
+     * @param discountDTO The DiscountDTO object with the new values and the version it was read with.
+     * @return the outcome of the update; on success the version of discountDTO is incremented.
+     */
+    @Override
+    public UpdateResult update(DiscountDTO discountDTO) {
+        LOGGER.debug("Updating Discount: {}", discountDTO);
+        if (discountDTO == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        Discount discount = discountMapper.toEntity(discountDTO);
+        UpdateResult result = discountRepository.update(discount, discountDTO.getVersion());
+        if (result == UpdateResult.UPDATED) {
+            discountDTO.setVersion(discount.getVersion());
+        }
+        cache.invalidate(discountDTO.getId());
+        return result;
+    }
+
     /**
      * Deletes a {@link DiscountDTO} by its ID.
      *
@@ -121,6 +231,9 @@ public class DiscountService implements CrudService<DiscountDTO>{
     public void deleteById(Integer id) {
         LOGGER.debug("Deleting Discount by ID: {}", id);
         discountRepository.deleteById(id);
+        if (id != null) {
+            cache.invalidate(id);
+        }
     }
 
     /**
@@ -132,6 +245,9 @@ public class DiscountService implements CrudService<DiscountDTO>{
     public void delete(DiscountDTO discountDTO) {
         LOGGER.debug("Deleting Discount: {}", discountDTO);
         discountRepository.delete(discountMapper.toEntity(discountDTO));
+        if (discountDTO != null) {
+            cache.invalidate(discountDTO.getId());
+        }
     }
 
     /**
@@ -141,6 +257,7 @@ public class DiscountService implements CrudService<DiscountDTO>{
     public void deleteAll() {
         LOGGER.debug("Deleting all Discounts");
         discountRepository.deleteAll();
+        cache.invalidateAll();
     }
 
     /**
@@ -152,5 +269,19 @@ public class DiscountService implements CrudService<DiscountDTO>{
     public void deleteAll(List<DiscountDTO> discountsDTO) {
         LOGGER.debug("Deleting all Discounts list");
         discountRepository.deleteAll(discountMapper.toEntity(discountsDTO));
+        if (discountsDTO != null) {
+            discountsDTO.stream()
+                    .filter(Objects::nonNull)
+                    .forEach(dto -> cache.invalidate(dto.getId()));
+        }
+    }
+
+    /**
+     * Returns the cache of DiscountDTOs by ID, e.g. to read its hit and miss counts.
+     *
+     * @return the cache of this service
+     */
+    public ReferenceCache<DiscountDTO> cache() {
+        return cache;
     }
 }
@@ -1,17 +1,24 @@
 package com.study.service;
 
+import com.study.domain.Economy;
 import com.study.repository.EconomyRepository;
+import com.study.repository.UpdateResult;
+import com.study.service.cache.ReferenceCache;
+import com.study.service.codec.EconomyCodec;
 import com.study.service.dto.EconomyDTO;
 import com.study.service.mapper.EconomyMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Service class responsible for managing {@link EconomyDTO} entities.
  * Implements {@link CrudService} to provide CRUD operations for EconomyDTO objects.
+ * Lookups by ID are read through a {@link ReferenceCache}, invalidated on update and delete.
  */
 public class EconomyService implements CrudService<EconomyDTO>{
 
@@ -25,6 +32,16 @@ public class EconomyService implements CrudService<EconomyDTO>{
      */
     private final EconomyMapper economyMapper;
 
+    /**
+     * Read-through cache of EconomyDTOs by ID, serving the lookups of {@link #findById(int)}.
+     */
+    private final ReferenceCache<EconomyDTO> cache;
+
+    /**
+     * Cache of the services over the shared Economy repository, shared by them so they invalidate each other's entries.
+     */
+    private static final ReferenceCache<EconomyDTO> SHARED_CACHE = new ReferenceCache<>(new EconomyCodec());
+
     private final static Logger LOGGER = LogManager.getLogger();
 
     public EconomyService(){
@@ -32,8 +49,14 @@ public class EconomyService implements CrudService<EconomyDTO>{
     }
 
     public EconomyService(EconomyRepository economyRepository, EconomyMapper economyMapper) {
+        this(economyRepository, economyMapper, SHARED_CACHE);
+    }
+
+    public EconomyService(EconomyRepository economyRepository, EconomyMapper economyMapper,
+                          ReferenceCache<EconomyDTO> cache) {
         this.economyRepository = economyRepository;
         this.economyMapper = economyMapper;
+        this.cache = cache;
     }
 
     /**
@@ -68,8 +91,21 @@ public class EconomyService implements CrudService<EconomyDTO>{
      */
     @Override
     public Optional<EconomyDTO> findById(Integer id) {
-        LOGGER.debug("Find EconomyDTO by id {}", id);
-        return economyMapper.toDTO(economyRepository.findById(id));
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Finds a EconomyDTO entity by its ID, without boxing it.
+     *
+     * @param id The ID of the EconomyDTO entity to find.
+     * @return An Optional containing the found EconomyDTO object, or empty if not found.
+     */
+    @Override
+    public Optional<EconomyDTO> findById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Find EconomyDTO by id {}", id);
+        }
+        return cache.get(id, key -> economyMapper.toDTO(economyRepository.findById(key)));
     }
 
     /**
@@ -83,6 +119,43 @@ public class EconomyService implements CrudService<EconomyDTO>{
         return economyMapper.toDTO(economyRepository.findAll());
     }
 
+    /**
+     * Finds one page of EconomyDTO entities, ordered by ID.
+     *
+     * @param offset the number of EconomyDTOs to skip
+     * @param limit the maximum number of EconomyDTOs in the page
+     * @return the list of EconomyDTOs in the page
+     */
+    @Override
+    public List<EconomyDTO> findPage(int offset, int limit) {
+        LOGGER.debug("Find page of EconomiesDTO at offset {}", offset);
+        return economyMapper.toDTO(economyRepository.findPage(offset, limit));
+    }
+
+    /**
+     * Finds the page of EconomyDTO entities following the one with ID {@code afterId}, ordered by ID.
+     *
+     * @param afterId the ID of the last EconomyDTO of the previous page, or 0 for the first page
+     * @param limit the maximum number of EconomyDTOs in the page
+     * @return the list of EconomyDTOs in the page
+     */
+    @Override
+    public List<EconomyDTO> findPageAfter(int afterId, int limit) {
+        LOGGER.debug("Find page of EconomiesDTO after id {}", afterId);
+        return economyMapper.toDTO(economyRepository.findPageAfter(afterId, limit));
+    }
+
+    /**
+     * Streams all EconomyDTO entities lazily, ordered by ID.
+     *
+     * @return a stream of all EconomyDTOs
+     */
+    @Override
+    public Stream<EconomyDTO> streamAll() {
+        LOGGER.debug("Stream All EconomiesDTO elements");
+        return economyRepository.streamAll().map(economyMapper::toDTO);
+    }
+
     /**
      * Checks if an EconomyDTO entity exists by its ID.
      *
@@ -91,7 +164,20 @@ public class EconomyService implements CrudService<EconomyDTO>{
      */
     @Override
     public boolean existById(Integer id) {
-        LOGGER.debug("Checking existence of Economy by ID: {}", id);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a EconomyDTO entity exists by its ID, without boxing it.
+     *
+     * @param id The ID of the EconomyDTO entity to check.
+     * @return true if the EconomyDTO exists, false otherwise.
+     */
+    @Override
+    public boolean existById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Checking existence of Economy by ID: {}", id);
+        }
         return economyRepository.existById(id);
     }
 
@@ -106,11 +192,35 @@ public class EconomyService implements CrudService<EconomyDTO>{
     public boolean updateId(Integer id, EconomyDTO nwEconomyDTO) {
         LOGGER.debug("Updating Economy with ID: {}", id);
         if (id != null && nwEconomyDTO != null){
-            return economyRepository.updateId(id, economyMapper.toEntity(nwEconomyDTO));
+            boolean updated = economyRepository.updateId(id, economyMapper.toEntity(nwEconomyDTO));
+            cache.invalidate(id);
+            cache.invalidate(nwEconomyDTO.getId());
+            return updated;
         }
         return false;
     }
 
+    /**
+     * Updates a EconomyDTO entity if it has not been changed since it was read.
+     *
+     * @param economyDTO The EconomyDTO object with the new values and the version it was read with.
+     * @return the outcome of the update; on success the version of economyDTO is incremented.
+     */
+    @Override
+    public UpdateResult update(EconomyDTO economyDTO) {
+        LOGGER.debug("Updating Economy: {}", economyDTO);
+        if (economyDTO == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        Economy economy = economyMapper.toEntity(economyDTO);
+        UpdateResult result = economyRepository.update(economy, economyDTO.getVersion());
+        if (result == UpdateResult.UPDATED) {
+            economyDTO.setVersion(economy.getVersion());
+        }
+        cache.invalidate(economyDTO.getId());
+        return result;
+    }
+
     /**
      * Deletes an EconomyDTO entity by its ID.
      *
@@ -120,6 +230,9 @@ public class EconomyService implements CrudService<EconomyDTO>{
     public void deleteById(Integer id) {
         LOGGER.debug("Deleting Economy by ID: {}", id);
         economyRepository.deleteById(id);
+        if (id != null) {
+            cache.invalidate(id);
+        }
     }
 
     /**
@@ -131,6 +244,9 @@ public class EconomyService implements CrudService<EconomyDTO>{
     public void delete(EconomyDTO economyDTO) {
         LOGGER.debug("Deleting Economy: {}", economyDTO);
         economyRepository.delete(economyMapper.toEntity(economyDTO));
+        if (economyDTO != null) {
+            cache.invalidate(economyDTO.getId());
+        }
     }
 
     /**
@@ -140,6 +256,7 @@ public class EconomyService implements CrudService<EconomyDTO>{
     public void deleteAll() {
         LOGGER.debug("Deleting all Economies");
         economyRepository.deleteAll();
+        cache.invalidateAll();
     }
 
     /**
@@ -151,5 +268,19 @@ public class EconomyService implements CrudService<EconomyDTO>{
     public void deleteAll(List<EconomyDTO> economiesDTO) {
         LOGGER.debug("Deleting all Economies list");
         economyRepository.deleteAll(economyMapper.toEntity(economiesDTO));
+        if (economiesDTO != null) {
+            economiesDTO.stream()
+                    .filter(Objects::nonNull)
+                    .forEach(dto -> cache.invalidate(dto.getId()));
+        }
+    }
+
+    /**
+     * Returns the cache of EconomyDTOs by ID, e.g. to read its hit and miss counts.
+     *
+     * @return the cache of this service
+     */
+    public ReferenceCache<EconomyDTO> cache() {
+        return cache;
     }
 }
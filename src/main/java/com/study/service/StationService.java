@@ -1,17 +1,24 @@
 package com.study.service;
 
+import com.study.domain.Station;
 import com.study.repository.StationRepository;
+import com.study.repository.UpdateResult;
+import com.study.service.cache.ReferenceCache;
+import com.study.service.codec.StationCodec;
 import com.study.service.dto.StationDTO;
 import com.study.service.mapper.StationMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Service class responsible for managing {@link StationDTO} entities.
  * Implements {@link CrudService} to provide CRUD operations for StationDTO objects.
+ * Lookups by ID are read through a {@link ReferenceCache}, invalidated on update and delete.
  */
 public class StationService implements CrudService<StationDTO>{
 
@@ -25,6 +32,16 @@ public class StationService implements CrudService<StationDTO>{
      */
     private final StationMapper stationMapper;
 
+    /**
+     * Read-through cache of StationDTOs by ID, serving the lookups of {@link #findById(int)}.
+     */
+    private final ReferenceCache<StationDTO> cache;
+
+    /**
+     * Cache of the services over the shared Station repository, shared by them so they invalidate each other's entries.
+     */
+    private static final ReferenceCache<StationDTO> SHARED_CACHE = new ReferenceCache<>(new StationCodec());
+
     private final static Logger LOGGER = LogManager.getLogger();
 
     public StationService(){
@@ -32,8 +49,14 @@ public class StationService implements CrudService<StationDTO>{
     }
 
     public StationService(StationRepository stationRepository, StationMapper stationMapper) {
+        this(stationRepository, stationMapper, SHARED_CACHE);
+    }
+
+    public StationService(StationRepository stationRepository, StationMapper stationMapper,
+                          ReferenceCache<StationDTO> cache) {
         this.stationRepository = stationRepository;
         this.stationMapper = stationMapper;
+        this.cache = cache;
     }
 
     /**
@@ -68,8 +91,21 @@ public class StationService implements CrudService<StationDTO>{
      */
     @Override
     public Optional<StationDTO> findById(Integer id) {
-        LOGGER.debug("Find StationDTO by id {}", id);
-        return stationMapper.toDTO(stationRepository.findById(id));
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Finds a StationDTO entity by its ID, without boxing it.
+     *
+     * @param id The ID of the StationDTO entity to find.
+     * @return An Optional containing the found StationDTO object, or empty if not found.
+     */
+    @Override
+    public Optional<StationDTO> findById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Find StationDTO by id {}", id);
+        }
+        return cache.get(id, key -> stationMapper.toDTO(stationRepository.findById(key)));
     }
 
     /**
@@ -83,6 +119,43 @@ public class StationService implements CrudService<StationDTO>{
         return stationMapper.toDTO(stationRepository.findAll());
     }
 
+    /**
+     * Finds one page of StationDTO entities, ordered by ID.
+     *
+     * @param offset the number of StationDTOs to skip
+     * @param limit the maximum number of StationDTOs in the page
+     * @return the list of StationDTOs in the page
+     */
+    @Override
+    public List<StationDTO> findPage(int offset, int limit) {
+        LOGGER.debug("Find page of StationsDTO at offset {}", offset);
+        return stationMapper.toDTO(stationRepository.findPage(offset, limit));
+    }
+
+    /**
+     * Finds the page of StationDTO entities following the one with ID {@code afterId}, ordered by ID.
+     *
+     * @param afterId the ID of the last StationDTO of the previous page, or 0 for the first page
+     * @param limit the maximum number of StationDTOs in the page
+     * @return the list of StationDTOs in the page
+     */
+    @Override
+    public List<StationDTO> findPageAfter(int afterId, int limit) {
+        LOGGER.debug("Find page of StationsDTO after id {}", afterId);
+        return stationMapper.toDTO(stationRepository.findPageAfter(afterId, limit));
+    }
+
+    /**
+     * Streams all StationDTO entities lazily, ordered by ID.
+     *
+     * @return a stream of all StationDTOs
+     */
+    @Override
+    public Stream<StationDTO> streamAll() {
+        LOGGER.debug("Stream All StationsDTO elements");
+        return stationRepository.streamAll().map(stationMapper::toDTO);
+    }
+
     /**
      * Checks if a StationDTO entity exists by its ID.
      *
@@ -91,7 +164,20 @@ public class StationService implements CrudService<StationDTO>{
      */
     @Override
     public boolean existById(Integer id) {
-        LOGGER.debug("Checking existence of Station by ID: {}", id);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a StationDTO entity exists by its ID, without boxing it.
+     *
+     * @param id The ID of the StationDTO entity to check.
+     * @return true if the StationDTO exists, false otherwise.
+     */
+    @Override
+    public boolean existById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Checking existence of Station by ID: {}", id);
+        }
         return stationRepository.existById(id);
     }
 
@@ -106,11 +192,35 @@ public class StationService implements CrudService<StationDTO>{
     public boolean updateId(Integer id, StationDTO newStationDTO) {
         LOGGER.debug("Updating Station with ID: {}", id);
         if (id != null && newStationDTO != null){
-            return stationRepository.updateId(id, stationMapper.toEntity(newStationDTO));
+            boolean updated = stationRepository.updateId(id, stationMapper.toEntity(newStationDTO));
+            cache.invalidate(id);
+            cache.invalidate(newStationDTO.getId());
+            return updated;
         }
         return false;
     }
 
+    /**
+     * Updates a StationDTO entity if it has not been changed since it was read.
+     *
+     * @param stationDTO The StationDTO object with the new values and the version it was read with.
+     * @return the outcome of the update; on success the version of stationDTO is incremented.
+     */
+    @Override
+    public UpdateResult update(StationDTO stationDTO) {
+        LOGGER.debug("Updating Station: {}", stationDTO);
+        if (stationDTO == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        Station station = stationMapper.toEntity(stationDTO);
+        UpdateResult result = stationRepository.update(station, stationDTO.getVersion());
+        if (result == UpdateResult.UPDATED) {
+            stationDTO.setVersion(station.getVersion());
+        }
+        cache.invalidate(stationDTO.getId());
+        return result;
+    }
+
     /**
      * Deletes a StationDTO entity by its ID.
      *
@@ -120,6 +230,9 @@ public class StationService implements CrudService<StationDTO>{
     public void deleteById(Integer id) {
         LOGGER.debug("Deleting Station by ID: {}", id);
         stationRepository.deleteById(id);
+        if (id != null) {
+            cache.invalidate(id);
+        }
     }
 
     /**
@@ -131,6 +244,9 @@ public class StationService implements CrudService<StationDTO>{
     public void delete(StationDTO stationDTO) {
         LOGGER.debug("Deleting Station: {}", stationDTO);
         stationRepository.delete(stationMapper.toEntity(stationDTO));
+        if (stationDTO != null) {
+            cache.invalidate(stationDTO.getId());
+        }
     }
 
     /**
@@ -140,6 +256,7 @@ public class StationService implements CrudService<StationDTO>{
     public void deleteAll() {
         LOGGER.debug("Deleting all Stations");
         stationRepository.deleteAll();
+        cache.invalidateAll();
     }
 
     /**
@@ -151,5 +268,19 @@ public class StationService implements CrudService<StationDTO>{
     public void deleteAll(List<StationDTO> stationsDTO) {
         LOGGER.debug("Deleting all Stations list");
         stationRepository.deleteAll(stationMapper.toEntity(stationsDTO));
+        if (stationsDTO != null) {
+            stationsDTO.stream()
+                    .filter(Objects::nonNull)
+                    .forEach(dto -> cache.invalidate(dto.getId()));
+        }
+    }
+
+    /**
+     * Returns the cache of StationDTOs by ID, e.g. to read its hit and miss counts.
+     *
+     * @return the cache of this service
+     */
+    public ReferenceCache<StationDTO> cache() {
+        return cache;
     }
 }
@@ -1,13 +1,25 @@
 package com.study.service;
 
+import com.study.domain.Ticket;
+import com.study.repository.ReferencePolicy;
 import com.study.repository.TicketRepository;
+import com.study.repository.TrainRepository;
+import com.study.repository.Transaction;
+import com.study.repository.TransactionManager;
+import com.study.repository.UpdateResult;
 import com.study.service.dto.TicketDTO;
+import com.study.service.inventory.SeatInventory;
+import com.study.service.inventory.SegmentSeatInventory;
 import com.study.service.mapper.TicketMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service class responsible for managing {@link TicketDTO} entities.
@@ -25,15 +37,49 @@ public class TicketService implements CrudService<TicketDTO>{
      */
     private final TicketMapper ticketMapper;
 
+    /**
+     * Seat counters per train and departure date, used by {@link #purchase(TicketDTO)} and {@link #cancel(Integer)}.
+     */
+    private final SeatInventory seatInventory;
+
+    /**
+     * Per-segment seat allocation, used instead of {@link #seatInventory} for trains with a registered route.
+     */
+    private final SegmentSeatInventory segmentSeatInventory;
+
+    /**
+     * Runs each purchase as one transaction, so a failed purchase keeps neither its ticket nor its seat.
+     */
+    private final TransactionManager transactionManager = new TransactionManager();
+
+    /**
+     * Releases the seats of tickets deleted because their train, stations, economy class or age group was deleted
+     * with {@link ReferencePolicy#CASCADE}; kept here since the repository holds it weakly. The seats are shared
+     * by all inventories, so one listener for all services releases every seat once.
+     */
+    private final static Consumer<Ticket> CASCADE_LISTENER = releasingSeats(new SeatInventory(), new SegmentSeatInventory());
+
     private final static Logger LOGGER = LogManager.getLogger();
 
+    static {
+        new TicketRepository().onCascadeDelete(CASCADE_LISTENER);
+    }
+
     public TicketService(){
         this(new TicketRepository(), new TicketMapper());
     }
 
     public TicketService(TicketRepository ticketRepository, TicketMapper ticketMapper) {
+        this(ticketRepository, ticketMapper, new SeatInventory(new TrainRepository(), ticketRepository),
+                new SegmentSeatInventory(new TrainRepository(), ticketRepository));
+    }
+
+    public TicketService(TicketRepository ticketRepository, TicketMapper ticketMapper,
+                         SeatInventory seatInventory, SegmentSeatInventory segmentSeatInventory) {
         this.ticketRepository = ticketRepository;
         this.ticketMapper = ticketMapper;
+        this.seatInventory = seatInventory;
+        this.segmentSeatInventory = segmentSeatInventory;
     }
 
     /**
@@ -60,6 +106,136 @@ public class TicketService implements CrudService<TicketDTO>{
         return ticketMapper.toDTO(ticketRepository.saveAll(ticketMapper.toEntity(ticketsDTO)));
     }
 
+    /**
+     * Sells a ticket: reserves a seat on the ticket's train and departure date, then saves the ticket.
+     * For trains with a registered route a concrete seat is allocated between the ticket's start and
+     * end stations and stored in the seat number of the saved ticket, leaving {@code ticketDTO} unchanged;
+     * otherwise a seat of the whole trip is counted.
+     * Unlike {@link #save(TicketDTO)} this never sells more tickets than the train has seats.
+     * The purchase runs as a {@link Transaction}: if the ticket cannot be saved, or its train or user
+     * is changed or deleted meanwhile, the seat is released and nothing is stored.
+     *
+     * @param ticketDTO The TicketDTO object to sell, with a train and a departure date.
+     * @return An Optional containing the saved TicketDTO, or empty if no seat is left or the purchase conflicted.
+     */
+    public Optional<TicketDTO> purchase(TicketDTO ticketDTO) {
+        LOGGER.debug("Purchasing TicketDTO: {}", ticketDTO);
+        if (ticketDTO == null || ticketDTO.getTrain() == null || ticketDTO.getDepartDateBooking() == null) {
+            LOGGER.warn("No seat available for TicketDTO: {}", ticketDTO);
+            return Optional.empty();
+        }
+        Transaction transaction = transactionManager.begin();
+        transaction.read(TransactionManager.TRAINS, ticketDTO.getTrain().getId());
+        if (ticketDTO.getUser() != null) {
+            transaction.read(TransactionManager.USERS, ticketDTO.getUser().getId());
+        }
+        OptionalInt seat = reserveSeat(ticketDTO);
+        if (seat.isEmpty()) {
+            transaction.rollback();
+            LOGGER.warn("No seat available for TicketDTO: {}", ticketDTO);
+            return Optional.empty();
+        }
+        Ticket ticket = ticketMapper.toEntity(ticketDTO);
+        if (seat.getAsInt() > 0) {
+            ticket.setSeatNumber(seat.getAsInt());
+        }
+        transaction.onRollback(() -> releaseSeat(ticket));
+        transaction.insert(TransactionManager.TICKETS, ticket);
+        if (!transaction.commit()) {
+            LOGGER.warn("Purchase of TicketDTO conflicted with a concurrent change: {}", ticketDTO);
+            return Optional.empty();
+        }
+        return Optional.of(ticketMapper.toDTO(ticket));
+    }
+
+    /**
+     * Cancels a sold ticket: deletes it and returns its seat to the inventory.
+     *
+     * @param id The ID of the ticket to cancel.
+     * @return true if the ticket was cancelled, false if it does not exist.
+     */
+    public boolean cancel(Integer id) {
+        LOGGER.debug("Cancelling Ticket with ID: {}", id);
+        Optional<Ticket> removed = ticketRepository.removeById(id);
+        removed.ifPresent(this::releaseSeatOf);
+        return removed.isPresent();
+    }
+
+    /**
+     * Reserves a seat for a ticket, without changing the ticket.
+     *
+     * @return the seat number allocated on a train with a route, 0 if a seat of the whole trip was counted,
+     * or empty if no seat is free
+     */
+    private OptionalInt reserveSeat(TicketDTO ticketDTO) {
+        int trainId = ticketDTO.getTrain().getId();
+        if (!segmentSeatInventory.hasRoute(trainId)) {
+            return seatInventory.reserve(trainId, ticketDTO.getDepartDateBooking()) ? OptionalInt.of(0) : OptionalInt.empty();
+        }
+        if (ticketDTO.getStartStation() == null || ticketDTO.getEndStation() == null) {
+            return OptionalInt.empty();
+        }
+        return segmentSeatInventory.allocate(trainId, ticketDTO.getDepartDateBooking(),
+                ticketDTO.getStartStation().getId(), ticketDTO.getEndStation().getId());
+    }
+
+    private static Consumer<Ticket> releasingSeats(SeatInventory seatInventory, SegmentSeatInventory segmentSeatInventory) {
+        return ticket -> releaseSeatOf(ticket, seatInventory, segmentSeatInventory);
+    }
+
+    /**
+     * Returns the seat of a removed ticket to the inventories, if the ticket has a train and a departure date.
+     */
+    private static void releaseSeatOf(Ticket ticket, SeatInventory seatInventory,
+                                      SegmentSeatInventory segmentSeatInventory) {
+        if (ticket.getTrain() != null && ticket.getDepartDateBooking() != null) {
+            releaseSeat(ticket, seatInventory, segmentSeatInventory);
+        }
+    }
+
+    private void releaseSeat(Ticket ticket) {
+        releaseSeat(ticket, seatInventory, segmentSeatInventory);
+    }
+
+    private void releaseSeatOf(Ticket ticket) {
+        releaseSeatOf(ticket, seatInventory, segmentSeatInventory);
+    }
+
+    private static void releaseSeat(Ticket ticket, SeatInventory seatInventory,
+                                    SegmentSeatInventory segmentSeatInventory) {
+        int trainId = ticket.getTrain().getId();
+        if (ticket.getSeatNumber() > 0 && segmentSeatInventory.hasRoute(trainId)) {
+            segmentSeatInventory.release(trainId, ticket.getDepartDateBooking(), ticket.getSeatNumber(),
+                    ticket.getStartStation().getId(), ticket.getEndStation().getId());
+        } else {
+            seatInventory.release(trainId, ticket.getDepartDateBooking());
+        }
+    }
+
+    /**
+     * Returns the number of seats still available on a train at a departure date.
+     *
+     * @param trainId The ID of the train.
+     * @param date The departure date.
+     * @return The number of free seats.
+     */
+    public int availableSeats(int trainId, LocalDate date) {
+        return seatInventory.availableSeats(trainId, date);
+    }
+
+    /**
+     * Returns the number of seats free between two stations on a train with a registered route.
+     *
+     * @param trainId The ID of the train.
+     * @param date The departure date.
+     * @param startStationId The ID of the boarding station.
+     * @param endStationId The ID of the destination station.
+     * @return The number of seats free for the whole trip.
+     */
+    public int availableSeats(int trainId, LocalDate date, int startStationId, int endStationId) {
+        return segmentSeatInventory.freeSeats(trainId, date, startStationId, endStationId);
+    }
+
     /**
      * Finds a TicketDTO entity by its ID.
      *
@@ -68,7 +244,20 @@ public class TicketService implements CrudService<TicketDTO>{
      */
     @Override
     public Optional<TicketDTO> findById(Integer id) {
-        LOGGER.debug("Find ticketDTO by id {}", id);
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Finds a TicketDTO entity by its ID, without boxing it.
+     *
+     * @param id The ID of the TicketDTO entity to find.
+     * @return An Optional containing the found TicketDTO object, or empty if not found.
+     */
+    @Override
+    public Optional<TicketDTO> findById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Find ticketDTO by id {}", id);
+        }
         return ticketMapper.toDTO(ticketRepository.findById(id));
     }
 
@@ -83,6 +272,43 @@ public class TicketService implements CrudService<TicketDTO>{
         return ticketMapper.toDTO(ticketRepository.findAll());
     }
 
+    /**
+     * Finds one page of TicketDTO entities, ordered by ID.
+     *
+     * @param offset the number of TicketDTOs to skip
+     * @param limit the maximum number of TicketDTOs in the page
+     * @return the list of TicketDTOs in the page
+     */
+    @Override
+    public List<TicketDTO> findPage(int offset, int limit) {
+        LOGGER.debug("Find page of TicketsDTO at offset {}", offset);
+        return ticketMapper.toDTO(ticketRepository.findPage(offset, limit));
+    }
+
+    /**
+     * Finds the page of TicketDTO entities following the one with ID {@code afterId}, ordered by ID.
+     *
+     * @param afterId the ID of the last TicketDTO of the previous page, or 0 for the first page
+     * @param limit the maximum number of TicketDTOs in the page
+     * @return the list of TicketDTOs in the page
+     */
+    @Override
+    public List<TicketDTO> findPageAfter(int afterId, int limit) {
+        LOGGER.debug("Find page of TicketsDTO after id {}", afterId);
+        return ticketMapper.toDTO(ticketRepository.findPageAfter(afterId, limit));
+    }
+
+    /**
+     * Streams all TicketDTO entities lazily, ordered by ID.
+     *
+     * @return a stream of all TicketDTOs
+     */
+    @Override
+    public Stream<TicketDTO> streamAll() {
+        LOGGER.debug("Stream All TicketsDTO elements");
+        return ticketRepository.streamAll().map(ticketMapper::toDTO);
+    }
+
     /**
      * Checks if a TicketDTO entity exists by its ID.
      *
@@ -91,7 +317,20 @@ public class TicketService implements CrudService<TicketDTO>{
      */
     @Override
     public boolean existById(Integer id) {
-        LOGGER.debug("Checking existence of Ticket by ID: {}", id);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a TicketDTO entity exists by its ID, without boxing it.
+     *
+     * @param id The ID of the TicketDTO entity to check.
+     * @return true if the TicketDTO exists, false otherwise.
+     */
+    @Override
+    public boolean existById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Checking existence of Ticket by ID: {}", id);
+        }
         return ticketRepository.existById(id);
     }
 
@@ -112,44 +351,75 @@ public class TicketService implements CrudService<TicketDTO>{
     }
 
     /**
-     * Deletes a TicketDTO entity by its ID.
+     * Updates a TicketDTO entity if it has not been changed since it was read.
+     *
+     * @param ticketDTO The TicketDTO object with the new values and the version it was read with.
+     * @return the outcome of the update; on success the version of ticketDTO is incremented.
+     */
+    @Override
+    public UpdateResult update(TicketDTO ticketDTO) {
+        LOGGER.debug("Updating Ticket: {}", ticketDTO);
+        if (ticketDTO == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        Ticket ticket = ticketMapper.toEntity(ticketDTO);
+        UpdateResult result = ticketRepository.update(ticket, ticketDTO.getVersion());
+        if (result == UpdateResult.UPDATED) {
+            ticketDTO.setVersion(ticket.getVersion());
+        }
+        return result;
+    }
+
+    /**
+     * Deletes a TicketDTO entity by its ID and returns its seat to the inventory.
      *
      * @param id The ID of the TicketDTO entity to delete.
      */
     @Override
     public void deleteById(Integer id) {
         LOGGER.debug("Deleting Ticket by ID: {}", id);
-        ticketRepository.deleteById(id);
+        ticketRepository.removeById(id).ifPresent(this::releaseSeatOf);
     }
 
     /**
-     * Deletes a TicketDTO entity.
+     * Deletes a TicketDTO entity and returns its seat to the inventory.
      *
      * @param ticketDTO The TicketDTO object to delete.
      */
     @Override
     public void delete(TicketDTO ticketDTO) {
         LOGGER.debug("DeletingTicket: {}", ticketDTO);
-        ticketRepository.delete(ticketMapper.toEntity(ticketDTO));
+        if (ticketDTO != null) {
+            ticketRepository.removeById(ticketDTO.getId()).ifPresent(this::releaseSeatOf);
+        }
     }
 
     /**
-     * Deletes all TicketDTO entities.
+     * Deletes all TicketDTO entities and forgets the sold seats of all train runs,
+     * which are counted again from the stored tickets when next sold.
      */
     @Override
     public void deleteAll() {
         LOGGER.debug("Deleting all Tickets");
         ticketRepository.deleteAll();
+        seatInventory.clear();
+        segmentSeatInventory.clearRuns();
     }
 
     /**
-     * Deletes a list of TicketDTO entities.
+     * Deletes a list of TicketDTO entities and returns their seats to the inventory.
      *
      * @param ticketsDTO The list of TicketDTO objects to delete.
      */
     @Override
     public void deleteAll(List<TicketDTO> ticketsDTO) {
         LOGGER.debug("Deleting all Tickets list");
-        ticketRepository.deleteAll(ticketMapper.toEntity(ticketsDTO));
+        if (ticketsDTO != null) {
+            for (TicketDTO ticketDTO : ticketsDTO) {
+                if (ticketDTO != null) {
+                    ticketRepository.removeById(ticketDTO.getId()).ifPresent(this::releaseSeatOf);
+                }
+            }
+        }
     }
 }
@@ -1,7 +1,9 @@
 package com.study.service;
 
+import com.study.domain.Train;
 import com.study.repository.DiscountRepository;
 import com.study.repository.TrainRepository;
+import com.study.repository.UpdateResult;
 import com.study.service.dto.TrainDTO;
 import com.study.service.mapper.DiscountMapper;
 import com.study.service.mapper.TrainMapper;
@@ -10,6 +12,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Service class responsible for managing {@link TrainDTO} entities.
@@ -70,7 +73,20 @@ public class TrainService implements CrudService<TrainDTO>{
      */
     @Override
     public Optional<TrainDTO> findById(Integer id) {
-        LOGGER.debug("Find TrainDTO by id {}", id);
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Finds a TrainDTO entity by its ID, without boxing it.
+     *
+     * @param id The ID of the TrainDTO entity to find.
+     * @return An Optional containing the found TrainDTO object, or empty if not found.
+     */
+    @Override
+    public Optional<TrainDTO> findById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Find TrainDTO by id {}", id);
+        }
         return trainMapper.toDTO(trainRepository.findById(id));
     }
 
@@ -85,6 +101,43 @@ public class TrainService implements CrudService<TrainDTO>{
         return trainMapper.toDTO(trainRepository.findAll());
     }
 
+    /**
+     * Finds one page of TrainDTO entities, ordered by ID.
+     *
+     * @param offset the number of TrainDTOs to skip
+     * @param limit the maximum number of TrainDTOs in the page
+     * @return the list of TrainDTOs in the page
+     */
+    @Override
+    public List<TrainDTO> findPage(int offset, int limit) {
+        LOGGER.debug("Find page of TrainsDTO at offset {}", offset);
+        return trainMapper.toDTO(trainRepository.findPage(offset, limit));
+    }
+
+    /**
+     * Finds the page of TrainDTO entities following the one with ID {@code afterId}, ordered by ID.
+     *
+     * @param afterId the ID of the last TrainDTO of the previous page, or 0 for the first page
+     * @param limit the maximum number of TrainDTOs in the page
+     * @return the list of TrainDTOs in the page
+     */
+    @Override
+    public List<TrainDTO> findPageAfter(int afterId, int limit) {
+        LOGGER.debug("Find page of TrainsDTO after id {}", afterId);
+        return trainMapper.toDTO(trainRepository.findPageAfter(afterId, limit));
+    }
+
+    /**
+     * Streams all TrainDTO entities lazily, ordered by ID.
+     *
+     * @return a stream of all TrainDTOs
+     */
+    @Override
+    public Stream<TrainDTO> streamAll() {
+        LOGGER.debug("Stream All TrainsDTO elements");
+        return trainRepository.streamAll().map(trainMapper::toDTO);
+    }
+
     /**
      * Checks if a TrainDTO entity exists by its ID.
      *
@@ -93,7 +146,20 @@ public class TrainService implements CrudService<TrainDTO>{
      */
     @Override
     public boolean existById(Integer id) {
-        LOGGER.debug("Checking existence of Train by ID: {}", id);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a TrainDTO entity exists by its ID, without boxing it.
+     *
+     * @param id The ID of the TrainDTO entity to check.
+     * @return true if the TrainDTO exists, false otherwise.
+     */
+    @Override
+    public boolean existById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Checking existence of Train by ID: {}", id);
+        }
         return trainRepository.existById(id);
     }
 
@@ -113,6 +179,26 @@ public class TrainService implements CrudService<TrainDTO>{
         return false;
     }
 
+    /**
+     * Updates a TrainDTO entity if it has not been changed since it was read.
+     *
+     * @param trainDTO The TrainDTO object with the new values and the version it was read with.
+     * @return the outcome of the update; on success the version of trainDTO is incremented.
+     */
+    @Override
+    public UpdateResult update(TrainDTO trainDTO) {
+        LOGGER.debug("Updating Train: {}", trainDTO);
+        if (trainDTO == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        Train train = trainMapper.toEntity(trainDTO);
+        UpdateResult result = trainRepository.update(train, trainDTO.getVersion());
+        if (result == UpdateResult.UPDATED) {
+            trainDTO.setVersion(train.getVersion());
+        }
+        return result;
+    }
+
     /**
      * Deletes a TrainDTO entity by its ID.
      *
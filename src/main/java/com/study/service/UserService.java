@@ -1,5 +1,7 @@
 package com.study.service;
 
+import com.study.domain.User;
+import com.study.repository.UpdateResult;
 import com.study.repository.UserRepository;
 import com.study.service.dto.UserDTO;
 import com.study.service.mapper.UserMapper;
@@ -8,6 +10,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Service class responsible for managing {@link UserDTO} entities.
@@ -68,10 +71,35 @@ public class UserService implements CrudService<UserDTO>{
      */
     @Override
     public Optional<UserDTO> findById(Integer id) {
-        LOGGER.debug("Find UserDTO by id {}", id);
+        return id == null ? Optional.empty() : findById(id.intValue());
+    }
+
+    /**
+     * Finds a UserDTO entity by its ID, without boxing it.
+     *
+     * @param id The ID of the UserDTO entity to find.
+     * @return An Optional containing the found UserDTO object, or empty if not found.
+     */
+    @Override
+    public Optional<UserDTO> findById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Find UserDTO by id {}", id);
+        }
         return userMapper.toDTO(userRepository.findById(id));
     }
 
+    /**
+     * Finds a UserDTO entity by its email, ignoring case and surrounding whitespace.
+     * The lookup takes constant time, however many users are stored.
+     *
+     * @param email The email of the UserDTO entity to find.
+     * @return An Optional containing the found UserDTO object, or empty if not found.
+     */
+    public Optional<UserDTO> findByEmail(String email) {
+        LOGGER.debug("Find UserDTO by email");
+        return userMapper.toDTO(userRepository.findByEmail(email));
+    }
+
 
     /**
      * Retrieves all UserDTO entities.
@@ -84,6 +112,43 @@ public class UserService implements CrudService<UserDTO>{
         return userMapper.toDTO(userRepository.findAll());
     }
 
+    /**
+     * Finds one page of UserDTO entities, ordered by ID.
+     *
+     * @param offset the number of UserDTOs to skip
+     * @param limit the maximum number of UserDTOs in the page
+     * @return the list of UserDTOs in the page
+     */
+    @Override
+    public List<UserDTO> findPage(int offset, int limit) {
+        LOGGER.debug("Find page of UsersDTO at offset {}", offset);
+        return userMapper.toDTO(userRepository.findPage(offset, limit));
+    }
+
+    /**
+     * Finds the page of UserDTO entities following the one with ID {@code afterId}, ordered by ID.
+     *
+     * @param afterId the ID of the last UserDTO of the previous page, or 0 for the first page
+     * @param limit the maximum number of UserDTOs in the page
+     * @return the list of UserDTOs in the page
+     */
+    @Override
+    public List<UserDTO> findPageAfter(int afterId, int limit) {
+        LOGGER.debug("Find page of UsersDTO after id {}", afterId);
+        return userMapper.toDTO(userRepository.findPageAfter(afterId, limit));
+    }
+
+    /**
+     * Streams all UserDTO entities lazily, ordered by ID.
+     *
+     * @return a stream of all UserDTOs
+     */
+    @Override
+    public Stream<UserDTO> streamAll() {
+        LOGGER.debug("Stream All UsersDTO elements");
+        return userRepository.streamAll().map(userMapper::toDTO);
+    }
+
     /**
      * Checks if a UserDTO entity exists by its ID.
      *
@@ -92,7 +157,20 @@ public class UserService implements CrudService<UserDTO>{
      */
     @Override
     public boolean existById(Integer id) {
-        LOGGER.debug("Checking existence of User by ID: {}", id);
+        return id != null && existById(id.intValue());
+    }
+
+    /**
+     * Checks if a UserDTO entity exists by its ID, without boxing it.
+     *
+     * @param id The ID of the UserDTO entity to check.
+     * @return true if the UserDTO exists, false otherwise.
+     */
+    @Override
+    public boolean existById(int id) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Checking existence of User by ID: {}", id);
+        }
         return userRepository.existById(id);
     }
 
@@ -112,6 +190,26 @@ public class UserService implements CrudService<UserDTO>{
         return false;
     }
 
+    /**
+     * Updates a UserDTO entity if it has not been changed since it was read.
+     *
+     * @param userDTO The UserDTO object with the new values and the version it was read with.
+     * @return the outcome of the update; on success the version of userDTO is incremented.
+     */
+    @Override
+    public UpdateResult update(UserDTO userDTO) {
+        LOGGER.debug("Updating User: {}", userDTO);
+        if (userDTO == null) {
+            return UpdateResult.NOT_FOUND;
+        }
+        User user = userMapper.toEntity(userDTO);
+        UpdateResult result = userRepository.update(user, userDTO.getVersion());
+        if (result == UpdateResult.UPDATED) {
+            userDTO.setVersion(user.getVersion());
+        }
+        return result;
+    }
+
     /**
      * Deletes a UserDTO entity by its ID.
      *
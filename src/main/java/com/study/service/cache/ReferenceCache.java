@@ -0,0 +1,239 @@
+package com.study.service.cache;
+
+import com.study.repository.storage.ConcurrentIntMap;
+import com.study.service.codec.DtoCodec;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded read-through cache of DTOs by ID, for reference data that is read far more often than changed.
+ * {@link #get(int, IntFunction)} returns a copy of the cached DTO, or loads, caches and returns it on a miss.
+ * Entries expire a fixed time after they are loaded; when the cache grows past its maximum size,
+ * the least recently read entries are evicted in one batch, down to nine tenths of the maximum.
+ * Hits are lock-free and keys are never boxed. Services invalidate the entries they update or delete;
+ * changes made directly through a repository become visible when the entry expires.
+ * DTOs are cached encoded with a {@link DtoCodec} and decoded on every read, so each caller gets its own copy,
+ * which it may modify without affecting the cache or other callers.
+ *
+ * @param <V> the type of the cached DTOs
+ */
+public class ReferenceCache<V> {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    private final ConcurrentIntMap<Entry> entries = new ConcurrentIntMap<>();
+
+    private final DtoCodec<V> codec;
+
+    private final int maximumSize;
+
+    private final long timeToLive;
+
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Number of invalidations so far; a load that overlaps an invalidation is not kept.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Object evictionMonitor = new Object();
+
+    /**
+     * @param codec the encoding in which the DTOs are cached
+     */
+    public ReferenceCache(DtoCodec<V> codec) {
+        this(codec, DEFAULT_MAXIMUM_SIZE, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * @param codec the encoding in which the DTOs are cached
+     * @param maximumSize the number of entries above which the least recently read ones are evicted
+     * @param timeToLive the time after which a loaded entry expires
+     */
+    public ReferenceCache(DtoCodec<V> codec, int maximumSize, Duration timeToLive) {
+        this(codec, maximumSize, timeToLive, System::nanoTime);
+    }
+
+    /**
+     * @param codec the encoding in which the DTOs are cached
+     * @param maximumSize the number of entries above which the least recently read ones are evicted
+     * @param timeToLive the time after which a loaded entry expires
+     * @param clock the source of the current time in nanoseconds
+     */
+    ReferenceCache(DtoCodec<V> codec, int maximumSize, Duration timeToLive, LongSupplier clock) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive: " + timeToLive);
+        }
+        this.codec = codec;
+        this.maximumSize = maximumSize;
+        this.timeToLive = timeToLive.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Returns a copy of the cached DTO with the given ID, loading it on a miss or after it expired.
+     * A loaded DTO is returned as the loader made it, and cached as it is at that moment.
+     * DTOs that are not found are not cached.
+     *
+     * @param id the ID of the DTO
+     * @param loader the function loading the DTO, called on a miss
+     * @return an Optional containing the DTO, or empty if the loader found none
+     */
+    public Optional<V> get(int id, IntFunction<Optional<V>> loader) {
+        long now = clock.getAsLong();
+        Entry entry = entries.get(id);
+        if (entry != null && now - entry.loadedAt < timeToLive) {
+            entry.lastRead = now;
+            hits.increment();
+            return Optional.of(codec.decode(entry.encoded));
+        }
+        misses.increment();
+        long invalidationsBefore = invalidations.get();
+        Optional<V> loaded = loader.apply(id);
+        if (loaded.isPresent()) {
+            entries.put(id, new Entry(codec.encode(loaded.get()), now));
+            if (invalidations.get() != invalidationsBefore) {
+                entries.remove(id);
+            } else if (entries.size() > maximumSize) {
+                evict();
+            }
+        } else if (entry != null) {
+            entries.remove(id);
+        }
+        return loaded;
+    }
+
+    /**
+     * Removes the DTO with the given ID, so the next read loads it again.
+     *
+     * @param id the ID of the DTO
+     */
+    public void invalidate(int id) {
+        invalidations.incrementAndGet();
+        entries.remove(id);
+    }
+
+    /**
+     * Removes all DTOs.
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of cached DTOs, expired ones included until they are read or evicted.
+     *
+     * @return the number of cached DTOs
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of reads served from the cache.
+     *
+     * @return the number of hits
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of reads that had to load the DTO.
+     *
+     * @return the number of misses
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of DTOs evicted because the cache was full.
+     *
+     * @return the number of evictions
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the share of reads served from the cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if nothing was read yet
+     */
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Evicts the least recently read entries down to nine tenths of the maximum size,
+     * so the entries are scanned once per many insertions rather than on each.
+     */
+    private void evict() {
+        synchronized (evictionMonitor) {
+            int[] keys = entries.keys();
+            int excess = keys.length - maximumSize * 9 / 10;
+            if (keys.length <= maximumSize || excess <= 0) {
+                return;
+            }
+            long[] lastReads = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                Entry entry = entries.get(keys[i]);
+                lastReads[i] = entry == null ? Long.MIN_VALUE : entry.lastRead;
+            }
+            long[] sorted = lastReads.clone();
+            Arrays.sort(sorted);
+            long cutoff = sorted[excess - 1];
+            int evicted = 0;
+            for (int i = 0; i < keys.length && evicted < excess; i++) {
+                if (lastReads[i] <= cutoff && entries.remove(keys[i]) != null) {
+                    evicted++;
+                }
+            }
+            evictions.add(evicted);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Evicted {} cached DTOs", evicted);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final byte[] encoded;
+        private final long loadedAt;
+
+        /**
+         * Time of the last read; written without synchronization, so eviction order is approximate.
+         */
+        private long lastRead;
+
+        private Entry(byte[] encoded, long loadedAt) {
+            this.encoded = encoded;
+            this.loadedAt = loadedAt;
+            this.lastRead = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.study.service.codec;
+
+import com.study.service.dto.AgeGroupDTO;
+
+/**
+ * Codec class for the binary encoding of AgeGroupDTO objects.
+ */
+public class AgeGroupCodec implements DtoCodec<AgeGroupDTO> {
+
+    /**
+     * Writes the fields of a AgeGroupDTO object.
+     *
+     * @param ageGroupDTO the AgeGroupDTO object to be written.
+     * @param out the writer.
+     */
+    @Override
+    public void write(AgeGroupDTO ageGroupDTO, BinaryWriter out) {
+        out.writeVarInt(ageGroupDTO.getId());
+        out.writeSymbol(ageGroupDTO.getType());
+        out.writeVarLong(ageGroupDTO.getVersion());
+    }
+
+    /**
+     * Reads a AgeGroupDTO object.
+     *
+     * @param in the reader.
+     * @return the AgeGroupDTO object read.
+     */
+    @Override
+    public AgeGroupDTO read(BinaryReader in) {
+        return new AgeGroupDTO(in.readVarInt(), in.readSymbol()).version(in.readVarLong());
+    }
+}
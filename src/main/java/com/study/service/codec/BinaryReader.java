@@ -0,0 +1,202 @@
+package com.study.service.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader of the bytes written by a {@link BinaryWriter}.
+ * Symbols are interned, so equal types read from different buffers are the same instance.
+ * Malformed or truncated input is rejected with an {@link IllegalArgumentException}.
+ */
+public class BinaryReader {
+
+    private final byte[] buffer;
+
+    private int position;
+
+    private final int limit;
+
+    private final List<String> symbols = new ArrayList<>();
+
+    private final List<Object> references = new ArrayList<>();
+
+    /**
+     * @param buffer the bytes to read.
+     */
+    public BinaryReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * @param buffer the array holding the bytes to read.
+     * @param offset the index of the first byte.
+     * @param length the number of bytes.
+     */
+    public BinaryReader(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Reads a single byte.
+     *
+     * @return the byte.
+     */
+    public byte readByte() {
+        require(1);
+        return buffer[position++];
+    }
+
+    /**
+     * Reads a boolean.
+     *
+     * @return the boolean.
+     */
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    /**
+     * Reads an int written as a ZigZag varint.
+     *
+     * @return the int.
+     */
+    public int readVarInt() {
+        long raw = readUnsignedVarLong();
+        if (raw >>> 32 != 0) {
+            throw new IllegalArgumentException("Varint out of int range at " + position);
+        }
+        int value = (int) raw;
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a long written as a ZigZag varint.
+     *
+     * @return the long.
+     */
+    public long readVarLong() {
+        long value = readUnsignedVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a double.
+     *
+     * @return the double.
+     */
+    public double readDouble() {
+        require(Long.BYTES);
+        long bits = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            bits = (bits << 8) | (buffer[position++] & 0xFF);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Reads an optional date.
+     *
+     * @return the date, or null.
+     */
+    public LocalDate readDate() {
+        return readBoolean() ? LocalDate.ofEpochDay(readVarLong()) : null;
+    }
+
+    /**
+     * Reads an optional string.
+     *
+     * @return the string, or null.
+     */
+    public String readString() {
+        long length = readUnsignedVarLong() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > limit - position) {
+            throw new IllegalArgumentException("String of " + length + " bytes exceeds the input at " + position);
+        }
+        String value = new String(buffer, position, (int) length, StandardCharsets.UTF_8);
+        position += (int) length;
+        return value;
+    }
+
+    /**
+     * Reads an optional symbol.
+     *
+     * @return the interned symbol, or null.
+     */
+    public String readSymbol() {
+        long tag = readUnsignedVarLong();
+        if (tag == BinaryWriter.NULL) {
+            return null;
+        }
+        if (tag == BinaryWriter.INLINE) {
+            String value = readString();
+            String symbol = value == null ? null : value.intern();
+            symbols.add(symbol);
+            return symbol;
+        }
+        return lookup(symbols, tag);
+    }
+
+    /**
+     * Reads an optional nested DTO written with {@link BinaryWriter#writeReference(Object, DtoCodec)}.
+     * A DTO referred to several times is read as one shared instance.
+     *
+     * @param codec the codec of the DTO.
+     * @param <T> the type of the DTO.
+     * @return the DTO, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T readReference(DtoCodec<T> codec) {
+        long tag = readUnsignedVarLong();
+        if (tag == BinaryWriter.NULL) {
+            return null;
+        }
+        if (tag == BinaryWriter.INLINE) {
+            T value = codec.read(this);
+            references.add(value);
+            return value;
+        }
+        return (T) lookup(references, tag);
+    }
+
+    /**
+     * Returns the number of bytes left to read.
+     *
+     * @return the number of bytes left.
+     */
+    public int remaining() {
+        return limit - position;
+    }
+
+    private static <T> T lookup(List<T> values, long tag) {
+        long index = tag - 2;
+        if (index >= values.size()) {
+            throw new IllegalArgumentException("Reference to unknown index " + index);
+        }
+        return values.get((int) index);
+    }
+
+    private long readUnsignedVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at " + position);
+    }
+
+    private void require(int bytes) {
+        if (limit - position < bytes) {
+            throw new IllegalArgumentException("Unexpected end of input at " + position);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.study.service.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Growable buffer the {@link DtoCodec}s write to.
+ * Integers are written as variable-length ZigZag varints, so small IDs and counts take one byte;
+ * dates as varints of their epoch day; strings as UTF-8 preceded by their length.
+ * Symbols, i.e. strings from a small set like discount or economy types, are written once per buffer
+ * and then referred to by index; nested DTOs written with {@link #writeReference(Object, DtoCodec)}
+ * likewise are written once and then referred to, so a list of tickets carries each of its
+ * trains or stations once. Read the result with a {@link BinaryReader}.
+ */
+public class BinaryWriter {
+
+    /**
+     * Tag of an absent symbol or reference.
+     */
+    static final int NULL = 0;
+
+    /**
+     * Tag of a symbol or reference written inline; a greater tag refers to the one at index {@code tag - 2}.
+     */
+    static final int INLINE = 1;
+
+    private byte[] buffer;
+
+    private int size;
+
+    private final Map<String, Integer> symbols = new HashMap<>();
+
+    private final Map<Object, Integer> references = new IdentityHashMap<>();
+
+    public BinaryWriter() {
+        this(256);
+    }
+
+    /**
+     * @param capacity the initial capacity in bytes.
+     */
+    public BinaryWriter(int capacity) {
+        buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param value the byte, in its lower 8 bits.
+     */
+    public void writeByte(int value) {
+        ensure(1);
+        buffer[size++] = (byte) value;
+    }
+
+    /**
+     * Writes a boolean as one byte.
+     *
+     * @param value the boolean.
+     */
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Writes an int as a ZigZag varint, from one byte for values between -64 and 63 to five bytes.
+     *
+     * @param value the int.
+     */
+    public void writeVarInt(int value) {
+        writeUnsignedVarLong(Integer.toUnsignedLong((value << 1) ^ (value >> 31)));
+    }
+
+    /**
+     * Writes a long as a ZigZag varint.
+     *
+     * @param value the long.
+     */
+    public void writeVarLong(long value) {
+        writeUnsignedVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a double as its eight IEEE 754 bytes, so it is read back exactly.
+     *
+     * @param value the double.
+     */
+    public void writeDouble(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        ensure(Long.BYTES);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[size++] = (byte) (bits >>> shift);
+        }
+    }
+
+    /**
+     * Writes an optional date as the varint of its epoch day.
+     *
+     * @param date the date, or null.
+     */
+    public void writeDate(LocalDate date) {
+        writeBoolean(date != null);
+        if (date != null) {
+            writeVarLong(date.toEpochDay());
+        }
+    }
+
+    /**
+     * Writes an optional string as its UTF-8 length and bytes.
+     *
+     * @param value the string, or null.
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeUnsignedVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeUnsignedVarLong(bytes.length + 1L);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    /**
+     * Writes an optional string from a small set of values; repeated values take one or two bytes.
+     *
+     * @param value the string, or null.
+     */
+    public void writeSymbol(String value) {
+        if (value == null) {
+            writeUnsignedVarLong(NULL);
+            return;
+        }
+        Integer index = symbols.get(value);
+        if (index != null) {
+            writeUnsignedVarLong(index + 2L);
+            return;
+        }
+        writeUnsignedVarLong(INLINE);
+        writeString(value);
+        symbols.put(value, symbols.size());
+    }
+
+    /**
+     * Writes an optional nested DTO with its codec the first time the instance is written,
+     * and as a reference to it afterwards.
+     *
+     * @param value the DTO, or null.
+     * @param codec the codec of the DTO.
+     * @param <T> the type of the DTO.
+     */
+    public <T> void writeReference(T value, DtoCodec<T> codec) {
+        if (value == null) {
+            writeUnsignedVarLong(NULL);
+            return;
+        }
+        Integer index = references.get(value);
+        if (index != null) {
+            writeUnsignedVarLong(index + 2L);
+            return;
+        }
+        writeUnsignedVarLong(INLINE);
+        codec.write(value, this);
+        references.put(value, references.size());
+    }
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return the number of bytes written.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of the bytes written.
+     *
+     * @return the bytes written.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void writeUnsignedVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    private void ensure(int bytes) {
+        if (size + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.study.service.codec;
+
+import com.study.service.dto.DiscountDTO;
+
+/**
+ * Codec class for the binary encoding of DiscountDTO objects.
+ */
+public class DiscountCodec implements DtoCodec<DiscountDTO> {
+
+    /**
+     * Writes the fields of a DiscountDTO object.
+     *
+     * @param discountDTO the DiscountDTO object to be written.
+     * @param out the writer.
+     */
+    @Override
+    public void write(DiscountDTO discountDTO, BinaryWriter out) {
+        out.writeVarInt(discountDTO.getId());
+        out.writeSymbol(discountDTO.getType());
+        out.writeBoolean(discountDTO.getPercent() != null);
+        if (discountDTO.getPercent() != null) {
+            out.writeDouble(discountDTO.getPercent());
+        }
+        out.writeDate(discountDTO.getStartAt());
+        out.writeDate(discountDTO.getEndAt());
+        out.writeVarLong(discountDTO.getVersion());
+    }
+
+    /**
+     * Reads a DiscountDTO object.
+     *
+     * @param in the reader.
+     * @return the DiscountDTO object read.
+     */
+    @Override
+    public DiscountDTO read(BinaryReader in) {
+        DiscountDTO discountDTO = new DiscountDTO().id(in.readVarInt()).type(in.readSymbol());
+        discountDTO.setPercent(in.readBoolean() ? in.readDouble() : null);
+        return discountDTO
+                .startAt(in.readDate())
+                .endAt(in.readDate())
+                .version(in.readVarLong());
+    }
+}
@@ -0,0 +1,33 @@
+package com.study.service.codec;
+
+import com.study.service.dto.EconomyDTO;
+
+/**
+ * Codec class for the binary encoding of EconomyDTO objects.
+ */
+public class EconomyCodec implements DtoCodec<EconomyDTO> {
+
+    /**
+     * Writes the fields of a EconomyDTO object.
+     *
+     * @param economyDTO the EconomyDTO object to be written.
+     * @param out the writer.
+     */
+    @Override
+    public void write(EconomyDTO economyDTO, BinaryWriter out) {
+        out.writeVarInt(economyDTO.getId());
+        out.writeSymbol(economyDTO.getType());
+        out.writeVarLong(economyDTO.getVersion());
+    }
+
+    /**
+     * Reads a EconomyDTO object.
+     *
+     * @param in the reader.
+     * @return the EconomyDTO object read.
+     */
+    @Override
+    public EconomyDTO read(BinaryReader in) {
+        return new EconomyDTO(in.readVarInt(), in.readSymbol()).version(in.readVarLong());
+    }
+}
@@ -0,0 +1,40 @@
+package com.study.service.codec;
+
+import com.study.service.dto.StationDTO;
+
+/**
+ * Codec class for the binary encoding of StationDTO objects.
+ */
+public class StationCodec implements DtoCodec<StationDTO> {
+
+    /**
+     * Writes the fields of a StationDTO object.
+     *
+     * @param stationDTO the StationDTO object to be written.
+     * @param out the writer.
+     */
+    @Override
+    public void write(StationDTO stationDTO, BinaryWriter out) {
+        out.writeVarInt(stationDTO.getId());
+        out.writeString(stationDTO.getNameOfStation());
+        out.writeString(stationDTO.getAddressLocation());
+        out.writeString(stationDTO.getStationPhone());
+        out.writeVarLong(stationDTO.getVersion());
+    }
+
+    /**
+     * Reads a StationDTO object.
+     *
+     * @param in the reader.
+     * @return the StationDTO object read.
+     */
+    @Override
+    public StationDTO read(BinaryReader in) {
+        return new StationDTO()
+                .id(in.readVarInt())
+                .nameOfStation(in.readString())
+                .addressLocation(in.readString())
+                .stationPhone(in.readString())
+                .version(in.readVarLong());
+    }
+}
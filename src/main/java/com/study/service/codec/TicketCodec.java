@@ -0,0 +1,92 @@
+package com.study.service.codec;
+
+import com.study.service.dto.DiscountDTO;
+import com.study.service.dto.TicketDTO;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Codec class for the binary encoding of TicketDTO objects.
+ * The referenced DTOs are written as references, so in a list encoded with {@link #encodeAll(java.util.List)}
+ * a DTO instance shared by several tickets, e.g. by {@link com.study.service.mapper.TicketMapper#toDTO(java.util.List)},
+ * is written once and read back as one shared instance.
+ */
+public class TicketCodec implements DtoCodec<TicketDTO> {
+
+    private final UserCodec userCodec = new UserCodec();
+    private final StationCodec stationCodec = new StationCodec();
+    private final TrainCodec trainCodec = new TrainCodec();
+    private final EconomyCodec economyCodec = new EconomyCodec();
+    private final AgeGroupCodec ageGroupCodec = new AgeGroupCodec();
+    private final DiscountCodec discountCodec = new DiscountCodec();
+
+    /**
+     * Writes the fields of a TicketDTO object and its referenced DTOs.
+     *
+     * @param ticketDTO the TicketDTO object to be written.
+     * @param out the writer.
+     */
+    @Override
+    public void write(TicketDTO ticketDTO, BinaryWriter out) {
+        out.writeVarInt(ticketDTO.getId());
+        out.writeDate(ticketDTO.getDepartDateBooking());
+        out.writeDate(ticketDTO.getReturnDateBooking());
+        out.writeDate(ticketDTO.getRegistrationDateTicket());
+        out.writeDate(ticketDTO.getReturnDateTicket());
+        out.writeDouble(ticketDTO.getPrice());
+        out.writeVarInt(ticketDTO.getSeatNumber());
+        out.writeReference(ticketDTO.getUser(), userCodec);
+        out.writeReference(ticketDTO.getStartStation(), stationCodec);
+        out.writeReference(ticketDTO.getEndStation(), stationCodec);
+        out.writeReference(ticketDTO.getTrain(), trainCodec);
+        out.writeReference(ticketDTO.getEconomy(), economyCodec);
+        out.writeReference(ticketDTO.getAgeGroup(), ageGroupCodec);
+        Set<DiscountDTO> discounts = ticketDTO.getDiscounts();
+        out.writeVarInt(discounts == null ? -1 : discounts.size());
+        if (discounts != null) {
+            for (DiscountDTO discountDTO : discounts) {
+                out.writeReference(discountDTO, discountCodec);
+            }
+        }
+        out.writeVarLong(ticketDTO.getVersion());
+    }
+
+    /**
+     * Reads a TicketDTO object and its referenced DTOs.
+     *
+     * @param in the reader.
+     * @return the TicketDTO object read.
+     */
+    @Override
+    public TicketDTO read(BinaryReader in) {
+        TicketDTO ticketDTO = new TicketDTO()
+                .id(in.readVarInt())
+                .departDateBooking(in.readDate())
+                .returnDateBooking(in.readDate())
+                .registrationDateTicket(in.readDate())
+                .returnDateTicket(in.readDate())
+                .price(in.readDouble())
+                .seatNumber(in.readVarInt());
+        ticketDTO.setUser(in.readReference(userCodec));
+        ticketDTO.setStartStation(in.readReference(stationCodec));
+        ticketDTO.setEndStation(in.readReference(stationCodec));
+        ticketDTO.setTrain(in.readReference(trainCodec));
+        ticketDTO.setEconomy(in.readReference(economyCodec));
+        ticketDTO.setAgeGroup(in.readReference(ageGroupCodec));
+        int discountCount = in.readVarInt();
+        if (discountCount < -1 || discountCount > in.remaining()) {
+            throw new IllegalArgumentException("Invalid number of discounts: " + discountCount);
+        }
+        Set<DiscountDTO> discounts = null;
+        if (discountCount >= 0) {
+            discounts = new HashSet<>();
+            for (int i = 0; i < discountCount; i++) {
+                discounts.add(in.readReference(discountCodec));
+            }
+        }
+        ticketDTO.setDiscounts(discounts);
+        ticketDTO.setVersion(in.readVarLong());
+        return ticketDTO;
+    }
+}
@@ -0,0 +1,34 @@
+package com.study.service.codec;
+
+import com.study.service.dto.TrainDTO;
+
+/**
+ * Codec class for the binary encoding of TrainDTO objects.
+ */
+public class TrainCodec implements DtoCodec<TrainDTO> {
+
+    /**
+     * Writes the fields of a TrainDTO object.
+     *
+     * @param trainDTO the TrainDTO object to be written.
+     * @param out the writer.
+     */
+    @Override
+    public void write(TrainDTO trainDTO, BinaryWriter out) {
+        out.writeVarInt(trainDTO.getId());
+        out.writeVarInt(trainDTO.getAmountOfSeats());
+        out.writeSymbol(trainDTO.getTrainModel());
+        out.writeVarLong(trainDTO.getVersion());
+    }
+
+    /**
+     * Reads a TrainDTO object.
+     *
+     * @param in the reader.
+     * @return the TrainDTO object read.
+     */
+    @Override
+    public TrainDTO read(BinaryReader in) {
+        return new TrainDTO(in.readVarInt(), in.readVarInt()).trainModel(in.readSymbol()).version(in.readVarLong());
+    }
+}
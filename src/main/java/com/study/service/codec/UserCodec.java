@@ -0,0 +1,50 @@
+package com.study.service.codec;
+
+import com.study.service.dto.UserDTO;
+
+/**
+ * Codec class for the binary encoding of UserDTO objects.
+ */
+public class UserCodec implements DtoCodec<UserDTO> {
+
+    /**
+     * Writes the fields of a UserDTO object.
+     *
+     * @param userDTO the UserDTO object to be written.
+     * @param out the writer.
+     */
+    @Override
+    public void write(UserDTO userDTO, BinaryWriter out) {
+        out.writeVarInt(userDTO.getId());
+        out.writeString(userDTO.getFirstName());
+        out.writeString(userDTO.getMiddleName());
+        out.writeString(userDTO.getLastName());
+        out.writeDate(userDTO.getDateOfBirth());
+        out.writeSymbol(userDTO.getGender());
+        out.writeString(userDTO.getEmail());
+        out.writeString(userDTO.getPhoneNumber());
+        out.writeString(userDTO.getPassword());
+        out.writeVarLong(userDTO.getVersion());
+    }
+
+    /**
+     * Reads a UserDTO object.
+     *
+     * @param in the reader.
+     * @return the UserDTO object read.
+     */
+    @Override
+    public UserDTO read(BinaryReader in) {
+        return new UserDTO()
+                .id(in.readVarInt())
+                .firstName(in.readString())
+                .middleName(in.readString())
+                .lastName(in.readString())
+                .dateOfBirth(in.readDate())
+                .gender(in.readSymbol())
+                .email(in.readString())
+                .phoneNumber(in.readString())
+                .password(in.readString())
+                .version(in.readVarLong());
+    }
+}
@@ -13,6 +13,7 @@ import java.util.Set;
  */
 public class AgeGroupDTO implements Serializable {
     private int id;
+    private long version; //version of the entity when it was read
     private String type;
 
     public AgeGroupDTO() { }
@@ -48,6 +49,19 @@ public class AgeGroupDTO implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public AgeGroupDTO version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
 
     @Override
     public String toString() {
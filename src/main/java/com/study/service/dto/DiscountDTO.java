@@ -13,6 +13,7 @@ import java.util.Set;
  */
 public class DiscountDTO implements Serializable {
     private int id;
+    private long version; //version of the entity when it was read
     private String type;
     private Double percent;
     private LocalDate startAt; //optional
@@ -40,6 +41,19 @@ public class DiscountDTO implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public DiscountDTO version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getType() {
         return type;
     }
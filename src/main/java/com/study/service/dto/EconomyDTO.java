@@ -13,6 +13,7 @@ import java.util.Set;
  */
 public class EconomyDTO implements Serializable {
     private int id;
+    private long version; //version of the entity when it was read
     private String type;
 
     public EconomyDTO() { }
@@ -35,6 +36,19 @@ public class EconomyDTO implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public EconomyDTO version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getType() {
         return type;
     }
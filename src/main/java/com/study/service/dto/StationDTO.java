@@ -13,6 +13,7 @@ import java.util.Set;
  */
 public class StationDTO implements Serializable {
     private int id;
+    private long version; //version of the entity when it was read
     private String nameOfStation;
     private String addressLocation;
     private String stationPhone; //optional
@@ -47,6 +48,19 @@ public class StationDTO implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public StationDTO version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getNameOfStation() {
         return nameOfStation;
     }
@@ -13,11 +13,13 @@ import java.util.Set;
  */
 public class TicketDTO implements Serializable {
     private int id;
+    private long version; //version of the entity when it was read
     private LocalDate departDateBooking;
     private LocalDate returnDateBooking; //optional
     private LocalDate registrationDateTicket;
     private LocalDate returnDateTicket; //optional
     private double price;
+    private int seatNumber; //optional
     private UserDTO user;
     private StationDTO startStation;
     private StationDTO endStation;
@@ -142,6 +144,19 @@ public class TicketDTO implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public TicketDTO version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public LocalDate getDepartDateBooking() {
         return departDateBooking;
     }
@@ -176,6 +191,19 @@ public class TicketDTO implements Serializable {
         return returnDateTicket;
     }
 
+    public int getSeatNumber() {
+        return seatNumber;
+    }
+
+    public TicketDTO seatNumber(int seatNumber) {
+        this.seatNumber = seatNumber;
+        return this;
+    }
+
+    public void setSeatNumber(int seatNumber) {
+        this.seatNumber = seatNumber;
+    }
+
     public double getPrice() {
         return price;
     }
@@ -194,6 +222,7 @@ public class TicketDTO implements Serializable {
                 ", registrationDateTicket=" + registrationDateTicket +
                 ", returnDateTicket=" + returnDateTicket +
                 ", price=" + price +
+                ", seatNumber=" + seatNumber +
                 ", user=" + user +
                 ", startStation=" + startStation +
                 ", endStation=" + endStation +
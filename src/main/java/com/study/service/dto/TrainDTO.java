@@ -14,6 +14,7 @@ import java.util.Set;
 public class TrainDTO implements Serializable {
 
     private int id;
+    private long version; //version of the entity when it was read
     private int amountOfSeats;
     private String trainModel; //optional
     public TrainDTO(){ }
@@ -36,6 +37,19 @@ public class TrainDTO implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public TrainDTO version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getTrainModel() {
         return trainModel;
     }
@@ -14,6 +14,7 @@ import java.util.Set;
  */
 public class UserDTO implements Serializable {
     private int id;
+    private long version; //version of the entity when it was read
     private String firstName;
     private String middleName; //optional
     private String lastName;
@@ -74,6 +75,19 @@ public class UserDTO implements Serializable {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public UserDTO version(long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -0,0 +1,186 @@
+package com.study.service.inventory;
+
+import com.study.domain.Train;
+import com.study.repository.TicketRepository;
+import com.study.repository.TrainRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of sold seats for every train run, i.e. a train on a given departure date.
+ * Each run has its own counter updated with compare-and-set, so checking availability and
+ * reserving or releasing a seat are O(1) and a run can never be oversold, however many
+ * threads try to buy its last seat at once.
+ * The capacity of a run is the current number of seats of its train, read from the repository
+ * on every reservation, so a train that gains or loses seats is sold accordingly, and runs of an
+ * unknown train are refused without being remembered. A run starts from the number of its tickets
+ * already stored, e.g. recovered from disk after a restart, so seats sold before the inventory was created
+ * are not sold again; they are counted once, when the run is first sold or checked. Like the tickets of {@link TicketRepository}, the counters are shared by the whole
+ * process, so every inventory, and every service selling through one, sells from the same counters.
+ */
+public class SeatInventory {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /**
+     * Seat counters of all train runs, keyed by {@link #runKey(int, LocalDate)}; shared by all instances.
+     */
+    private static final ConcurrentHashMap<Long, SeatCounter> runs = new ConcurrentHashMap<>();
+
+    /**
+     * Repository used to look up the number of seats of a train.
+     */
+    private final TrainRepository trainRepository;
+
+    /**
+     * Repository of the tickets already sold, counted when a run is first used.
+     */
+    private final TicketRepository ticketRepository;
+
+    public SeatInventory() {
+        this(new TrainRepository());
+    }
+
+    public SeatInventory(TrainRepository trainRepository) {
+        this(trainRepository, new TicketRepository());
+    }
+
+    public SeatInventory(TrainRepository trainRepository, TicketRepository ticketRepository) {
+        this.trainRepository = trainRepository;
+        this.ticketRepository = ticketRepository;
+    }
+
+    /**
+     * Reserves one seat on a train run.
+     *
+     * @param trainId the ID of the train
+     * @param date the departure date
+     * @return true if a seat was reserved, false if the run is sold out or the train is unknown
+     */
+    public boolean reserve(int trainId, LocalDate date) {
+        Optional<Train> train = trainRepository.findById(trainId);
+        boolean reserved = train.isPresent()
+                && runs.computeIfAbsent(runKey(trainId, date), key -> countStored(trainId, date)).tryReserve(train.get().getAmountOfSeats());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Reserve seat on train {} at {}: {}", trainId, date, reserved);
+        }
+        return reserved;
+    }
+
+    /**
+     * Releases a seat previously reserved on a train run.
+     *
+     * @param trainId the ID of the train
+     * @param date the departure date
+     * @return true if a seat was released, false if no seat was reserved on this run
+     */
+    public boolean release(int trainId, LocalDate date) {
+        SeatCounter counter = runs.get(runKey(trainId, date));
+        boolean released = counter != null && counter.release();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Release seat on train {} at {}: {}", trainId, date, released);
+        }
+        return released;
+    }
+
+    /**
+     * Returns the number of seats still available on a train run.
+     *
+     * @param trainId the ID of the train
+     * @param date the departure date
+     * @return the number of free seats
+     */
+    public int availableSeats(int trainId, LocalDate date) {
+        return Math.max(0, capacityOf(trainId) - soldSeats(trainId, date));
+    }
+
+    /**
+     * Returns the number of seats sold on a train run. A run of a known train is started from its stored tickets
+     * the first time it is used, so afterwards this only reads its counter.
+     *
+     * @param trainId the ID of the train
+     * @param date the departure date
+     * @return the number of reserved seats, 0 for a run of an unknown train never sold
+     */
+    public int soldSeats(int trainId, LocalDate date) {
+        long key = runKey(trainId, date);
+        SeatCounter counter = runs.get(key);
+        if (counter == null && trainRepository.existById(trainId)) {
+            counter = runs.computeIfAbsent(key, k -> countStored(trainId, date));
+        }
+        return counter != null ? counter.sold() : 0;
+    }
+
+    /**
+     * Forgets the train runs of all inventories; a run is started again from its stored tickets when next used.
+     */
+    public void clear() {
+        runs.clear();
+        LOGGER.debug("Cleared seat inventory");
+    }
+
+    /**
+     * Creates the counter of a run from the tickets of the run already stored.
+     */
+    private SeatCounter countStored(int trainId, LocalDate date) {
+        int stored = ticketRepository.findByTrainIdAndDepartDate(trainId, date).size();
+        if (stored > 0 && LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Counted {} stored tickets on train {} at {}", stored, trainId, date);
+        }
+        return new SeatCounter(stored);
+    }
+
+    private int capacityOf(int trainId) {
+        return trainRepository.findById(trainId).map(Train::getAmountOfSeats).orElse(0);
+    }
+
+    /**
+     * Packs a train ID and a departure date into one key.
+     */
+    static long runKey(int trainId, LocalDate date) {
+        return ((long) trainId << 32) | (date.toEpochDay() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Lock-free counter of sold seats for one train run.
+     */
+    private static final class SeatCounter {
+
+        private final AtomicInteger sold;
+
+        private SeatCounter(int sold) {
+            this.sold = new AtomicInteger(sold);
+        }
+
+        private boolean tryReserve(int capacity) {
+            int current;
+            do {
+                current = sold.get();
+                if (current >= capacity) {
+                    return false;
+                }
+            } while (!sold.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private boolean release() {
+            int current;
+            do {
+                current = sold.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!sold.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        private int sold() {
+            return sold.get();
+        }
+    }
+}
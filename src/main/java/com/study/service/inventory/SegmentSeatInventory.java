@@ -0,0 +1,328 @@
+package com.study.service.inventory;
+
+import com.study.domain.Ticket;
+import com.study.domain.Train;
+import com.study.repository.TicketRepository;
+import com.study.repository.TrainRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Seat allocation per route segment for trains with a registered route.
+ * A route is the ordered list of stations a train stops at; segment {@code i} is the stretch between
+ * stop {@code i} and stop {@code i + 1}. For every train run each seat keeps a bitmap of its occupied
+ * segments, so a seat sold from A to B can be sold again from B to C.
+ *
+ * Seats are claimed with compare-and-set on the seat's bitmap, so finding and taking a free seat
+ * for any pair of stations is a scan over the seats of one run without waiting for other buyers.
+ * Only seats below the current number of seats of the train, read from the repository on every
+ * allocation, are sold; when a train gains seats the bitmaps of its runs grow under the run's write
+ * lock, while allocations and releases share its read lock. Runs of an unknown train are refused
+ * without being remembered. A run starts with the seats of its tickets already stored, e.g. recovered
+ * from disk after a restart, marked occupied, so they are not sold again; the route of the train must be
+ * registered before. Like the tickets of {@link TicketRepository}, routes and runs are shared by the whole
+ * process, so every inventory, and every service selling through one, sells from the same seats.
+ */
+public class SegmentSeatInventory {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /**
+     * A bitmap of one {@code long} per seat limits a route to 64 stops.
+     */
+    public static final int MAX_ROUTE_STOPS = Long.SIZE;
+
+    /**
+     * Routes by train ID: station ID to stop index; shared by all instances.
+     */
+    private static final ConcurrentHashMap<Integer, Map<Integer, Integer>> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Seat bitmaps of all train runs, keyed by train ID and departure date; shared by all instances.
+     */
+    private static final ConcurrentHashMap<Long, Run> runs = new ConcurrentHashMap<>();
+
+    /**
+     * Repository used to look up the number of seats of a train.
+     */
+    private final TrainRepository trainRepository;
+
+    /**
+     * Repository of the tickets already sold, whose seats are marked when a run is first used.
+     */
+    private final TicketRepository ticketRepository;
+
+    public SegmentSeatInventory() {
+        this(new TrainRepository());
+    }
+
+    public SegmentSeatInventory(TrainRepository trainRepository) {
+        this(trainRepository, new TicketRepository());
+    }
+
+    public SegmentSeatInventory(TrainRepository trainRepository, TicketRepository ticketRepository) {
+        this.trainRepository = trainRepository;
+        this.ticketRepository = ticketRepository;
+    }
+
+    /**
+     * Registers the route of a train.
+     *
+     * @param trainId the ID of the train
+     * @param stationIds the IDs of the stations the train stops at, in travel order
+     */
+    public void registerRoute(int trainId, List<Integer> stationIds) {
+        if (stationIds.size() < 2 || stationIds.size() > MAX_ROUTE_STOPS) {
+            throw new IllegalArgumentException("A route needs 2 to " + MAX_ROUTE_STOPS + " stops: " + stationIds);
+        }
+        Map<Integer, Integer> stops = new HashMap<>();
+        for (int i = 0; i < stationIds.size(); i++) {
+            if (stops.put(stationIds.get(i), i) != null) {
+                throw new IllegalArgumentException("Station " + stationIds.get(i) + " appears twice in route " + stationIds);
+            }
+        }
+        routes.put(trainId, Map.copyOf(stops));
+        LOGGER.debug("Registered route of train {}: {}", trainId, stationIds);
+    }
+
+    /**
+     * Checks if a route is registered for a train.
+     *
+     * @param trainId the ID of the train
+     * @return true if the train has a route, otherwise false
+     */
+    public boolean hasRoute(int trainId) {
+        return routes.containsKey(trainId);
+    }
+
+    /**
+     * Finds a seat free between two stations and reserves it.
+     *
+     * @param trainId the ID of the train
+     * @param date the departure date
+     * @param startStationId the station where the passenger boards
+     * @param endStationId the station where the passenger leaves
+     * @return the reserved seat number, starting at 1, or empty if no seat is free or the trip is not on the route
+     */
+    public OptionalInt allocate(int trainId, LocalDate date, int startStationId, int endStationId) {
+        long mask = segmentMask(trainId, startStationId, endStationId);
+        if (mask == 0) {
+            return OptionalInt.empty();
+        }
+        int capacity = capacityOf(trainId);
+        if (capacity == 0) {
+            return OptionalInt.empty();
+        }
+        Run run = runs.computeIfAbsent(SeatInventory.runKey(trainId, date), key -> markStored(trainId, date));
+        long stamp = run.lockFor(capacity);
+        try {
+            AtomicLongArray seats = run.seats;
+            for (int seat = 0; seat < capacity; seat++) {
+                long occupied = seats.get(seat);
+                while ((occupied & mask) == 0) {
+                    if (seats.compareAndSet(seat, occupied, occupied | mask)) {
+                        if (LOGGER.isDebugEnabled()) {
+                            LOGGER.debug("Allocated seat {} on train {} at {}", seat + 1, trainId, date);
+                        }
+                        return OptionalInt.of(seat + 1);
+                    }
+                    occupied = seats.get(seat);
+                }
+            }
+        } finally {
+            run.lock.unlockRead(stamp);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("No seat free on train {} at {} from {} to {}", trainId, date, startStationId, endStationId);
+        }
+        return OptionalInt.empty();
+    }
+
+    /**
+     * Releases a seat previously allocated between two stations.
+     *
+     * @param trainId the ID of the train
+     * @param date the departure date
+     * @param seatNumber the seat number returned by {@link #allocate(int, LocalDate, int, int)}
+     * @param startStationId the station where the passenger boards
+     * @param endStationId the station where the passenger leaves
+     * @return true if the seat was released, false if it was not allocated for this trip
+     */
+    public boolean release(int trainId, LocalDate date, int seatNumber, int startStationId, int endStationId) {
+        long mask = segmentMask(trainId, startStationId, endStationId);
+        Run run = runs.get(SeatInventory.runKey(trainId, date));
+        if (mask == 0 || run == null || seatNumber < 1) {
+            return false;
+        }
+        long stamp = run.lock.readLock();
+        try {
+            AtomicLongArray seats = run.seats;
+            if (seatNumber > seats.length()) {
+                return false;
+            }
+            int seat = seatNumber - 1;
+            long occupied = seats.get(seat);
+            while ((occupied & mask) == mask) {
+                if (seats.compareAndSet(seat, occupied, occupied & ~mask)) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Released seat {} on train {} at {}", seatNumber, trainId, date);
+                    }
+                    return true;
+                }
+                occupied = seats.get(seat);
+            }
+            return false;
+        } finally {
+            run.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Counts the seats free between two stations.
+     *
+     * @param trainId the ID of the train
+     * @param date the departure date
+     * @param startStationId the station where the passenger boards
+     * @param endStationId the station where the passenger leaves
+     * @return the number of seats free for the whole trip
+     */
+    public int freeSeats(int trainId, LocalDate date, int startStationId, int endStationId) {
+        long mask = segmentMask(trainId, startStationId, endStationId);
+        if (mask == 0) {
+            return 0;
+        }
+        int capacity = capacityOf(trainId);
+        if (capacity == 0) {
+            return 0;
+        }
+        Run run = runs.computeIfAbsent(SeatInventory.runKey(trainId, date), key -> markStored(trainId, date));
+        int free = 0;
+        long stamp = run.lock.readLock();
+        try {
+            AtomicLongArray seats = run.seats;
+            for (int seat = 0; seat < capacity; seat++) {
+                if (seat >= seats.length() || (seats.get(seat) & mask) == 0) {
+                    free++;
+                }
+            }
+        } finally {
+            run.lock.unlockRead(stamp);
+        }
+        return free;
+    }
+
+    /**
+     * Forgets the routes and train runs of all inventories.
+     */
+    public void clear() {
+        routes.clear();
+        runs.clear();
+        LOGGER.debug("Cleared segment seat inventory");
+    }
+
+    /**
+     * Forgets the train runs of all inventories, keeping the routes; a run is started again from its stored tickets
+     * when next used.
+     */
+    public void clearRuns() {
+        runs.clear();
+        LOGGER.debug("Cleared train runs of segment seat inventory");
+    }
+
+    /**
+     * Builds the bitmap of the segments between two stops of a train's route.
+     *
+     * @return the segment bitmap, or 0 if the train has no route or the trip does not run forward along it
+     */
+    private long segmentMask(int trainId, int startStationId, int endStationId) {
+        Map<Integer, Integer> stops = routes.get(trainId);
+        if (stops == null) {
+            return 0;
+        }
+        Integer start = stops.get(startStationId);
+        Integer end = stops.get(endStationId);
+        if (start == null || end == null || start >= end) {
+            return 0;
+        }
+        return (-1L >>> (Long.SIZE - end)) & (-1L << start);
+    }
+
+    /**
+     * Creates the bitmaps of a run with the seats of the tickets of the run already stored marked occupied.
+     */
+    private Run markStored(int trainId, LocalDate date) {
+        List<Ticket> stored = ticketRepository.findByTrainIdAndDepartDate(trainId, date);
+        int length = 0;
+        for (Ticket ticket : stored) {
+            length = Math.max(length, ticket.getSeatNumber());
+        }
+        AtomicLongArray seats = new AtomicLongArray(length);
+        for (Ticket ticket : stored) {
+            if (ticket.getSeatNumber() > 0 && ticket.getStartStation() != null && ticket.getEndStation() != null) {
+                int seat = ticket.getSeatNumber() - 1;
+                long mask = segmentMask(trainId, ticket.getStartStation().getId(), ticket.getEndStation().getId());
+                seats.set(seat, seats.get(seat) | mask);
+            }
+        }
+        if (!stored.isEmpty() && LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Marked seats of {} stored tickets on train {} at {}", stored.size(), trainId, date);
+        }
+        return new Run(seats);
+    }
+
+    private int capacityOf(int trainId) {
+        return trainRepository.findById(trainId).map(Train::getAmountOfSeats).orElse(0);
+    }
+
+    /**
+     * Seat bitmaps of one train run, grown when the train gains seats.
+     */
+    private static final class Run {
+
+        private final StampedLock lock = new StampedLock();
+
+        /**
+         * Replaced under the write lock only; read under the read lock.
+         */
+        private AtomicLongArray seats;
+
+        private Run(AtomicLongArray seats) {
+            this.seats = seats;
+        }
+
+        /**
+         * Takes the read lock of the run, first growing the bitmaps to at least {@code capacity} seats.
+         *
+         * @return the stamp of the read lock
+         */
+        private long lockFor(int capacity) {
+            long stamp = lock.readLock();
+            if (seats.length() >= capacity) {
+                return stamp;
+            }
+            lock.unlockRead(stamp);
+            stamp = lock.writeLock();
+            try {
+                if (seats.length() < capacity) {
+                    AtomicLongArray grown = new AtomicLongArray(capacity);
+                    for (int seat = 0; seat < seats.length(); seat++) {
+                        grown.set(seat, seats.get(seat));
+                    }
+                    seats = grown;
+                }
+            } finally {
+                stamp = lock.tryConvertToReadLock(stamp);
+            }
+            return stamp;
+        }
+    }
+}
@@ -28,6 +28,7 @@ public class AgeGroupMapper implements Mapper<AgeGroupDTO, AgeGroup> {
             LOGGER.debug("Converted from ageGroup to AgeGroupDTO: {}", ageGroup);
             return new AgeGroupDTO()
                     .id(ageGroup.getId())
+                    .version(ageGroup.getVersion())
                     .type(ageGroup.getType());
         }
         return new AgeGroupDTO();
@@ -78,6 +79,7 @@ public class AgeGroupMapper implements Mapper<AgeGroupDTO, AgeGroup> {
         if (ageGroupDTO != null){
             return new AgeGroup()
                     .id(ageGroupDTO.getId())
+                    .version(ageGroupDTO.getVersion())
                     .type(ageGroupDTO.getType());
         }
         return new AgeGroup();
@@ -29,6 +29,7 @@ public class DiscountMapper implements Mapper<DiscountDTO, Discount>{
             LOGGER.debug("Converted from Discount to DiscountDTO: {}", discount);
             return new DiscountDTO()
                     .id(discount.getId())
+                    .version(discount.getVersion())
                     .type(discount.getType())
                     .percent(discount.getPercent())
                     .startAt(discount.getStartAt())
@@ -103,6 +104,7 @@ public class DiscountMapper implements Mapper<DiscountDTO, Discount>{
         if (discountDTO != null){
             return new Discount()
                     .id(discountDTO.getId())
+                    .version(discountDTO.getVersion())
                     .type(discountDTO.getType())
                     .percent(discountDTO.getPercent())
                     .startAt(discountDTO.getStartAt())
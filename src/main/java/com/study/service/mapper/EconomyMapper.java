@@ -29,6 +29,7 @@ public class EconomyMapper implements Mapper<EconomyDTO, Economy>{
             LOGGER.debug("Converted from Economy to EconomyDTO: {}", economy);
             return new EconomyDTO()
                     .id(economy.getId())
+                    .version(economy.getVersion())
                     .type(economy.getType());
         }
         return new EconomyDTO();
@@ -82,6 +83,7 @@ public class EconomyMapper implements Mapper<EconomyDTO, Economy>{
         if (economyDTO != null){
             return new Economy()
                     .id(economyDTO.getId())
+                    .version(economyDTO.getVersion())
                     .type(economyDTO.getType());
         }
         return new Economy();
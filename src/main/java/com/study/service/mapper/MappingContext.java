@@ -0,0 +1,124 @@
+package com.study.service.mapper;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Remembers the objects already converted during one mapping call, so an object referenced
+ * from several places of the converted graph (e.g. the train shared by a list of tickets)
+ * is converted once and the result is shared instead of being copied for every reference.
+ * Objects are recognised either by identity or, for stored entities, by type and ID,
+ * which also covers separate copies of the same entity.
+ * A context is meant for a single call and is not thread-safe.
+ */
+public class MappingContext {
+
+    /**
+     * Context of conversions of a single object, which remembers nothing.
+     */
+    private static final MappingContext NONE = new MappingContext(false);
+
+    private final boolean caching;
+
+    /**
+     * Converted objects by their source object, compared by identity.
+     * Created on first use, so contexts of calls without shared references stay cheap.
+     */
+    private Map<Object, Object> converted;
+
+    /**
+     * Converted objects by the type and ID of their source object. Created on first use.
+     */
+    private Map<Class<?>, Map<Integer, Object>> convertedById;
+
+    public MappingContext() {
+        this(true);
+    }
+
+    private MappingContext(boolean caching) {
+        this.caching = caching;
+    }
+
+    /**
+     * Returns a context that converts every object again, for calls converting a single object
+     * where there is nothing worth sharing. Unlike other contexts it may be used from any thread.
+     *
+     * @return the non-caching context
+     */
+    public static MappingContext none() {
+        return NONE;
+    }
+
+    /**
+     * Converts an object, or returns the result of an earlier conversion of the same object.
+     * A null source is passed to the converter every time and its result is not remembered.
+     *
+     * @param source the object to convert
+     * @param converter the conversion to apply to objects not converted yet
+     * @return the converted object
+     */
+    @SuppressWarnings("unchecked")
+    public <S, T> T convert(S source, Function<S, T> converter) {
+        if (source == null || !caching) {
+            return converter.apply(source);
+        }
+        if (converted == null) {
+            converted = new IdentityHashMap<>();
+        }
+        T target = (T) converted.get(source);
+        if (target == null) {
+            target = converter.apply(source);
+            converted.put(source, target);
+        }
+        return target;
+    }
+
+    /**
+     * Converts an object, or returns the result of an earlier conversion of an object
+     * of the same type with the same ID. Objects without an ID (0) are recognised by identity.
+     * A null source is passed to the converter every time and its result is not remembered.
+     *
+     * @param source the object to convert
+     * @param idOf reads the ID of the source object
+     * @param converter the conversion to apply to objects not converted yet
+     * @return the converted object
+     */
+    @SuppressWarnings("unchecked")
+    public <S, T> T convert(S source, ToIntFunction<S> idOf, Function<S, T> converter) {
+        if (source == null || !caching) {
+            return converter.apply(source);
+        }
+        int id = idOf.applyAsInt(source);
+        if (id == 0) {
+            return convert(source, converter);
+        }
+        if (convertedById == null) {
+            convertedById = new HashMap<>();
+        }
+        Map<Integer, Object> ofType = convertedById.computeIfAbsent(source.getClass(), type -> new HashMap<>());
+        T target = (T) ofType.get(id);
+        if (target == null) {
+            target = converter.apply(source);
+            ofType.put(id, target);
+        }
+        return target;
+    }
+
+    /**
+     * Returns the number of objects converted in this context.
+     *
+     * @return the number of remembered conversions
+     */
+    public int size() {
+        int size = converted == null ? 0 : converted.size();
+        if (convertedById != null) {
+            for (Map<Integer, Object> ofType : convertedById.values()) {
+                size += ofType.size();
+            }
+        }
+        return size;
+    }
+}
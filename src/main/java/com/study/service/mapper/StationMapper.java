@@ -29,6 +29,7 @@ public class StationMapper implements Mapper<StationDTO, Station>{
             LOGGER.debug("Converted from Station to StationDTO: {}", station);
             return new StationDTO()
                     .id(station.getId())
+                    .version(station.getVersion())
                     .nameOfStation(station.getNameOfStation())
                     .addressLocation(station.getAddressLocation())
                     .stationPhone(station.getStationPhone());
@@ -84,6 +85,7 @@ public class StationMapper implements Mapper<StationDTO, Station>{
         if (stationDTO != null){
             return new Station()
                     .id(stationDTO.getId())
+                    .version(stationDTO.getVersion())
                     .nameOfStation(stationDTO.getNameOfStation()).
                     addressLocation(stationDTO.getAddressLocation())
                     .stationPhone(stationDTO.getStationPhone());
@@ -24,22 +24,37 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
      */
     @Override
     public TicketDTO toDTO(Ticket ticket) {
+        return toDTO(ticket, MappingContext.none());
+    }
+
+    /**
+     * Converts a Ticket object to a TicketDTO object within a mapping context.
+     * Referenced entities already converted in the context, recognised by type and ID,
+     * are shared instead of converted again.
+     *
+     * @param ticket the Ticket object to be converted.
+     * @param context the context of the current mapping call.
+     * @return the converted TicketDTO object, or a new TicketDTO if the input is null.
+     */
+    protected TicketDTO toDTO(Ticket ticket, MappingContext context) {
         if (ticket != null) {
              LOGGER.debug("Converted from Ticket to TicketDTO: {}", ticket);
              TicketDTO ticketDTO = new TicketDTO();
              ticketDTO.setId(ticket.getId());
+             ticketDTO.setVersion(ticket.getVersion());
              ticketDTO.setDepartDateBooking(ticket.getDepartDateBooking());
              ticketDTO.setReturnDateBooking(ticket.getReturnDateBooking());
              ticketDTO.setRegistrationDateTicket(ticket.getRegistrationDateTicket());
              ticketDTO.setReturnDateTicket(ticket.getReturnDateTicket());
              ticketDTO.setPrice(ticket.getPrice());
-             ticketDTO.setUser(toUserDTO(ticket.getUser()));
-             ticketDTO.setStartStation(toStationDTO(ticket.getStartStation()));
-             ticketDTO.setEndStation(toStationDTO(ticket.getEndStation()));
-             ticketDTO.setTrain(toTrainDTO(ticket.getTrain()));
-             ticketDTO.setEconomy(toEconomyDTO(ticket.getEconomy()));
-             ticketDTO.setAgeGroup(toAgeGroupDTO(ticket.getAgeGroup()));
-             ticketDTO.setDiscounts(toDiscountsDTO(ticket.getDiscounts()));
+             ticketDTO.setSeatNumber(ticket.getSeatNumber());
+             ticketDTO.setUser(context.convert(ticket.getUser(), User::getId, this::toUserDTO));
+             ticketDTO.setStartStation(context.convert(ticket.getStartStation(), Station::getId, this::toStationDTO));
+             ticketDTO.setEndStation(context.convert(ticket.getEndStation(), Station::getId, this::toStationDTO));
+             ticketDTO.setTrain(context.convert(ticket.getTrain(), Train::getId, this::toTrainDTO));
+             ticketDTO.setEconomy(context.convert(ticket.getEconomy(), Economy::getId, this::toEconomyDTO));
+             ticketDTO.setAgeGroup(context.convert(ticket.getAgeGroup(), AgeGroup::getId, this::toAgeGroupDTO));
+             ticketDTO.setDiscounts(toDiscountsDTO(ticket.getDiscounts(), context));
              return ticketDTO;
         }
         return new TicketDTO();
@@ -63,6 +78,8 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
 
     /**
      * Converts a list of Ticket objects to a list of TicketDTO objects.
+     * Entities referenced by several tickets, e.g. their train or stations, are converted once per ID
+     * and the DTO is shared, even if the tickets hold separate copies of the entity.
      * Logs the conversion if the list is not empty.
      *
      * @param tickets the list of Ticket objects to be converted.
@@ -72,9 +89,10 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
     public List<TicketDTO> toDTO(List<Ticket> tickets) {
         if (!tickets.isEmpty()){
             LOGGER.debug("Converting list of Tickets to list of TicketsDTO");
+            MappingContext context = new MappingContext();
             return tickets.stream()
                     .filter(Objects::nonNull)
-                    .map(this::toDTO)
+                    .map(ticket -> toDTO(ticket, context))
                     .toList();
         }
         return List.of();
@@ -89,22 +107,37 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
      */
     @Override
     public Ticket toEntity(TicketDTO ticketDTO) {
+        return toEntity(ticketDTO, MappingContext.none());
+    }
+
+    /**
+     * Converts a TicketDTO object to a Ticket object within a mapping context.
+     * Referenced DTOs already converted in the context are shared instead of converted again,
+     * so tickets referencing the same DTO end up in the ticket set of the same entity.
+     *
+     * @param ticketDTO the TicketDTO object to be converted.
+     * @param context the context of the current mapping call.
+     * @return the converted Ticket object, or a new Ticket if the input is null.
+     */
+    protected Ticket toEntity(TicketDTO ticketDTO, MappingContext context) {
         if (ticketDTO != null) {
             LOGGER.debug("Converted from TicketDTO to Ticket: {}", ticketDTO);
             Ticket ticket = new Ticket();
             ticket.setId(ticketDTO.getId());
+            ticket.setVersion(ticketDTO.getVersion());
             ticket.setDepartDateBooking(ticketDTO.getDepartDateBooking());
             ticket.setReturnDateBooking(ticketDTO.getReturnDateBooking());
             ticket.setRegistrationDateTicket(ticketDTO.getRegistrationDateTicket());
             ticket.setReturnDateTicket(ticketDTO.getReturnDateTicket());
             ticket.setPrice(ticketDTO.getPrice());
-            ticket.setUser(toUserEntity(ticketDTO.getUser()));
-            ticket.setStartStation(toStationEntity(ticketDTO.getStartStation()));
-            ticket.setEndStation(toStationEntity(ticketDTO.getEndStation()));
-            ticket.setTrain(toTrainEntity(ticketDTO.getTrain()));
-            ticket.setEconomy(toEconomyEntity(ticketDTO.getEconomy()));
-            ticket.setAgeGroup(toAgeGroupEntity(ticketDTO.getAgeGroup()));
-            ticket.setDiscounts(toDiscountEntity((ticketDTO.getDiscounts())));
+            ticket.setSeatNumber(ticketDTO.getSeatNumber());
+            ticket.setUser(context.convert(ticketDTO.getUser(), this::toUserEntity));
+            ticket.setStartStation(context.convert(ticketDTO.getStartStation(), this::toStationEntity));
+            ticket.setEndStation(context.convert(ticketDTO.getEndStation(), this::toStationEntity));
+            ticket.setTrain(context.convert(ticketDTO.getTrain(), this::toTrainEntity));
+            ticket.setEconomy(context.convert(ticketDTO.getEconomy(), this::toEconomyEntity));
+            ticket.setAgeGroup(context.convert(ticketDTO.getAgeGroup(), this::toAgeGroupEntity));
+            ticket.setDiscounts(toDiscountEntity(ticketDTO.getDiscounts(), context));
             return ticket;
         }
         return new Ticket();
@@ -112,6 +145,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
 
     /**
      * Converts a list of TicketDTO objects to a list of Ticket objects.
+     * DTOs referenced by several tickets are converted once and shared by their entities.
      * Logs the conversion if the list is not empty.
      *
      * @param ticketsDTO the list of TicketDTO objects to be converted.
@@ -121,9 +155,10 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
     public List<Ticket> toEntity(List<TicketDTO> ticketsDTO) {
         if (!ticketsDTO.isEmpty()){
             LOGGER.debug("Converting list of TicketDTOs to list of Tickets");
+            MappingContext context = new MappingContext();
             return ticketsDTO.stream()
                     .filter(Objects::nonNull)
-                    .map(this::toEntity)
+                    .map(ticketDTO -> toEntity(ticketDTO, context))
                     .toList();
         }
         return List.of();
@@ -140,6 +175,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
             LOGGER.debug("Converted from User to UserDTO: {}", user);
             return new UserDTO()
                     .id(user.getId())
+                    .version(user.getVersion())
                     .firstName(user.getFirstName())
                     .lastName(user.getLastName())
                     .dateOfBirth(user.getDateOfBirth());
@@ -158,6 +194,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
             LOGGER.debug("Converted from UserDTO to User: {}", userDTO);
             return new User()
                     .id(userDTO.getId())
+                    .version(userDTO.getVersion())
                     .firstName(userDTO.getFirstName())
                     .lastName(userDTO.getLastName())
                     .dateOfBirth(userDTO.getDateOfBirth());
@@ -176,6 +213,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
             LOGGER.debug("Converted from Train to TrainDTO: {}", train);
             return new TrainDTO()
                     .id(train.getId())
+                    .version(train.getVersion())
                     .trainModel(train.getTrainModel());
         }
         return new TrainDTO();
@@ -192,6 +230,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
         if (trainDTO != null){
             return new Train()
                     .id(trainDTO.getId())
+                    .version(trainDTO.getVersion())
                     .trainModel(trainDTO.getTrainModel());
         }
         return new Train();
@@ -208,6 +247,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
             LOGGER.debug("Converted from Station to StationDTO: {}", station);
             return new StationDTO()
                     .id(station.getId())
+                    .version(station.getVersion())
                     .nameOfStation(station.getNameOfStation())
                     .addressLocation(station.getAddressLocation());
         }
@@ -225,6 +265,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
         if (stationDTO != null){
             return new Station()
                     .id(stationDTO.getId())
+                    .version(stationDTO.getVersion())
                     .nameOfStation(stationDTO.getNameOfStation()).
                     addressLocation(stationDTO.getAddressLocation());
         }
@@ -242,6 +283,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
             LOGGER.debug("Converted from Economy to EconomyDTO: {}", economy);
             return new EconomyDTO()
                     .id(economy.getId())
+                    .version(economy.getVersion())
                     .type(economy.getType());
         }
         return new EconomyDTO();
@@ -258,6 +300,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
         if (economyDTO != null){
             return new Economy()
                     .id(economyDTO.getId())
+                    .version(economyDTO.getVersion())
                     .type(economyDTO.getType());
         }
         return new Economy();
@@ -274,6 +317,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
             LOGGER.debug("Converted from ageGroup to AgeGroupDTO: {}", ageGroup);
             return new AgeGroupDTO()
                     .id(ageGroup.getId())
+                    .version(ageGroup.getVersion())
                     .type(ageGroup.getType());
         }
         return new AgeGroupDTO();
@@ -290,6 +334,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
         if (ageGroupDTO != null){
             return new AgeGroup()
                     .id(ageGroupDTO.getId())
+                    .version(ageGroupDTO.getVersion())
                     .type(ageGroupDTO.getType());
         }
         return new AgeGroup();
@@ -306,6 +351,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
             LOGGER.debug("Converted from Discount to DiscountDTO: {}", discount);
             return new DiscountDTO()
                     .id(discount.getId())
+                    .version(discount.getVersion())
                     .type(discount.getType())
                     .percent(discount.getPercent());
         }
@@ -319,11 +365,22 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
      * @return the corresponding set of DiscountDTOs, or an empty set if the input is null or empty
      */
     protected Set<DiscountDTO> toDiscountsDTO(Set<Discount> discounts) {
+        return toDiscountsDTO(discounts, MappingContext.none());
+    }
+
+    /**
+     * Converts a set of Discount entities to a set of DiscountDTOs within a mapping context.
+     *
+     * @param discounts the set of Discount entities to convert
+     * @param context the context of the current mapping call
+     * @return the corresponding set of DiscountDTOs, or an empty set if the input is null or empty
+     */
+    protected Set<DiscountDTO> toDiscountsDTO(Set<Discount> discounts, MappingContext context) {
         if (!discounts.isEmpty()){
             LOGGER.debug("Converting list of Discounts to list of DiscountsDTO");
             return discounts.stream()
                     .filter(Objects::nonNull)
-                    .map(this::toDiscountDTO)
+                    .map(discount -> context.convert(discount, Discount::getId, this::toDiscountDTO))
                     .collect(Collectors.toSet());
         }
         return Collections.emptySet();
@@ -340,6 +397,7 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
         if (discountDTO != null){
             return new Discount()
                     .id(discountDTO.getId())
+                    .version(discountDTO.getVersion())
                     .type(discountDTO.getType())
                     .percent(discountDTO.getPercent());
         }
@@ -353,11 +411,22 @@ public class TicketMapper implements Mapper<TicketDTO, Ticket>{
      * @return the corresponding set of Discount entities, or an empty set if the input is null or empty
      */
     protected Set<Discount> toDiscountEntity(Set<DiscountDTO> discounts) {
+        return toDiscountEntity(discounts, MappingContext.none());
+    }
+
+    /**
+     * Converts a set of DiscountDTOs to a set of Discount entities within a mapping context.
+     *
+     * @param discounts the set of DiscountDTOs to convert
+     * @param context the context of the current mapping call
+     * @return the corresponding set of Discount entities, or an empty set if the input is null or empty
+     */
+    protected Set<Discount> toDiscountEntity(Set<DiscountDTO> discounts, MappingContext context) {
         if (!discounts.isEmpty()){
             LOGGER.debug("Converting set of Discounts to set of DiscountsDTO");
             return discounts.stream()
                     .filter(Objects::nonNull)
-                    .map(this::toDiscountEntity)
+                    .map(discountDTO -> context.convert(discountDTO, this::toDiscountEntity))
                     .collect(Collectors.toSet());
         }
         return Collections.emptySet();
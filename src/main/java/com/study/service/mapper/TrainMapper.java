@@ -29,6 +29,7 @@ public class TrainMapper implements Mapper<TrainDTO, Train>{
             LOGGER.debug("Converted from Train to TrainDTO: {}", train);
             return new TrainDTO()
                     .id(train.getId())
+                    .version(train.getVersion())
                     .amountOfSeats(train.getAmountOfSeats())
                     .trainModel(train.getTrainModel());
         }
@@ -84,6 +85,7 @@ public class TrainMapper implements Mapper<TrainDTO, Train>{
         if (trainDTO != null){
             return new Train()
                     .id(trainDTO.getId())
+                    .version(trainDTO.getVersion())
                     .amountOfSeats(trainDTO.getAmountOfSeats())
                     .trainModel(trainDTO.getTrainModel());
         }
@@ -29,6 +29,7 @@ public class UserMapper implements Mapper<UserDTO, User>{
             LOGGER.debug("Converted from User to UserDTO: {}", user);
             return new UserDTO()
                     .id(user.getId())
+                    .version(user.getVersion())
                     .firstName(user.getFirstName())
                     .middleName(user.getMiddleName())
                     .lastName(user.getLastName())
@@ -89,6 +90,7 @@ public class UserMapper implements Mapper<UserDTO, User>{
         if (userDTO != null){
             return new User()
                     .id(userDTO.getId())
+                    .version(userDTO.getVersion())
                     .firstName(userDTO.getFirstName())
                     .middleName(userDTO.getMiddleName())
                     .lastName(userDTO.getLastName())
@@ -0,0 +1,133 @@
+package com.study.service.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer, built like the ring buffer of a disruptor:
+ * a pre-allocated array of slots, each with a sequence number telling whether it is free for the producer
+ * of a given position or holds an element for the consumer.
+ * Producers claim a position with one compare-and-set on the tail and publish the element by advancing
+ * the sequence of its slot; the consumer alone moves the head, so it needs no atomic operation at all.
+ * Neither side ever blocks: a producer finding the buffer full gets false, the consumer finding it empty gets null.
+ *
+ * @param <E> the type of elements
+ */
+public class MpscRingBuffer<E> {
+
+    private final Object[] elements;
+
+    /**
+     * Sequence of every slot: equal to a position when the slot is free for the producer of that position,
+     * one more than the position once the element is published, and a capacity further on once it is consumed.
+     */
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    /**
+     * Next position to be claimed by a producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Next position to be consumed; written by the consumer only.
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity the minimum number of elements the buffer holds, rounded up to a power of two
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        elements = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Adds an element at the tail of the buffer. Safe to call from any number of threads.
+     *
+     * @param element the element, must not be null
+     * @return true if the element was added, false if the buffer is full
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[slot] = element;
+                    // publishing the sequence makes the element visible to the consumer
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // the slot still holds the element of the previous lap
+                return false;
+            } else {
+                // another producer claimed this position meanwhile
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the element at the head of the buffer. Must only be called by the consumer thread.
+     *
+     * @return the element, or null if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = head;
+        int slot = (int) position & mask;
+        if (sequences.get(slot) != position + 1) {
+            return null;
+        }
+        E element = (E) elements[slot];
+        elements[slot] = null;
+        // frees the slot for the producer of the next lap
+        sequences.set(slot, position + elements.length);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * Checks if the buffer holds no published element.
+     *
+     * @return true if the buffer is empty
+     */
+    public boolean isEmpty() {
+        long position = head;
+        return sequences.get((int) position & mask) != position + 1;
+    }
+
+    /**
+     * Returns the number of elements claimed but not yet consumed, including those still being published.
+     *
+     * @return the approximate number of elements in the buffer
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head, elements.length));
+    }
+
+    /**
+     * Returns the number of elements the buffer holds.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return elements.length;
+    }
+}
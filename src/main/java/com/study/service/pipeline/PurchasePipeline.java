@@ -0,0 +1,252 @@
+package com.study.service.pipeline;
+
+import com.study.service.TicketService;
+import com.study.service.dto.TicketDTO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Sells tickets through partitions by train: every purchase is queued to the partition of its train
+ * and carried out by the single worker thread owning that partition.
+ * All purchases of one train are therefore made one after the other by the same thread, so they never
+ * contend with each other for its seats, while trains of different partitions are served in parallel
+ * by as many workers as there are partitions.
+ * Each partition is fed through a bounded {@link MpscRingBuffer}, so callers never take a lock;
+ * a caller finding the queue of its partition full waits until the worker has made room.
+ * Idle workers spin briefly, then park until a purchase arrives.
+ * A purchase throwing anything, errors included, only fails its own future; should a worker die all the same,
+ * the purchases queued to its partition fail and the partition refuses new ones.
+ * The pipeline owns its worker threads and must be closed on shutdown.
+ */
+public class PurchasePipeline implements AutoCloseable {
+
+    private final static Logger LOGGER = LogManager.getLogger();
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /**
+     * Number of empty polls before an idle worker parks.
+     */
+    private static final int SPINS_BEFORE_PARK = 256;
+
+    private final Function<TicketDTO, Optional<TicketDTO>> purchase;
+
+    private final Partition[] partitions;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a pipeline selling through {@link TicketService#purchase(TicketDTO)},
+     * with one partition per available processor.
+     *
+     * @param ticketService the service making the purchases
+     */
+    public PurchasePipeline(TicketService ticketService) {
+        this(ticketService::purchase, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a pipeline and starts its workers.
+     *
+     * @param purchase the purchase made by the workers, as {@link TicketService#purchase(TicketDTO)}
+     * @param partitions the number of partitions, i.e. of worker threads
+     * @param queueCapacity the number of purchases each partition can queue
+     */
+    public PurchasePipeline(Function<TicketDTO, Optional<TicketDTO>> purchase, int partitions, int queueCapacity) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("Number of partitions must be positive: " + partitions);
+        }
+        this.purchase = purchase;
+        this.partitions = new Partition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new Partition(i, queueCapacity);
+        }
+        for (Partition partition : this.partitions) {
+            partition.worker.start();
+        }
+        LOGGER.debug("Started purchase pipeline with {} partitions", partitions);
+    }
+
+    /**
+     * Queues a purchase to the partition of its train.
+     *
+     * @param ticketDTO the TicketDTO object to sell, with a train and a departure date
+     * @return a future completed by the worker with the result of {@link TicketService#purchase(TicketDTO)},
+     * or completed exceptionally if the purchase threw
+     * @throws IllegalStateException if the pipeline is closed or the worker of the partition died
+     */
+    public CompletableFuture<Optional<TicketDTO>> submit(TicketDTO ticketDTO) {
+        Partition partition = partitions[partitionOf(ticketDTO)];
+        Request request = new Request(ticketDTO);
+        partition.producers.incrementAndGet();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Purchase pipeline is closed");
+            }
+            partition.checkAlive();
+            while (!partition.queue.offer(request)) {
+                partition.checkAlive();
+                // the partition is full: wait for its worker instead of dropping the purchase
+                partition.wake();
+                Thread.yield();
+            }
+        } finally {
+            partition.producers.decrementAndGet();
+        }
+        if (partition.failure != null) {
+            // queued after the dead worker failed its queue: nobody will take the purchase
+            request.result.completeExceptionally(partition.deadWorker());
+        }
+        partition.wake();
+        return request.result;
+    }
+
+    /**
+     * Returns the number of purchases queued and not yet taken by a worker.
+     *
+     * @return the number of queued purchases over all partitions
+     */
+    public int queuedPurchases() {
+        int queued = 0;
+        for (Partition partition : partitions) {
+            queued += partition.queue.size();
+        }
+        return queued;
+    }
+
+    /**
+     * Stops accepting purchases, lets the workers finish the purchases already queued and waits for them.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Partition partition : partitions) {
+            LockSupport.unpark(partition.worker);
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        LOGGER.debug("Closed purchase pipeline");
+    }
+
+    /**
+     * Returns the partition of the train of a purchase; purchases without a train go to the first partition.
+     */
+    int partitionOf(TicketDTO ticketDTO) {
+        if (ticketDTO == null || ticketDTO.getTrain() == null) {
+            return 0;
+        }
+        // spreads consecutive train IDs over the partitions
+        return Math.floorMod(ticketDTO.getTrain().getId() * 0x9E3779B9, partitions.length);
+    }
+
+    private void process(Request request) {
+        try {
+            request.result.complete(purchase.apply(request.ticketDTO));
+        } catch (Throwable e) {
+            // errors too: the worker must outlive a purchase, or its partition would never be served again
+            LOGGER.error("Purchase failed for TicketDTO: {}", request.ticketDTO, e);
+            request.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class Request {
+        private final TicketDTO ticketDTO;
+        private final CompletableFuture<Optional<TicketDTO>> result = new CompletableFuture<>();
+
+        private Request(TicketDTO ticketDTO) {
+            this.ticketDTO = ticketDTO;
+        }
+    }
+
+    private final class Partition implements Runnable {
+
+        private final MpscRingBuffer<Request> queue;
+
+        private final Thread worker;
+
+        /**
+         * Callers between their check of {@link #closed} and the end of their offer;
+         * the worker does not stop while there are any, so no purchase is left in the queue.
+         */
+        private final AtomicInteger producers = new AtomicInteger();
+
+        private volatile boolean sleeping;
+
+        /**
+         * What stopped the worker before the pipeline was closed, or null while it is running.
+         */
+        private volatile Throwable failure;
+
+        private Partition(int index, int queueCapacity) {
+            queue = new MpscRingBuffer<>(queueCapacity);
+            worker = new Thread(this, "purchase-partition-" + index);
+            worker.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                serve();
+            } catch (Throwable e) {
+                LOGGER.error("Worker {} died", worker.getName(), e);
+                failure = e;
+                // set before draining, so callers offering from now on fail their own purchase
+                Request request;
+                while ((request = queue.poll()) != null) {
+                    request.result.completeExceptionally(deadWorker());
+                }
+            }
+        }
+
+        private void serve() {
+            int idle = 0;
+            while (true) {
+                Request request = queue.poll();
+                if (request != null) {
+                    process(request);
+                    idle = 0;
+                } else if (closed && producers.get() == 0 && queue.isEmpty()) {
+                    return;
+                } else if (++idle < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    sleeping = true;
+                    // checked after announcing the sleep, so a purchase queued meanwhile is not missed
+                    if (queue.isEmpty() && !closed) {
+                        LockSupport.park(this);
+                    }
+                    sleeping = false;
+                    idle = 0;
+                }
+            }
+        }
+
+        private void checkAlive() {
+            if (failure != null) {
+                throw deadWorker();
+            }
+        }
+
+        private IllegalStateException deadWorker() {
+            return new IllegalStateException("Worker " + worker.getName() + " died", failure);
+        }
+
+        private void wake() {
+            if (sleeping) {
+                LockSupport.unpark(worker);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.study.service.pricing;
+
+/**
+ * Rule combining the discounts of a ticket that are active on its departure date.
+ * Whatever the rule, the total discount is capped by {@link Tariff#maxDiscountPercent(double)}.
+ */
+public enum DiscountStacking {
+
+    /**
+     * Only the largest discount applies.
+     */
+    BEST,
+
+    /**
+     * Percents are added up: 10% and 20% give 30%.
+     */
+    ADDITIVE,
+
+    /**
+     * Discounts apply one after the other: 10% and 20% give 28%.
+     */
+    COMPOUND
+}
@@ -0,0 +1,330 @@
+package com.study.service.pricing;
+
+import com.study.domain.Discount;
+import com.study.domain.Ticket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prices tickets from a {@link Tariff} and the discounts valid in a period, compiled into lookup tables:
+ * the fare of every (economy class, age group) pair, and for every day of the period a bit set
+ * of the discounts active on that day, with one bit per discount valid in the period, in as many
+ * {@code long}s as needed. A ticket's discounts are passed as a bit set too, built once
+ * with {@link #discountMask(Collection)}, so pricing is an array read, a bitwise AND per 64 discounts
+ * and combining the few matching discounts, without allocating.
+ * The engine is immutable and thread-safe; compile a new one when the tariff or discounts change.
+ * Prices are rounded to cents.
+ */
+public final class PricingEngine {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /**
+     * Bit set of no discounts, to price tickets without discounts.
+     */
+    public static final long[] NO_DISCOUNTS = new long[0];
+
+    /**
+     * Largest economy, age group or discount ID, bounding the size of the ID lookup tables.
+     */
+    private static final int MAX_ID = 1 << 20;
+
+    /**
+     * Index of each economy class in {@link #fares}, by ID; -1 for economy classes without fare.
+     */
+    private final int[] economyIndex;
+
+    /**
+     * Index of each age group in {@link #fares}, by ID; 0, the full fare, for age groups without factor.
+     */
+    private final int[] ageIndex;
+
+    private final int ageSlots;
+
+    /**
+     * Fares by {@code economyIndex * ageSlots + ageIndex}.
+     */
+    private final double[] fares;
+
+    private final long firstDay;
+
+    private final int days;
+
+    /**
+     * Number of {@code long}s in the bit set of a day, one bit per discount valid in the period.
+     */
+    private final int words;
+
+    /**
+     * Bit sets of the discounts active on each day of the period, {@link #words} per day since {@link #firstDay}.
+     */
+    private final long[] activeDiscounts;
+
+    /**
+     * Bit of each discount, by ID; -1 for discounts not valid in the period.
+     */
+    private final int[] discountBits;
+
+    private final double[] discountPercents;
+
+    private final DiscountStacking stacking;
+
+    private final double maxDiscountPercent;
+
+    private PricingEngine(int[] economyIndex, int[] ageIndex, int ageSlots, double[] fares, long firstDay, int days,
+                          int words, long[] activeDiscounts, int[] discountBits, double[] discountPercents,
+                          DiscountStacking stacking, double maxDiscountPercent) {
+        this.economyIndex = economyIndex;
+        this.ageIndex = ageIndex;
+        this.ageSlots = ageSlots;
+        this.fares = fares;
+        this.firstDay = firstDay;
+        this.days = days;
+        this.words = words;
+        this.activeDiscounts = activeDiscounts;
+        this.discountBits = discountBits;
+        this.discountPercents = discountPercents;
+        this.stacking = stacking;
+        this.maxDiscountPercent = maxDiscountPercent;
+    }
+
+    /**
+     * Compiles a tariff and discounts into an engine pricing departures in a period.
+     * Discounts without a positive percent or not valid on any day of the period are left out;
+     * a discount without start or end date is valid from or until the edge of the period.
+     *
+     * @param tariff the fares, age factors and stacking rule
+     * @param discounts the discounts
+     * @param firstDate the first departure date that can be priced
+     * @param lastDate the last departure date that can be priced
+     * @return the compiled engine
+     * @throws IllegalArgumentException if the period is empty or an ID is negative or too large
+     */
+    public static PricingEngine compile(Tariff tariff, Collection<Discount> discounts,
+                                        LocalDate firstDate, LocalDate lastDate) {
+        if (lastDate.isBefore(firstDate)) {
+            throw new IllegalArgumentException("Period ends before it starts: " + firstDate + " - " + lastDate);
+        }
+        Map<Integer, Double> tariffFares = tariff.getFares();
+        Map<Integer, Double> ageFactors = tariff.getAgeFactors();
+
+        int[] economyIndex = indexTable(tariffFares.keySet(), -1);
+        int[] ageIndex = indexTable(ageFactors.keySet(), 0);
+        List<Integer> economyIds = new ArrayList<>(tariffFares.keySet());
+        List<Integer> ageGroupIds = new ArrayList<>(ageFactors.keySet());
+        int ageSlots = ageGroupIds.size() + 1;
+        for (int a = 0; a < ageGroupIds.size(); a++) {
+            ageIndex[ageGroupIds.get(a)] = a + 1;
+        }
+        double[] fares = new double[economyIds.size() * ageSlots];
+        for (int e = 0; e < economyIds.size(); e++) {
+            int economyId = economyIds.get(e);
+            double fare = tariffFares.get(economyId);
+            economyIndex[economyId] = e;
+            fares[e * ageSlots] = round(fare);
+            for (int a = 0; a < ageGroupIds.size(); a++) {
+                fares[e * ageSlots + a + 1] = round(fare * ageFactors.get(ageGroupIds.get(a)));
+            }
+        }
+
+        long firstDay = firstDate.toEpochDay();
+        long lastDay = lastDate.toEpochDay();
+        int days = Math.toIntExact(lastDay - firstDay + 1);
+        List<Discount> valid = new ArrayList<>();
+        List<long[]> validDays = new ArrayList<>();
+        for (Discount discount : discounts) {
+            long start = discount.getStartAt() == null ? firstDay : Math.max(firstDay, discount.getStartAt().toEpochDay());
+            long end = discount.getEndAt() == null ? lastDay : Math.min(lastDay, discount.getEndAt().toEpochDay());
+            if (discount.getPercent() != null && discount.getPercent() > 0 && start <= end) {
+                valid.add(discount);
+                validDays.add(new long[]{start - firstDay, end - firstDay});
+            }
+        }
+        int words = (valid.size() + Long.SIZE - 1) / Long.SIZE;
+        long[] activeDiscounts = new long[Math.multiplyExact(days, words)];
+        for (int bit = 0; bit < valid.size(); bit++) {
+            long[] range = validDays.get(bit);
+            for (long day = range[0]; day <= range[1]; day++) {
+                activeDiscounts[(int) day * words + bit / Long.SIZE] |= 1L << bit;
+            }
+        }
+        int[] discountBits = indexTable(valid.stream().map(Discount::getId).toList(), -1);
+        double[] discountPercents = new double[valid.size()];
+        for (int bit = 0; bit < valid.size(); bit++) {
+            discountBits[valid.get(bit).getId()] = bit;
+            discountPercents[bit] = Math.min(valid.get(bit).getPercent(), 100);
+        }
+        LOGGER.info("Compiled pricing of {} fares and {} discounts from {} to {}",
+                fares.length, valid.size(), firstDate, lastDate);
+        return new PricingEngine(economyIndex, ageIndex, ageSlots, fares, firstDay, days, words, activeDiscounts,
+                discountBits, discountPercents, tariff.getStacking(), tariff.getMaxDiscountPercent());
+    }
+
+    /**
+     * Returns the bit set of discounts to pass to {@link #price(int, int, long, long[])}.
+     * Discounts not valid in the period are ignored.
+     *
+     * @param discounts the discounts of a ticket, or null
+     * @return the bit set of the discounts
+     */
+    public long[] discountMask(Collection<Discount> discounts) {
+        long[] mask = new long[words];
+        if (discounts != null) {
+            for (Discount discount : discounts) {
+                if (discount != null) {
+                    setDiscountBit(mask, discount.getId());
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the bit set of discounts with the given IDs, to pass to {@link #price(int, int, long, long[])}.
+     * Discounts not valid in the period are ignored.
+     *
+     * @param discountIds the IDs of the discounts of a ticket
+     * @return the bit set of the discounts
+     */
+    public long[] discountMask(int... discountIds) {
+        long[] mask = new long[words];
+        for (int discountId : discountIds) {
+            setDiscountBit(mask, discountId);
+        }
+        return mask;
+    }
+
+    private void setDiscountBit(long[] mask, int discountId) {
+        int bit = discountId >= 0 && discountId < discountBits.length ? discountBits[discountId] : -1;
+        if (bit >= 0) {
+            mask[bit / Long.SIZE] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Prices a ticket: the fare of its economy class and age group, less its discounts active on the date.
+     *
+     * @param economyId the ID of the economy class
+     * @param ageGroupId the ID of the age group, or 0 for the full fare
+     * @param epochDay the departure date, as {@link LocalDate#toEpochDay()}
+     * @param discountMask the bit set of the ticket's discounts
+     * @return the price, rounded to cents
+     * @throws IllegalArgumentException if the economy class has no fare or the date is outside the period
+     */
+    public double price(int economyId, int ageGroupId, long epochDay, long[] discountMask) {
+        int economy = economyId >= 0 && economyId < economyIndex.length ? economyIndex[economyId] : -1;
+        if (economy < 0) {
+            throw new IllegalArgumentException("No fare for economy class " + economyId);
+        }
+        long day = epochDay - firstDay;
+        if (day < 0 || day >= days) {
+            throw new IllegalArgumentException("Departure date outside the priced period: " + LocalDate.ofEpochDay(epochDay));
+        }
+        int age = ageGroupId >= 0 && ageGroupId < ageIndex.length ? ageIndex[ageGroupId] : 0;
+        double fare = fares[economy * ageSlots + age];
+        double percent = discountPercent(discountMask, (int) day * words);
+        return percent == 0 ? fare : round(fare * (1 - percent / 100));
+    }
+
+    /**
+     * Prices a ticket on its departure date, with its economy class, age group and discounts.
+     *
+     * @param economyId the ID of the economy class
+     * @param ageGroupId the ID of the age group, or 0 for the full fare
+     * @param date the departure date
+     * @param discountMask the bit set of the ticket's discounts
+     * @return the price, rounded to cents
+     * @throws IllegalArgumentException if the economy class has no fare or the date is outside the period
+     */
+    public double price(int economyId, int ageGroupId, LocalDate date, long[] discountMask) {
+        return price(economyId, ageGroupId, date.toEpochDay(), discountMask);
+    }
+
+    /**
+     * Prices a ticket from its economy class, age group, departure date and discounts.
+     *
+     * @param ticket the ticket
+     * @return the price, rounded to cents
+     * @throws IllegalArgumentException if the ticket has no economy class or departure date,
+     * its economy class has no fare or its date is outside the period
+     */
+    public double price(Ticket ticket) {
+        if (ticket.getEconomy() == null || ticket.getDepartDateBooking() == null) {
+            throw new IllegalArgumentException("Ticket " + ticket.getId() + " has no economy class or departure date");
+        }
+        int ageGroupId = ticket.getAgeGroup() == null ? 0 : ticket.getAgeGroup().getId();
+        return price(ticket.getEconomy().getId(), ageGroupId, ticket.getDepartDateBooking(),
+                discountMask(ticket.getDiscounts()));
+    }
+
+    /**
+     * Returns the first departure date the engine prices.
+     *
+     * @return the first date of the period
+     */
+    public LocalDate firstDate() {
+        return LocalDate.ofEpochDay(firstDay);
+    }
+
+    /**
+     * Returns the last departure date the engine prices.
+     *
+     * @return the last date of the period
+     */
+    public LocalDate lastDate() {
+        return LocalDate.ofEpochDay(firstDay + days - 1);
+    }
+
+    /**
+     * Combines the percents of the discounts in a bit set that are active on a day by the stacking rule, within the cap.
+     *
+     * @param discountMask the bit set of the ticket's discounts
+     * @param dayStart the index in {@link #activeDiscounts} of the bit set of the day
+     */
+    private double discountPercent(long[] discountMask, int dayStart) {
+        double total = 0;
+        double remaining = 1;
+        int length = Math.min(discountMask.length, words);
+        for (int word = 0; word < length; word++) {
+            for (long bits = discountMask[word] & activeDiscounts[dayStart + word]; bits != 0; bits &= bits - 1) {
+                double percent = discountPercents[word * Long.SIZE + Long.numberOfTrailingZeros(bits)];
+                switch (stacking) {
+                    case BEST -> total = Math.max(total, percent);
+                    case ADDITIVE -> total += percent;
+                    case COMPOUND -> remaining *= 1 - percent / 100;
+                }
+            }
+        }
+        if (stacking == DiscountStacking.COMPOUND) {
+            total = (1 - remaining) * 100;
+        }
+        return Math.min(total, maxDiscountPercent);
+    }
+
+    /**
+     * Builds a lookup table by ID large enough for all the IDs, filled with a default value.
+     */
+    private static int[] indexTable(Collection<Integer> ids, int absent) {
+        int maxId = -1;
+        for (int id : ids) {
+            if (id < 0 || id > MAX_ID) {
+                throw new IllegalArgumentException("ID out of range for pricing: " + id);
+            }
+            maxId = Math.max(maxId, id);
+        }
+        int[] table = new int[maxId + 1];
+        Arrays.fill(table, absent);
+        return table;
+    }
+
+    private static double round(double price) {
+        return Math.round(price * 100) / 100.0;
+    }
+}
@@ -0,0 +1,116 @@
+package com.study.service.pricing;
+
+import com.study.domain.Ticket;
+import com.study.repository.DiscountRepository;
+import com.study.service.dto.DiscountDTO;
+import com.study.service.dto.TicketDTO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Service class quoting ticket prices with a {@link PricingEngine} compiled from a {@link Tariff}
+ * and the discounts in the {@link DiscountRepository}, for departures from today over a booking horizon.
+ * Call {@link #refresh()} after discounts or the tariff changed, and at least once a day
+ * so the horizon moves on; quotes keep using the previous engine until the new one is compiled.
+ */
+public class PricingService {
+
+    private final static Logger LOGGER = LogManager.getLogger();
+
+    public static final int DEFAULT_HORIZON_DAYS = 365;
+
+    private final Tariff tariff;
+
+    private final DiscountRepository discountRepository;
+
+    private final int horizonDays;
+
+    private final Clock clock;
+
+    private volatile PricingEngine engine;
+
+    public PricingService(Tariff tariff) {
+        this(tariff, new DiscountRepository(), DEFAULT_HORIZON_DAYS, Clock.systemDefaultZone());
+    }
+
+    public PricingService(Tariff tariff, DiscountRepository discountRepository, int horizonDays, Clock clock) {
+        if (horizonDays <= 0) {
+            throw new IllegalArgumentException("Horizon must be positive: " + horizonDays);
+        }
+        this.tariff = tariff;
+        this.discountRepository = discountRepository;
+        this.horizonDays = horizonDays;
+        this.clock = clock;
+        refresh();
+    }
+
+    /**
+     * Compiles a new engine from the tariff and the current discounts, for departures from today
+     * to the end of the horizon.
+     */
+    public void refresh() {
+        LocalDate today = LocalDate.now(clock);
+        engine = PricingEngine.compile(tariff, discountRepository.findAll(), today, today.plusDays(horizonDays - 1));
+        LOGGER.debug("Refreshed pricing from {}", today);
+    }
+
+    /**
+     * Returns the current engine, to price many tickets without going through the service.
+     *
+     * @return the current engine
+     */
+    public PricingEngine engine() {
+        return engine;
+    }
+
+    /**
+     * Quotes the price of a ticket.
+     *
+     * @param ticket the ticket
+     * @return the price, rounded to cents
+     * @throws IllegalArgumentException if the ticket cannot be priced
+     */
+    public double quote(Ticket ticket) {
+        return engine.price(ticket);
+    }
+
+    /**
+     * Quotes the price of a TicketDTO from its economy class, age group, departure date and discounts.
+     *
+     * @param ticketDTO the TicketDTO
+     * @return the price, rounded to cents
+     * @throws IllegalArgumentException if the ticket has no economy class or departure date,
+     * or cannot be priced
+     */
+    public double quote(TicketDTO ticketDTO) {
+        if (ticketDTO.getEconomy() == null || ticketDTO.getDepartDateBooking() == null) {
+            throw new IllegalArgumentException("TicketDTO " + ticketDTO.getId() + " has no economy class or departure date");
+        }
+        PricingEngine current = engine;
+        long[] discountMask = PricingEngine.NO_DISCOUNTS;
+        if (ticketDTO.getDiscounts() != null) {
+            discountMask = current.discountMask(ticketDTO.getDiscounts().stream()
+                    .filter(Objects::nonNull)
+                    .mapToInt(DiscountDTO::getId)
+                    .toArray());
+        }
+        int ageGroupId = ticketDTO.getAgeGroup() == null ? 0 : ticketDTO.getAgeGroup().getId();
+        return current.price(ticketDTO.getEconomy().getId(), ageGroupId, ticketDTO.getDepartDateBooking(), discountMask);
+    }
+
+    /**
+     * Sets the quoted price on a TicketDTO.
+     *
+     * @param ticketDTO the TicketDTO to price
+     * @return the same TicketDTO, with its price set
+     * @throws IllegalArgumentException if the ticket cannot be priced
+     */
+    public TicketDTO price(TicketDTO ticketDTO) {
+        ticketDTO.setPrice(quote(ticketDTO));
+        return ticketDTO;
+    }
+}
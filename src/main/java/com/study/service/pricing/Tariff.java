@@ -0,0 +1,91 @@
+package com.study.service.pricing;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Price list a {@link PricingEngine} is compiled from: the base fare of every economy class,
+ * the factor applied to it for every age group, and how discounts are combined.
+ * An age group without a factor pays the full fare.
+ */
+public class Tariff {
+
+    private final Map<Integer, Double> fares = new HashMap<>();
+
+    private final Map<Integer, Double> ageFactors = new HashMap<>();
+
+    private DiscountStacking stacking = DiscountStacking.BEST;
+
+    private double maxDiscountPercent = 100;
+
+    /**
+     * Sets the base fare of an economy class.
+     *
+     * @param economyId the ID of the economy class
+     * @param fare the base fare, not negative
+     * @return this tariff
+     */
+    public Tariff fare(int economyId, double fare) {
+        if (fare < 0) {
+            throw new IllegalArgumentException("Fare must not be negative: " + fare);
+        }
+        fares.put(economyId, fare);
+        return this;
+    }
+
+    /**
+     * Sets the factor applied to the base fare for an age group, e.g. 0.5 for half price.
+     *
+     * @param ageGroupId the ID of the age group
+     * @param factor the factor, not negative
+     * @return this tariff
+     */
+    public Tariff ageFactor(int ageGroupId, double factor) {
+        if (factor < 0) {
+            throw new IllegalArgumentException("Age factor must not be negative: " + factor);
+        }
+        ageFactors.put(ageGroupId, factor);
+        return this;
+    }
+
+    /**
+     * Sets how several discounts of a ticket are combined.
+     *
+     * @param stacking the stacking rule
+     * @return this tariff
+     */
+    public Tariff stacking(DiscountStacking stacking) {
+        this.stacking = stacking;
+        return this;
+    }
+
+    /**
+     * Sets the largest total discount a ticket can get.
+     *
+     * @param maxDiscountPercent the cap, between 0 and 100
+     * @return this tariff
+     */
+    public Tariff maxDiscountPercent(double maxDiscountPercent) {
+        if (maxDiscountPercent < 0 || maxDiscountPercent > 100) {
+            throw new IllegalArgumentException("Discount cap must be between 0 and 100: " + maxDiscountPercent);
+        }
+        this.maxDiscountPercent = maxDiscountPercent;
+        return this;
+    }
+
+    public Map<Integer, Double> getFares() {
+        return Map.copyOf(fares);
+    }
+
+    public Map<Integer, Double> getAgeFactors() {
+        return Map.copyOf(ageFactors);
+    }
+
+    public DiscountStacking getStacking() {
+        return stacking;
+    }
+
+    public double getMaxDiscountPercent() {
+        return maxDiscountPercent;
+    }
+}
@@ -0,0 +1,73 @@
+-- Relational schema of the entities in InitialTicket.jdl, used by the repositories in com.study.repository.jdbc
+
+CREATE TABLE IF NOT EXISTS users (
+    id              INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version         BIGINT NOT NULL DEFAULT 0,
+    first_name      VARCHAR(255),
+    middle_name     VARCHAR(255),
+    last_name       VARCHAR(255),
+    date_of_birth   DATE,
+    gender          VARCHAR(255),
+    email           VARCHAR(255) NOT NULL UNIQUE,
+    phone_number    VARCHAR(255),
+    password        VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS train (
+    id              INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version         BIGINT NOT NULL DEFAULT 0,
+    amount_of_seats INT CHECK (amount_of_seats >= 0),
+    train_model     VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS station (
+    id               INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version          BIGINT NOT NULL DEFAULT 0,
+    name_of_station  VARCHAR(255) NOT NULL,
+    address_location VARCHAR(255) NOT NULL,
+    station_phone    VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS economy (
+    id              INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version         BIGINT NOT NULL DEFAULT 0,
+    type            VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS age_group (
+    id              INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version         BIGINT NOT NULL DEFAULT 0,
+    type            VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS discount (
+    id              INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version         BIGINT NOT NULL DEFAULT 0,
+    type            VARCHAR(255),
+    percent         DOUBLE PRECISION,
+    start_at        DATE,
+    end_at          DATE
+);
+
+CREATE TABLE IF NOT EXISTS ticket (
+    id                       INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version                  BIGINT NOT NULL DEFAULT 0,
+    depart_date_booking      DATE NOT NULL,
+    return_date_booking      DATE,
+    registration_date_ticket DATE,
+    return_date_ticket       DATE,
+    price                    DOUBLE PRECISION NOT NULL CHECK (price >= 0),
+    seat_number              INT,
+    user_id                  INT REFERENCES users (id),
+    start_station_id         INT REFERENCES station (id),
+    end_station_id           INT REFERENCES station (id),
+    train_id                 INT REFERENCES train (id),
+    economy_id               INT REFERENCES economy (id),
+    age_group_id             INT REFERENCES age_group (id)
+);
+
+CREATE TABLE IF NOT EXISTS ticket_discount (
+    ticket_id       INT NOT NULL REFERENCES ticket (id) ON DELETE CASCADE,
+    discount_id     INT NOT NULL REFERENCES discount (id) ON DELETE CASCADE,
+    PRIMARY KEY (ticket_id, discount_id)
+);
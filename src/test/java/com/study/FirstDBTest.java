@@ -0,0 +1,80 @@
+package com.study;
+
+import com.study.FirstDB.PooledConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link FirstDB} connection pool,
+ * run against an in-memory H2 database.
+ * */
+public class FirstDBTest {
+
+    private static final String URL = "jdbc:h2:mem:firstdb;DB_CLOSE_DELAY=-1";
+    private static final String SQL = "SELECT 1";
+
+    private FirstDB db;
+
+    @BeforeEach
+    void setUp() {
+        db = new FirstDB(URL, "sa", "", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void givenReturnedConnection_whenBorrow_thenSamePhysicalConnectionIsReused() throws SQLException {
+        Connection first;
+        try (PooledConnection connection = db.borrow()) {
+            first = connection.unwrap();
+        }
+
+        // The connection given back must be handed out again instead of opening a new one
+        try (PooledConnection connection = db.borrow()) {
+            assertSame(first, connection.unwrap());
+        }
+    }
+
+    @Test
+    void givenSameSql_whenPrepare_thenCachedStatementIsReused() throws SQLException {
+        try (PooledConnection connection = db.borrow()) {
+            PreparedStatement statement = connection.prepare(SQL);
+
+            // Preparing the same SQL again must not create a new statement
+            assertSame(statement, connection.prepare(SQL));
+
+            // Statements returning generated keys are cached separately
+            assertNotSame(statement, connection.prepareReturningKeys(SQL));
+        }
+    }
+
+    @Test
+    void givenOpenTransaction_whenClose_thenConnectionIsReturnedInAutoCommitMode() throws SQLException {
+        try (PooledConnection connection = db.borrow()) {
+            connection.unwrap().setAutoCommit(false);
+        }
+
+        // An unfinished transaction is rolled back and auto-commit restored
+        try (PooledConnection connection = db.borrow()) {
+            assertTrue(connection.unwrap().getAutoCommit());
+        }
+    }
+
+    @Test
+    void givenClosedPool_whenBorrow_thenThrowSQLException() {
+        db.close();
+
+        // No connections are handed out once the pool is closed
+        assertThrows(SQLException.class, () -> db.borrow());
+    }
+}
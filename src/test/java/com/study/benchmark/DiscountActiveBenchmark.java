@@ -0,0 +1,82 @@
+package com.study.benchmark;
+
+import com.study.domain.Discount;
+import com.study.repository.DiscountRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of finding the discounts valid on a date in a {@link DiscountRepository}
+ * holding discounts valid for 1 to 30 days, spread over ten years.
+ * {@code indexed} uses the validity index of the repository through {@link DiscountRepository#findActiveOn(LocalDate)};
+ * {@code scan} filters all discounts as was needed before the index existed.
+ * Run with the {@link #main(String[])} method after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscountActiveBenchmark {
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(2020, 1, 1);
+
+    private static final int DAYS = 3650;
+
+    @Param({"10000", "100000"})
+    private int discounts;
+
+    private final DiscountRepository discountRepository = new DiscountRepository();
+
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<Discount> batch = new ArrayList<>(discounts);
+        for (int i = 0; i < discounts; i++) {
+            LocalDate startAt = FIRST_DATE.plusDays(random.nextInt(DAYS));
+            batch.add(new Discount().type("Seasonal Discount").percent(0.1)
+                    .startAt(startAt).endAt(startAt.plusDays(random.nextInt(30))));
+        }
+        discountRepository.saveAll(batch);
+        discountRepository.findActiveOn(FIRST_DATE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        discountRepository.deleteAll();
+    }
+
+    @Benchmark
+    public List<Discount> indexed() {
+        return discountRepository.findActiveOn(nextDate());
+    }
+
+    @Benchmark
+    public List<Discount> scan() {
+        LocalDate date = nextDate();
+        return discountRepository.streamAll()
+                .filter(discount -> !date.isBefore(discount.getStartAt()) && !date.isAfter(discount.getEndAt()))
+                .toList();
+    }
+
+    private LocalDate nextDate() {
+        return FIRST_DATE.plusDays(++query % DAYS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DiscountActiveBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
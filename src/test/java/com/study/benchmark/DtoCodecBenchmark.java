@@ -0,0 +1,118 @@
+package com.study.benchmark;
+
+import com.study.domain.*;
+import com.study.service.codec.TicketCodec;
+import com.study.service.dto.TicketDTO;
+import com.study.service.mapper.TicketMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of encoding ticket DTOs with {@link TicketCodec} against Java serialization.
+ * {@code encodeOne} and {@code decodeOne} handle a single ticket, {@code encodeList} and {@code decodeList}
+ * a listing of {@code tickets} DTOs converted by {@link TicketMapper}, which share their referenced DTOs.
+ * The setup prints the encoded sizes of both formats.
+ * Run with the {@link #main(String[])} method after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoCodecBenchmark {
+
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 5, 10);
+
+    @Param({"1000"})
+    private int tickets;
+
+    @Param({"binary", "java"})
+    private String format;
+
+    private final TicketCodec ticketCodec = new TicketCodec();
+
+    private TicketDTO ticketDTO;
+
+    private List<TicketDTO> ticketDTOs;
+
+    private byte[] encodedOne;
+
+    private byte[] encodedList;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<Ticket> batch = new ArrayList<>(tickets);
+        Station kyiv = new Station().id(1).nameOfStation("Kyiv").addressLocation("Vokzalna 1");
+        Station lviv = new Station().id(2).nameOfStation("Lviv").addressLocation("Dvirtseva 1");
+        Discount student = new Discount(1, "Student", 15.0);
+        for (int i = 0; i < tickets; i++) {
+            Ticket ticket = new Ticket().id(i + 1).price(100 + i % 50).departDateBooking(DEPART_DATE)
+                    .registrationDateTicket(DEPART_DATE.minusDays(i % 30)).seatNumber(i % 400 + 1);
+            ticket.setUser(new User(i % 200 + 1, "User" + i % 200, "Petrenko", LocalDate.of(1990, 1, 1),
+                    "user" + i % 200 + "@example.com", "password").gender("male"));
+            ticket.setTrain(new Train(i % 20 + 1, 400).trainModel("Intercity"));
+            ticket.setStartStation(kyiv);
+            ticket.setEndStation(lviv);
+            ticket.setEconomy(new Economy(1, "Second class"));
+            ticket.setAgeGroup(new AgeGroup(1, "Adult"));
+            ticket.setDiscounts(Set.of(student));
+            batch.add(ticket);
+        }
+        ticketDTOs = new TicketMapper().toDTO(batch);
+        ticketDTO = ticketDTOs.get(0);
+        encodedOne = encodeOne();
+        encodedList = encodeList();
+        System.out.printf("%n%s: %d bytes per ticket, %d bytes per list of %d tickets%n", format,
+                encodedOne.length, encodedList.length, tickets);
+    }
+
+    @Benchmark
+    public byte[] encodeOne() throws IOException {
+        return format.equals("binary") ? ticketCodec.encode(ticketDTO) : serialize(ticketDTO);
+    }
+
+    @Benchmark
+    public Object decodeOne() throws IOException, ClassNotFoundException {
+        return format.equals("binary") ? ticketCodec.decode(encodedOne) : deserialize(encodedOne);
+    }
+
+    @Benchmark
+    public byte[] encodeList() throws IOException {
+        return format.equals("binary") ? ticketCodec.encodeAll(ticketDTOs) : serialize(new ArrayList<>(ticketDTOs));
+    }
+
+    @Benchmark
+    public Object decodeList() throws IOException, ClassNotFoundException {
+        return format.equals("binary") ? ticketCodec.decodeAll(encodedList) : deserialize(encodedList);
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DtoCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.study.benchmark;
+
+import com.study.repository.storage.ConcurrentIntMap;
+import com.study.repository.storage.IntHashMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of ID maps holding 1M entities: the boxed {@link HashMap}, {@link ConcurrentHashMap}
+ * and {@link ConcurrentSkipListMap} (used by the stores before) against the primitive {@link IntHashMap}
+ * and {@link ConcurrentIntMap}.
+ * {@code lookup} reads {@value #LOOKUPS} random IDs, so its score divided by {@value #LOOKUPS} is the
+ * latency of one lookup. {@code build} fills a map; with the GC profiler, {@code gc.alloc.rate.norm}
+ * divided by the number of entries is the memory allocated per entry, table growth included.
+ * Run with the {@link #main(String[])} method after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntMapBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    private static final Object ENTITY = new Object();
+
+    @Param({"1000000"})
+    private int entries;
+
+    @Param({"HashMap", "ConcurrentHashMap", "ConcurrentSkipListMap", "IntHashMap", "ConcurrentIntMap"})
+    private String map;
+
+    private Map<Integer, Object> boxed;
+
+    private IntHashMap<Object> primitive;
+
+    private ConcurrentIntMap<Object> concurrentPrimitive;
+
+    private final int[] keys = new int[LOOKUPS];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        build();
+        Random random = new Random(42);
+        for (int i = 0; i < LOOKUPS; i++) {
+            keys[i] = random.nextInt(entries) + 1;
+        }
+    }
+
+    @Benchmark
+    public Object build() {
+        switch (map) {
+            case "IntHashMap" -> {
+                primitive = new IntHashMap<>();
+                for (int id = 1; id <= entries; id++) {
+                    primitive.put(id, ENTITY);
+                }
+                return primitive;
+            }
+            case "ConcurrentIntMap" -> {
+                concurrentPrimitive = new ConcurrentIntMap<>();
+                for (int id = 1; id <= entries; id++) {
+                    concurrentPrimitive.put(id, ENTITY);
+                }
+                return concurrentPrimitive;
+            }
+            default -> {
+                boxed = switch (map) {
+                    case "HashMap" -> new HashMap<>();
+                    case "ConcurrentHashMap" -> new ConcurrentHashMap<>();
+                    default -> new ConcurrentSkipListMap<>();
+                };
+                for (int id = 1; id <= entries; id++) {
+                    boxed.put(id, ENTITY);
+                }
+                return boxed;
+            }
+        }
+    }
+
+    @Benchmark
+    public void lookup(Blackhole blackhole) {
+        switch (map) {
+            case "IntHashMap" -> {
+                for (int key : keys) {
+                    blackhole.consume(primitive.get(key));
+                }
+            }
+            case "ConcurrentIntMap" -> {
+                for (int key : keys) {
+                    blackhole.consume(concurrentPrimitive.get(key));
+                }
+            }
+            default -> {
+                for (int key : keys) {
+                    blackhole.consume(boxed.get(key));
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(IntMapBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
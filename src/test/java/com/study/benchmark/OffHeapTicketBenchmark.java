@@ -0,0 +1,104 @@
+package com.study.benchmark;
+
+import com.study.domain.Station;
+import com.study.domain.Ticket;
+import com.study.domain.Train;
+import com.study.domain.User;
+import com.study.repository.CrudRepository;
+import com.study.repository.TicketRepository;
+import com.study.repository.offheap.OffHeapTicketRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of a ticket repository holding 1M tickets, on the heap ({@link TicketRepository})
+ * or off-heap ({@link OffHeapTicketRepository}). The setup prints the heap used by the loaded
+ * tickets after a full GC; the benchmarks measure reads by ID and keyset pages, which for the
+ * off-heap store include materializing the tickets. The tickets share 1000 trains and two stations,
+ * as tickets saved with stored references do, so the heap figure includes what those references keep.
+ * Run with the {@link #main(String[])} method after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class OffHeapTicketBenchmark {
+
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 5, 10);
+
+    @Param({"1000000"})
+    private int tickets;
+
+    @Param({"heap", "offheap"})
+    private String backend;
+
+    private CrudRepository<Ticket> repository;
+
+    private int firstId;
+
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = backend.equals("offheap") ? new OffHeapTicketRepository() : new TicketRepository();
+        long heapBefore = usedHeap();
+        Train[] trains = new Train[1000];
+        for (int i = 0; i < trains.length; i++) {
+            trains[i] = new Train().id(i + 1);
+        }
+        Station start = new Station().id(1);
+        Station end = new Station().id(2);
+        List<Ticket> batch = new ArrayList<>(tickets);
+        for (int i = 0; i < tickets; i++) {
+            Ticket ticket = new Ticket().price(100 + i % 50).departDateBooking(DEPART_DATE);
+            ticket.setTrain(trains[i % trains.length]);
+            ticket.setUser(new User().id(i % 100_000 + 1));
+            ticket.setStartStation(start);
+            ticket.setEndStation(end);
+            batch.add(ticket);
+        }
+        repository.saveAll(batch);
+        firstId = batch.get(0).getId();
+        batch = null;
+        System.out.printf("%n%s: %d MB of heap used by %d tickets%n", backend,
+                (usedHeap() - heapBefore) >> 20, tickets);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Benchmark
+    public Ticket findById() {
+        query = (query + 7919) % tickets;
+        return repository.findById(firstId + query).orElse(null);
+    }
+
+    @Benchmark
+    public List<Ticket> findPageAfter() {
+        query = (query + 7919) % tickets;
+        return repository.findPageAfter(firstId + query, 100);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OffHeapTicketBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
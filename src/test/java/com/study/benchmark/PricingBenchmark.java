@@ -0,0 +1,82 @@
+package com.study.benchmark;
+
+import com.study.domain.Discount;
+import com.study.service.pricing.DiscountStacking;
+import com.study.service.pricing.PricingEngine;
+import com.study.service.pricing.Tariff;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of pricing quotes with a {@link PricingEngine} compiled for a year of departures,
+ * 4 economy classes, 4 age groups and 32 dated discounts. {@code price} prices one of
+ * {@value #QUOTES} precomputed quote requests with two discounts each; with the GC profiler,
+ * {@code gc.alloc.rate.norm} shows that a quote allocates nothing.
+ * Run with the {@link #main(String[])} method after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    private static final int QUOTES = 4096;
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(2024, 1, 1);
+
+    @Param({"BEST", "COMPOUND"})
+    private DiscountStacking stacking;
+
+    private PricingEngine engine;
+
+    private final int[] economies = new int[QUOTES];
+    private final int[] ageGroups = new int[QUOTES];
+    private final long[] days = new long[QUOTES];
+    private final long[][] masks = new long[QUOTES][];
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Tariff tariff = new Tariff().stacking(stacking).maxDiscountPercent(60);
+        for (int id = 1; id <= 4; id++) {
+            tariff.fare(id, 100 * id).ageFactor(id, 1 - id * 0.1);
+        }
+        List<Discount> discounts = new ArrayList<>();
+        for (int id = 1; id <= 32; id++) {
+            discounts.add(new Discount(id, "Discount " + id, 5.0 + id % 10)
+                    .startAt(FIRST_DATE.plusDays(id * 7L)).endAt(FIRST_DATE.plusDays(id * 7L + 120)));
+        }
+        engine = PricingEngine.compile(tariff, discounts, FIRST_DATE, FIRST_DATE.plusDays(364));
+        Random random = new Random(42);
+        for (int i = 0; i < QUOTES; i++) {
+            economies[i] = random.nextInt(4) + 1;
+            ageGroups[i] = random.nextInt(5);
+            days[i] = FIRST_DATE.toEpochDay() + random.nextInt(365);
+            masks[i] = engine.discountMask(random.nextInt(32) + 1, random.nextInt(32) + 1);
+        }
+    }
+
+    @Benchmark
+    public double price() {
+        int i = next++ & (QUOTES - 1);
+        return engine.price(economies[i], ageGroups[i], days[i], masks[i]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,88 @@
+package com.study.benchmark;
+
+import com.study.service.TicketService;
+import com.study.service.TrainService;
+import com.study.service.dto.TicketDTO;
+import com.study.service.dto.TrainDTO;
+import com.study.service.pipeline.PurchasePipeline;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of concurrent ticket purchases made directly through {@link TicketService#purchase(TicketDTO)}
+ * and through a {@link PurchasePipeline}, by four threads buying on {@code trains} trains picked at random.
+ * With one train every direct purchase contends for the same seats, while the pipeline sells them
+ * from one worker; with many trains the pipeline spreads them over its partitions.
+ * Run with the {@link #main(String[])} method after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class PurchasePipelineBenchmark {
+
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 5, 10);
+
+    @Param({"1", "64"})
+    private int trains;
+
+    private TicketService ticketService;
+    private TrainService trainService;
+    private PurchasePipeline pipeline;
+
+    private TrainDTO[] trainDTOs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ticketService = new TicketService();
+        trainService = new TrainService();
+        pipeline = new PurchasePipeline(ticketService);
+        trainDTOs = new TrainDTO[trains];
+        for (int i = 0; i < trains; i++) {
+            trainDTOs[i] = trainService.save(new TrainDTO().amountOfSeats(Integer.MAX_VALUE).trainModel("Intercity"));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        ticketService.deleteAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pipeline.close();
+        trainService.deleteAll();
+    }
+
+    private TicketDTO nextTicket() {
+        TicketDTO ticketDTO = new TicketDTO().price(450.0).departDateBooking(DEPART_DATE);
+        ticketDTO.setTrain(trainDTOs[ThreadLocalRandom.current().nextInt(trains)]);
+        return ticketDTO;
+    }
+
+    @Benchmark
+    public Optional<TicketDTO> direct() {
+        return ticketService.purchase(nextTicket());
+    }
+
+    @Benchmark
+    public Optional<TicketDTO> pipelined() {
+        return pipeline.submit(nextTicket()).join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PurchasePipelineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.study.benchmark;
+
+import com.study.FirstDB;
+import com.study.domain.Ticket;
+import com.study.repository.CrudRepository;
+import com.study.repository.TicketRepository;
+import com.study.repository.jdbc.JdbcTicketRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark comparing {@link CrudRepository#saveAll(List)} of 10k tickets
+ * with 10k calls to {@link CrudRepository#save(Object)}, for the in-memory
+ * {@link TicketRepository} and for {@link JdbcTicketRepository} on an in-memory H2 database.
+ * Run with the {@link #main(String[])} method after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveAllBenchmark {
+
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 5, 10);
+
+    @Param({"10000"})
+    private int batchSize;
+
+    @Param({"memory", "h2"})
+    private String backend;
+
+    private FirstDB db;
+
+    private CrudRepository<Ticket> repository;
+
+    private List<Ticket> tickets;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        if (backend.equals("h2")) {
+            db = new FirstDB("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "sa", "");
+            db.runScript("schema.sql");
+            repository = new JdbcTicketRepository(db);
+        } else {
+            repository = new TicketRepository();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createTickets() {
+        tickets = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            tickets.add(new Ticket().departDateBooking(DEPART_DATE).price(100 + i % 50));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void clear() {
+        repository.deleteAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (db != null) {
+            db.close();
+        }
+    }
+
+    @Benchmark
+    public List<Ticket> saveAll() {
+        return repository.saveAll(tickets);
+    }
+
+    @Benchmark
+    public List<Ticket> saveOneByOne() {
+        for (Ticket ticket : tickets) {
+            repository.save(ticket);
+        }
+        return tickets;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SaveAllBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
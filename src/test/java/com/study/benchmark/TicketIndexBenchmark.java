@@ -0,0 +1,121 @@
+package com.study.benchmark;
+
+import com.study.domain.Station;
+import com.study.domain.Ticket;
+import com.study.domain.Train;
+import com.study.domain.User;
+import com.study.repository.TicketRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of ticket queries on a {@link TicketRepository} holding 1M tickets,
+ * spread over 1000 trains, 30 departure dates and 100k users.
+ * The {@code indexed...} benchmarks use the secondary indexes of the repository;
+ * the {@code scan...} benchmarks filter all tickets as was needed before the indexes existed.
+ * Run with the {@link #main(String[])} method after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class TicketIndexBenchmark {
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(2024, 5, 1);
+
+    @Param({"1000000"})
+    private int tickets;
+
+    private final int trains = 1000;
+
+    private final int dates = 30;
+
+    private final int users = 100_000;
+
+    private final TicketRepository ticketRepository = new TicketRepository();
+
+    private int query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Train> trainList = new ArrayList<>(trains);
+        for (int i = 1; i <= trains; i++) {
+            trainList.add(new Train().id(i).trainModel("Intercity"));
+        }
+        List<User> userList = new ArrayList<>(users);
+        for (int i = 1; i <= users; i++) {
+            userList.add(new User().id(i).firstName("Ivan"));
+        }
+        Station kyiv = new Station().id(1).nameOfStation("Kyiv");
+        Station lviv = new Station().id(2).nameOfStation("Lviv");
+        List<Ticket> batch = new ArrayList<>(tickets);
+        for (int i = 0; i < tickets; i++) {
+            Ticket ticket = new Ticket().price(100).departDateBooking(FIRST_DATE.plusDays(i / trains % dates));
+            ticket.setTrain(trainList.get(i % trains));
+            ticket.setUser(userList.get(i % users));
+            ticket.setStartStation(kyiv);
+            ticket.setEndStation(lviv);
+            batch.add(ticket);
+        }
+        ticketRepository.saveAll(batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ticketRepository.deleteAll();
+    }
+
+    @Benchmark
+    public List<Ticket> indexedByTrainAndDate() {
+        return ticketRepository.findByTrainIdAndDepartDate(nextTrain(), nextDate());
+    }
+
+    @Benchmark
+    public List<Ticket> scanByTrainAndDate() {
+        int trainId = nextTrain();
+        LocalDate date = nextDate();
+        return ticketRepository.streamAll()
+                .filter(ticket -> ticket.getTrain().getId() == trainId && date.equals(ticket.getDepartDateBooking()))
+                .toList();
+    }
+
+    @Benchmark
+    public List<Ticket> indexedByUser() {
+        return ticketRepository.findByUserId(nextUser());
+    }
+
+    @Benchmark
+    public List<Ticket> scanByUser() {
+        int userId = nextUser();
+        return ticketRepository.streamAll()
+                .filter(ticket -> ticket.getUser().getId() == userId)
+                .toList();
+    }
+
+    private int nextTrain() {
+        return ++query % trains + 1;
+    }
+
+    private LocalDate nextDate() {
+        return FIRST_DATE.plusDays(query % dates);
+    }
+
+    private int nextUser() {
+        return ++query % users + 1;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TicketIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,79 @@
+package com.study.benchmark;
+
+import com.study.domain.*;
+import com.study.service.dto.TicketDTO;
+import com.study.service.mapper.TicketMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of converting a large ticket listing to DTOs.
+ * {@code toDTOList} converts the list in one call, sharing the DTOs of referenced entities by ID;
+ * {@code toDTOEach} converts ticket by ticket, creating separate nested DTOs for every ticket.
+ * As in the in-memory repositories, every ticket holds its own copies of the referenced entities.
+ * Run with the {@link #main(String[])} method after {@code mvn test-compile}; the GC profiler
+ * reports the bytes allocated per conversion in {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketMapperBenchmark {
+
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 5, 10);
+
+    @Param({"100000"})
+    private int tickets;
+
+    @Param({"20"})
+    private int trains;
+
+    private final TicketMapper ticketMapper = new TicketMapper();
+
+    private List<Ticket> listing;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        listing = new ArrayList<>(tickets);
+        for (int i = 0; i < tickets; i++) {
+            Ticket ticket = new Ticket().id(i + 1).price(100).departDateBooking(DEPART_DATE);
+            ticket.setTrain(new Train().id(i % trains + 1).trainModel("Intercity"));
+            ticket.setStartStation(new Station().id(i % trains + 1).nameOfStation("Kyiv"));
+            ticket.setEndStation(new Station().id(i % trains + 2).nameOfStation("Lviv"));
+            ticket.setUser(new User().id(i % 1000 + 1).firstName("Ivan"));
+            ticket.setEconomy(new Economy().id(i % 3 + 1).type("Second class"));
+            ticket.setAgeGroup(new AgeGroup().id(i % 2 + 1).type("Adult"));
+            listing.add(ticket);
+        }
+    }
+
+    @Benchmark
+    public List<TicketDTO> toDTOList() {
+        return ticketMapper.toDTO(listing);
+    }
+
+    @Benchmark
+    public List<TicketDTO> toDTOEach() {
+        List<TicketDTO> ticketDTOs = new ArrayList<>(listing.size());
+        for (Ticket ticket : listing) {
+            ticketDTOs.add(ticketMapper.toDTO(ticket));
+        }
+        return ticketDTOs;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TicketMapperBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package com.study.benchmark;
+
+import com.study.service.TicketService;
+import com.study.service.dto.*;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilder;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFactory;
+import org.apache.logging.log4j.core.config.builder.impl.BuiltConfiguration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link TicketService#save(TicketDTO)} with a fully populated ticket,
+ * which passes through the mapper and the repository and logs at DEBUG on every step.
+ * The appender only lets WARN through, as in {@code log4j.xml}; {@code rootLevel} is either
+ * DEBUG (log events are built and then filtered by the appender) or WARN (log calls return at once).
+ * Run with the {@link #main(String[])} method after {@code mvn test-compile}; the GC profiler
+ * reports the bytes allocated per save in {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketSaveLoggingBenchmark {
+
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 5, 10);
+
+    @Param({"WARN", "DEBUG"})
+    private String rootLevel;
+
+    private TicketService ticketService;
+
+    private TrainDTO train;
+    private UserDTO user;
+    private StationDTO startStation;
+    private StationDTO endStation;
+    private EconomyDTO economy;
+    private AgeGroupDTO ageGroup;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ConfigurationBuilder<BuiltConfiguration> builder = ConfigurationBuilderFactory.newConfigurationBuilder();
+        builder.add(builder.newAppender("STDOUT", "Console")
+                .add(builder.newLayout("PatternLayout").addAttribute("pattern", "%-5level %c{1} - %msg%n"))
+                .add(builder.newFilter("ThresholdFilter", Filter.Result.ACCEPT, Filter.Result.DENY)
+                        .addAttribute("level", org.apache.logging.log4j.Level.WARN)));
+        builder.add(builder.newRootLogger(org.apache.logging.log4j.Level.valueOf(rootLevel)).add(builder.newAppenderRef("STDOUT")));
+        Configurator.reconfigure(builder.build());
+
+        ticketService = new TicketService();
+        train = new TrainDTO().id(1).amountOfSeats(300).trainModel("Intercity");
+        user = new UserDTO().id(1).firstName("Ivan").email("ivan@example.com");
+        startStation = new StationDTO().id(1).nameOfStation("Kyiv");
+        endStation = new StationDTO().id(2).nameOfStation("Lviv");
+        economy = new EconomyDTO().id(1).type("Second class");
+        ageGroup = new AgeGroupDTO().id(1).type("Adult");
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        ticketService.deleteAll();
+    }
+
+    @Benchmark
+    public TicketDTO save() {
+        TicketDTO ticketDTO = new TicketDTO().price(450.0).departDateBooking(DEPART_DATE);
+        ticketDTO.setTrain(train);
+        ticketDTO.setUser(user);
+        ticketDTO.setStartStation(startStation);
+        ticketDTO.setEndStation(endStation);
+        ticketDTO.setEconomy(economy);
+        ticketDTO.setAgeGroup(ageGroup);
+        return ticketService.save(ticketDTO);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TicketSaveLoggingBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
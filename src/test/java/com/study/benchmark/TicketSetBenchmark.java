@@ -0,0 +1,87 @@
+package com.study.benchmark;
+
+import com.study.domain.Ticket;
+import com.study.domain.TicketSet;
+import com.study.domain.Train;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for the ticket back-references of a {@link Train}.
+ * Measures add/remove/contains on a train that already holds 100k tickets,
+ * for {@link TicketSet} and for a plain {@link HashSet}.
+ * Run with the {@link #main(String[])} method after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketSetBenchmark {
+
+    @Param({"100000"})
+    private int ticketsPerTrain;
+
+    @Param({"TicketSet", "HashSet"})
+    private String setType;
+
+    private Set<Ticket> tickets;
+
+    private Ticket[] pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tickets = newSet();
+        pool = new Ticket[ticketsPerTrain];
+        for (int i = 0; i < ticketsPerTrain; i++) {
+            pool[i] = new Ticket().id(i + 1);
+            tickets.add(pool[i]);
+        }
+    }
+
+    private Set<Ticket> newSet() {
+        return setType.equals("TicketSet") ? new TicketSet() : new HashSet<>();
+    }
+
+    private Ticket randomTicket() {
+        return pool[ThreadLocalRandom.current().nextInt(ticketsPerTrain)];
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return tickets.contains(randomTicket());
+    }
+
+    @Benchmark
+    public boolean removeAndAdd() {
+        Ticket ticket = randomTicket();
+        tickets.remove(ticket);
+        return tickets.add(ticket);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public Set<Ticket> attachAllTickets() {
+        Set<Ticket> attached = newSet();
+        for (Ticket ticket : pool) {
+            attached.add(ticket);
+        }
+        return attached;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TicketSetBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+package com.study.benchmark;
+
+import com.study.domain.Station;
+import com.study.repository.persistence.EntityCodecs;
+import com.study.repository.persistence.WriteAheadLog;
+import com.study.repository.storage.EntityStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * JMH benchmark of the {@link WriteAheadLog}.
+ * {@code save} stores {@value #BATCH} stations and syncs once, as the periodic sync does,
+ * into a store with and without a log, so its score divided by {@value #BATCH} is the cost of one save.
+ * {@code recover} rebuilds a store of {@code entities} stations from their snapshot, the startup cost.
+ * Run with the {@link #main(String[])} method after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteAheadLogBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @Param({"100000"})
+    private int entities;
+
+    @Param({"none", "wal"})
+    private String log;
+
+    private Path directory;
+
+    private EntityStore<Station> store;
+
+    private WriteAheadLog<Station> writeAheadLog;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("wal-benchmark");
+        EntityStore<Station> initial = new EntityStore<>(Station::getId, Station::setId);
+        WriteAheadLog<Station> initialLog = new WriteAheadLog<>(directory, "recovered", EntityCodecs.STATION);
+        initialLog.recover(initial);
+        initial.attachLog(initialLog);
+        for (int i = 0; i < entities; i++) {
+            initial.insert(new Station().nameOfStation("Station " + i).addressLocation("Street " + i));
+        }
+        initialLog.checkpoint(initial);
+        initialLog.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void openStore() throws IOException {
+        store = new EntityStore<>(Station::getId, Station::setId);
+        if (log.equals("wal")) {
+            writeAheadLog = new WriteAheadLog<>(directory, "saved", EntityCodecs.STATION);
+            writeAheadLog.recover(store);
+            store.attachLog(writeAheadLog);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeStore() throws IOException {
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+            writeAheadLog = null;
+            Files.deleteIfExists(directory.resolve("saved.log"));
+            Files.deleteIfExists(directory.resolve("saved.snapshot"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public EntityStore<Station> save() throws IOException {
+        for (int i = 0; i < BATCH; i++) {
+            store.insert(new Station().nameOfStation("Kyiv").addressLocation("Vokzalna 1"));
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.sync();
+        }
+        return store;
+    }
+
+    @Benchmark
+    public EntityStore<Station> recover() throws IOException {
+        EntityStore<Station> recovered = new EntityStore<>(Station::getId, Station::setId);
+        WriteAheadLog<Station> recoveredLog = new WriteAheadLog<>(directory, "recovered", EntityCodecs.STATION);
+        recoveredLog.recover(recovered);
+        recoveredLog.close();
+        return recovered;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WriteAheadLogBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
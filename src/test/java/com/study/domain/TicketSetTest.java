@@ -0,0 +1,141 @@
+package com.study.domain;
+
+import com.study.repository.TicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link TicketSet} class.
+ * The tests cover adding, finding and removing tickets by ID, growing the table,
+ * and keeping back-references consistent when a ticket receives its ID.
+ */
+public class TicketSetTest {
+
+    private static final int MANY_TICKETS = 10_000;
+    private static final int THREADS = 8;
+    private static final int TICKETS_PER_THREAD = 2_000;
+    private static final int ID_1 = 1;
+    private static final int ID_2 = 2;
+    private static final int ID_3 = 3;
+
+    private TicketSet ticketSet;
+
+    private Ticket createEntity(int id) {
+        return new Ticket().id(id);
+    }
+
+    @BeforeEach
+    void setUp() {
+        ticketSet = new TicketSet();
+    }
+
+    @Test
+    void givenTickets_whenAdd_thenContainsById() {
+        assertTrue(ticketSet.add(createEntity(ID_1)));
+        assertTrue(ticketSet.add(createEntity(ID_2)));
+
+        // A ticket with an ID that is already present is not added again
+        assertFalse(ticketSet.add(createEntity(ID_1)));
+
+        assertEquals(2, ticketSet.size());
+        assertTrue(ticketSet.contains(createEntity(ID_2)));
+        assertTrue(ticketSet.containsId(ID_1));
+        assertFalse(ticketSet.containsId(ID_3));
+    }
+
+    @Test
+    void givenTickets_whenRemove_thenNoLongerContained() {
+        ticketSet.addAll(List.of(createEntity(ID_1), createEntity(ID_2), createEntity(ID_3)));
+
+        assertTrue(ticketSet.remove(createEntity(ID_2)));
+        assertFalse(ticketSet.remove(createEntity(ID_2)));
+
+        // Removed slots do not hide the remaining tickets
+        assertFalse(ticketSet.containsId(ID_2));
+        assertTrue(ticketSet.containsId(ID_1));
+        assertTrue(ticketSet.containsId(ID_3));
+        assertEquals(2, ticketSet.size());
+    }
+
+    @Test
+    void givenManyTickets_whenAddAndRemove_thenSizeStaysConsistent() {
+        for (int id = 1; id <= MANY_TICKETS; id++) {
+            ticketSet.add(createEntity(id));
+        }
+        for (int id = 1; id <= MANY_TICKETS; id += 2) {
+            ticketSet.removeId(id);
+        }
+
+        // Only tickets with even IDs remain
+        assertEquals(MANY_TICKETS / 2, ticketSet.size());
+        for (int id = 1; id <= MANY_TICKETS; id++) {
+            assertEquals(id % 2 == 0, ticketSet.containsId(id));
+        }
+    }
+
+    @Test
+    void givenTickets_whenIteratorRemove_thenTicketIsRemoved() {
+        ticketSet.addAll(List.of(createEntity(ID_1), createEntity(ID_2)));
+
+        Iterator<Ticket> iterator = ticketSet.iterator();
+        Ticket removed = iterator.next();
+        iterator.remove();
+
+        assertFalse(ticketSet.contains(removed));
+        assertEquals(1, ticketSet.size());
+        assertTrue(iterator.hasNext());
+    }
+
+    @Test
+    void givenTicketOnTrain_whenSaved_thenTrainFindsTicketByNewId() {
+        Train train = new Train();
+        Ticket ticket = new Ticket();
+        ticket.setTrain(train);
+
+        TicketRepository ticketRepository = new TicketRepository();
+        ticketRepository.save(ticket);
+
+        // The train's ticket set follows the ID assigned on save
+        assertTrue(train.getTickets().contains(ticket));
+        assertEquals(1, train.getTickets().size());
+        ticketRepository.delete(ticket);
+    }
+
+    @Test
+    void givenManyThreads_whenSaveTicketsOnSameTrain_thenTrainHoldsEveryTicket() throws Exception {
+        Train train = new Train();
+        TicketRepository ticketRepository = new TicketRepository();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < TICKETS_PER_THREAD; i++) {
+                    Ticket ticket = new Ticket();
+                    ticket.setTrain(train);
+                    ticketRepository.save(ticket);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Every saved ticket is found in the train's set under its own ID
+        List<Ticket> saved = ticketRepository.findAll();
+        assertEquals(THREADS * TICKETS_PER_THREAD, saved.size());
+        for (Ticket ticket : saved) {
+            assertTrue(train.getTickets().contains(ticket));
+        }
+        ticketRepository.deleteAll();
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -197,4 +198,17 @@ public class DiscountRepositoryTest {
         assertEquals(discountRepository.findById(discount1.getId()).get(), discount1);
         assertEquals(discountRepository.findById(discount2.getId()).get(), discount2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenValidityPeriods_whenFindActiveOn_thenReturnDiscountsValidOnDate() {
+        LocalDate date = LocalDate.of(2024, 6, 1);
+        discountRepository.updateId(discount1.getId(), discount1.startAt(date.minusDays(10)).endAt(date));
+        discountRepository.updateId(discount2.getId(), discount2.startAt(date.plusDays(1)).endAt(date.plusDays(10)));
+        discountRepository.updateId(discount3.getId(), discount3.startAt(null).endAt(null));
+
+        // Check that only the discounts valid on each date are returned, in ID order
+        assertEquals(List.of(discount1, discount3), discountRepository.findActiveOn(date));
+        assertEquals(List.of(discount2, discount3), discountRepository.findActiveOn(date.plusDays(1)));
+        assertTrue(discountRepository.findActiveOn(null).isEmpty());
+    }
+}
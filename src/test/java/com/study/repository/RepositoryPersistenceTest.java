@@ -0,0 +1,106 @@
+package com.study.repository;
+
+import com.study.domain.Station;
+import com.study.domain.Ticket;
+import com.study.domain.Train;
+import com.study.domain.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link RepositoryPersistence} class.
+ * The tests cover recovering the repositories after a restart,
+ * with ticket references resolved from the recovered repositories.
+ * */
+public class RepositoryPersistenceTest {
+
+    private static final Duration INTERVAL = Duration.ofMinutes(1);
+
+    @TempDir
+    Path directory;
+
+    private final UserRepository userRepository = new UserRepository();
+    private final StationRepository stationRepository = new StationRepository();
+    private final TrainRepository trainRepository = new TrainRepository();
+    private final TicketRepository ticketRepository = new TicketRepository();
+
+    private RepositoryPersistence persistence;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        persistence = RepositoryPersistence.open(directory, INTERVAL, INTERVAL);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        persistence.close();
+        deleteAll();
+    }
+
+    private void deleteAll() {
+        ticketRepository.deleteAll();
+        userRepository.deleteAll();
+        stationRepository.deleteAll();
+        trainRepository.deleteAll();
+    }
+
+    private void restart() throws IOException {
+        persistence.close();
+        deleteAll();
+        persistence = RepositoryPersistence.open(directory, INTERVAL, INTERVAL);
+    }
+
+    @Test
+    void givenSavedEntities_whenRestarted_thenTheyAreRecoveredWithReferences() throws IOException {
+        User user = userRepository.save(new User().firstName("Ivan").email("ivan@example.com"));
+        Station station = stationRepository.save(new Station().nameOfStation("Kyiv"));
+        Train train = trainRepository.save(new Train().trainModel("Intercity"));
+        Ticket ticket = new Ticket().price(120.5).departDateBooking(LocalDate.of(2024, 5, 10));
+        ticket.setUser(user);
+        ticket.setStartStation(station);
+        ticket.setTrain(train);
+        ticketRepository.save(ticket);
+
+        restart();
+
+        // Check that the ticket is recovered with its references resolved to the recovered entities
+        Ticket recovered = ticketRepository.findById(ticket.getId()).orElseThrow();
+        assertEquals(120.5, recovered.getPrice());
+        assertEquals(LocalDate.of(2024, 5, 10), recovered.getDepartDateBooking());
+        assertSame(userRepository.findById(user.getId()).orElseThrow(), recovered.getUser());
+        assertEquals("Kyiv", recovered.getStartStation().getNameOfStation());
+        assertEquals("Intercity", recovered.getTrain().getTrainModel());
+        // Check that the indexes are rebuilt for the recovered entities
+        assertEquals(1, ticketRepository.findByTrainId(train.getId()).size());
+        assertTrue(userRepository.findByEmail("ivan@example.com").isPresent());
+    }
+
+    @Test
+    void givenDeletedEntity_whenCheckpointedAndRestarted_thenItStaysDeleted() throws IOException {
+        Station kyiv = stationRepository.save(new Station().nameOfStation("Kyiv"));
+        Station lviv = stationRepository.save(new Station().nameOfStation("Lviv"));
+        persistence.checkpoint();
+        stationRepository.deleteById(kyiv.getId());
+
+        restart();
+
+        // Check that only the station that was not deleted is recovered
+        assertFalse(stationRepository.existById(kyiv.getId()));
+        assertEquals("Lviv", stationRepository.findById(lviv.getId()).orElseThrow().getNameOfStation());
+    }
+
+    @Test
+    void givenOpenPersistence_whenOpenedAgain_thenIllegalStateExceptionIsThrown() {
+        // Check that the shared repositories cannot be persisted twice
+        assertThrows(IllegalStateException.class, () -> RepositoryPersistence.open(directory, INTERVAL, INTERVAL));
+    }
+}
@@ -205,4 +205,25 @@ public class StationRepositoryTest {
         assertEquals(stationRepository.findById(station1.getId()).get(), station1);
         assertEquals(stationRepository.findById(station2.getId()).get(), station2);
     }
+
+    @Test
+    public void givenOpenSnapshot_whenRepositoryChanges_thenSnapshotKeepsOldStations() {
+        try (RepositorySnapshot<Station> snapshot = stationRepository.snapshot()) {
+            // Change the repository after the snapshot was opened
+            stationRepository.save(createEntity(STATION_KYIV));
+            stationRepository.deleteById(station1.getId());
+            Station renamed = new Station().id(station2.getId()).nameOfStation(STATION_LVIV);
+            assertEquals(UpdateResult.UPDATED, stationRepository.update(renamed, station2.getVersion()));
+
+            // Verify that the snapshot still sees the three stations as they were
+            assertEquals(3, snapshot.count());
+            assertEquals(List.of(station1, station2, station3), snapshot.findAll());
+            assertEquals(STATION_VINNYTSIA, snapshot.findById(station2.getId()).get().getNameOfStation());
+            assertEquals(List.of(station3), snapshot.findPageAfter(station2.getId(), 10));
+        }
+
+        // Verify that the repository itself has changed
+        assertEquals(3, stationRepository.findAll().size());
+        assertFalse(stationRepository.existById(station1.getId()));
+    }
 }
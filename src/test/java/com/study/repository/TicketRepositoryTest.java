@@ -1,12 +1,23 @@
 package com.study.repository;
 
+import com.study.domain.Discount;
+import com.study.domain.Station;
 import com.study.domain.Ticket;
+import com.study.domain.Train;
+import com.study.domain.User;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -22,6 +33,11 @@ public class TicketRepositoryTest {
     private final double CHILD_TICKET_PRICE = 50.0;
     private final double OLD_TICKET_PRICE = 150.0;
 
+    private final int TRAIN_ID = 40;
+    private final int USER_ID = 41;
+    private final int STATION_ID = 42;
+    private final LocalDate DEPART_DATE = LocalDate.of(2024, 5, 1);
+
     private Ticket ticket1;
     private Ticket ticket2;
     private Ticket ticket3;
@@ -53,6 +69,9 @@ public class TicketRepositoryTest {
     @AfterEach
     void tearDown() {
         ticketRepository.deleteAll();
+        new StationRepository().deleteAll();
+        new TrainRepository().deleteAll();
+        new DiscountRepository().deleteAll();
     }
 
 
@@ -196,4 +215,149 @@ public class TicketRepositoryTest {
         assertEquals(ticketRepository.findById(ticket1.getId()).get(), ticket1);
         assertEquals(ticketRepository.findById(ticket2.getId()).get(), ticket2);
     }
+
+    @Test
+    void givenTicketsOnTrains_whenFindByTrainIdAndDepartDate_thenReturnOnlyThatRun() {
+        LocalDate today = LocalDate.of(2024, 5, 10);
+        Train train = new Train().id(TRAIN_ID);
+        Ticket today1 = createEntity(ADULT_TICKET_PRICE).departDateBooking(today);
+        Ticket today2 = createEntity(CHILD_TICKET_PRICE).departDateBooking(today);
+        Ticket tomorrow = createEntity(OLD_TICKET_PRICE).departDateBooking(today.plusDays(1));
+        today1.setTrain(train);
+        today2.setTrain(train);
+        tomorrow.setTrain(train);
+        ticketRepository.saveAll(List.of(today1, today2, tomorrow));
+
+        // Queries by train, date and train run return only the matching tickets, in ID order
+        assertEquals(List.of(today1, today2, tomorrow), ticketRepository.findByTrainId(TRAIN_ID));
+        assertEquals(List.of(today1, today2), ticketRepository.findByDepartDate(today));
+        assertEquals(List.of(today1, today2), ticketRepository.findByTrainIdAndDepartDate(TRAIN_ID, today));
+        assertEquals(List.of(tomorrow), ticketRepository.findByTrainIdAndDepartDate(TRAIN_ID, today.plusDays(1)));
+
+        // Tickets saved before without a train are not indexed under it
+        assertFalse(ticketRepository.findByTrainId(TRAIN_ID).contains(ticket1));
+    }
+
+    @Test
+    void givenIndexedTicket_whenUpdateAndDelete_thenIndexesFollow() {
+        User user = new User().id(USER_ID);
+        Station kyiv = new Station().id(STATION_ID);
+        Ticket ticket = createEntity(ADULT_TICKET_PRICE);
+        ticket.setUser(user);
+        ticket.setStartStation(kyiv);
+        ticketRepository.save(ticket);
+        assertEquals(List.of(ticket), ticketRepository.findByUserId(USER_ID));
+        assertEquals(List.of(ticket), ticketRepository.findByStartStationId(STATION_ID));
+
+        // Replacing the ticket by one ending at the station moves it between the station indexes
+        Ticket updated = createEntity(ADULT_TICKET_PRICE).id(ticket.getId());
+        updated.setEndStation(kyiv);
+        ticketRepository.updateId(ticket.getId(), updated);
+        assertTrue(ticketRepository.findByUserId(USER_ID).isEmpty());
+        assertTrue(ticketRepository.findByStartStationId(STATION_ID).isEmpty());
+        assertEquals(List.of(updated), ticketRepository.findByEndStationId(STATION_ID));
+
+        // Deleted tickets disappear from the indexes
+        ticketRepository.delete(updated);
+        assertTrue(ticketRepository.findByEndStationId(STATION_ID).isEmpty());
+    }
+
+    @Test
+    void givenReferencedStation_whenDeleteWithRestrict_thenRefuseAndKeepEverything() {
+        StationRepository stationRepository = new StationRepository();
+        Station kyiv = stationRepository.save(new Station().nameOfStation("Kyiv"));
+        Ticket ticket = ticketRepository.save(new Ticket(0, null, null, ADULT_TICKET_PRICE,
+                null, null, kyiv, null, null, null));
+
+        // The end station of a ticket is a reference too, so the delete is refused
+        assertThrows(ReferentialIntegrityException.class, () -> stationRepository.deleteById(kyiv.getId()));
+        assertTrue(stationRepository.existById(kyiv.getId()));
+        assertSame(kyiv, ticketRepository.findById(ticket.getId()).get().getEndStation());
+
+        // Once the ticket is gone the station can be deleted
+        ticketRepository.deleteById(ticket.getId());
+        stationRepository.deleteById(kyiv.getId());
+        assertFalse(stationRepository.existById(kyiv.getId()));
+    }
+
+    @Test
+    void givenReferencedTrain_whenDeleteWithCascade_thenDeleteOnlyItsTickets() {
+        TrainRepository trainRepository = new TrainRepository(ReferencePolicy.CASCADE);
+        Train train = trainRepository.save(new Train().amountOfSeats(10));
+        Train other = trainRepository.save(new Train().amountOfSeats(10));
+        Ticket onTrain = ticketRepository.save(new Ticket(0, null, null, ADULT_TICKET_PRICE,
+                null, null, null, train, null, null));
+        Ticket onOther = ticketRepository.save(new Ticket(0, null, null, CHILD_TICKET_PRICE,
+                null, null, null, other, null, null));
+
+        trainRepository.delete(train);
+
+        // The tickets of the deleted train are deleted with it, the others are kept
+        assertFalse(ticketRepository.existById(onTrain.getId()));
+        assertTrue(ticketRepository.existById(onOther.getId()));
+        assertTrue(ticketRepository.existById(ticket1.getId()));
+        assertTrue(ticketRepository.findByTrainId(train.getId()).isEmpty());
+    }
+
+    @Test
+    void givenReferencedStationAndDiscount_whenDeleteWithNullify_thenClearOnlyThoseReferences() {
+        StationRepository stationRepository = new StationRepository(ReferencePolicy.NULLIFY);
+        DiscountRepository discountRepository = new DiscountRepository();
+        Station lviv = stationRepository.save(new Station().nameOfStation("Lviv"));
+        Station kyiv = stationRepository.save(new Station().nameOfStation("Kyiv"));
+        Discount student = discountRepository.save(new Discount().type("Student"));
+        Discount holiday = discountRepository.save(new Discount().type("Holiday"));
+        Ticket ticket = ticketRepository.save(new Ticket(0, DEPART_DATE, null, ADULT_TICKET_PRICE,
+                null, lviv, kyiv, null, null, null).discount(Set.of(student, holiday)));
+        long version = ticket.getVersion();
+
+        stationRepository.deleteById(lviv.getId());
+        discountRepository.deleteById(student.getId());
+
+        // The ticket is kept without the deleted station and discount, and its other values are unchanged
+        Ticket stored = ticketRepository.findById(ticket.getId()).get();
+        assertNull(stored.getStartStation());
+        assertSame(kyiv, stored.getEndStation());
+        assertEquals(Set.of(holiday), stored.getDiscounts());
+        assertEquals(DEPART_DATE, stored.getDepartDateBooking());
+        assertEquals(version + 2, stored.getVersion());
+        assertTrue(ticketRepository.findByStartStationId(lviv.getId()).isEmpty());
+        assertEquals(List.of(stored), ticketRepository.findByEndStationId(kyiv.getId()));
+    }
+
+    @Test
+    void givenTicketMovedToOtherTrain_whenOldTrainDeletedWithCascade_thenMovedTicketIsKept() throws Exception {
+        TrainRepository trainRepository = new TrainRepository(ReferencePolicy.CASCADE);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 200; i++) {
+                Train deleted = trainRepository.save(new Train().amountOfSeats(10));
+                Train kept = trainRepository.save(new Train().amountOfSeats(10));
+                Ticket ticket = ticketRepository.save(new Ticket(0, null, null, ADULT_TICKET_PRICE,
+                        null, null, null, deleted, null, null));
+                Ticket moved = new Ticket(ticket.getId(), null, null, ADULT_TICKET_PRICE,
+                        null, null, null, kept, null, null);
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<?> update = executor.submit(() -> {
+                    start.await();
+                    return ticketRepository.updateId(ticket.getId(), moved);
+                });
+                Future<?> delete = executor.submit(() -> {
+                    start.await();
+                    trainRepository.deleteById(deleted.getId());
+                    return null;
+                });
+                update.get();
+                delete.get();
+
+                // Whichever comes first, the update stores the ticket on the other train and the delete leaves it there
+                Optional<Ticket> stored = ticketRepository.findById(ticket.getId());
+                assertTrue(stored.isPresent());
+                assertSame(kept, stored.get().getTrain());
+                ticketRepository.deleteById(ticket.getId());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,154 @@
+package com.study.repository;
+
+import com.study.domain.Ticket;
+import com.study.domain.Train;
+import com.study.domain.User;
+import com.study.repository.storage.DuplicateKeyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link Transaction} and {@link TransactionManager} classes.
+ * The tests cover commits spanning several repositories, rollbacks on conflicts and failed writes,
+ * and concurrent transactions locking the same entities in opposite orders.
+ */
+public class TransactionTest {
+
+    private static final String EMAIL = "ivan@example.com";
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 5, 1);
+    private static final int SEATS = 1_000;
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 500;
+
+    private final TrainRepository trainRepository = new TrainRepository();
+    private final UserRepository userRepository = new UserRepository();
+    private final TicketRepository ticketRepository = new TicketRepository();
+
+    private TransactionManager transactionManager;
+
+    private Train train;
+    private User user;
+
+    private User createUser(String email) {
+        return new User().firstName("Ivan").lastName("Petrenko").email(email).password("secret");
+    }
+
+    private Train copy(Train train, int amountOfSeats) {
+        return new Train().id(train.getId()).amountOfSeats(amountOfSeats).trainModel(train.getTrainModel());
+    }
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = new TransactionManager();
+        train = trainRepository.save(new Train().amountOfSeats(SEATS).trainModel("Intercity"));
+        user = userRepository.save(createUser(EMAIL));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ticketRepository.deleteAll();
+        trainRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void givenWritesToSeveralRepositories_whenCommit_thenAllAreApplied() {
+        Transaction transaction = transactionManager.begin();
+        Train read = transaction.read(TransactionManager.TRAINS, train.getId());
+        Ticket ticket = transaction.insert(TransactionManager.TICKETS, new Ticket().price(100).departDateBooking(DEPART_DATE));
+        transaction.update(TransactionManager.TRAINS, copy(read, SEATS - 1), read.getVersion());
+        transaction.delete(TransactionManager.USERS, user.getId(), user.getVersion());
+
+        // Check that the ticket, the train and the user changed together
+        assertTrue(transaction.commit());
+        assertTrue(ticketRepository.existById(ticket.getId()));
+        assertEquals(SEATS - 1, trainRepository.findById(train.getId()).orElseThrow().getAmountOfSeats());
+        assertFalse(userRepository.existById(user.getId()));
+        assertEquals(1, transactionManager.commitCount());
+        assertThrows(IllegalStateException.class, transaction::commit);
+    }
+
+    @Test
+    void givenReadEntityChangedMeanwhile_whenCommit_thenRollBackAndRunCompensations() {
+        AtomicBoolean compensated = new AtomicBoolean();
+        Transaction transaction = transactionManager.begin();
+        Train read = transaction.read(TransactionManager.TRAINS, train.getId());
+        transaction.insert(TransactionManager.TICKETS, new Ticket().price(100).departDateBooking(DEPART_DATE));
+        transaction.onRollback(() -> compensated.set(true));
+
+        // Another clerk changes the train before the commit
+        assertEquals(UpdateResult.UPDATED, trainRepository.update(copy(read, SEATS / 2), read.getVersion()));
+
+        // Check that nothing was stored and the compensation ran
+        assertFalse(transaction.commit());
+        assertTrue(ticketRepository.findAll().isEmpty());
+        assertTrue(compensated.get());
+        assertEquals(1, transactionManager.rollbackCount());
+    }
+
+    @Test
+    void givenFailingWrite_whenCommit_thenUndoEarlierWritesAndRethrow() {
+        long version = train.getVersion();
+        Transaction transaction = transactionManager.begin();
+        Ticket ticket = transaction.insert(TransactionManager.TICKETS, new Ticket().price(100).departDateBooking(DEPART_DATE));
+        transaction.update(TransactionManager.TRAINS, copy(train, SEATS - 1), version);
+        transaction.insert(TransactionManager.USERS, createUser(EMAIL));
+
+        // The second user takes an email already in use, so the whole transaction is undone
+        assertThrows(DuplicateKeyException.class, transaction::commit);
+        assertFalse(ticketRepository.existById(ticket.getId()));
+        Train stored = trainRepository.findById(train.getId()).orElseThrow();
+        assertEquals(SEATS, stored.getAmountOfSeats());
+        // Check that the restored train has a new version, so readers of the undone one see a change
+        assertEquals(version + 2, stored.getVersion());
+        assertEquals(1, userRepository.findAll().size());
+    }
+
+    @Test
+    void givenManyThreads_whenTransferSeatsInOppositeDirections_thenNoUpdateIsLostAndNoDeadlock() throws Exception {
+        Train other = trainRepository.save(new Train().amountOfSeats(SEATS).trainModel("Regional"));
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int from = i % 2 == 0 ? train.getId() : other.getId();
+            int to = i % 2 == 0 ? other.getId() : train.getId();
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                    Boolean done = null;
+                    while (done == null) {
+                        done = transactionManager.execute(transaction -> {
+                            Train source = transaction.read(TransactionManager.TRAINS, from);
+                            Train target = transaction.read(TransactionManager.TRAINS, to);
+                            transaction.update(TransactionManager.TRAINS,
+                                    copy(source, source.getAmountOfSeats() - 1), source.getVersion());
+                            transaction.update(TransactionManager.TRAINS,
+                                    copy(target, target.getAmountOfSeats() + 1), target.getVersion());
+                            return true;
+                        });
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Check that every transfer was applied to both trains exactly once
+        assertEquals(SEATS, trainRepository.findById(train.getId()).orElseThrow().getAmountOfSeats());
+        assertEquals(SEATS, trainRepository.findById(other.getId()).orElseThrow().getAmountOfSeats());
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, transactionManager.commitCount());
+    }
+}
@@ -1,6 +1,7 @@
 package com.study.repository;
 
 import com.study.domain.User;
+import com.study.repository.storage.DuplicateKeyException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -199,4 +200,44 @@ public class UserRepositoryTest {
         assertEquals(userRepository.findById(user1.getId()).get(), user1);
         assertEquals(userRepository.findById(user2.getId()).get(), user2);
     }
+
+    @Test
+    void givenUserWithEmail_whenFindByEmail_thenIgnoreCaseAndWhitespace() {
+        User user = userRepository.save(createEntity(NAMES_USERS[0]).email("Ivan@Example.com"));
+
+        // The email is matched after normalization
+        assertEquals(user, userRepository.findByEmail(" ivan@example.COM ").get());
+        assertTrue(userRepository.findByEmail("petro@example.com").isEmpty());
+        assertTrue(userRepository.findByEmail(null).isEmpty());
+    }
+
+    @Test
+    void givenTakenEmail_whenSave_thenRejectUser() {
+        userRepository.save(createEntity(NAMES_USERS[0]).email("ivan@example.com"));
+        int sizeBeforeSave = userRepository.findAll().size();
+
+        // A user with the same normalized email is not saved, alone or in a list
+        assertThrows(DuplicateKeyException.class,
+                () -> userRepository.save(createEntity(NAMES_USERS[1]).email("IVAN@example.com")));
+        assertThrows(DuplicateKeyException.class, () -> userRepository.saveAll(List.of(
+                createEntity(NAMES_USERS[1]).email("olex@example.com"),
+                createEntity(NAMES_USERS[2]).email("ivan@example.com"))));
+        assertEquals(sizeBeforeSave, userRepository.findAll().size());
+        assertTrue(userRepository.findByEmail("olex@example.com").isEmpty());
+    }
+
+    @Test
+    void givenUser_whenUpdateEmailAndDelete_thenEmailIndexFollows() {
+        User user = userRepository.save(createEntity(NAMES_USERS[0]).email("ivan@example.com"));
+
+        // After the update the user is found by the new email only
+        User updated = createEntity(NAMES_USERS[0]).email("ivan@example.org").id(user.getId());
+        assertTrue(userRepository.updateId(user.getId(), updated));
+        assertTrue(userRepository.findByEmail("ivan@example.com").isEmpty());
+        assertEquals(updated, userRepository.findByEmail("ivan@example.org").get());
+
+        // A deleted user's email can be registered again
+        userRepository.delete(updated);
+        assertNotNull(userRepository.save(createEntity(NAMES_USERS[1]).email("ivan@example.org")));
+    }
 }
@@ -0,0 +1,162 @@
+package com.study.repository.jdbc;
+
+import com.study.FirstDB;
+import com.study.domain.Station;
+import com.study.repository.RepositorySnapshot;
+import com.study.repository.UpdateResult;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link JdbcStationRepository} class,
+ * run against an in-memory H2 database.
+ * The tests cover reading, updating, deleting and paging rows, and snapshots kept while rows are written.
+ * */
+public class JdbcStationRepositoryTest {
+
+    private static final String URL = "jdbc:h2:mem:stations;DB_CLOSE_DELAY=-1";
+
+    private static final String STATION_KYIV = "KYIV Station";
+    private static final String STATION_VINNYTSIA = "Vinnytsia Station";
+    private static final String STATION_LVIV = "Lviv Station";
+    private static final String ADDRESS = "Central square 1";
+
+    private static FirstDB db;
+
+    private static JdbcStationRepository stationRepository;
+
+    private Station station1;
+    private Station station2;
+    private Station station3;
+
+    private Station createEntity(String nameOfStation) {
+        return new Station().nameOfStation(nameOfStation).addressLocation(ADDRESS);
+    }
+
+    @BeforeAll
+    static void createSchema() throws SQLException {
+        db = new FirstDB(URL, "sa", "");
+        db.runScript("schema.sql");
+        stationRepository = new JdbcStationRepository(db);
+    }
+
+    @AfterAll
+    static void closePool() {
+        db.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        station1 = createEntity(STATION_KYIV);
+        station2 = createEntity(STATION_VINNYTSIA);
+        station3 = createEntity(STATION_LVIV);
+        stationRepository.saveAll(List.of(station1, station2, station3));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stationRepository.deleteAll();
+    }
+
+    @Test
+    void givenSavedStations_whenFindById_thenReturnEqualStation() {
+        // IDs are generated by the database and written back into the entities
+        assertNotEquals(0, station1.getId());
+        assertNotEquals(station1.getId(), station2.getId());
+
+        // Each station is read back with the same values
+        assertEquals(station1, stationRepository.findById(station1.getId()).get());
+        assertEquals(station3, stationRepository.findById(station3.getId()).get());
+        assertTrue(stationRepository.existById(station2.getId()));
+    }
+
+    @Test
+    void givenUnknownId_whenFindById_thenReturnEmpty() {
+        // A missing row yields an empty Optional
+        assertTrue(stationRepository.findById(-1).isEmpty());
+        assertFalse(stationRepository.existById(-1));
+    }
+
+    @Test
+    void givenSavedStations_whenFindAll_thenReturnStationsOrderedById() {
+        // All stations are returned in ID order
+        assertEquals(List.of(station1, station2, station3), stationRepository.findAll());
+    }
+
+    @Test
+    void givenNewStation_whenUpdateId_thenRowIsReplaced() {
+        Station updated = createEntity(STATION_LVIV).id(station1.getId() + 1000);
+
+        // The row of station1 is moved to the new ID with the new values
+        assertTrue(stationRepository.updateId(station1.getId(), updated));
+        assertFalse(stationRepository.existById(station1.getId()));
+        assertEquals(updated, stationRepository.findById(updated.getId()).get());
+    }
+
+    @Test
+    void givenStaleVersion_whenUpdate_thenReturnConflictAndKeepRow() {
+        Station firstClerk = stationRepository.findById(station1.getId()).orElseThrow();
+        Station secondClerk = stationRepository.findById(station1.getId()).orElseThrow();
+
+        // The first update is checked and versioned by the database
+        assertEquals(UpdateResult.UPDATED, stationRepository.update(firstClerk.nameOfStation(STATION_LVIV), 0));
+        assertEquals(1, firstClerk.getVersion());
+        assertEquals(1, stationRepository.findById(station1.getId()).orElseThrow().getVersion());
+
+        // The second update from version 0 conflicts and leaves the row as the first one wrote it
+        assertEquals(UpdateResult.CONFLICT, stationRepository.update(secondClerk.nameOfStation(STATION_VINNYTSIA), 0));
+        assertEquals(STATION_LVIV, stationRepository.findById(station1.getId()).orElseThrow().getNameOfStation());
+        assertEquals(UpdateResult.NOT_FOUND, stationRepository.update(createEntity(STATION_KYIV).id(-1), 0));
+    }
+
+    @Test
+    void givenStations_whenDeleteAllByList_thenOnlyThoseAreDeleted() {
+        stationRepository.deleteAll(List.of(station1, station3));
+
+        // Only station2 remains
+        assertEquals(List.of(station2), stationRepository.findAll());
+    }
+
+    @Test
+    void givenStationWithoutAddress_whenSave_thenThrowDataAccessException() {
+        // The address column is NOT NULL, so the failure surfaces as an unchecked exception
+        assertThrows(DataAccessException.class,
+                () -> stationRepository.save(new Station().nameOfStation(STATION_KYIV)));
+    }
+
+    @Test
+    void givenSavedStations_whenFindPage_thenReturnStationsOfThePage() {
+        // Offset and keyset pages return the same slice
+        assertEquals(List.of(station2, station3), stationRepository.findPage(1, 5));
+        assertEquals(List.of(station2, station3), stationRepository.findPageAfter(station1.getId(), 5));
+        assertEquals(List.of(station1), stationRepository.findPageAfter(0, 1));
+    }
+
+    @Test
+    void givenOpenSnapshot_whenRowsAreWritten_thenSnapshotKeepsItsPointInTime() {
+        List<Station> saved = List.of(station1, station2, station3);
+        try (RepositorySnapshot<Station> snapshot = stationRepository.snapshot()) {
+            stationRepository.updateId(station1.getId(), createEntity("Odesa Station").id(station1.getId()));
+            stationRepository.deleteById(station2.getId());
+            stationRepository.save(createEntity(STATION_LVIV));
+
+            // The snapshot reads the rows as they were when it was opened, page after page
+            assertEquals(3, snapshot.count());
+            assertEquals(saved, snapshot.findAll());
+            assertEquals(STATION_KYIV, snapshot.findById(station1.getId()).orElseThrow().getNameOfStation());
+            assertEquals(List.of(station2, station3), snapshot.findPageAfter(station1.getId(), 10));
+        }
+
+        // Once closed, its connection is back in the pool and sees the writes
+        assertEquals(3, stationRepository.findAll().size());
+        assertEquals("Odesa Station", stationRepository.findById(station1.getId()).orElseThrow().getNameOfStation());
+    }
+}
@@ -0,0 +1,174 @@
+package com.study.repository.jdbc;
+
+import com.study.FirstDB;
+import com.study.domain.*;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link JdbcTicketRepository} class,
+ * run against an in-memory H2 database.
+ * */
+public class JdbcTicketRepositoryTest {
+
+    private static final String URL = "jdbc:h2:mem:tickets;DB_CLOSE_DELAY=-1";
+
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 5, 10);
+    private static final LocalDate REGISTRATION_DATE = LocalDate.of(2024, 5, 1);
+    private static final double PRICE = 450.0;
+    private static final int BATCH_TICKETS = 1200;
+
+    private static FirstDB db;
+
+    private static JdbcTicketRepository ticketRepository;
+    private static JdbcUserRepository userRepository;
+    private static JdbcStationRepository stationRepository;
+    private static JdbcTrainRepository trainRepository;
+    private static JdbcEconomyRepository economyRepository;
+    private static JdbcAgeGroupRepository ageGroupRepository;
+    private static JdbcDiscountRepository discountRepository;
+
+    private User user;
+    private Station startStation;
+    private Station endStation;
+    private Train train;
+    private Economy economy;
+    private AgeGroup ageGroup;
+    private Discount discount;
+
+    @BeforeAll
+    static void createSchema() throws SQLException {
+        db = new FirstDB(URL, "sa", "");
+        db.runScript("schema.sql");
+        ticketRepository = new JdbcTicketRepository(db);
+        userRepository = new JdbcUserRepository(db);
+        stationRepository = new JdbcStationRepository(db);
+        trainRepository = new JdbcTrainRepository(db);
+        economyRepository = new JdbcEconomyRepository(db);
+        ageGroupRepository = new JdbcAgeGroupRepository(db);
+        discountRepository = new JdbcDiscountRepository(db);
+    }
+
+    @AfterAll
+    static void closePool() {
+        db.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User().firstName("Ivan").email("ivan@example.com").password("secret"));
+        startStation = stationRepository.save(new Station().nameOfStation("Kyiv").addressLocation("Kyiv 1"));
+        endStation = stationRepository.save(new Station().nameOfStation("Lviv").addressLocation("Lviv 1"));
+        train = trainRepository.save(new Train().amountOfSeats(300).trainModel("Intercity"));
+        economy = economyRepository.save(new Economy().type("Second class"));
+        ageGroup = ageGroupRepository.save(new AgeGroup().type("Adult"));
+        discount = discountRepository.save(new Discount().type("Student").percent(25.0)
+                .startAt(REGISTRATION_DATE).endAt(DEPART_DATE));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ticketRepository.deleteAll();
+        discountRepository.deleteAll();
+        ageGroupRepository.deleteAll();
+        economyRepository.deleteAll();
+        trainRepository.deleteAll();
+        stationRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private Ticket createTicket() {
+        return new Ticket(0, DEPART_DATE, REGISTRATION_DATE, PRICE,
+                user, startStation, endStation, train, economy, ageGroup);
+    }
+
+    @Test
+    void givenSavedTicket_whenFindById_thenReferencesAreResolved() {
+        Ticket ticket = createTicket().seatNumber(12);
+        ticket.setDiscounts(Set.of(discount));
+        ticketRepository.save(ticket);
+
+        Ticket found = ticketRepository.findById(ticket.getId()).get();
+
+        // Column values are read back
+        assertEquals(DEPART_DATE, found.getDepartDateBooking());
+        assertEquals(PRICE, found.getPrice());
+        assertEquals(12, found.getSeatNumber());
+
+        // References are loaded with all their values, not only their IDs
+        assertEquals(user, found.getUser());
+        assertEquals(startStation, found.getStartStation());
+        assertEquals(endStation, found.getEndStation());
+        assertEquals(train, found.getTrain());
+        assertEquals(economy, found.getEconomy());
+        assertEquals(ageGroup, found.getAgeGroup());
+
+        // Discounts are read from the join table
+        assertEquals(Set.of(discount), found.getDiscounts());
+    }
+
+    @Test
+    void givenTicketWithoutReferences_whenFindById_thenReferencesAreNull() {
+        Ticket ticket = new Ticket().departDateBooking(DEPART_DATE).price(PRICE);
+        ticketRepository.save(ticket);
+
+        Ticket found = ticketRepository.findById(ticket.getId()).get();
+
+        // NULL foreign keys stay null
+        assertNull(found.getTrain());
+        assertNull(found.getUser());
+        assertTrue(found.getDiscounts().isEmpty());
+    }
+
+    @Test
+    void givenManyTickets_whenSaveAllAndDeleteAll_thenAllRowsAreWrittenAndRemoved() {
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < BATCH_TICKETS; i++) {
+            tickets.add(createTicket().seatNumber(i + 1));
+        }
+
+        ticketRepository.saveAll(tickets);
+
+        // Every ticket got a distinct generated ID, across several JDBC batches
+        assertEquals(BATCH_TICKETS, tickets.stream().mapToInt(Ticket::getId).distinct().count());
+        assertEquals(BATCH_TICKETS, ticketRepository.findAll().size());
+
+        // Streaming reads the rows page by page, with references resolved
+        assertEquals(tickets.stream().map(Ticket::getId).toList(),
+                ticketRepository.streamAll().map(Ticket::getId).toList());
+        assertEquals(train, ticketRepository.streamAll().skip(BATCH_TICKETS - 1).findFirst().get().getTrain());
+
+        ticketRepository.deleteAll(tickets.subList(0, BATCH_TICKETS / 2));
+
+        // Only the second half remains
+        assertEquals(BATCH_TICKETS / 2, ticketRepository.findAll().size());
+        assertFalse(ticketRepository.existById(tickets.getFirst().getId()));
+    }
+
+    @Test
+    void givenChangedTicket_whenUpdateId_thenDiscountsAreRewritten() {
+        Ticket ticket = createTicket();
+        ticket.setDiscounts(Set.of(discount));
+        ticketRepository.save(ticket);
+
+        Ticket updated = createTicket().id(ticket.getId()).price(PRICE * 2);
+        updated.setDiscounts(Set.of());
+
+        // The row is updated in place and its discounts removed from the join table
+        assertTrue(ticketRepository.updateId(ticket.getId(), updated));
+        Ticket found = ticketRepository.findById(ticket.getId()).get();
+        assertEquals(PRICE * 2, found.getPrice());
+        assertTrue(found.getDiscounts().isEmpty());
+    }
+}
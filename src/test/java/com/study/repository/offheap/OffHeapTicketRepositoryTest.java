@@ -0,0 +1,242 @@
+package com.study.repository.offheap;
+
+import com.study.domain.*;
+import com.study.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link OffHeapTicketRepository} class.
+ * The tests cover storing tickets off-heap, materializing them with their references,
+ * updating, deleting, paging, reading all tickets while they are written and reading them lazily through a snapshot.
+ * */
+public class OffHeapTicketRepositoryTest {
+
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 5, 10);
+    private static final LocalDate REGISTRATION_DATE = LocalDate.of(2024, 5, 1);
+    private static final double PRICE = 450.25;
+    private static final int BATCH_TICKETS = 70_000;
+    private static final int SWEPT_TICKETS = 20_000;
+    private static final int SNAPSHOT_TICKETS = 10_000;
+
+    private final UserRepository userRepository = new UserRepository();
+    private final StationRepository stationRepository = new StationRepository();
+    private final TrainRepository trainRepository = new TrainRepository();
+    private final DiscountRepository discountRepository = new DiscountRepository();
+
+    private OffHeapTicketRepository ticketRepository;
+
+    private User user;
+    private Station startStation;
+    private Train train;
+
+    @BeforeEach
+    void setUp() {
+        ticketRepository = new OffHeapTicketRepository(userRepository, stationRepository, trainRepository,
+                new EconomyRepository(), new AgeGroupRepository(), discountRepository);
+        user = userRepository.save(new User().firstName("Ivan"));
+        startStation = stationRepository.save(new Station().nameOfStation("Kyiv"));
+        train = trainRepository.save(new Train().trainModel("Intercity"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ticketRepository.deleteAll();
+        userRepository.deleteAll();
+        stationRepository.deleteAll();
+        trainRepository.deleteAll();
+        discountRepository.deleteAll();
+    }
+
+    private Ticket createTicket() {
+        Ticket ticket = new Ticket().price(PRICE).departDateBooking(DEPART_DATE);
+        ticket.setRegistrationDateTicket(REGISTRATION_DATE);
+        ticket.setSeatNumber(12);
+        ticket.setUser(user);
+        ticket.setStartStation(startStation);
+        ticket.setTrain(train);
+        return ticket;
+    }
+
+    @Test
+    void givenSavedTicket_whenFindById_thenMaterializeEqualCopy() {
+        Ticket saved = ticketRepository.save(createTicket());
+
+        // The ticket read back is a new object with the same values and resolved references
+        Ticket found = ticketRepository.findById(saved.getId()).get();
+        assertNotSame(saved, found);
+        assertEquals(saved, found);
+        assertEquals(PRICE, found.getPrice());
+        assertEquals(DEPART_DATE, found.getDepartDateBooking());
+        assertEquals(REGISTRATION_DATE, found.getRegistrationDateTicket());
+        assertNull(found.getReturnDateBooking());
+        assertEquals(12, found.getSeatNumber());
+        assertSame(user, found.getUser());
+        assertSame(startStation, found.getStartStation());
+        assertNull(found.getEndStation());
+        assertSame(train, found.getTrain());
+        assertTrue(ticketRepository.existById(saved.getId()));
+    }
+
+    @Test
+    void givenTicketsOnStoredTrain_whenSave_thenTrainDoesNotKeepThem() {
+        Ticket saved = ticketRepository.save(createTicket());
+        ticketRepository.saveAll(List.of(createTicket(), createTicket()));
+
+        // The tickets live off-heap only: the shared references do not hold on to them
+        assertTrue(train.getTickets().isEmpty());
+        assertFalse(startStation.getTickets().contains(saved));
+        assertEquals(3, ticketRepository.count());
+    }
+
+    @Test
+    void givenTicketWithManyDiscounts_whenFindById_thenReturnAllDiscounts() {
+        Set<Discount> discounts = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            discounts.add(discountRepository.save(new Discount().type("Student " + i)));
+        }
+        Ticket saved = ticketRepository.save(createTicket().discount(discounts));
+
+        // Discounts beyond those kept in the record are found as well
+        Set<Integer> foundIds = ticketRepository.findById(saved.getId()).get().getDiscounts().stream()
+                .map(Discount::getId).collect(Collectors.toSet());
+        assertEquals(discounts.stream().map(Discount::getId).collect(Collectors.toSet()), foundIds);
+    }
+
+    @Test
+    void givenSavedTicket_whenUpdateAndDelete_thenStoreFollows() {
+        Ticket saved = ticketRepository.save(createTicket());
+
+        // The update replaces the stored values
+        Ticket updated = createTicket().price(99.99).id(saved.getId());
+        assertTrue(ticketRepository.updateId(saved.getId(), updated));
+        assertEquals(99.99, ticketRepository.findById(saved.getId()).get().getPrice());
+        // The unconditional update gets the next version, so readers of the old one see the change
+        assertEquals(saved.getVersion() + 1, ticketRepository.findById(saved.getId()).get().getVersion());
+        assertFalse(ticketRepository.updateId(saved.getId(), new Ticket()));
+        assertFalse(ticketRepository.updateId(null, updated));
+
+        // A deleted ticket is gone
+        ticketRepository.deleteById(saved.getId());
+        assertFalse(ticketRepository.existById(saved.getId()));
+        assertTrue(ticketRepository.findById(saved.getId()).isEmpty());
+        assertEquals(0, ticketRepository.count());
+    }
+
+    @Test
+    void givenSavedTicket_whenUpdateFromStaleVersion_thenReturnConflict() {
+        Ticket saved = ticketRepository.save(createTicket());
+        Ticket read = ticketRepository.findById(saved.getId()).orElseThrow();
+
+        // The update from the version read is stored with the next version
+        assertEquals(UpdateResult.UPDATED, ticketRepository.update(read.price(99.99), read.getVersion()));
+        assertEquals(1, ticketRepository.findById(saved.getId()).orElseThrow().getVersion());
+
+        // A second update from the old version conflicts and keeps the stored values
+        assertEquals(UpdateResult.CONFLICT, ticketRepository.update(createTicket().id(saved.getId()), 0));
+        assertEquals(99.99, ticketRepository.findById(saved.getId()).orElseThrow().getPrice());
+        assertEquals(UpdateResult.NOT_FOUND, ticketRepository.update(createTicket().id(saved.getId() + 1), 0));
+    }
+
+    @Test
+    void givenWriterSweepingTickets_whenFindAll_thenSeeOnePointInTime() throws Exception {
+        List<Ticket> batch = new ArrayList<>();
+        for (int i = 0; i < SWEPT_TICKETS; i++) {
+            batch.add(createTicket().price(0));
+        }
+        ticketRepository.saveAll(batch);
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            // every sweep raises the price of all tickets by one, in ID order
+            for (int sweep = 1; !stop.get(); sweep++) {
+                for (Ticket ticket : batch) {
+                    ticketRepository.updateId(ticket.getId(), createTicket().price(sweep).id(ticket.getId()));
+                }
+            }
+        });
+        writer.start();
+        try {
+            for (int read = 0; read < 20; read++) {
+                List<Ticket> found = ticketRepository.findAll();
+
+                // At one point in time the writer is inside one sweep: prices only drop, by one at most
+                assertEquals(SWEPT_TICKETS, found.size());
+                for (int i = 1; i < found.size(); i++) {
+                    assertTrue(found.get(i).getPrice() <= found.get(i - 1).getPrice());
+                }
+                assertTrue(found.getFirst().getPrice() - found.getLast().getPrice() <= 1);
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+
+    @Test
+    void givenOpenSnapshot_whenTicketsWritten_thenSnapshotReadsTicketsAsOpened() {
+        List<Ticket> batch = new ArrayList<>();
+        for (int i = 0; i < SNAPSHOT_TICKETS; i++) {
+            batch.add(createTicket().price(i));
+        }
+        ticketRepository.saveAll(batch);
+        Ticket updated = batch.get(SNAPSHOT_TICKETS - 1);
+        Ticket deleted = batch.get(0);
+
+        try (RepositorySnapshot<Ticket> snapshot = ticketRepository.snapshot()) {
+            ticketRepository.updateId(updated.getId(), createTicket().price(-1).id(updated.getId()));
+            ticketRepository.deleteById(deleted.getId());
+            Ticket inserted = ticketRepository.save(createTicket());
+
+            // The snapshot reads the records as they were when it was opened, across several windows
+            assertEquals(SNAPSHOT_TICKETS, snapshot.count());
+            assertEquals(SNAPSHOT_TICKETS - 1, snapshot.findById(updated.getId()).orElseThrow().getPrice());
+            assertTrue(snapshot.findById(deleted.getId()).isPresent());
+            assertTrue(snapshot.findById(inserted.getId()).isEmpty());
+            assertEquals(List.of(deleted, batch.get(1)), snapshot.findPageAfter(0, 2));
+            assertEquals(SNAPSHOT_TICKETS, snapshot.streamAll().count());
+            List<Ticket> found = snapshot.findAll();
+            assertEquals(batch, found);
+            assertEquals(SNAPSHOT_TICKETS - 1, found.getLast().getPrice());
+
+            // The repository itself sees the writes
+            assertEquals(-1, ticketRepository.findById(updated.getId()).orElseThrow().getPrice());
+            assertEquals(SNAPSHOT_TICKETS, ticketRepository.count());
+            snapshot.close();
+            assertThrows(IllegalStateException.class, () -> snapshot.findById(updated.getId()));
+        }
+    }
+
+    @Test
+    void givenBatchOverSeveralChunks_whenPageAndStream_thenReturnTicketsInIdOrder() {
+        List<Ticket> batch = new ArrayList<>();
+        for (int i = 0; i < BATCH_TICKETS; i++) {
+            batch.add(new Ticket().price(i).departDateBooking(DEPART_DATE));
+        }
+        ticketRepository.saveAll(batch);
+        ticketRepository.deleteAll(List.of(batch.get(1)));
+
+        // Pages skip deleted tickets and continue across chunks
+        assertEquals(BATCH_TICKETS - 1, ticketRepository.count());
+        assertEquals(List.of(batch.get(0), batch.get(2)), ticketRepository.findPage(0, 2));
+        assertEquals(List.of(batch.get(BATCH_TICKETS - 1)),
+                ticketRepository.findPageAfter(batch.get(BATCH_TICKETS - 2).getId(), 10));
+        assertEquals(BATCH_TICKETS - 1, ticketRepository.streamAll().count());
+        assertTrue(ticketRepository.offHeapBytes() > 0);
+
+        // Deleting all tickets releases the chunks
+        ticketRepository.deleteAll();
+        assertEquals(0, ticketRepository.offHeapBytes());
+        assertTrue(ticketRepository.findAll().isEmpty());
+    }
+}
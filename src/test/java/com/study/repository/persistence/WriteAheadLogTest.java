@@ -0,0 +1,142 @@
+package com.study.repository.persistence;
+
+import com.study.domain.Station;
+import com.study.repository.storage.EntityStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link WriteAheadLog} class.
+ * The tests cover replaying logged changes, snapshots written by checkpoints, snapshots
+ * larger than one mapped window and recovery from a log whose last record was torn by a crash.
+ * */
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private EntityStore<Station> newStore() {
+        return new EntityStore<>(Station::getId, Station::setId);
+    }
+
+    private WriteAheadLog<Station> openLog(EntityStore<Station> store) throws IOException {
+        WriteAheadLog<Station> log = new WriteAheadLog<>(directory, "stations", EntityCodecs.STATION);
+        log.recover(store);
+        store.attachLog(log);
+        return log;
+    }
+
+    @Test
+    void givenLoggedChanges_whenRecovered_thenStoreIsRebuilt() throws IOException {
+        EntityStore<Station> store = newStore();
+        WriteAheadLog<Station> log = openLog(store);
+        Station kyiv = store.insert(new Station().nameOfStation("Kyiv").stationPhone("123"));
+        Station lviv = store.insert(new Station().nameOfStation("Lviv"));
+        Station odesa = store.insert(new Station().nameOfStation("Odesa"));
+        store.replace(lviv.getId(), new Station().id(lviv.getId()).nameOfStation("Lviv Main"));
+        store.remove(odesa.getId());
+        log.close();
+
+        EntityStore<Station> recovered = newStore();
+        openLog(recovered).close();
+
+        // Check that the store holds the changed stations and not the removed one
+        assertEquals(2, recovered.size());
+        assertEquals("123", recovered.get(kyiv.getId()).getStationPhone());
+        assertEquals("Lviv Main", recovered.get(lviv.getId()).getNameOfStation());
+        assertNull(recovered.get(odesa.getId()));
+        // Check that new identifiers follow the recovered ones
+        assertEquals(odesa.getId() + 1, recovered.insert(new Station()).getId());
+    }
+
+    @Test
+    void givenCheckpoint_whenChangedAndRecovered_thenSnapshotAndLogAreCombined() throws IOException {
+        EntityStore<Station> store = newStore();
+        WriteAheadLog<Station> log = openLog(store);
+        Station kyiv = store.insert(new Station().nameOfStation("Kyiv"));
+        Station lviv = store.insert(new Station().nameOfStation("Lviv"));
+        log.checkpoint(store);
+        store.remove(kyiv.getId());
+        Station odesa = store.insert(new Station().nameOfStation("Odesa"));
+        log.close();
+
+        EntityStore<Station> recovered = newStore();
+        openLog(recovered).close();
+
+        // Check that the snapshot exists and the replaced log has been deleted
+        assertTrue(Files.exists(directory.resolve("stations.snapshot")));
+        assertFalse(Files.exists(directory.resolve("stations.log.old")));
+        // Check that changes made after the checkpoint are applied over the snapshot
+        assertEquals(List.of("Lviv", "Odesa"),
+                recovered.values().stream().map(Station::getNameOfStation).toList());
+        assertEquals(odesa.getId(), recovered.get(odesa.getId()).getId());
+        assertNotNull(recovered.get(lviv.getId()));
+    }
+
+    @Test
+    void givenSnapshotLargerThanOneMappedWindow_whenRecovered_thenEveryEntityIsRead() throws IOException {
+        EntityStore<Station> store = newStore();
+        WriteAheadLog<Station> log = openLog(store);
+        String name = "Station ".repeat(16);
+        for (int i = 0; i < 100_000; i++) {
+            store.insert(new Station().nameOfStation(name + i));
+        }
+        log.checkpoint(store);
+        log.close();
+
+        EntityStore<Station> recovered = newStore();
+        openLog(recovered).close();
+
+        // Check that the snapshot spans several windows and is cut to the bytes written
+        assertTrue(Files.size(directory.resolve("stations.snapshot")) > 8 * 1024 * 1024);
+        assertEquals(100_000, recovered.size());
+        assertEquals(name + 0, recovered.get(1).getNameOfStation());
+        assertEquals(name + 99_999, recovered.get(100_000).getNameOfStation());
+    }
+
+    @Test
+    void givenClearedStore_whenRecovered_thenStoreIsEmpty() throws IOException {
+        EntityStore<Station> store = newStore();
+        WriteAheadLog<Station> log = openLog(store);
+        store.insert(new Station().nameOfStation("Kyiv"));
+        store.clear();
+        Station lviv = store.insert(new Station().nameOfStation("Lviv"));
+        log.close();
+
+        EntityStore<Station> recovered = newStore();
+        openLog(recovered).close();
+
+        // Check that only the station saved after clearing is recovered
+        assertEquals(1, recovered.size());
+        assertEquals("Lviv", recovered.get(lviv.getId()).getNameOfStation());
+    }
+
+    @Test
+    void givenTornLastRecord_whenRecovered_thenEarlierRecordsAreKept() throws IOException {
+        EntityStore<Station> store = newStore();
+        WriteAheadLog<Station> log = openLog(store);
+        Station kyiv = store.insert(new Station().nameOfStation("Kyiv"));
+        Station lviv = store.insert(new Station().nameOfStation("Lviv"));
+        log.close();
+        Path logFile = directory.resolve("stations.log");
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        EntityStore<Station> recovered = newStore();
+        openLog(recovered).close();
+
+        // Check that the station of the torn record is lost and the other one is kept
+        assertNotNull(recovered.get(kyiv.getId()));
+        assertNull(recovered.get(lviv.getId()));
+    }
+}
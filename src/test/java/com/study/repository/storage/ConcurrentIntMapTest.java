@@ -0,0 +1,136 @@
+package com.study.repository.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link ConcurrentIntMap} class.
+ * The tests cover concurrent writers, optimistic readers and snapshots.
+ */
+public class ConcurrentIntMapTest {
+
+    private static final int THREADS = 8;
+    private static final int KEYS_PER_THREAD = 20_000;
+
+    @Test
+    void givenManyThreads_whenPutAndGetConcurrently_thenNoEntryIsLostOrTorn() throws Exception {
+        ConcurrentIntMap<Integer> map = new ConcurrentIntMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int first = i * KEYS_PER_THREAD;
+            futures.add(executor.submit(() -> {
+                for (int key = first; key < first + KEYS_PER_THREAD; key++) {
+                    map.put(key, key);
+                }
+            }));
+            futures.add(executor.submit(() -> {
+                for (int key = first; key < first + KEYS_PER_THREAD; key++) {
+                    Integer value = map.get(key);
+                    // A reader sees either no value yet or the value written for this key
+                    assertTrue(value == null || value == key);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Every entry is stored once
+        assertEquals(THREADS * KEYS_PER_THREAD, map.size());
+        assertEquals(THREADS * KEYS_PER_THREAD, map.keys().length);
+        for (int key = 0; key < THREADS * KEYS_PER_THREAD; key++) {
+            assertEquals(key, map.get(key));
+        }
+    }
+
+    @Test
+    void givenEntries_whenRemoveAndClear_thenSizeFollows() {
+        ConcurrentIntMap<String> map = new ConcurrentIntMap<>();
+        map.put(1, "one");
+        map.put(2, "two");
+
+        // Removing and clearing keep the size up to date
+        assertEquals("one", map.remove(1));
+        assertNull(map.remove(1));
+        assertEquals(1, map.size());
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(2));
+    }
+
+    @Test
+    void givenOpenSnapshot_whenMapChanges_thenSnapshotKeepsOldValues() {
+        ConcurrentIntMap<String> map = new ConcurrentIntMap<>();
+        map.put(1, "one");
+        map.put(2, "two");
+        map.put(3, "three");
+        ConcurrentIntMap.Snapshot<String> snapshot = map.snapshot();
+
+        map.put(1, "uno");
+        map.remove(2);
+        map.put(4, "four");
+        map.put(4, "cuatro");
+
+        // The snapshot sees the map as it was when it was opened
+        assertEquals("one", snapshot.get(1));
+        assertEquals("two", snapshot.get(2));
+        assertNull(snapshot.get(4));
+        assertEquals(3, snapshot.size());
+        assertArrayEquals(new int[]{1, 2, 3}, Arrays.stream(snapshot.keys()).sorted().toArray());
+
+        // Clearing the map does not change the snapshot either
+        map.clear();
+        assertEquals("three", snapshot.get(3));
+        assertEquals(3, snapshot.keys().length);
+
+        // The map itself is not affected, and a closed snapshot can no longer be read
+        map.put(5, "five");
+        assertEquals(1, map.size());
+        snapshot.close();
+        assertThrows(IllegalStateException.class, () -> snapshot.get(1));
+    }
+
+    @Test
+    void givenKeysAddedOutOfOrderAndRemoved_whenOrderedKeys_thenListedInOrder() {
+        ConcurrentIntMap<String> map = new ConcurrentIntMap<>();
+        for (int key = 1_000; key > 0; key--) {
+            map.put(key * 1_000, "value");
+        }
+        for (int key = 1; key <= 1_000; key += 2) {
+            map.remove(key * 1_000);
+        }
+        ConcurrentIntMap.Snapshot<String> snapshot = map.snapshot();
+        for (int key = 2; key <= 1_000; key += 2) {
+            map.remove(key * 1_000);
+        }
+        map.put(3_000, "again");
+
+        // The map lists its keys in order from a given key, skipping removed ones after a lookup
+        int[] keys = StreamSupport.intStream(Spliterators.spliteratorUnknownSize(map.orderedKeys(2_000), 0), false)
+                .filter(map::containsKey)
+                .toArray();
+        assertArrayEquals(new int[]{3_000}, keys);
+
+        // The snapshot still finds the keys removed after it was opened
+        int[] kept = StreamSupport.intStream(Spliterators.spliteratorUnknownSize(snapshot.orderedKeys(0), 0), false)
+                .filter(key -> snapshot.get(key) != null)
+                .toArray();
+        assertEquals(500, kept.length);
+        for (int i = 0; i < kept.length; i++) {
+            assertEquals((i + 1) * 2_000, kept[i]);
+        }
+        snapshot.close();
+    }
+}
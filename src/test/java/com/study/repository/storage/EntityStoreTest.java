@@ -0,0 +1,503 @@
+package com.study.repository.storage;
+
+import com.study.domain.Ticket;
+import com.study.repository.UpdateResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link EntityStore} class.
+ * The tests cover identifier generation, replacing and removing entities,
+ * concurrent saves and index updates from several threads and snapshots read while writers carry on.
+ */
+public class EntityStoreTest {
+
+    private static final double ADULT_TICKET_PRICE = 250.5;
+    private static final double CHEAP_PRICE = 10.0;
+
+    private static final int THREADS = 8;
+    private static final int SAVES_PER_THREAD = 5_000;
+
+    private EntityStore<Ticket> store;
+
+    private Ticket createEntity() {
+        return new Ticket().price(ADULT_TICKET_PRICE);
+    }
+
+    @BeforeEach
+    void setUp() {
+        store = new EntityStore<>(Ticket::getId, Ticket::setId);
+    }
+
+    @Test
+    void givenEntity_whenInsert_thenAssignSequentialIds() {
+        Ticket ticket1 = store.insert(createEntity());
+        Ticket ticket2 = store.insert(createEntity());
+
+        // Identifiers are assigned in order, starting at 1
+        assertEquals(1, ticket1.getId());
+        assertEquals(2, ticket2.getId());
+        assertSame(ticket2, store.get(ticket2.getId()));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void givenClearedStore_whenInsert_thenIdsAreNotReused() {
+        store.insert(createEntity());
+        store.clear();
+
+        // The generator keeps counting after the store has been cleared
+        assertEquals(2, store.insert(createEntity()).getId());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void givenNewId_whenReplace_thenMoveEntityToNewKey() {
+        Ticket ticket = store.insert(createEntity());
+        Ticket replacement = createEntity().id(ticket.getId() + 10);
+
+        store.replace(ticket.getId(), replacement);
+
+        // The old key is dropped and the replacement is stored under its own ID
+        assertFalse(store.contains(ticket.getId()));
+        assertSame(replacement, store.get(replacement.getId()));
+        assertSame(replacement, store.remove(replacement.getId()));
+        assertNull(store.get(replacement.getId()));
+    }
+
+    @Test
+    void givenBatch_whenInsertAll_thenAssignOneContiguousBlockOfIds() {
+        store.insert(createEntity());
+        List<Ticket> batch = new ArrayList<>();
+        batch.add(createEntity());
+        batch.add(null);
+        batch.add(createEntity());
+        batch.add(createEntity());
+
+        // Null elements are skipped and the rest are stored
+        assertEquals(3, store.insertAll(batch));
+        assertEquals(4, store.size());
+
+        // The batch received the IDs following the single insert, in list order
+        assertEquals(2, batch.get(0).getId());
+        assertEquals(3, batch.get(2).getId());
+        assertEquals(4, batch.get(3).getId());
+        assertSame(batch.get(3), store.get(4));
+    }
+
+    @Test
+    void givenStoredBatch_whenRemoveAll_thenReturnNumberOfRemovedEntities() {
+        List<Ticket> batch = List.of(createEntity(), createEntity(), createEntity());
+        store.insertAll(batch);
+        Ticket notStored = createEntity().id(100);
+
+        // Only entities actually stored are counted
+        assertEquals(2, store.removeAll(List.of(batch.get(0), batch.get(2), notStored)));
+        assertEquals(List.of(batch.get(1)), store.values());
+    }
+
+    @Test
+    void givenManyThreads_whenInsertConcurrently_thenNoIdIsLostOrDuplicated() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < SAVES_PER_THREAD; j++) {
+                    store.insert(createEntity());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Every save is kept and every entity received its own identifier
+        Set<Integer> ids = store.values().stream().map(Ticket::getId).collect(Collectors.toSet());
+        assertEquals(THREADS * SAVES_PER_THREAD, store.size());
+        assertEquals(THREADS * SAVES_PER_THREAD, ids.size());
+        assertEquals(THREADS * SAVES_PER_THREAD, store.idGenerator().current());
+    }
+
+    @Test
+    void givenStoredEntities_whenPage_thenReturnSliceInIdOrder() {
+        List<Ticket> batch = List.of(createEntity(), createEntity(), createEntity(), createEntity());
+        store.insertAll(batch);
+
+        // Offset pages skip the given number of entities
+        assertEquals(batch.subList(1, 3), store.page(1, 2));
+        assertEquals(batch.subList(3, 4), store.page(3, 10));
+        assertTrue(store.page(4, 10).isEmpty());
+
+        // Keyset pages start after the given ID
+        assertEquals(batch.subList(0, 2), store.pageAfter(0, 2));
+        assertEquals(batch.subList(2, 4), store.pageAfter(batch.get(1).getId(), 2));
+
+        // Invalid pages are rejected
+        assertThrows(IllegalArgumentException.class, () -> store.page(-1, 2));
+        assertThrows(IllegalArgumentException.class, () -> store.pageAfter(0, 0));
+    }
+
+    @Test
+    void givenStoredEntities_whenStream_thenEntitiesArriveInIdOrder() {
+        List<Ticket> batch = List.of(createEntity(), createEntity(), createEntity());
+        store.insertAll(batch);
+        store.replace(batch.get(0).getId(), batch.get(0).id(100));
+
+        // The stream follows ID order, including entities moved to a new ID
+        assertEquals(List.of(batch.get(1), batch.get(2), batch.get(0)), store.stream().toList());
+    }
+
+    @Test
+    void givenSecondaryIndex_whenEntitiesChange_thenFindByFollowsTheStore() {
+        SecondaryIndex<Ticket, Double> byPrice = store.addIndex(new SecondaryIndex<>(Ticket::getPrice));
+        Ticket cheap = store.insert(createEntity().price(CHEAP_PRICE));
+        Ticket expensive = store.insert(createEntity());
+
+        // Each price finds its own ticket
+        assertEquals(List.of(cheap), store.findBy(byPrice, CHEAP_PRICE));
+        assertEquals(List.of(expensive), store.findBy(byPrice, ADULT_TICKET_PRICE));
+
+        // A replaced entity is found under its new key only
+        Ticket replacement = createEntity().id(cheap.getId());
+        store.replace(cheap.getId(), replacement);
+        assertTrue(store.findBy(byPrice, CHEAP_PRICE).isEmpty());
+        assertEquals(List.of(expensive, replacement), store.findBy(byPrice, ADULT_TICKET_PRICE).stream()
+                .sorted(java.util.Comparator.comparingInt(Ticket::getId).reversed()).toList());
+
+        // Removed entities are no longer found
+        store.remove(expensive.getId());
+        assertEquals(List.of(replacement), store.findBy(byPrice, ADULT_TICKET_PRICE));
+    }
+
+    @Test
+    void givenEntityChangedInPlace_whenFindBy_thenItIsNotFoundUnderItsOldKey() {
+        SecondaryIndex<Ticket, Double> byPrice = store.addIndex(new SecondaryIndex<>(Ticket::getPrice));
+        Ticket ticket = store.insert(createEntity());
+
+        ticket.setPrice(CHEAP_PRICE);
+
+        // The stale index entry is filtered out
+        assertTrue(store.findBy(byPrice, ADULT_TICKET_PRICE).isEmpty());
+    }
+
+    @Test
+    void givenEntityChangedInPlace_whenStoredAgainOrRemoved_thenItsOldKeyIsReleased() {
+        SecondaryIndex<Ticket, Double> byPrice = store.addIndex(new SecondaryIndex<>(Ticket::getPrice));
+        Ticket ticket = store.insert(createEntity());
+
+        // Storing the changed ticket again moves it from its old key to the new one
+        ticket.setPrice(CHEAP_PRICE);
+        store.replace(ticket.getId(), ticket);
+        assertTrue(byPrice.get(ADULT_TICKET_PRICE).isEmpty());
+        assertEquals(Set.of(ticket.getId()), byPrice.get(CHEAP_PRICE));
+
+        // Removing a ticket changed in place releases the key it was indexed under
+        ticket.setPrice(ADULT_TICKET_PRICE);
+        store.remove(ticket.getId());
+        assertTrue(byPrice.get(CHEAP_PRICE).isEmpty());
+        assertTrue(byPrice.get(ADULT_TICKET_PRICE).isEmpty());
+    }
+
+    @Test
+    void givenWriteStoredWhileEarlierWriteIsIndexed_whenBothFinish_thenIndexFollowsStoredEntity() throws Exception {
+        int id = store.insert(createEntity()).getId();
+        Ticket first = createEntity().price(CHEAP_PRICE).id(id);
+        Ticket second = createEntity().id(id);
+        AtomicBoolean paused = new AtomicBoolean();
+        SecondaryIndex<Ticket, Double> byPrice = store.addIndex(new SecondaryIndex<>(ticket -> {
+            if (ticket == first && paused.compareAndSet(false, true)) {
+                // the first write is stored but not indexed yet: the second write is stored meanwhile
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (store.get(id) != second && System.nanoTime() < deadline) {
+                    Thread.yield();
+                }
+            }
+            return ticket.getPrice();
+        }));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> firstWrite = executor.submit(() -> store.replace(id, first));
+        while (!paused.get()) {
+            Thread.yield();
+        }
+        Future<?> secondWrite = executor.submit(() -> store.replace(id, second));
+        firstWrite.get();
+        secondWrite.get();
+        executor.shutdown();
+
+        // The ticket is indexed under the price of the entity stored last only
+        assertSame(second, store.get(id));
+        assertEquals(Set.of(id), byPrice.get(ADULT_TICKET_PRICE));
+        assertTrue(byPrice.get(CHEAP_PRICE).isEmpty());
+    }
+
+    @Test
+    void givenFailingLog_whenInsert_thenUniqueKeyIsNotLeftClaimed() {
+        UniqueIndex<Ticket, Double> byPrice = store.addUniqueIndex(new UniqueIndex<>(Ticket::getPrice));
+        AtomicBoolean failing = new AtomicBoolean(true);
+        store.attachLog(new ChangeLog<>() {
+            private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+            @Override
+            public void put(int id, Ticket entity) {
+                if (failing.get()) {
+                    throw new UncheckedIOException(new IOException("Disk full"));
+                }
+            }
+
+            @Override
+            public void remove(int id) {
+            }
+
+            @Override
+            public void clear() {
+            }
+
+            @Override
+            public ReadWriteLock lock() {
+                return lock;
+            }
+        });
+
+        // Neither a single insert nor a batch is stored when the log fails
+        assertThrows(UncheckedIOException.class, () -> store.insert(createEntity()));
+        assertThrows(UncheckedIOException.class, () -> store.insertAll(List.of(createEntity().price(CHEAP_PRICE))));
+        assertEquals(0, store.size());
+
+        // Check that the keys are free for the next inserts once the log works again
+        failing.set(false);
+        Ticket ticket = store.insert(createEntity());
+        store.insertAll(List.of(createEntity().price(CHEAP_PRICE)));
+        assertSame(ticket, store.findUnique(byPrice, ADULT_TICKET_PRICE));
+        assertEquals(2, store.size());
+        store.attachLog(null);
+    }
+
+    @Test
+    void givenUniqueIndex_whenInsertTakenKey_thenRejectAndKeepFirst() {
+        UniqueIndex<Ticket, Double> byPrice = store.addUniqueIndex(new UniqueIndex<>(Ticket::getPrice));
+        Ticket first = store.insert(createEntity());
+
+        // The second entity with the same key is not stored
+        assertThrows(DuplicateKeyException.class, () -> store.insert(createEntity()));
+        assertEquals(1, store.size());
+        assertSame(first, store.findUnique(byPrice, ADULT_TICKET_PRICE));
+
+        // Once the first entity is removed, its key is free again
+        store.remove(first.getId());
+        assertNull(store.findUnique(byPrice, ADULT_TICKET_PRICE));
+        Ticket second = store.insert(createEntity());
+        assertSame(second, store.findUnique(byPrice, ADULT_TICKET_PRICE));
+    }
+
+    @Test
+    void givenUniqueIndex_whenBatchRepeatsKey_thenStoreNothing() {
+        store.addUniqueIndex(new UniqueIndex<>(Ticket::getPrice));
+        List<Ticket> batch = List.of(createEntity().price(CHEAP_PRICE), createEntity(), createEntity());
+
+        // The whole batch is rejected and its keys stay free
+        assertThrows(DuplicateKeyException.class, () -> store.insertAll(batch));
+        assertEquals(0, store.size());
+        assertEquals(1, store.insertAll(List.of(createEntity().price(CHEAP_PRICE))));
+    }
+
+    @Test
+    void givenUniqueIndex_whenReplaceChangesKey_thenOldKeyIsReleased() {
+        UniqueIndex<Ticket, Double> byPrice = store.addUniqueIndex(new UniqueIndex<>(Ticket::getPrice));
+        Ticket ticket = store.insert(createEntity());
+        Ticket other = store.insert(createEntity().price(CHEAP_PRICE));
+
+        // Replacing an entity by one with its own key is allowed, with a key of another entity it is not
+        store.replace(ticket.getId(), createEntity().id(ticket.getId()));
+        assertThrows(DuplicateKeyException.class,
+                () -> store.replace(ticket.getId(), createEntity().id(ticket.getId()).price(CHEAP_PRICE)));
+        assertSame(other, store.findUnique(byPrice, CHEAP_PRICE));
+
+        // After a change of key the old key can be taken by another entity
+        Ticket changed = createEntity().id(ticket.getId()).price(1.0);
+        store.replace(ticket.getId(), changed);
+        assertSame(changed, store.findUnique(byPrice, 1.0));
+        assertNotNull(store.insert(createEntity()));
+    }
+
+    @Test
+    void givenManyThreads_whenInsertSameKeysConcurrently_thenEachKeyIsStoredOnce() throws Exception {
+        UniqueIndex<Ticket, Double> byPrice = store.addUniqueIndex(new UniqueIndex<>(Ticket::getPrice));
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < SAVES_PER_THREAD; j++) {
+                    try {
+                        store.insert(createEntity().price(j));
+                    } catch (DuplicateKeyException e) {
+                        // another thread stored this key first
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Exactly one entity per key has been stored, and each is found by its key
+        assertEquals(SAVES_PER_THREAD, store.size());
+        for (int j = 0; j < SAVES_PER_THREAD; j++) {
+            assertEquals(j, store.findUnique(byPrice, (double) j).getPrice());
+        }
+    }
+
+    @Test
+    void givenReplacedIdFarOutsideGeneratedRange_whenStream_thenReturnAllInIdOrder() {
+        Ticket first = store.insert(createEntity());
+        Ticket far = createEntity().id(Integer.MAX_VALUE);
+        Ticket negative = createEntity().id(-5);
+        store.replace(far.getId(), far);
+        store.replace(negative.getId(), negative);
+
+        // Sparse identifiers are listed in order without walking the whole identifier range
+        assertEquals(List.of(negative, first, far), store.values());
+        assertEquals(List.of(far), store.pageAfter(first.getId(), 10));
+        assertTrue(store.pageAfter(Integer.MAX_VALUE, 10).isEmpty());
+    }
+
+    @Test
+    void givenVersionedStore_whenUpdateFromStaleVersion_thenReturnConflictAndKeepStoredEntity() {
+        EntityStore<Ticket> versioned = new EntityStore<>(Ticket::getId, Ticket::setId,
+                Ticket::getVersion, Ticket::setVersion);
+        Ticket stored = versioned.insert(createEntity());
+        Ticket first = createEntity().price(CHEAP_PRICE).id(stored.getId());
+        Ticket second = createEntity().price(ADULT_TICKET_PRICE * 2).id(stored.getId());
+
+        // The first update from version 0 wins and increments the version
+        assertEquals(UpdateResult.UPDATED, versioned.update(first, 0));
+        assertEquals(1, first.getVersion());
+        assertSame(first, versioned.get(stored.getId()));
+
+        // A second update from version 0 conflicts and changes nothing
+        assertEquals(UpdateResult.CONFLICT, versioned.update(second, 0));
+        assertEquals(0, second.getVersion());
+        assertSame(first, versioned.get(stored.getId()));
+
+        // An update of a removed entity finds nothing
+        versioned.remove(stored.getId());
+        assertEquals(UpdateResult.NOT_FOUND, versioned.update(second, 1));
+        assertThrows(UnsupportedOperationException.class, () -> store.update(createEntity(), 0));
+    }
+
+    @Test
+    void givenVersionedStore_whenReplace_thenVersionFollowsStoredOne() {
+        EntityStore<Ticket> versioned = new EntityStore<>(Ticket::getId, Ticket::setId,
+                Ticket::getVersion, Ticket::setVersion);
+        Ticket stored = versioned.insert(createEntity());
+        assertEquals(UpdateResult.UPDATED, versioned.update(createEntity().id(stored.getId()), 0));
+
+        // An unconditional replace gets the stored version plus one, whatever version it carried
+        Ticket replacement = createEntity().price(CHEAP_PRICE).id(stored.getId()).version(0);
+        versioned.replace(stored.getId(), replacement);
+        assertEquals(2, replacement.getVersion());
+
+        // Moving the entity to a new identifier follows the version of the moved one
+        Ticket moved = createEntity().id(stored.getId() + 100).version(7);
+        versioned.replace(stored.getId(), moved);
+        assertEquals(3, moved.getVersion());
+
+        // Restoring keeps the version of the entity, and a stale update of it conflicts
+        versioned.restore(createEntity().id(moved.getId()).version(1));
+        assertEquals(1, versioned.get(moved.getId()).getVersion());
+        assertEquals(UpdateResult.CONFLICT, versioned.update(createEntity().id(moved.getId()), 3));
+    }
+
+    @Test
+    void givenManyThreads_whenUpdateSameEntityConcurrently_thenNoUpdateIsLost() throws Exception {
+        EntityStore<Ticket> versioned = new EntityStore<>(Ticket::getId, Ticket::setId,
+                Ticket::getVersion, Ticket::setVersion);
+        int id = versioned.insert(createEntity()).getId();
+        int updatesPerThread = 1_000;
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < updatesPerThread; j++) {
+                    while (true) {
+                        Ticket current = versioned.get(id);
+                        Ticket next = createEntity().id(id);
+                        next.setSeatNumber(current.getSeatNumber() + 1);
+                        if (versioned.update(next, current.getVersion()) == UpdateResult.UPDATED) {
+                            break;
+                        }
+                        conflicts.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Every increment was applied exactly once, retrying after conflicts
+        assertEquals(THREADS * updatesPerThread, versioned.get(id).getSeatNumber());
+        assertEquals(THREADS * updatesPerThread, versioned.get(id).getVersion());
+    }
+
+    @Test
+    void givenWritersRunning_whenReadSnapshot_thenItNeverChanges() throws Exception {
+        for (int i = 0; i < SAVES_PER_THREAD; i++) {
+            store.insert(createEntity());
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int seed = i;
+            futures.add(executor.submit(() -> {
+                int id = seed + 1;
+                while (running.get()) {
+                    // replace, insert and remove entities while the snapshot is read
+                    store.replace(id, createEntity().id(id).price(CHEAP_PRICE));
+                    store.remove(store.insert(createEntity()).getId());
+                    id = id % SAVES_PER_THREAD + 1;
+                }
+            }));
+        }
+        try (EntityStore.Snapshot<Ticket> snapshot = store.snapshot()) {
+            List<Ticket> first = snapshot.values();
+            for (int i = 0; i < 20; i++) {
+                // Every read of the snapshot returns the entities stored when it was opened
+                List<Ticket> again = snapshot.values();
+                assertEquals(first, again);
+                assertEquals(first.size(), snapshot.size());
+                assertEquals(first.subList(10, 20), snapshot.pageAfter(first.get(9).getId(), 10));
+            }
+        } finally {
+            running.set(false);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+        }
+
+        // Check that the writers did change the store meanwhile
+        assertTrue(store.values().stream().anyMatch(ticket -> ticket.getPrice() == CHEAP_PRICE));
+    }
+}
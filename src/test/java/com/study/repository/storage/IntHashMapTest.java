@@ -0,0 +1,90 @@
+package com.study.repository.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link IntHashMap} class.
+ * The tests cover lookups, growth of the table, removal and reuse of slots,
+ * and the agreement with a {@link HashMap} under random operations.
+ */
+public class IntHashMapTest {
+
+    private static final int ENTRIES = 10_000;
+
+    @Test
+    void givenEntries_whenGet_thenReturnValuesAfterGrowth() {
+        IntHashMap<String> map = new IntHashMap<>();
+        for (int key = 0; key < ENTRIES; key++) {
+            assertNull(map.put(key, "value " + key));
+        }
+
+        // Every key is found after the table has grown many times
+        assertEquals(ENTRIES, map.size());
+        for (int key = 0; key < ENTRIES; key++) {
+            assertEquals("value " + key, map.get(key));
+        }
+        assertNull(map.get(ENTRIES));
+        assertNull(map.get(-1));
+    }
+
+    @Test
+    void givenEntry_whenPutAndRemove_thenReturnPreviousValue() {
+        IntHashMap<String> map = new IntHashMap<>();
+        map.put(7, "first");
+
+        // Putting an existing key replaces its value, removing returns it once
+        assertEquals("first", map.put(7, "second"));
+        assertEquals("second", map.remove(7));
+        assertNull(map.remove(7));
+        assertFalse(map.containsKey(7));
+        assertEquals(0, map.size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    void givenManyRemovals_whenInsertAgain_thenTableDoesNotFillWithRemovedSlots() {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        for (int round = 0; round < 100; round++) {
+            for (int key = round * 100; key < round * 100 + 100; key++) {
+                map.put(key, key);
+            }
+            for (int key = round * 100; key < round * 100 + 100; key++) {
+                map.remove(key);
+            }
+        }
+
+        // Lookups of missing keys still terminate and the map is empty
+        assertEquals(0, map.size());
+        assertNull(map.get(12345));
+        assertEquals(0, map.keys().length);
+    }
+
+    @Test
+    void givenRandomOperations_whenCompareWithHashMap_thenContentsAgree() {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+
+        // Both maps hold the same entries
+        assertEquals(expected.size(), map.size());
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).sorted().toArray(), keys);
+        map.forEach((key, value) -> assertEquals(expected.get(key), value));
+    }
+}
@@ -0,0 +1,109 @@
+package com.study.repository.storage;
+
+import com.study.domain.Discount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link IntervalIndex} class,
+ * maintained by an {@link EntityStore} of discounts indexed by validity period.
+ */
+public class IntervalIndexTest {
+
+    private static final LocalDate NEW_YEAR = LocalDate.of(2024, 1, 1);
+
+    private EntityStore<Discount> store;
+
+    private IntervalIndex<Discount> byValidity;
+
+    private Discount createEntity(LocalDate startAt, LocalDate endAt) {
+        return new Discount().type("Seasonal Discount").percent(0.1).startAt(startAt).endAt(endAt);
+    }
+
+    @BeforeEach
+    void setUp() {
+        store = new EntityStore<>(Discount::getId, Discount::setId);
+        byValidity = store.addIntervalIndex(new IntervalIndex<>(
+                discount -> discount.getStartAt() == null ? Long.MIN_VALUE : discount.getStartAt().toEpochDay(),
+                discount -> discount.getEndAt() == null ? Long.MAX_VALUE : discount.getEndAt().toEpochDay()));
+    }
+
+    private List<Discount> findActiveOn(LocalDate date) {
+        return store.findContaining(byValidity, date.toEpochDay());
+    }
+
+    @Test
+    void givenClosedAndOpenIntervals_whenFindContaining_thenReturnIntervalsCoveringPoint() {
+        Discount january = store.insert(createEntity(NEW_YEAR, NEW_YEAR.plusDays(30)));
+        Discount fromFebruary = store.insert(createEntity(NEW_YEAR.plusDays(31), null));
+        Discount untilMarch = store.insert(createEntity(null, NEW_YEAR.plusDays(60)));
+        Discount always = store.insert(createEntity(null, null));
+        store.insert(createEntity(NEW_YEAR.plusDays(10), NEW_YEAR));
+
+        // Check that bounds are included and the inverted interval is never found
+        assertEquals(List.of(january, untilMarch, always), findActiveOn(NEW_YEAR));
+        assertEquals(List.of(january, untilMarch, always), findActiveOn(NEW_YEAR.plusDays(30)));
+        assertEquals(List.of(fromFebruary, untilMarch, always), findActiveOn(NEW_YEAR.plusDays(31)));
+        assertEquals(List.of(fromFebruary, always), findActiveOn(NEW_YEAR.plusDays(61)));
+        assertEquals(List.of(untilMarch, always), findActiveOn(NEW_YEAR.minusYears(10)));
+    }
+
+    @Test
+    void givenIndexedEntities_whenReplaceRemoveAndClear_thenFindContainingFollowsTheStore() {
+        Discount discount = store.insert(createEntity(NEW_YEAR, NEW_YEAR.plusDays(6)));
+        Discount other = store.insert(createEntity(NEW_YEAR, NEW_YEAR.plusDays(6)));
+
+        store.replace(discount.getId(), createEntity(NEW_YEAR.plusDays(7), NEW_YEAR.plusDays(13)).id(discount.getId()));
+        store.remove(other.getId());
+
+        // Check that the old intervals are gone and the new one is found
+        assertTrue(findActiveOn(NEW_YEAR).isEmpty());
+        assertEquals(List.of(discount.getId()), findActiveOn(NEW_YEAR.plusDays(7)).stream().map(Discount::getId).toList());
+
+        store.clear();
+
+        // Check that nothing is found after clearing the store
+        assertTrue(findActiveOn(NEW_YEAR.plusDays(7)).isEmpty());
+    }
+
+    @Test
+    void givenEntityChangedInPlace_whenFindContaining_thenItIsNotFoundOutsideItsNewInterval() {
+        Discount discount = store.insert(createEntity(NEW_YEAR, NEW_YEAR.plusDays(6)));
+
+        discount.setEndAt(NEW_YEAR);
+
+        // Check that the stale interval does not return the entity
+        assertTrue(findActiveOn(NEW_YEAR.plusDays(3)).isEmpty());
+        assertEquals(List.of(discount), findActiveOn(NEW_YEAR));
+    }
+
+    @Test
+    void givenRandomIntervals_whenFindContaining_thenMatchFullScan() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            LocalDate startAt = random.nextInt(10) == 0 ? null : NEW_YEAR.plusDays(random.nextInt(365));
+            LocalDate endAt = random.nextInt(10) == 0 ? null
+                    : (startAt == null ? NEW_YEAR : startAt).plusDays(random.nextInt(60));
+            store.insert(createEntity(startAt, endAt));
+        }
+        for (int i = 0; i < 200; i++) {
+            store.remove(1 + random.nextInt(2_000));
+        }
+
+        for (int day = -5; day < 430; day++) {
+            long point = NEW_YEAR.plusDays(day).toEpochDay();
+            List<Discount> expected = store.values().stream()
+                    .filter(discount -> byValidity.matches(discount, point))
+                    .toList();
+
+            // Check that the index finds exactly the entities a full scan finds
+            assertEquals(expected, store.findContaining(byValidity, point));
+        }
+    }
+}
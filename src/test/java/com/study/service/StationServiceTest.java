@@ -1,5 +1,6 @@
 package com.study.service;
 
+import com.study.repository.UpdateResult;
 import com.study.service.dto.StationDTO;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -131,4 +132,64 @@ public class StationServiceTest {
         assertTrue(stationService.existById(stationDTO3.getId()));
         assertEquals(sizeBeforeDeleteAll - EXPECTED_SIZE_ADDITION_LIST, stationService.findAll().size());
     }
+
+    @Test
+    void givenSavedStations_whenFindPage_thenReturnStationsOfThePage() {
+        // The second page of size 2 holds only the last station
+        assertEquals(List.of(stationDTO3), stationService.findPage(2, 2));
+
+        // Keyset pages continue after the last ID of the previous page
+        List<StationDTO> firstPage = stationService.findPageAfter(0, 2);
+        assertEquals(List.of(stationDTO1, stationDTO2), firstPage);
+        assertEquals(List.of(stationDTO3), stationService.findPageAfter(firstPage.getLast().getId(), 2));
+    }
+
+    @Test
+    void givenSavedStations_whenStreamAll_thenStreamAllStationsInIdOrder() {
+        // The stream yields the same DTOs as findAll
+        assertEquals(stationService.findAll(), stationService.streamAll().toList());
+    }
+
+    @Test
+    void givenCachedStation_whenFoundAgain_thenServedFromCache() {
+        long hitsBefore = stationService.cache().hitCount();
+
+        StationDTO first = stationService.findById(stationDTO1.getId()).orElseThrow();
+        StationDTO second = stationService.findById(stationDTO1.getId()).orElseThrow();
+
+        // The second lookup is served from the cache, as a copy the caller may change
+        assertNotSame(first, second);
+        assertEquals(first.getNameOfStation(), second.getNameOfStation());
+        assertEquals(hitsBefore + 1, stationService.cache().hitCount());
+    }
+
+    @Test
+    void givenCachedStation_whenUpdatedOrDeleted_thenFindByIdSeesTheChange() {
+        stationService.findById(stationDTO1.getId());
+        stationService.findById(stationDTO2.getId());
+
+        stationService.updateId(stationDTO1.getId(), createDTO(STATION_MOGPOD).id(stationDTO1.getId()));
+        stationService.deleteById(stationDTO2.getId());
+
+        // The update and the deletion invalidate the cached DTOs
+        assertEquals(STATION_MOGPOD, stationService.findById(stationDTO1.getId()).orElseThrow().getNameOfStation());
+        assertTrue(stationService.findById(stationDTO2.getId()).isEmpty());
+    }
+
+    @Test
+    void givenTwoClerksEditingSameStation_whenBothUpdate_thenSecondGetsConflict() {
+        StationDTO firstClerk = stationService.findById(stationDTO1.getId()).orElseThrow();
+        StationDTO secondClerk = stationService.findById(stationDTO1.getId()).orElseThrow();
+
+        // The first edit is stored and the clerk's DTO gets the new version
+        assertEquals(UpdateResult.UPDATED, stationService.update(createDTO(STATION_MOGPOD)
+                .id(firstClerk.getId()).version(firstClerk.getVersion())));
+
+        // The second edit, made from the same version, is rejected instead of overwriting the first
+        assertEquals(UpdateResult.CONFLICT, stationService.update(createDTO(STATION_LVIV)
+                .id(secondClerk.getId()).version(secondClerk.getVersion())));
+        StationDTO stored = stationService.findById(stationDTO1.getId()).orElseThrow();
+        assertEquals(STATION_MOGPOD, stored.getNameOfStation());
+        assertEquals(firstClerk.getVersion() + 1, stored.getVersion());
+    }
 }
@@ -1,22 +1,38 @@
 package com.study.service;
 
+import com.study.domain.Station;
+import com.study.repository.ReferencePolicy;
+import com.study.repository.ReferentialIntegrityException;
+import com.study.repository.StationRepository;
 import com.study.repository.TicketRepository;
+import com.study.repository.TrainRepository;
 import com.study.service.dto.AgeGroupDTO;
+import com.study.service.dto.StationDTO;
 import com.study.service.dto.TicketDTO;
+import com.study.service.dto.TrainDTO;
+import com.study.service.inventory.SeatInventory;
+import com.study.service.inventory.SegmentSeatInventory;
 import com.study.service.mapper.TicketMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * This class contains unit tests for the {@link TicketService} class.
  * The tests cover various operations such as finding, checking existence,
- * updating, deleting, and saving {@link TicketDTO} entities using the service layer.
+ * updating, deleting, and saving {@link TicketDTO} entities using the service layer,
+ * as well as purchases through several services sharing the seats of a train and
+ * purchases racing with deletes of the entities the tickets reference.
  */
 public class TicketServiceTest {
 
@@ -31,6 +47,9 @@ public class TicketServiceTest {
     private static final int EXPECTED_SIZE_ADDITION = 1;
     private static final int EXPECTED_SIZE_ADDITION_LIST = 2;
 
+    private static final int AMOUNT_SEATS_TRAIN = 2;
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 8, 24);
+
     private TicketDTO ticketDTO1;
     private TicketDTO ticketDTO2;
     private TicketDTO ticketDTO3;
@@ -134,4 +153,208 @@ public class TicketServiceTest {
         assertTrue(ticketService.existById(ticketDTO3.getId()));
         assertEquals(sizeBeforeDeleteAll - EXPECTED_SIZE_ADDITION_LIST, ticketService.findAll().size());
     }
+
+    @Test
+    void purchase() {
+        TrainService trainService = new TrainService();
+        TrainDTO trainDTO = trainService.save(new TrainDTO().amountOfSeats(AMOUNT_SEATS_TRAIN));
+
+        // Two seats can be sold, the third purchase is refused
+        for (int i = 0; i < AMOUNT_SEATS_TRAIN; i++) {
+            TicketDTO ticketDTO = createDTO(ADULT_TICKET_PRICE).departDateBooking(DEPART_DATE);
+            ticketDTO.setTrain(trainDTO);
+            assertTrue(ticketService.purchase(ticketDTO).isPresent());
+        }
+        TicketDTO refused = createDTO(ADULT_TICKET_PRICE).departDateBooking(DEPART_DATE);
+        refused.setTrain(trainDTO);
+        assertTrue(ticketService.purchase(refused).isEmpty());
+        assertEquals(0, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE));
+
+        // tickets go first: trains still referenced by tickets cannot be deleted
+        ticketService.deleteAll();
+        trainService.deleteAll();
+    }
+
+    @Test
+    void purchaseThroughTwoServices() {
+        TrainService trainService = new TrainService();
+        TrainDTO trainDTO = trainService.save(new TrainDTO().amountOfSeats(AMOUNT_SEATS_TRAIN));
+        TicketService otherService = new TicketService();
+
+        // The services buy in turn from the same seats: two are sold, the third purchase is refused by both
+        for (int i = 0; i < AMOUNT_SEATS_TRAIN; i++) {
+            TicketDTO ticketDTO = createDTO(ADULT_TICKET_PRICE).departDateBooking(DEPART_DATE);
+            ticketDTO.setTrain(trainDTO);
+            assertTrue((i % 2 == 0 ? ticketService : otherService).purchase(ticketDTO).isPresent());
+        }
+        TicketDTO refused = createDTO(ADULT_TICKET_PRICE).departDateBooking(DEPART_DATE);
+        refused.setTrain(trainDTO);
+        assertTrue(ticketService.purchase(refused).isEmpty());
+        assertTrue(otherService.purchase(refused).isEmpty());
+        assertEquals(AMOUNT_SEATS_TRAIN, new TicketRepository().findByTrainIdAndDepartDate(trainDTO.getId(), DEPART_DATE).size());
+        assertEquals(0, otherService.availableSeats(trainDTO.getId(), DEPART_DATE));
+
+        // tickets go first: trains still referenced by tickets cannot be deleted
+        ticketService.deleteAll();
+        trainService.deleteAll();
+    }
+
+    @Test
+    void cancel() {
+        TrainService trainService = new TrainService();
+        TrainDTO trainDTO = trainService.save(new TrainDTO().amountOfSeats(AMOUNT_SEATS_TRAIN));
+        TicketDTO ticketDTO = createDTO(ADULT_TICKET_PRICE).departDateBooking(DEPART_DATE);
+        ticketDTO.setTrain(trainDTO);
+
+        TicketDTO sold = ticketService.purchase(ticketDTO).orElseThrow();
+        assertEquals(AMOUNT_SEATS_TRAIN - 1, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE));
+
+        // Cancelling returns the seat, cancelling twice has no effect
+        assertTrue(ticketService.cancel(sold.getId()));
+        assertFalse(ticketService.cancel(sold.getId()));
+        assertFalse(ticketService.existById(sold.getId()));
+        assertEquals(AMOUNT_SEATS_TRAIN, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE));
+
+        // tickets go first: trains still referenced by tickets cannot be deleted
+        ticketService.deleteAll();
+        trainService.deleteAll();
+    }
+
+    @Test
+    void deleteReleasesSeat() {
+        TrainService trainService = new TrainService();
+        TrainDTO trainDTO = trainService.save(new TrainDTO().amountOfSeats(AMOUNT_SEATS_TRAIN));
+        List<TicketDTO> sold = new ArrayList<>();
+        for (int i = 0; i < AMOUNT_SEATS_TRAIN; i++) {
+            TicketDTO ticketDTO = createDTO(ADULT_TICKET_PRICE).departDateBooking(DEPART_DATE);
+            ticketDTO.setTrain(trainDTO);
+            sold.add(ticketService.purchase(ticketDTO).orElseThrow());
+        }
+        assertEquals(0, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE));
+
+        // Every delete returns the seats of the deleted tickets, deleting twice has no effect
+        ticketService.deleteById(sold.getFirst().getId());
+        ticketService.deleteById(sold.getFirst().getId());
+        assertEquals(1, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE));
+        ticketService.delete(sold.getLast());
+        assertEquals(AMOUNT_SEATS_TRAIN, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE));
+
+        sold.clear();
+        for (int i = 0; i < AMOUNT_SEATS_TRAIN; i++) {
+            TicketDTO ticketDTO = createDTO(ADULT_TICKET_PRICE).departDateBooking(DEPART_DATE);
+            ticketDTO.setTrain(trainDTO);
+            sold.add(ticketService.purchase(ticketDTO).orElseThrow());
+        }
+        ticketService.deleteAll(sold);
+        assertEquals(AMOUNT_SEATS_TRAIN, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE));
+
+        // Deleting all tickets frees all seats
+        TicketDTO ticketDTO = createDTO(ADULT_TICKET_PRICE).departDateBooking(DEPART_DATE);
+        ticketDTO.setTrain(trainDTO);
+        ticketService.purchase(ticketDTO).orElseThrow();
+        ticketService.deleteAll();
+        assertEquals(AMOUNT_SEATS_TRAIN, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE));
+
+        trainService.deleteAll();
+    }
+
+    @Test
+    void purchaseOnRoute() {
+        TrainService trainService = new TrainService();
+        TrainDTO trainDTO = trainService.save(new TrainDTO().amountOfSeats(1));
+        StationDTO first = new StationDTO().id(1);
+        StationDTO second = new StationDTO().id(2);
+        StationDTO third = new StationDTO().id(3);
+        SegmentSeatInventory segmentSeatInventory = new SegmentSeatInventory();
+        segmentSeatInventory.registerRoute(trainDTO.getId(), List.of(first.getId(), second.getId(), third.getId()));
+        ticketService = new TicketService(new TicketRepository(), new TicketMapper(), new SeatInventory(), segmentSeatInventory);
+
+        // The only seat is sold twice, once per segment
+        TicketDTO firstLeg = createDTO(ADULT_TICKET_PRICE).departDateBooking(DEPART_DATE);
+        firstLeg.setTrain(trainDTO);
+        firstLeg.setStartStation(first);
+        firstLeg.setEndStation(second);
+        TicketDTO secondLeg = createDTO(ADULT_TICKET_PRICE).departDateBooking(DEPART_DATE);
+        secondLeg.setTrain(trainDTO);
+        secondLeg.setStartStation(second);
+        secondLeg.setEndStation(third);
+
+        TicketDTO sold = ticketService.purchase(firstLeg).orElseThrow();
+        assertEquals(1, sold.getSeatNumber());
+        assertEquals(1, ticketService.purchase(secondLeg).orElseThrow().getSeatNumber());
+        // The seat number is only set on the sold ticket, not on the requested one
+        assertEquals(0, firstLeg.getSeatNumber());
+        assertEquals(0, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE, first.getId(), third.getId()));
+
+        // Cancelling the first leg frees the seat between the first two stations only
+        assertTrue(ticketService.cancel(sold.getId()));
+        assertEquals(1, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE, first.getId(), second.getId()));
+        assertEquals(0, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE, first.getId(), third.getId()));
+
+        segmentSeatInventory.clear();
+        // tickets go first: trains still referenced by tickets cannot be deleted
+        ticketService.deleteAll();
+        trainService.deleteAll();
+    }
+
+    @Test
+    void cascadedDeleteReleasesSeat() {
+        TrainService trainService = new TrainService();
+        TrainDTO trainDTO = trainService.save(new TrainDTO().amountOfSeats(1));
+        StationRepository stationRepository = new StationRepository(ReferencePolicy.CASCADE);
+        Station station = stationRepository.save(new Station().nameOfStation("Lviv"));
+        TicketDTO ticketDTO = createDTO(ADULT_TICKET_PRICE).departDateBooking(DEPART_DATE);
+        ticketDTO.setTrain(trainDTO);
+        ticketDTO.setStartStation(new StationDTO().id(station.getId()));
+        TicketDTO sold = ticketService.purchase(ticketDTO).orElseThrow();
+        assertEquals(0, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE));
+
+        // Deleting the station deletes its ticket, and the seat of the ticket can be sold again
+        stationRepository.deleteById(station.getId());
+        assertFalse(ticketService.existById(sold.getId()));
+        assertEquals(1, ticketService.availableSeats(trainDTO.getId(), DEPART_DATE));
+
+        // tickets go first: trains still referenced by tickets cannot be deleted
+        ticketService.deleteAll();
+        trainService.deleteAll();
+    }
+
+    @Test
+    void purchaseRacingRestrictedDelete() throws Exception {
+        TrainService trainService = new TrainService();
+        TrainRepository trainRepository = new TrainRepository(ReferencePolicy.RESTRICT);
+        TicketRepository ticketRepository = new TicketRepository();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 200; i++) {
+                TrainDTO trainDTO = trainService.save(new TrainDTO().amountOfSeats(AMOUNT_SEATS_TRAIN));
+                TicketDTO ticketDTO = createDTO(ADULT_TICKET_PRICE).departDateBooking(DEPART_DATE);
+                ticketDTO.setTrain(trainDTO);
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<?> purchase = executor.submit(() -> {
+                    start.await();
+                    return ticketService.purchase(ticketDTO);
+                });
+                Future<?> delete = executor.submit(() -> {
+                    start.await();
+                    try {
+                        trainRepository.deleteById(trainDTO.getId());
+                    } catch (ReferentialIntegrityException e) {
+                        // the purchase came first
+                    }
+                    return null;
+                });
+                purchase.get();
+                delete.get();
+
+                // Either the train is kept with its ticket, or it is deleted and no ticket refers to it
+                assertTrue(trainRepository.existById(trainDTO.getId())
+                        || ticketRepository.findByTrainId(trainDTO.getId()).isEmpty());
+                ticketService.deleteAll();
+                trainService.deleteAll();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
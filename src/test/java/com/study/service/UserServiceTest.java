@@ -132,4 +132,13 @@ public class UserServiceTest {
         assertTrue(userService.existById(userDTO3.getId()));
         assertEquals(sizeBeforeDeleteAll - EXPECTED_SIZE_ADDITION_LIST, userService.findAll().size());
     }
+
+    @Test
+    void givenUserWithEmail_whenFindByEmail_thenReturnUser() {
+        UserDTO saved = userService.save(createDTO(TEST_NAME_USER_4).email("serhii@example.com"));
+
+        // The user is found by email, whatever its case
+        assertEquals(saved.getId(), userService.findByEmail("Serhii@Example.com").get().getId());
+        assertTrue(userService.findByEmail("nobody@example.com").isEmpty());
+    }
 }
@@ -0,0 +1,145 @@
+package com.study.service.cache;
+
+import com.study.service.codec.StationCodec;
+import com.study.service.dto.StationDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link ReferenceCache} class.
+ * The tests cover hits and misses, copies handed out to callers, expiry after the time to live,
+ * eviction of the least recently read entries and invalidation.
+ */
+public class ReferenceCacheTest {
+
+    private static final Duration TIME_TO_LIVE = Duration.ofSeconds(10);
+
+    private long now;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ReferenceCache<StationDTO> cache;
+
+    private Optional<StationDTO> load(int id) {
+        loads.incrementAndGet();
+        return id < 0 ? Optional.empty() : Optional.of(new StationDTO().id(id).nameOfStation("value" + id));
+    }
+
+    @BeforeEach
+    void setUp() {
+        now = 0;
+        loads.set(0);
+        cache = new ReferenceCache<>(new StationCodec(), 10, TIME_TO_LIVE, () -> now);
+    }
+
+    @Test
+    void givenCachedValue_whenReadAgain_thenItIsNotLoadedAgain() {
+        Optional<StationDTO> first = cache.get(1, this::load);
+        Optional<StationDTO> second = cache.get(1, this::load);
+
+        // Check that the second read is a hit returning an equal DTO
+        assertEquals("value1", first.orElseThrow().getNameOfStation());
+        assertEquals("value1", second.orElseThrow().getNameOfStation());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(0.5, cache.hitRate());
+    }
+
+    @Test
+    void givenReturnedDTOs_whenModifiedByCallers_thenCacheIsNotAffected() {
+        StationDTO loaded = cache.get(1, this::load).orElseThrow();
+        loaded.setNameOfStation("changed by the loader's caller");
+        StationDTO first = cache.get(1, this::load).orElseThrow();
+        first.setNameOfStation("changed by a reader");
+        StationDTO second = cache.get(1, this::load).orElseThrow();
+
+        // Check that every read returns its own copy of the DTO as it was loaded
+        assertNotSame(first, second);
+        assertEquals("value1", second.getNameOfStation());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void givenMissingValue_whenRead_thenItIsNotCached() {
+        cache.get(-1, this::load);
+        cache.get(-1, this::load);
+
+        // Check that values that are not found are loaded on every read
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void givenExpiredValue_whenRead_thenItIsLoadedAgain() {
+        cache.get(1, this::load);
+        now += TIME_TO_LIVE.toNanos() - 1;
+        cache.get(1, this::load);
+        now += 1;
+        cache.get(1, this::load);
+
+        // Check that the value is reloaded once its time to live has passed
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void givenFullCache_whenValueAdded_thenLeastRecentlyReadAreEvicted() {
+        for (int id = 1; id <= 10; id++) {
+            now++;
+            cache.get(id, this::load);
+        }
+        now++;
+        cache.get(1, this::load);
+        now++;
+        cache.get(11, this::load);
+
+        // Check that the cache shrank to nine tenths of its maximum, keeping the recently read values
+        assertEquals(9, cache.size());
+        assertEquals(2, cache.evictionCount());
+        loads.set(0);
+        cache.get(1, this::load);
+        cache.get(11, this::load);
+        assertEquals(0, loads.get());
+        cache.get(2, this::load);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void givenInvalidatedValue_whenRead_thenItIsLoadedAgain() {
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+        cache.invalidate(1);
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+        cache.invalidateAll();
+        cache.get(2, this::load);
+
+        // Check that only invalidated values are reloaded
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void givenInvalidationDuringLoad_whenLoaded_thenLoadedValueIsNotCached() {
+        cache.get(1, id -> {
+            cache.invalidate(id);
+            return load(id);
+        });
+        cache.get(1, this::load);
+
+        // Check that a value loaded while it was invalidated is loaded again
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void givenInvalidSize_whenCreated_thenIllegalArgumentExceptionIsThrown() {
+        // Check that the maximum size and time to live must be positive
+        assertThrows(IllegalArgumentException.class, () -> new ReferenceCache<>(new StationCodec(), 0, TIME_TO_LIVE));
+        assertThrows(IllegalArgumentException.class, () -> new ReferenceCache<>(new StationCodec(), 10, Duration.ZERO));
+    }
+}
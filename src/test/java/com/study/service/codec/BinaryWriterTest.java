@@ -0,0 +1,95 @@
+package com.study.service.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link BinaryWriter} and {@link BinaryReader} classes.
+ * The tests cover round trips of every value type, the size of varints and symbols,
+ * and the rejection of truncated input.
+ */
+public class BinaryWriterTest {
+
+    @Test
+    void givenValues_whenWrittenAndRead_thenTheyAreEqual() {
+        BinaryWriter out = new BinaryWriter(16);
+        out.writeVarInt(0);
+        out.writeVarInt(-1);
+        out.writeVarInt(Integer.MAX_VALUE);
+        out.writeVarInt(Integer.MIN_VALUE);
+        out.writeVarLong(Long.MIN_VALUE);
+        out.writeDouble(450.25);
+        out.writeBoolean(true);
+        out.writeDate(LocalDate.of(2024, 5, 10));
+        out.writeDate(null);
+        out.writeString("Київ");
+        out.writeString(null);
+        out.writeString("");
+
+        BinaryReader in = new BinaryReader(out.toByteArray());
+
+        // Check that every value is read back in order and nothing is left
+        assertEquals(0, in.readVarInt());
+        assertEquals(-1, in.readVarInt());
+        assertEquals(Integer.MAX_VALUE, in.readVarInt());
+        assertEquals(Integer.MIN_VALUE, in.readVarInt());
+        assertEquals(Long.MIN_VALUE, in.readVarLong());
+        assertEquals(450.25, in.readDouble());
+        assertTrue(in.readBoolean());
+        assertEquals(LocalDate.of(2024, 5, 10), in.readDate());
+        assertNull(in.readDate());
+        assertEquals("Київ", in.readString());
+        assertNull(in.readString());
+        assertEquals("", in.readString());
+        assertEquals(0, in.remaining());
+    }
+
+    @Test
+    void givenSmallInts_whenWritten_thenOneByteEach() {
+        BinaryWriter out = new BinaryWriter();
+        out.writeVarInt(1);
+        out.writeVarInt(63);
+        out.writeVarInt(-64);
+
+        // Check that ints between -64 and 63 take a single byte
+        assertEquals(3, out.size());
+    }
+
+    @Test
+    void givenRepeatedSymbol_whenWritten_thenItIsWrittenOnceAndInterned() {
+        BinaryWriter out = new BinaryWriter();
+        out.writeSymbol("Student");
+        int firstSize = out.size();
+        out.writeSymbol("Student");
+        out.writeSymbol(null);
+
+        BinaryReader in = new BinaryReader(out.toByteArray());
+        String first = in.readSymbol();
+        String second = in.readSymbol();
+
+        // Check that the repeated symbol takes one byte and is read as the interned string
+        assertEquals(firstSize + 2, out.size());
+        assertSame(first, second);
+        assertSame("Student", first);
+        assertNull(in.readSymbol());
+    }
+
+    @Test
+    void givenTruncatedInput_whenRead_thenIllegalArgumentExceptionIsThrown() {
+        BinaryWriter out = new BinaryWriter();
+        out.writeString("Vinnytsia");
+        out.writeDouble(1.5);
+        byte[] bytes = out.toByteArray();
+
+        BinaryReader truncatedString = new BinaryReader(bytes, 0, 4);
+        BinaryReader truncatedDouble = new BinaryReader(bytes, 0, bytes.length - 1);
+        truncatedDouble.readString();
+
+        // Check that reading past the end of the input is rejected
+        assertThrows(IllegalArgumentException.class, truncatedString::readString);
+        assertThrows(IllegalArgumentException.class, truncatedDouble::readDouble);
+    }
+}
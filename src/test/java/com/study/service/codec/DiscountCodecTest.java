@@ -0,0 +1,60 @@
+package com.study.service.codec;
+
+import com.study.service.dto.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link DiscountCodec} class and the codecs
+ * of the other simple DTOs: stations, trains, economy classes and age groups.
+ */
+public class DiscountCodecTest {
+
+    @Test
+    void givenDiscountDTO_whenEncodedAndDecoded_thenAllFieldsAreEqual() {
+        DiscountCodec discountCodec = new DiscountCodec();
+        DiscountDTO discountDTO = new DiscountDTO(3, "Student", 12.5)
+                .startAt(LocalDate.of(2024, 9, 1))
+                .endAt(LocalDate.of(2025, 6, 30));
+
+        DiscountDTO decoded = discountCodec.decode(discountCodec.encode(discountDTO));
+
+        // Check that every field is read back
+        assertEquals(discountDTO.toString(), decoded.toString());
+    }
+
+    @Test
+    void givenDiscountDTOWithoutPercent_whenEncodedAndDecoded_thenPercentIsNull() {
+        DiscountCodec discountCodec = new DiscountCodec();
+
+        DiscountDTO decoded = discountCodec.decode(discountCodec.encode(new DiscountDTO().id(1)));
+
+        // Check that the missing percent and dates stay null
+        assertNull(decoded.getPercent());
+        assertNull(decoded.getStartAt());
+    }
+
+    @Test
+    void givenSimpleDTOs_whenEncodedAndDecoded_thenAllFieldsAreEqual() {
+        StationDTO stationDTO = new StationDTO().id(1).nameOfStation("Odesa").addressLocation("Pryvokzalna 2")
+                .stationPhone("048");
+        TrainDTO trainDTO = new TrainDTO(2, 600).trainModel("Hyundai Rotem");
+        EconomyDTO economyDTO = new EconomyDTO(3, "First class");
+        AgeGroupDTO ageGroupDTO = new AgeGroupDTO(4, "Child");
+
+        StationDTO decodedStation = new StationCodec().decode(new StationCodec().encode(stationDTO));
+        TrainDTO decodedTrain = new TrainCodec().decode(new TrainCodec().encode(trainDTO));
+        EconomyDTO decodedEconomy = new EconomyCodec().decode(new EconomyCodec().encode(economyDTO));
+        AgeGroupDTO decodedAgeGroup = new AgeGroupCodec().decode(new AgeGroupCodec().encode(ageGroupDTO));
+
+        // Check that every field of every DTO is read back
+        assertEquals(stationDTO.toString(), decodedStation.toString());
+        assertEquals("048", decodedStation.getStationPhone());
+        assertEquals(trainDTO.toString(), decodedTrain.toString());
+        assertEquals(economyDTO.toString(), decodedEconomy.toString());
+        assertEquals(ageGroupDTO.toString(), decodedAgeGroup.toString());
+    }
+}
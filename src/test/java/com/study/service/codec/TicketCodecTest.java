@@ -0,0 +1,143 @@
+package com.study.service.codec;
+
+import com.study.service.dto.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link TicketCodec} class.
+ * The tests cover round trips of tickets with all their referenced DTOs,
+ * sharing of referenced DTOs within a list and the size against Java serialization.
+ */
+public class TicketCodecTest {
+
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 5, 10);
+    private static final LocalDate REGISTRATION_DATE = LocalDate.of(2024, 5, 1);
+    private static final double PRICE = 450.25;
+
+    private TicketCodec ticketCodec;
+
+    private UserDTO userDTO;
+    private StationDTO kyivDTO;
+    private StationDTO lvivDTO;
+    private TrainDTO trainDTO;
+    private EconomyDTO economyDTO;
+    private AgeGroupDTO ageGroupDTO;
+    private DiscountDTO discountDTO;
+
+    @BeforeEach
+    void setUp() {
+        ticketCodec = new TicketCodec();
+        userDTO = new UserDTO(7, "Ivan", "Petrenko", LocalDate.of(1990, 1, 15), "ivan@example.com", "secret")
+                .gender("male");
+        kyivDTO = new StationDTO().id(1).nameOfStation("Kyiv").addressLocation("Vokzalna 1").stationPhone("044");
+        lvivDTO = new StationDTO().id(2).nameOfStation("Lviv");
+        trainDTO = new TrainDTO(3, 400).trainModel("Intercity");
+        economyDTO = new EconomyDTO(4, "Second class");
+        ageGroupDTO = new AgeGroupDTO(5, "Adult");
+        discountDTO = new DiscountDTO(6, "Student", 15.0).startAt(DEPART_DATE).endAt(DEPART_DATE.plusDays(30));
+    }
+
+    private TicketDTO createDTO(int id) {
+        TicketDTO ticketDTO = new TicketDTO(id, DEPART_DATE, REGISTRATION_DATE, PRICE,
+                userDTO, kyivDTO, lvivDTO, trainDTO, economyDTO, ageGroupDTO)
+                .seatNumber(id % 400 + 1)
+                .returnDateBooking(DEPART_DATE.plusDays(7));
+        ticketDTO.setDiscounts(Set.of(discountDTO));
+        return ticketDTO;
+    }
+
+    @Test
+    void givenTicketDTO_whenEncodedAndDecoded_thenAllFieldsAreEqual() {
+        TicketDTO ticketDTO = createDTO(10);
+
+        TicketDTO decoded = ticketCodec.decode(ticketCodec.encode(ticketDTO));
+
+        // Check the fields of the ticket
+        assertEquals(10, decoded.getId());
+        assertEquals(DEPART_DATE, decoded.getDepartDateBooking());
+        assertEquals(DEPART_DATE.plusDays(7), decoded.getReturnDateBooking());
+        assertEquals(REGISTRATION_DATE, decoded.getRegistrationDateTicket());
+        assertNull(decoded.getReturnDateTicket());
+        assertEquals(PRICE, decoded.getPrice());
+        assertEquals(11, decoded.getSeatNumber());
+        // Check the referenced DTOs by their full content
+        assertEquals(userDTO.toString(), decoded.getUser().toString());
+        assertEquals(kyivDTO.toString(), decoded.getStartStation().toString());
+        assertEquals(lvivDTO.toString(), decoded.getEndStation().toString());
+        assertEquals(trainDTO.toString(), decoded.getTrain().toString());
+        assertEquals(economyDTO.toString(), decoded.getEconomy().toString());
+        assertEquals(ageGroupDTO.toString(), decoded.getAgeGroup().toString());
+        assertEquals(discountDTO.toString(), decoded.getDiscounts().iterator().next().toString());
+    }
+
+    @Test
+    void givenEmptyTicketDTO_whenEncodedAndDecoded_thenReferencesStayNull() {
+        TicketDTO ticketDTO = new TicketDTO();
+        ticketDTO.setDiscounts(null);
+
+        TicketDTO decoded = ticketCodec.decode(ticketCodec.encode(ticketDTO));
+
+        // Check that missing references and the missing discount set are kept null
+        assertNull(decoded.getUser());
+        assertNull(decoded.getStartStation());
+        assertNull(decoded.getTrain());
+        assertNull(decoded.getDepartDateBooking());
+        assertNull(decoded.getDiscounts());
+    }
+
+    @Test
+    void givenTicketsSharingDTOs_whenEncodedAsList_thenSharedDTOsAreDecodedOnce() {
+        List<TicketDTO> ticketDTOs = new ArrayList<>();
+        for (int id = 1; id <= 100; id++) {
+            ticketDTOs.add(createDTO(id));
+        }
+
+        byte[] bytes = ticketCodec.encodeAll(ticketDTOs);
+        List<TicketDTO> decoded = ticketCodec.decodeAll(bytes);
+
+        // Check that all tickets are decoded in order
+        assertEquals(100, decoded.size());
+        assertEquals(100, decoded.get(99).getId());
+        // Check that the shared DTOs are decoded as shared instances
+        assertSame(decoded.get(0).getUser(), decoded.get(99).getUser());
+        assertSame(decoded.get(0).getTrain(), decoded.get(99).getTrain());
+        // Check that each ticket after the first takes only its own fields
+        assertTrue(bytes.length < 100 * 40, "Encoded size " + bytes.length);
+    }
+
+    @Test
+    void givenTicketDTO_whenEncoded_thenSmallerThanJavaSerialization() throws IOException {
+        TicketDTO ticketDTO = createDTO(10);
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(ticketDTO);
+        }
+
+        byte[] encoded = ticketCodec.encode(ticketDTO);
+
+        // Check that the binary encoding is several times smaller
+        assertTrue(encoded.length * 5 < serialized.size(),
+                encoded.length + " bytes against " + serialized.size());
+    }
+
+    @Test
+    void givenTruncatedTicket_whenDecoded_thenIllegalArgumentExceptionIsThrown() {
+        byte[] bytes = ticketCodec.encode(createDTO(10));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length / 2);
+
+        // Check that a truncated ticket is rejected
+        assertThrows(IllegalArgumentException.class, () -> ticketCodec.decode(truncated));
+    }
+}
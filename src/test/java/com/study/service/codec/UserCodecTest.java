@@ -0,0 +1,47 @@
+package com.study.service.codec;
+
+import com.study.service.dto.UserDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link UserCodec} class.
+ * The tests cover round trips of users with and without optional fields.
+ */
+public class UserCodecTest {
+
+    private final UserCodec userCodec = new UserCodec();
+
+    @Test
+    void givenUserDTO_whenEncodedAndDecoded_thenAllFieldsAreEqual() {
+        UserDTO userDTO = new UserDTO(42, "Olena", "Shevchenko", LocalDate.of(1985, 3, 8),
+                "olena@example.com", "password")
+                .middleName("Ivanivna")
+                .gender("female")
+                .phoneNumber("+380501234567");
+
+        UserDTO decoded = userCodec.decode(userCodec.encode(userDTO));
+
+        // Check that every field is read back
+        assertEquals(userDTO.toString(), decoded.toString());
+        assertEquals("+380501234567", decoded.getPhoneNumber());
+    }
+
+    @Test
+    void givenUserDTOsWithoutOptionalFields_whenEncodedAsList_thenNullsAreKept() {
+        List<UserDTO> userDTOs = List.of(new UserDTO().id(1).firstName("Ivan"), new UserDTO().id(2));
+
+        List<UserDTO> decoded = userCodec.decodeAll(userCodec.encodeAll(userDTOs));
+
+        // Check that both users are read back with their missing fields null
+        assertEquals(2, decoded.size());
+        assertEquals("Ivan", decoded.get(0).getFirstName());
+        assertNull(decoded.get(0).getDateOfBirth());
+        assertNull(decoded.get(1).getFirstName());
+        assertNull(decoded.get(1).getGender());
+    }
+}
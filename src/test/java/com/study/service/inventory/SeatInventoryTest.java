@@ -0,0 +1,157 @@
+package com.study.service.inventory;
+
+import com.study.domain.Ticket;
+import com.study.domain.Train;
+import com.study.repository.TicketRepository;
+import com.study.repository.TrainRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link SeatInventory} class.
+ * The tests cover reserving and releasing seats per train run, starting runs from the stored tickets once and
+ * concurrent purchase bursts on the same run.
+ */
+public class SeatInventoryTest {
+
+    private static final int AMOUNT_SEATS_TRAIN = 40;
+    private static final int UNKNOWN_TRAIN_ID = -1;
+
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 1_000;
+
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 8, 24);
+
+    private TrainRepository trainRepository;
+    private TicketRepository ticketRepository;
+    private SeatInventory seatInventory;
+    private Train train;
+
+    @BeforeEach
+    void setUp() {
+        trainRepository = new TrainRepository();
+        ticketRepository = new TicketRepository();
+        seatInventory = new SeatInventory(trainRepository, ticketRepository);
+        train = trainRepository.save(new Train().amountOfSeats(AMOUNT_SEATS_TRAIN));
+    }
+
+    @AfterEach
+    void tearDown() {
+        seatInventory.clear();
+        ticketRepository.deleteAll();
+        trainRepository.deleteAll();
+    }
+
+    @Test
+    void givenTrainRun_whenReserveAndRelease_thenCountersFollow() {
+        assertEquals(AMOUNT_SEATS_TRAIN, seatInventory.availableSeats(train.getId(), DEPART_DATE));
+
+        assertTrue(seatInventory.reserve(train.getId(), DEPART_DATE));
+        assertEquals(AMOUNT_SEATS_TRAIN - 1, seatInventory.availableSeats(train.getId(), DEPART_DATE));
+        assertEquals(1, seatInventory.soldSeats(train.getId(), DEPART_DATE));
+
+        // Another date of the same train is a separate run
+        assertEquals(AMOUNT_SEATS_TRAIN, seatInventory.availableSeats(train.getId(), DEPART_DATE.plusDays(1)));
+
+        assertTrue(seatInventory.release(train.getId(), DEPART_DATE));
+        assertFalse(seatInventory.release(train.getId(), DEPART_DATE));
+        assertEquals(AMOUNT_SEATS_TRAIN, seatInventory.availableSeats(train.getId(), DEPART_DATE));
+    }
+
+    @Test
+    void givenUnknownTrain_whenReserve_thenRefuse() {
+        assertFalse(seatInventory.reserve(UNKNOWN_TRAIN_ID, DEPART_DATE));
+        assertEquals(0, seatInventory.availableSeats(UNKNOWN_TRAIN_ID, DEPART_DATE));
+    }
+
+    @Test
+    void givenPurchaseBurst_whenReserveConcurrently_thenNeverOversell() throws Exception {
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                    if (seatInventory.reserve(train.getId(), DEPART_DATE)) {
+                        reserved.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Exactly the number of seats of the train was sold
+        assertEquals(AMOUNT_SEATS_TRAIN, reserved.get());
+        assertEquals(0, seatInventory.availableSeats(train.getId(), DEPART_DATE));
+    }
+
+    @Test
+    void givenTrainSavedOrResizedAfterFirstUse_whenReserve_thenUseCurrentSeats() {
+        assertFalse(seatInventory.reserve(UNKNOWN_TRAIN_ID, DEPART_DATE));
+        assertTrue(seatInventory.reserve(train.getId(), DEPART_DATE));
+
+        // A train saved after its run was asked for is not sold out
+        Train later = trainRepository.save(new Train().amountOfSeats(1));
+        assertEquals(1, seatInventory.availableSeats(later.getId(), DEPART_DATE));
+        assertTrue(seatInventory.reserve(later.getId(), DEPART_DATE));
+        assertFalse(seatInventory.reserve(later.getId(), DEPART_DATE));
+
+        // Adding seats to the train makes them available on runs already in use
+        trainRepository.updateId(later.getId(), new Train().id(later.getId()).amountOfSeats(2));
+        assertEquals(1, seatInventory.availableSeats(later.getId(), DEPART_DATE));
+        assertTrue(seatInventory.reserve(later.getId(), DEPART_DATE));
+
+        // Removing seats below the number sold leaves none available
+        trainRepository.updateId(train.getId(), new Train().id(train.getId()).amountOfSeats(0));
+        assertEquals(0, seatInventory.availableSeats(train.getId(), DEPART_DATE));
+        assertFalse(seatInventory.reserve(train.getId(), DEPART_DATE));
+    }
+
+    @Test
+    void givenTicketsStoredBeforeFirstUse_whenReserve_thenCountThemAsSold() {
+        for (int i = 0; i < AMOUNT_SEATS_TRAIN - 1; i++) {
+            Ticket ticket = new Ticket().departDateBooking(DEPART_DATE);
+            ticket.setTrain(train);
+            ticketRepository.save(ticket);
+        }
+
+        // Tickets stored before the inventory sold the run, e.g. recovered after a restart, are not sold again
+        assertEquals(1, seatInventory.availableSeats(train.getId(), DEPART_DATE));
+        assertTrue(seatInventory.reserve(train.getId(), DEPART_DATE));
+        assertFalse(seatInventory.reserve(train.getId(), DEPART_DATE));
+        assertEquals(AMOUNT_SEATS_TRAIN, seatInventory.soldSeats(train.getId(), DEPART_DATE));
+    }
+
+    @Test
+    void givenRunCheckedBeforeFirstSale_whenTicketsStoredLater_thenCountOnlyAtFirstCheck() {
+        Ticket ticket = new Ticket().departDateBooking(DEPART_DATE);
+        ticket.setTrain(train);
+        ticketRepository.save(ticket);
+        assertEquals(1, seatInventory.soldSeats(train.getId(), DEPART_DATE));
+
+        // The run is started by the first check; later checks read its counter, not the stored tickets
+        Ticket savedLater = new Ticket().departDateBooking(DEPART_DATE);
+        savedLater.setTrain(train);
+        ticketRepository.save(savedLater);
+        assertEquals(1, seatInventory.soldSeats(train.getId(), DEPART_DATE));
+        assertEquals(AMOUNT_SEATS_TRAIN - 1, new SeatInventory(trainRepository, ticketRepository)
+                .availableSeats(train.getId(), DEPART_DATE));
+
+        // Checking a run of an unknown train starts nothing
+        assertEquals(0, seatInventory.soldSeats(UNKNOWN_TRAIN_ID, DEPART_DATE));
+    }
+}
@@ -0,0 +1,137 @@
+package com.study.service.inventory;
+
+import com.study.domain.Train;
+import com.study.repository.TrainRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link SegmentSeatInventory} class.
+ * The tests cover reusing a seat on consecutive segments, refusing overlapping trips,
+ * releasing seats and concurrent allocation on the same train run.
+ */
+public class SegmentSeatInventoryTest {
+
+    private static final int AMOUNT_SEATS_TRAIN = 1;
+    private static final int MANY_SEATS_TRAIN = 100;
+
+    private static final int STATION_A = 11;
+    private static final int STATION_B = 12;
+    private static final int STATION_C = 13;
+    private static final int STATION_D = 14;
+
+    private static final int THREADS = 8;
+
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 8, 24);
+
+    private TrainRepository trainRepository;
+    private SegmentSeatInventory segmentSeatInventory;
+    private Train train;
+
+    @BeforeEach
+    void setUp() {
+        trainRepository = new TrainRepository();
+        segmentSeatInventory = new SegmentSeatInventory(trainRepository);
+        train = trainRepository.save(new Train().amountOfSeats(AMOUNT_SEATS_TRAIN));
+        segmentSeatInventory.registerRoute(train.getId(), List.of(STATION_A, STATION_B, STATION_C, STATION_D));
+    }
+
+    @AfterEach
+    void tearDown() {
+        segmentSeatInventory.clear();
+        trainRepository.deleteAll();
+    }
+
+    @Test
+    void givenSeatSoldFromAToB_whenAllocateFromBToC_thenReuseSeat() {
+        assertEquals(OptionalInt.of(1), segmentSeatInventory.allocate(train.getId(), DEPART_DATE, STATION_A, STATION_B));
+        assertEquals(OptionalInt.of(1), segmentSeatInventory.allocate(train.getId(), DEPART_DATE, STATION_B, STATION_C));
+
+        // The only seat is taken between A and C, but still free from C to D
+        assertTrue(segmentSeatInventory.allocate(train.getId(), DEPART_DATE, STATION_A, STATION_C).isEmpty());
+        assertEquals(0, segmentSeatInventory.freeSeats(train.getId(), DEPART_DATE, STATION_B, STATION_D));
+        assertEquals(1, segmentSeatInventory.freeSeats(train.getId(), DEPART_DATE, STATION_C, STATION_D));
+    }
+
+    @Test
+    void givenAllocatedSeat_whenRelease_thenSeatIsFreeAgain() {
+        int seat = segmentSeatInventory.allocate(train.getId(), DEPART_DATE, STATION_A, STATION_D).orElseThrow();
+
+        assertEquals(0, segmentSeatInventory.freeSeats(train.getId(), DEPART_DATE, STATION_B, STATION_C));
+
+        // Releasing frees the seat for the whole trip, releasing twice has no effect
+        assertTrue(segmentSeatInventory.release(train.getId(), DEPART_DATE, seat, STATION_A, STATION_D));
+        assertFalse(segmentSeatInventory.release(train.getId(), DEPART_DATE, seat, STATION_A, STATION_D));
+        assertEquals(1, segmentSeatInventory.freeSeats(train.getId(), DEPART_DATE, STATION_A, STATION_D));
+    }
+
+    @Test
+    void givenBackwardOrUnknownTrip_whenAllocate_thenRefuse() {
+        assertTrue(segmentSeatInventory.allocate(train.getId(), DEPART_DATE, STATION_C, STATION_A).isEmpty());
+        assertTrue(segmentSeatInventory.allocate(train.getId(), DEPART_DATE, STATION_A, STATION_A).isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> segmentSeatInventory.registerRoute(train.getId(), List.of(STATION_A, STATION_B, STATION_A)));
+    }
+
+    @Test
+    void givenManyThreads_whenAllocateConcurrently_thenEverySeatIsSoldOncePerSegment() throws Exception {
+        Train bigTrain = trainRepository.save(new Train().amountOfSeats(MANY_SEATS_TRAIN));
+        segmentSeatInventory.registerRoute(bigTrain.getId(), List.of(STATION_A, STATION_B, STATION_C));
+
+        AtomicInteger allocated = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            boolean firstHalf = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < MANY_SEATS_TRAIN; j++) {
+                    int start = firstHalf ? STATION_A : STATION_B;
+                    int end = firstHalf ? STATION_B : STATION_C;
+                    if (segmentSeatInventory.allocate(bigTrain.getId(), DEPART_DATE, start, end).isPresent()) {
+                        allocated.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Every seat is sold once for A-B and once for B-C
+        assertEquals(2 * MANY_SEATS_TRAIN, allocated.get());
+        assertEquals(0, segmentSeatInventory.freeSeats(bigTrain.getId(), DEPART_DATE, STATION_A, STATION_B));
+        assertEquals(0, segmentSeatInventory.freeSeats(bigTrain.getId(), DEPART_DATE, STATION_B, STATION_C));
+    }
+
+    @Test
+    void givenTrainSavedOrGrownAfterFirstUse_whenAllocate_thenUseCurrentSeats() {
+        Train later = new Train().amountOfSeats(MANY_SEATS_TRAIN);
+        later.setId(train.getId() + 1_000);
+        segmentSeatInventory.registerRoute(later.getId(), List.of(STATION_A, STATION_B));
+
+        // An unknown train is refused without remembering a run of zero seats
+        assertTrue(segmentSeatInventory.allocate(later.getId(), DEPART_DATE, STATION_A, STATION_B).isEmpty());
+        trainRepository.updateId(later.getId(), later);
+        assertEquals(OptionalInt.of(1), segmentSeatInventory.allocate(later.getId(), DEPART_DATE, STATION_A, STATION_B));
+
+        // The only seat of the train is sold; a second seat added later can be sold too
+        segmentSeatInventory.allocate(train.getId(), DEPART_DATE, STATION_A, STATION_D);
+        trainRepository.updateId(train.getId(), new Train().id(train.getId()).amountOfSeats(AMOUNT_SEATS_TRAIN + 1));
+        assertEquals(1, segmentSeatInventory.freeSeats(train.getId(), DEPART_DATE, STATION_A, STATION_D));
+        assertEquals(OptionalInt.of(2), segmentSeatInventory.allocate(train.getId(), DEPART_DATE, STATION_A, STATION_D));
+        assertTrue(segmentSeatInventory.release(train.getId(), DEPART_DATE, 1, STATION_A, STATION_D));
+    }
+}
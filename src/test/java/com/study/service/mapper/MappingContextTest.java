@@ -0,0 +1,89 @@
+package com.study.service.mapper;
+
+import com.study.domain.Train;
+import com.study.service.dto.TrainDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link MappingContext} class.
+ */
+public class MappingContextTest {
+
+    private static final int TRAIN_ID = 7;
+
+    @Test
+    void givenSameSource_whenConvertTwice_thenConverterRunsOnce() {
+        MappingContext context = new MappingContext();
+        AtomicInteger calls = new AtomicInteger();
+        Function<Train, TrainDTO> converter = train -> {
+            calls.incrementAndGet();
+            return new TrainDTO().id(train.getId());
+        };
+        Train train = new Train().id(TRAIN_ID);
+
+        TrainDTO first = context.convert(train, converter);
+
+        // The second conversion returns the remembered result
+        assertSame(first, context.convert(train, converter));
+        assertEquals(1, calls.get());
+        assertEquals(1, context.size());
+    }
+
+    @Test
+    void givenEqualButDistinctSources_whenConvert_thenEachIsConverted() {
+        MappingContext context = new MappingContext();
+        Function<Train, TrainDTO> converter = train -> new TrainDTO().id(train.getId());
+
+        // Sources are compared by identity, not by equals
+        assertNotSame(context.convert(new Train().id(TRAIN_ID), converter),
+                context.convert(new Train().id(TRAIN_ID), converter));
+        assertEquals(2, context.size());
+    }
+
+    @Test
+    void givenNullSource_whenConvert_thenResultIsNotRemembered() {
+        MappingContext context = new MappingContext();
+
+        // Null is handed to the converter and nothing is cached
+        assertNotNull(context.convert(null, train -> new TrainDTO()));
+        assertEquals(0, context.size());
+    }
+
+    @Test
+    void givenCopiesWithSameId_whenConvertById_thenResultIsShared() {
+        MappingContext context = new MappingContext();
+        Function<Train, TrainDTO> converter = train -> new TrainDTO().id(train.getId());
+
+        TrainDTO first = context.convert(new Train().id(TRAIN_ID), Train::getId, converter);
+
+        // A different object with the same type and ID gets the same result
+        assertSame(first, context.convert(new Train().id(TRAIN_ID), Train::getId, converter));
+        assertEquals(1, context.size());
+    }
+
+    @Test
+    void givenUnsavedObjects_whenConvertById_thenFallBackToIdentity() {
+        MappingContext context = new MappingContext();
+        Function<Train, TrainDTO> converter = train -> new TrainDTO();
+
+        // Objects without an ID are not merged with each other
+        assertNotSame(context.convert(new Train(), Train::getId, converter),
+                context.convert(new Train(), Train::getId, converter));
+    }
+
+    @Test
+    void givenNonCachingContext_whenConvertTwice_thenEachCallConverts() {
+        MappingContext context = MappingContext.none();
+        Train train = new Train().id(TRAIN_ID);
+        Function<Train, TrainDTO> converter = source -> new TrainDTO().id(source.getId());
+
+        // Nothing is remembered
+        assertNotSame(context.convert(train, Train::getId, converter), context.convert(train, Train::getId, converter));
+        assertEquals(0, context.size());
+    }
+}
@@ -2,8 +2,10 @@ package com.study.service.mapper;
 
 import com.study.domain.Economy;
 import com.study.domain.Ticket;
+import com.study.domain.Train;
 import com.study.service.dto.EconomyDTO;
 import com.study.service.dto.TicketDTO;
+import com.study.service.dto.TrainDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -120,4 +122,57 @@ public class TicketMapperTest {
                 createEntity(ID_3, CHILD_TICKET_PRICE));
         assertIterableEquals(ticketMapper.toEntity(ticketsDTO), expectedEntities);
     }
+
+    @Test
+    void givenTicketsOnSameTrain_whenToDTOs_thenTrainDTOIsShared() {
+        Train train = new Train().id(ID_3);
+        Ticket ticket1 = createEntity(1, ADULT_TICKET_PRICE);
+        Ticket ticket2 = createEntity(2, CHILD_TICKET_PRICE);
+        ticket1.setTrain(train);
+        ticket2.setTrain(train);
+
+        List<TicketDTO> ticketDTOs = ticketMapper.toDTO(List.of(ticket1, ticket2));
+
+        // The train referenced by both tickets is converted once
+        assertSame(ticketDTOs.get(0).getTrain(), ticketDTOs.get(1).getTrain());
+        assertEquals(ID_3, ticketDTOs.get(0).getTrain().getId());
+    }
+
+    @Test
+    void givenSeparateConversions_whenToDTO_thenTrainDTOIsNotShared() {
+        Train train = new Train().id(ID_3);
+        ticket.setTrain(train);
+
+        // Converted objects are only shared within one call
+        assertNotSame(ticketMapper.toDTO(ticket).getTrain(), ticketMapper.toDTO(ticket).getTrain());
+    }
+
+    @Test
+    void givenDTOsWithSameTrainDTO_whenToEntities_thenTrainHoldsBothTickets() {
+        TrainDTO trainDTO = new TrainDTO().id(ID_3);
+        TicketDTO ticketDTO1 = createDTO(1, ADULT_TICKET_PRICE);
+        TicketDTO ticketDTO2 = createDTO(2, CHILD_TICKET_PRICE);
+        ticketDTO1.setTrain(trainDTO);
+        ticketDTO2.setTrain(trainDTO);
+
+        List<Ticket> tickets = ticketMapper.toEntity(List.of(ticketDTO1, ticketDTO2));
+
+        // Both tickets reference the same Train entity, which knows about both of them
+        Train train = tickets.get(0).getTrain();
+        assertSame(train, tickets.get(1).getTrain());
+        assertEquals(2, train.getTickets().size());
+    }
+
+    @Test
+    void givenTicketsWithCopiesOfSameTrain_whenToDTOs_thenTrainDTOIsShared() {
+        Ticket ticket1 = createEntity(1, ADULT_TICKET_PRICE);
+        Ticket ticket2 = createEntity(2, CHILD_TICKET_PRICE);
+        ticket1.setTrain(new Train().id(ID_3));
+        ticket2.setTrain(new Train().id(ID_3));
+
+        List<TicketDTO> ticketDTOs = ticketMapper.toDTO(List.of(ticket1, ticket2));
+
+        // Separate Train objects with the same ID are converted to a single DTO
+        assertSame(ticketDTOs.get(0).getTrain(), ticketDTOs.get(1).getTrain());
+    }
 }
@@ -0,0 +1,94 @@
+package com.study.service.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link MpscRingBuffer} class.
+ * The tests cover ordering, a full buffer, wrapping around and concurrent producers.
+ */
+public class MpscRingBufferTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int ELEMENTS_PER_PRODUCER = 10_000;
+
+    @Test
+    void givenElements_whenPoll_thenReturnedInOrderOfOffer() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        // Check that the elements come out first in, first out
+        assertEquals(3, buffer.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void givenFullBuffer_whenOffer_thenRefuseUntilPolled() {
+        // The capacity is rounded up to a power of two
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+
+        // Check that a polled slot is reused for the next lap
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(0));
+    }
+
+    @Test
+    void givenConcurrentProducers_whenConsume_thenEveryElementArrivesOnceInProducerOrder() throws Exception {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < ELEMENTS_PER_PRODUCER; i++) {
+                    Integer element = producer * ELEMENTS_PER_PRODUCER + i;
+                    while (!buffer.offer(element)) {
+                        // let the consumer run when there are fewer processors than threads
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        int[] next = new int[PRODUCERS];
+        int received = 0;
+        while (received < PRODUCERS * ELEMENTS_PER_PRODUCER) {
+            Integer element = buffer.poll();
+            if (element != null) {
+                int producer = element / ELEMENTS_PER_PRODUCER;
+                // Check that each producer's elements arrive once and in order
+                assertEquals(next[producer]++, element % ELEMENTS_PER_PRODUCER);
+                received++;
+            } else {
+                Thread.yield();
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(buffer.isEmpty());
+    }
+}
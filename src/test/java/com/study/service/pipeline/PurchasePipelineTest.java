@@ -0,0 +1,174 @@
+package com.study.service.pipeline;
+
+import com.study.service.TicketService;
+import com.study.service.TrainService;
+import com.study.service.dto.TicketDTO;
+import com.study.service.dto.TrainDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link PurchasePipeline} class.
+ * The tests cover concurrent purchases on a few trains, partitioning by train,
+ * failing purchases, purchases throwing errors and closing the pipeline.
+ */
+public class PurchasePipelineTest {
+
+    private static final double TICKET_PRICE = 250.5;
+    private static final LocalDate DEPART_DATE = LocalDate.of(2024, 8, 24);
+
+    private static final int TRAINS = 3;
+    private static final int SEATS = 100;
+    private static final int CLIENTS = 8;
+    private static final int PURCHASES_PER_CLIENT = 100;
+    private static final int PARTITIONS = 2;
+    private static final int QUEUE_CAPACITY = 16;
+
+    private final TicketService ticketService = new TicketService();
+    private final TrainService trainService = new TrainService();
+
+    private final List<TrainDTO> trains = new ArrayList<>();
+
+    private TicketDTO createDTO(TrainDTO trainDTO) {
+        TicketDTO ticketDTO = new TicketDTO().price(TICKET_PRICE).departDateBooking(DEPART_DATE);
+        ticketDTO.setTrain(trainDTO);
+        return ticketDTO;
+    }
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < TRAINS; i++) {
+            trains.add(trainService.save(new TrainDTO().amountOfSeats(SEATS)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        // tickets go first: trains still referenced by tickets cannot be deleted
+        ticketService.deleteAll();
+        trainService.deleteAll();
+    }
+
+    @Test
+    void givenManyClientsOnFewTrains_whenSubmit_thenEverySeatIsSoldOnce() throws Exception {
+        List<CompletableFuture<Optional<TicketDTO>>> results = new ArrayList<>();
+        try (PurchasePipeline pipeline = new PurchasePipeline(ticketService::purchase, PARTITIONS, QUEUE_CAPACITY)) {
+            ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+            List<Future<List<CompletableFuture<Optional<TicketDTO>>>>> clients = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.add(executor.submit(() -> {
+                    List<CompletableFuture<Optional<TicketDTO>>> submitted = new ArrayList<>();
+                    for (int i = 0; i < PURCHASES_PER_CLIENT; i++) {
+                        submitted.add(pipeline.submit(createDTO(trains.get(i % TRAINS))));
+                    }
+                    return submitted;
+                }));
+            }
+            for (Future<List<CompletableFuture<Optional<TicketDTO>>>> client : clients) {
+                results.addAll(client.get());
+            }
+            executor.shutdown();
+        }
+
+        // Closing waits for the queued purchases, so every result is known
+        long sold = 0;
+        for (CompletableFuture<Optional<TicketDTO>> result : results) {
+            assertTrue(result.isDone());
+            if (result.get().isPresent()) {
+                sold++;
+            }
+        }
+        // Check that the trains are sold out and no seat was sold twice
+        assertEquals(TRAINS * SEATS, sold);
+        List<TicketDTO> tickets = ticketService.findAll();
+        assertEquals(TRAINS * SEATS, tickets.size());
+        for (TrainDTO train : trains) {
+            assertEquals(0, ticketService.availableSeats(train.getId(), DEPART_DATE));
+            assertEquals(SEATS, tickets.stream().filter(ticket -> ticket.getTrain().getId() == train.getId()).count());
+        }
+    }
+
+    @Test
+    void givenSameTrain_whenSubmit_thenPurchasesRunOnOneWorkerInOrder() throws Exception {
+        List<Thread> workers = new ArrayList<>();
+        List<Double> prices = new ArrayList<>();
+        CompletableFuture<Optional<TicketDTO>> last = null;
+        try (PurchasePipeline pipeline = new PurchasePipeline(ticketDTO -> {
+            workers.add(Thread.currentThread());
+            prices.add(ticketDTO.getPrice());
+            return ticketService.purchase(ticketDTO);
+        }, PARTITIONS, QUEUE_CAPACITY)) {
+            for (int i = 0; i < SEATS; i++) {
+                last = pipeline.submit(createDTO(trains.getFirst()).price(i));
+            }
+            last.get(5, TimeUnit.SECONDS);
+        }
+
+        // Check that a single worker, not the caller, sold the seats in the order they were submitted
+        assertEquals(SEATS, prices.size());
+        for (int i = 0; i < SEATS; i++) {
+            assertEquals(i, prices.get(i));
+            assertSame(workers.getFirst(), workers.get(i));
+        }
+        assertNotSame(Thread.currentThread(), workers.getFirst());
+        assertEquals(0, ticketService.availableSeats(trains.getFirst().getId(), DEPART_DATE));
+    }
+
+    @Test
+    void givenFailingPurchase_whenSubmit_thenCompleteExceptionallyAndKeepServing() throws Exception {
+        try (PurchasePipeline pipeline = new PurchasePipeline(ticketDTO -> {
+            if (ticketDTO.getPrice() < 0) {
+                throw new IllegalArgumentException("Negative price: " + ticketDTO.getPrice());
+            }
+            return ticketService.purchase(ticketDTO);
+        }, PARTITIONS, QUEUE_CAPACITY)) {
+            CompletableFuture<Optional<TicketDTO>> failed = pipeline.submit(createDTO(trains.getFirst()).price(-1));
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+
+            // Check that the worker goes on with the next purchase of the same partition
+            assertTrue(pipeline.submit(createDTO(trains.getFirst())).get(5, TimeUnit.SECONDS).isPresent());
+        }
+    }
+
+    @Test
+    void givenPurchaseThrowingError_whenSubmit_thenCompleteExceptionallyAndKeepServing() throws Exception {
+        try (PurchasePipeline pipeline = new PurchasePipeline(ticketDTO -> {
+            if (ticketDTO.getPrice() < 0) {
+                throw new StackOverflowError("Negative price: " + ticketDTO.getPrice());
+            }
+            return ticketService.purchase(ticketDTO);
+        }, PARTITIONS, QUEUE_CAPACITY)) {
+            CompletableFuture<Optional<TicketDTO>> failed = pipeline.submit(createDTO(trains.getFirst()).price(-1));
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, exception.getCause());
+
+            // Check that an error does not kill the worker of the partition
+            assertTrue(pipeline.submit(createDTO(trains.getFirst())).get(5, TimeUnit.SECONDS).isPresent());
+        }
+    }
+
+    @Test
+    void givenClosedPipeline_whenSubmit_thenThrowException() {
+        PurchasePipeline pipeline = new PurchasePipeline(ticketService::purchase, PARTITIONS, QUEUE_CAPACITY);
+        pipeline.close();
+
+        // Check that no purchase is accepted after closing
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(createDTO(trains.getFirst())));
+        assertEquals(0, pipeline.queuedPurchases());
+    }
+}
@@ -0,0 +1,138 @@
+package com.study.service.pricing;
+
+import com.study.domain.AgeGroup;
+import com.study.domain.Discount;
+import com.study.domain.Economy;
+import com.study.domain.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link PricingEngine} class.
+ * The tests cover fares by economy class and age group, discounts active by date,
+ * the stacking rules and the discount cap, more discounts than bits in a {@code long},
+ * and rejection of tickets that cannot be priced.
+ */
+public class PricingEngineTest {
+
+    private static final int SECOND_CLASS = 1;
+    private static final int FIRST_CLASS = 2;
+    private static final int ADULT = 1;
+    private static final int CHILD = 2;
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(2024, 6, 1);
+    private static final LocalDate LAST_DATE = LocalDate.of(2024, 8, 31);
+
+    private final Discount student = new Discount(1, "Student", 20.0);
+    private final Discount summer = new Discount(2, "Summer", 10.0)
+            .startAt(LocalDate.of(2024, 7, 1)).endAt(LocalDate.of(2024, 7, 31));
+
+    private Tariff createTariff(DiscountStacking stacking) {
+        return new Tariff()
+                .fare(SECOND_CLASS, 200)
+                .fare(FIRST_CLASS, 450)
+                .ageFactor(CHILD, 0.5)
+                .stacking(stacking);
+    }
+
+    private PricingEngine compile(Tariff tariff) {
+        return PricingEngine.compile(tariff, List.of(student, summer), FIRST_DATE, LAST_DATE);
+    }
+
+    @Test
+    void givenTariff_whenPricedWithoutDiscounts_thenFareOfClassAndAgeGroup() {
+        PricingEngine engine = compile(createTariff(DiscountStacking.BEST));
+
+        // Check the fares, with the age factor applied and full fare for age groups without factor
+        assertEquals(200, engine.price(SECOND_CLASS, ADULT, FIRST_DATE, PricingEngine.NO_DISCOUNTS));
+        assertEquals(100, engine.price(SECOND_CLASS, CHILD, FIRST_DATE, PricingEngine.NO_DISCOUNTS));
+        assertEquals(225, engine.price(FIRST_CLASS, CHILD, FIRST_DATE, PricingEngine.NO_DISCOUNTS));
+        assertEquals(450, engine.price(FIRST_CLASS, 0, FIRST_DATE, PricingEngine.NO_DISCOUNTS));
+    }
+
+    @Test
+    void givenDatedDiscount_whenPriced_thenAppliedOnlyWhileActive() {
+        PricingEngine engine = compile(createTariff(DiscountStacking.BEST));
+        long[] summerMask = engine.discountMask(Set.of(summer));
+
+        // Check that the summer discount applies in July only
+        assertEquals(200, engine.price(SECOND_CLASS, ADULT, LocalDate.of(2024, 6, 30), summerMask));
+        assertEquals(180, engine.price(SECOND_CLASS, ADULT, LocalDate.of(2024, 7, 1), summerMask));
+        assertEquals(180, engine.price(SECOND_CLASS, ADULT, LocalDate.of(2024, 7, 31), summerMask));
+        assertEquals(200, engine.price(SECOND_CLASS, ADULT, LocalDate.of(2024, 8, 1), summerMask));
+    }
+
+    @Test
+    void givenTwoActiveDiscounts_whenPriced_thenCombinedByStackingRule() {
+        LocalDate july = LocalDate.of(2024, 7, 15);
+        List<Discount> both = List.of(student, summer);
+
+        PricingEngine best = compile(createTariff(DiscountStacking.BEST));
+        PricingEngine additive = compile(createTariff(DiscountStacking.ADDITIVE));
+        PricingEngine compound = compile(createTariff(DiscountStacking.COMPOUND));
+        PricingEngine capped = compile(createTariff(DiscountStacking.ADDITIVE).maxDiscountPercent(25));
+
+        // Check 20% and 10%: the best is 20%, added 30%, compounded 28%, and capped at 25%
+        assertEquals(160, best.price(SECOND_CLASS, ADULT, july, best.discountMask(both)));
+        assertEquals(140, additive.price(SECOND_CLASS, ADULT, july, additive.discountMask(both)));
+        assertEquals(144, compound.price(SECOND_CLASS, ADULT, july, compound.discountMask(both)));
+        assertEquals(150, capped.price(SECOND_CLASS, ADULT, july, capped.discountMask(both)));
+    }
+
+    @Test
+    void givenTicket_whenPriced_thenItsClassAgeGroupDateAndDiscountsAreUsed() {
+        PricingEngine engine = compile(createTariff(DiscountStacking.BEST));
+        Ticket ticket = new Ticket().departDateBooking(LocalDate.of(2024, 6, 10));
+        ticket.setEconomy(new Economy(FIRST_CLASS, "First class"));
+        ticket.setAgeGroup(new AgeGroup(CHILD, "Child"));
+        ticket.setDiscounts(Set.of(student));
+
+        // Check that the student discount applies to the child fare of first class
+        assertEquals(180, engine.price(ticket));
+    }
+
+    @Test
+    void givenDiscountsOutsidePeriodOrWithoutPercent_whenCompiled_thenTheyAreIgnored() {
+        Discount expired = new Discount(3, "Expired", 50.0).endAt(FIRST_DATE.minusDays(1));
+        Discount empty = new Discount(4, "Empty", null);
+        PricingEngine engine = PricingEngine.compile(createTariff(DiscountStacking.BEST),
+                List.of(expired, empty), FIRST_DATE, LAST_DATE);
+
+        // Check that neither discount gets a bit nor changes the price
+        assertEquals(0, engine.discountMask(List.of(expired, empty)).length);
+        assertEquals(200, engine.price(SECOND_CLASS, ADULT, FIRST_DATE, new long[]{-1L}));
+    }
+
+    @Test
+    void givenUnpricedTicket_whenPriced_thenIllegalArgumentExceptionIsThrown() {
+        PricingEngine engine = compile(createTariff(DiscountStacking.BEST));
+
+        // Check unknown economy classes, dates outside the period and incomplete tickets
+        assertThrows(IllegalArgumentException.class, () -> engine.price(99, ADULT, FIRST_DATE, PricingEngine.NO_DISCOUNTS));
+        assertThrows(IllegalArgumentException.class, () -> engine.price(SECOND_CLASS, ADULT, LAST_DATE.plusDays(1), PricingEngine.NO_DISCOUNTS));
+        assertThrows(IllegalArgumentException.class, () -> engine.price(new Ticket()));
+    }
+
+    @Test
+    void givenMoreDiscountsThanBitsInLong_whenPriced_thenEachAppliesOnItsDays() {
+        List<Discount> discounts = new ArrayList<>();
+        for (int id = 1; id <= 200; id++) {
+            discounts.add(new Discount(id, "Discount " + id, id % 2 == 0 ? 10.0 : 5.0)
+                    .startAt(FIRST_DATE.plusDays(id % 30)));
+        }
+        PricingEngine engine = PricingEngine.compile(createTariff(DiscountStacking.ADDITIVE),
+                discounts, FIRST_DATE, LAST_DATE);
+
+        // Check discounts in the first and the last words of the bit sets, before and after they start
+        assertEquals(190, engine.price(SECOND_CLASS, ADULT, FIRST_DATE.plusDays(1), engine.discountMask(1)));
+        assertEquals(200, engine.price(SECOND_CLASS, ADULT, FIRST_DATE.plusDays(19), engine.discountMask(200)));
+        assertEquals(180, engine.price(SECOND_CLASS, ADULT, FIRST_DATE.plusDays(20), engine.discountMask(200)));
+        assertEquals(160, engine.price(SECOND_CLASS, ADULT, FIRST_DATE.plusDays(30), engine.discountMask(1, 64, 129)));
+    }
+}
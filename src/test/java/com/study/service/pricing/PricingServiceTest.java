@@ -0,0 +1,81 @@
+package com.study.service.pricing;
+
+import com.study.domain.Discount;
+import com.study.repository.DiscountRepository;
+import com.study.service.dto.DiscountDTO;
+import com.study.service.dto.EconomyDTO;
+import com.study.service.dto.TicketDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * This class contains unit tests for the {@link PricingService} class.
+ * The tests cover quoting TicketDTOs with the discounts of the repository
+ * and refreshing the engine after the discounts changed.
+ */
+public class PricingServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+    private static final int ECONOMY_ID = 1;
+
+    private final DiscountRepository discountRepository = new DiscountRepository();
+
+    private PricingService pricingService;
+
+    private Discount student;
+
+    private TicketDTO createDTO(LocalDate departDate) {
+        TicketDTO ticketDTO = new TicketDTO().departDateBooking(departDate);
+        ticketDTO.setEconomy(new EconomyDTO(ECONOMY_ID, "Second class"));
+        ticketDTO.setDiscounts(Set.of(new DiscountDTO().id(student.getId())));
+        return ticketDTO;
+    }
+
+    @BeforeEach
+    void setUp() {
+        student = discountRepository.save(new Discount().type("Student").percent(25.0));
+        Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        pricingService = new PricingService(new Tariff().fare(ECONOMY_ID, 300), discountRepository, 30, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        discountRepository.deleteAll();
+    }
+
+    @Test
+    void givenTicketDTOWithDiscount_whenPriced_thenDiscountedPriceIsSet() {
+        TicketDTO ticketDTO = pricingService.price(createDTO(TODAY.plusDays(3)));
+
+        // Check that the 25% student discount is applied to the fare
+        assertEquals(225, ticketDTO.getPrice());
+    }
+
+    @Test
+    void givenChangedDiscount_whenRefreshed_thenNewPercentIsUsed() {
+        discountRepository.updateId(student.getId(), new Discount().id(student.getId()).type("Student").percent(50.0));
+
+        double before = pricingService.quote(createDTO(TODAY));
+        pricingService.refresh();
+        double after = pricingService.quote(createDTO(TODAY));
+
+        // Check that quotes use the compiled discounts until the engine is refreshed
+        assertEquals(225, before);
+        assertEquals(150, after);
+    }
+
+    @Test
+    void givenDateBeyondHorizon_whenQuoted_thenIllegalArgumentExceptionIsThrown() {
+        // Check that departures after the horizon cannot be priced
+        assertThrows(IllegalArgumentException.class, () -> pricingService.quote(createDTO(TODAY.plusDays(30))));
+        assertEquals(TODAY.plusDays(29), pricingService.engine().lastDate());
+    }
+}